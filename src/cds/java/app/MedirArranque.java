@@ -0,0 +1,162 @@
+package app;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+/*
+ * Mide el ARRANQUE del servidor (perfil 'cds' del pom), lanzando el jar
+ * empaquetado como un proceso aparte con un CSV de productos típico:
+ * - Primera respuesta: desde que se lanza la JVM hasta la primera consulta
+ *   por código respondida (incluye importar el CSV), y lo que tardó esa
+ *   consulta sola.
+ * - Régimen: desde el lanzamiento hasta el primer tramo de VENTANA
+ *   peticiones cuya mediana de latencia ya está a menos de TOLERANCIA de
+ *   la del final de la corrida (la latencia en régimen).
+ * Compara el jar solo, con el archivo AppCDS y con AppCDS + '--calentar'.
+ * Cada configuración se corre varias veces y se informa la mediana.
+ *
+ * Uso: MedirArranque <jar> <archivo.jsa> <repeticiones> <segundos> <informe>
+ */
+public final class MedirArranque {
+    private static final int PRODUCTOS = 50_000;
+    private static final int VENTANA = 200;
+    private static final double TOLERANCIA = 1.25;
+
+    private record Configuracion(String nombre, List<String> jvm, boolean calentar) {}
+    private record Corrida(double primeraMs, double latenciaPrimeraMs, double regimenMs, double latenciaUs) {}
+
+    public static void main(String[] args) throws Exception {
+        Path jar = Path.of(args[0]), jsa = Path.of(args[1]);
+        int repeticiones = Integer.parseInt(args[2]);
+        long segundos = Long.parseLong(args[3]);
+        Path informe = Path.of(args[4]);
+
+        List<Configuracion> configuraciones = List.of(
+                new Configuracion("jar", List.of(), false),
+                new Configuracion("AppCDS", List.of("-XX:SharedArchiveFile=" + jsa), false),
+                new Configuracion("AppCDS + calentar", List.of("-XX:SharedArchiveFile=" + jsa), true));
+
+        Path csv = Files.createTempFile("arranque", ".csv");
+        try {
+            Inventario inv = new Inventario(PRODUCTOS);
+            for (int i = 0; i < PRODUCTOS; i++) {
+                inv.agregarProducto("P" + i, "Producto " + i, "Modelo " + (i % 97), 100 + i % 5000, i % 200);
+            }
+            CsvInventario.exportar(inv, csv);
+            calentarCliente();
+
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format(Locale.ROOT, "Arranque del servidor: %d productos, mediana de %d corridas de %d s, %d CPU%n",
+                    PRODUCTOS, repeticiones, segundos, Runtime.getRuntime().availableProcessors()));
+            sb.append(String.format(Locale.ROOT, "%-20s %16s %14s %12s %20s%n", "configuración", "1ª respuesta", "(esa petición)", "régimen", "latencia en régimen"));
+            for (Configuracion c : configuraciones) {
+                Corrida[] r = new Corrida[repeticiones];
+                for (int i = 0; i < repeticiones; i++) r[i] = correr(jar, csv, c, segundos);
+                sb.append(String.format(Locale.ROOT, "%-20s %13.0f ms %11.1f ms %9.0f ms %17.0f µs%n", c.nombre(),
+                        mediana(r, Corrida::primeraMs), mediana(r, Corrida::latenciaPrimeraMs), mediana(r, Corrida::regimenMs),
+                        mediana(r, Corrida::latenciaUs)));
+            }
+            System.out.print(sb);
+            Files.writeString(informe, sb);
+        } finally {
+            Files.deleteIfExists(csv);
+        }
+    }
+
+    // Una corrida: lanza el servidor, espera la primera respuesta y mide hasta que pasen 'segundos'
+    private static Corrida correr(Path jar, Path csv, Configuracion c, long segundos) throws Exception {
+        int puerto;
+        try (ServerSocket libre = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            puerto = libre.getLocalPort();
+        }
+        List<String> cmd = new ArrayList<>();
+        cmd.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        cmd.addAll(c.jvm());
+        cmd.addAll(List.of("-jar", jar.toString(), "--importar", csv.toString(), "--servidor", Integer.toString(puerto)));
+        if (c.calentar()) cmd.add("--calentar");
+
+        long t0 = System.nanoTime();
+        Process p = new ProcessBuilder(cmd).redirectErrorStream(true).redirectOutput(ProcessBuilder.Redirect.DISCARD).start();
+        try (Calentamiento.Cliente cliente = conectar(p, puerto)) {
+            long pedida = System.nanoTime();
+            if (cliente.pedir("GET", "/productos/P1", null) != 200) throw new IllegalStateException("Primera respuesta inesperada");
+            long primera = System.nanoTime() - t0, latenciaPrimera = System.nanoTime() - pedida;
+
+            long fin = primera + TimeUnit.SECONDS.toNanos(segundos);
+            long[] latencias = new long[1 << 16], hasta = new long[1 << 16];
+            int n = 0;
+            ThreadLocalRandom azar = ThreadLocalRandom.current();
+            for (long ahora = System.nanoTime() - t0; ahora < fin; ahora = hasta[n++]) {
+                if (n == latencias.length) {
+                    latencias = Arrays.copyOf(latencias, n * 2);
+                    hasta = Arrays.copyOf(hasta, n * 2);
+                }
+                String ruta = "/productos/P" + azar.nextInt(PRODUCTOS);
+                if ((n & 7) == 7) cliente.pedir("PUT", ruta, "{\"stock\": " + azar.nextInt(200) + "}");
+                else cliente.pedir("GET", ruta, null);
+                hasta[n] = System.nanoTime() - t0;
+                latencias[n] = hasta[n] - ahora;
+            }
+            return new Corrida(primera / 1e6, latenciaPrimera / 1e6, regimen(latencias, hasta, n) / 1e6, medianaDe(latencias, n - n / 5, n) / 1e3);
+        } finally {
+            p.destroy(); // el gancho de cierre del servidor termina solo
+            if (!p.waitFor(15, TimeUnit.SECONDS)) p.destroyForcibly().waitFor();
+        }
+    }
+
+    // Reintenta hasta que el servidor escuche (o el proceso termine)
+    private static Calentamiento.Cliente conectar(Process p, int puerto) throws Exception {
+        while (true) {
+            try {
+                return new Calentamiento.Cliente(puerto);
+            } catch (IOException e) {
+                if (!p.isAlive()) throw new IllegalStateException("El servidor terminó con código " + p.exitValue());
+                Thread.sleep(2);
+            }
+        }
+    }
+
+    // Fin del primer tramo de VENTANA peticiones con mediana dentro de la tolerancia
+    private static long regimen(long[] latencias, long[] hasta, int n) {
+        double objetivo = medianaDe(latencias, n - n / 5, n) * TOLERANCIA;
+        for (int i = 0; i + VENTANA <= n; i += VENTANA) {
+            if (medianaDe(latencias, i, i + VENTANA) <= objetivo) return hasta[i + VENTANA - 1];
+        }
+        return hasta[n - 1];
+    }
+
+    private static double medianaDe(long[] v, int desde, int hasta) {
+        long[] c = Arrays.copyOfRange(v, desde, hasta);
+        Arrays.sort(c);
+        return c[c.length / 2];
+    }
+
+    private static double mediana(Corrida[] r, ToDoubleFunction<Corrida> f) {
+        double[] v = Arrays.stream(r).mapToDouble(f).sorted().toArray();
+        return v[v.length / 2];
+    }
+
+    // El cliente de esta JVM también arranca en frío: se calienta antes de medir
+    private static void calentarCliente() throws IOException {
+        Inventario inv = new Inventario();
+        for (int i = 0; i < 100; i++) inv.agregarProducto("P" + i, "Producto", "", 1, 1);
+        try (ServidorHttp s = ServidorHttp.iniciar(inv, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+             Calentamiento.Cliente c = new Calentamiento.Cliente(s.puerto())) {
+            for (int i = 0; i < 20_000; i++) {
+                if ((i & 7) == 7) c.pedir("PUT", "/productos/P" + i % 100, "{\"stock\": 5}");
+                else c.pedir("GET", "/productos/P" + i % 100, null);
+            }
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package app;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/*
+ * Punto de entrada de target/benchmarks.jar.
+ * Acepta las mismas opciones que org.openjdk.jmh.Main y agrega siempre el
+ * perfilador de GC: cada resultado trae también la tasa de asignación
+ * (gc.alloc.rate y gc.alloc.rate.norm = bytes por operación).
+ */
+public final class Benchmarks {
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions cli = new CommandLineOptions(args);
+        Options opciones = new OptionsBuilder()
+                .parent(cli)
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(opciones).run();
+    }
+}
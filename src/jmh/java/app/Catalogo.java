@@ -0,0 +1,38 @@
+package app;
+
+import java.util.SplittableRandom;
+
+/*
+ * Datos de prueba para los benchmarks: catálogos deterministas de cualquier
+ * tamaño y muestras de códigos existentes (para no medir la creación de
+ * Strings dentro de la operación).
+ */
+final class Catalogo {
+    static final String[] PALABRAS = {
+            "lapiz", "cuaderno", "goma", "regla", "tijera", "pegamento", "carpeta", "mochila", "marcador", "compas"
+    };
+
+    private Catalogo() {}
+
+    static String codigo(int i) {
+        return "P" + i;
+    }
+
+    // Inventario con 'n' productos: nombre "<palabra> <i % 1000>", precio y stock variados
+    static Inventario crear(int n) {
+        Inventario inv = new Inventario(n);
+        for (int i = 0; i < n; i++) {
+            inv.agregarProducto(codigo(i), PALABRAS[i % PALABRAS.length] + " " + (i % 1000),
+                    "Modelo " + i, 100 + i % 5000, i % 200);
+        }
+        return inv;
+    }
+
+    // 'tam' códigos al azar (tam potencia de 2) de un catálogo de 'n' productos
+    static String[] muestra(int n, int tam) {
+        SplittableRandom r = new SplittableRandom(42);
+        String[] out = new String[tam];
+        for (int i = 0; i < tam; i++) out[i] = codigo(r.nextInt(n));
+        return out;
+    }
+}
@@ -0,0 +1,51 @@
+package app;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Camino caliente por código en InventarioCompacto: buscarPorCodigo y
+ * actualizarStock con códigos recién leídos (un String nuevo por llamada,
+ * como llegan del servidor o de un archivo).
+ * Correr con '-prof gc' para ver la asignación por operación.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g"})
+public class CodigoBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int tamano;
+
+    public InventarioCompacto inv;
+    public char[][] leidos;
+    int i;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        inv = new InventarioCompacto(tamano);
+        for (int k = 0; k < tamano; k++) {
+            inv.agregarProducto(Catalogo.codigo(k), Catalogo.PALABRAS[k % Catalogo.PALABRAS.length] + " " + (k % 1000),
+                    "Modelo " + k, 100 + k % 5000, k % 200);
+        }
+        String[] codigos = Catalogo.muestra(tamano, 1 << 14);
+        leidos = new char[codigos.length][];
+        for (int k = 0; k < codigos.length; k++) leidos[k] = codigos[k].toCharArray();
+    }
+
+    @Benchmark
+    public Optional<ProductoRO> buscarPorCodigo() {
+        return inv.buscarPorCodigo(new String(leidos[i++ & (leidos.length - 1)]));
+    }
+
+    @Benchmark
+    public boolean actualizarStock() {
+        int k = i++;
+        return inv.actualizarStock(new String(leidos[k & (leidos.length - 1)]), k & 255);
+    }
+}
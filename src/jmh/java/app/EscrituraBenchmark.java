@@ -0,0 +1,86 @@
+package app;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * Comandos de Inventario con un solo hilo (o '-t N' para varios escritores).
+ * El tamaño del catálogo se mantiene: cada alta va seguida de su baja y los
+ * movimientos de stock se compensan.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx16g"})
+public class EscrituraBenchmark {
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int tamano;
+
+    public Inventario inv;
+    public String[] codigos;
+    private final AtomicInteger hilos = new AtomicInteger();
+
+    // Estado de cada hilo: posición en la muestra y códigos nuevos propios
+    @State(Scope.Thread)
+    public static class Hilo {
+        int i;
+        String[] nuevos;
+
+        @Setup(Level.Trial)
+        public void preparar(EscrituraBenchmark b) {
+            int id = b.hilos.getAndIncrement();
+            nuevos = new String[1024];
+            for (int k = 0; k < nuevos.length; k++) nuevos[k] = "N" + id + "-" + k;
+        }
+
+        String siguiente(String[] codigos) {
+            return codigos[i++ & (codigos.length - 1)];
+        }
+
+        String nuevo() {
+            return nuevos[i++ & (nuevos.length - 1)];
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        inv = Catalogo.crear(tamano);
+        codigos = Catalogo.muestra(tamano, 1 << 14);
+        inv.listar(null, 1, Orden.PRECIO); // incluye el costo de mantener los índices ordenados
+    }
+
+    @Benchmark
+    public boolean agregarYEliminar(Hilo h) {
+        String cod = h.nuevo();
+        inv.agregarProducto(cod, "lapiz nuevo", "Alta de prueba", 990, 10);
+        return inv.eliminarPorCodigo(cod);
+    }
+
+    @Benchmark
+    public boolean actualizarPrecio(Hilo h) {
+        return inv.actualizarPrecio(h.siguiente(codigos), 100 + (h.i & 1023));
+    }
+
+    @Benchmark
+    public boolean actualizarStock(Hilo h) {
+        return inv.actualizarStock(h.siguiente(codigos), h.i & 255);
+    }
+
+    @Benchmark
+    public boolean actualizarProducto(Hilo h) {
+        return inv.actualizarProducto(h.siguiente(codigos), Catalogo.PALABRAS[h.i % 10] + " editado", null,
+                null, h.i & 255);
+    }
+
+    @Benchmark
+    public boolean incrementarYDescontar(Hilo h) {
+        String cod = h.siguiente(codigos);
+        inv.incrementarStock(cod, 1);
+        return inv.descontarStock(cod, 1);
+    }
+}
@@ -0,0 +1,87 @@
+package app;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Consultas de Inventario con un solo hilo (o '-t N' para varios lectores).
+ * Throughput y latencia (SampleTime: percentiles) por operación.
+ *
+ * El caso de 10M productos necesita un heap grande (ver @Fork); para
+ * omitirlo: -p tamano=1000,100000,1000000
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx16g"})
+public class LecturaBenchmark {
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int tamano;
+
+    public Inventario inv;
+    public String[] codigos;
+
+    // Posición propia de cada hilo en la muestra de códigos
+    @State(Scope.Thread)
+    public static class Posicion {
+        int i;
+
+        String siguiente(String[] codigos) {
+            return codigos[i++ & (codigos.length - 1)];
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        inv = Catalogo.crear(tamano);
+        codigos = Catalogo.muestra(tamano, 1 << 14);
+        inv.listar(null, 1, Orden.PRECIO); // índices ordenados ya activos
+        inv.buscarRanqueado("mochila", 1);
+    }
+
+    @Benchmark
+    public Optional<ProductoRO> buscarPorCodigo(Posicion p) {
+        return inv.buscarPorCodigo(p.siguiente(codigos));
+    }
+
+    @Benchmark
+    public List<ProductoRO> buscarPorNombre() {
+        return inv.buscarPorNombre("mochila 42"); // ~1 de cada 1000 productos
+    }
+
+    @Benchmark
+    public List<ProductoRO> buscarRanqueado() {
+        return inv.buscarRanqueado("mochila", 10); // 1 de cada 10 productos
+    }
+
+    @Benchmark
+    public List<ProductoRO> buscarRanqueadoConErrores() {
+        return inv.buscarRanqueado("mohcila 42", 10);
+    }
+
+    @Benchmark
+    public List<ProductoRO> listarTodos() {
+        return inv.listarTodos();
+    }
+
+    @Benchmark
+    public Pagina listarPaginaPorPrecio() {
+        return inv.listar(null, 50, Orden.PRECIO);
+    }
+
+    @Benchmark
+    public List<ProductoRO> informeReposicion() {
+        return inv.informeReposicion(1);
+    }
+
+    @Benchmark
+    public String generarInforme() {
+        return inv.generarInforme();
+    }
+}
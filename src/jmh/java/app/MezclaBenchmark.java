@@ -0,0 +1,79 @@
+package app;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Lecturas y escrituras concurrentes sobre el mismo inventario.
+ * - lecturaMayoritaria: 3 hilos consultan por código, 1 vende/repone.
+ * - escrituraMayoritaria: 1 hilo consulta, 3 venden/reponen.
+ * JMH informa cada rol por separado (throughput y latencia).
+ */
+@State(Scope.Group)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx16g"})
+public class MezclaBenchmark {
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int tamano;
+
+    public Inventario inv;
+    public String[] codigos;
+
+    @State(Scope.Thread)
+    public static class Posicion {
+        int i;
+
+        String siguiente(String[] codigos) {
+            return codigos[i++ & (codigos.length - 1)];
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        inv = Catalogo.crear(tamano);
+        codigos = Catalogo.muestra(tamano, 1 << 14);
+    }
+
+    private Optional<ProductoRO> leer(Posicion p) {
+        return inv.buscarPorCodigo(p.siguiente(codigos));
+    }
+
+    private boolean escribir(Posicion p) {
+        String cod = p.siguiente(codigos);
+        return (p.i & 1) == 0 ? inv.descontarStock(cod, 1) : inv.incrementarStock(cod, 1);
+    }
+
+    @Benchmark
+    @Group("lecturaMayoritaria")
+    @GroupThreads(3)
+    public Optional<ProductoRO> lm_lector(Posicion p) {
+        return leer(p);
+    }
+
+    @Benchmark
+    @Group("lecturaMayoritaria")
+    @GroupThreads(1)
+    public boolean lm_escritor(Posicion p) {
+        return escribir(p);
+    }
+
+    @Benchmark
+    @Group("escrituraMayoritaria")
+    @GroupThreads(1)
+    public Optional<ProductoRO> em_lector(Posicion p) {
+        return leer(p);
+    }
+
+    @Benchmark
+    @Group("escrituraMayoritaria")
+    @GroupThreads(3)
+    public boolean em_escritor(Posicion p) {
+        return escribir(p);
+    }
+}
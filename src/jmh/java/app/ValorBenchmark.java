@@ -0,0 +1,67 @@
+package app;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Valor total del inventario recorriendo columnas: el recorrido anterior
+ * (precio double redondeado fila por fila, salteando filas libres) contra
+ * el de punto fijo (Dinero.total: centavos long, sin ramas).
+ * Cada fila libre tiene stock 0 en la versión de centavos.
+ * 'analitica' es el informe analítico completo (bandas, top 10, ...) sobre
+ * las mismas columnas, en paralelo.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ValorBenchmark {
+
+    private static final long[] BANDAS = {1_000, 5_000, 10_000, 50_000, 100_000};
+
+    @Param({"1000", "100000", "10000000"})
+    public int tamano;
+
+    public double[] precios;
+    public long[] centavos;
+    public int[] stock;
+    public boolean[] viva;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        SplittableRandom r = new SplittableRandom(42);
+        precios = new double[tamano];
+        centavos = new long[tamano];
+        stock = new int[tamano];
+        viva = new boolean[tamano];
+        for (int i = 0; i < tamano; i++) {
+            centavos[i] = r.nextLong(1_000_000);
+            precios[i] = centavos[i] / 100.0;
+            viva[i] = r.nextInt(10) != 0;
+            stock[i] = viva[i] ? r.nextInt(500) : 0;
+        }
+    }
+
+    @Benchmark
+    public long dobles() {
+        long v = 0;
+        for (int i = 0; i < tamano; i++) {
+            if (viva[i]) v += Math.round(precios[i] * 100) * stock[i];
+        }
+        return v;
+    }
+
+    @Benchmark
+    public long centavos() {
+        return Dinero.total(centavos, stock, tamano);
+    }
+
+    @Benchmark
+    public InformeAnalitico analitica() {
+        return Analitica.calcular(centavos, stock, viva, tamano, BANDAS, 10, Catalogo::codigo);
+    }
+}
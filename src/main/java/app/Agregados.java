@@ -0,0 +1,89 @@
+package app;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Totales del inventario mantenidos AL VUELO.
+ * - Cantidad de productos y valor total (precio * stock) en centavos.
+ * - Se actualizan en O(1) con cada alta, baja y cambio de estado, así
+ *   generarInforme no recorre el mapa.
+ * - LongAdder sobre enteros: suma exacta y sin contención entre hilos.
+ *
+ * Como Producto.Observador recibe (vía Inventario) los cambios de precio/stock
+ * de los productos de su inventario; las altas y bajas las avisa Inventario.
+ */
+final class Agregados implements Producto.Observador {
+    private final LongAdder cantidad = new LongAdder();
+    private final LongAdder valorCentavos = new LongAdder();
+
+    /*
+     * Acumulador local de un lote de comandos: las altas y bajas del lote se
+     * suman aquí y se aplican a los totales UNA vez al final (aplicar).
+     * Lo usa un solo hilo, por eso son campos simples.
+     */
+    static final class Lote {
+        private long cantidad;
+        private long valorCentavos;
+    }
+
+    // Un producto entra al inventario con el estado 'e' (lote puede ser null)
+    void alta(Producto.Estado e, Lote lote) {
+        if (lote != null) {
+            lote.cantidad++;
+            lote.valorCentavos += e.valorCentavos();
+            return;
+        }
+        cantidad.increment();
+        valorCentavos.add(e.valorCentavos());
+    }
+
+    // Un producto sale del inventario con su último estado 'e' (lote puede ser null)
+    void baja(Producto.Estado e, Lote lote) {
+        if (lote != null) {
+            lote.cantidad--;
+            lote.valorCentavos -= e.valorCentavos();
+            return;
+        }
+        cantidad.decrement();
+        valorCentavos.add(-e.valorCentavos());
+    }
+
+    // Suma totales ya calculados (p. ej. la cabecera de un snapshot)
+    void sumar(long productos, long centavos) {
+        cantidad.add(productos);
+        valorCentavos.add(centavos);
+    }
+
+    // Vuelca lo acumulado por un lote
+    void aplicar(Lote lote) {
+        if (lote.cantidad != 0) cantidad.add(lote.cantidad);
+        if (lote.valorCentavos != 0) valorCentavos.add(lote.valorCentavos);
+    }
+
+    @Override
+    public void cambio(Producto p, Producto.Estado antes, Producto.Estado despues) {
+        long delta = despues.valorCentavos() - antes.valorCentavos();
+        if (delta != 0) valorCentavos.add(delta);
+    }
+
+    long cantidad()      { return cantidad.sum(); }
+    long valorCentavos() { return valorCentavos.sum(); }
+
+    // Informe con el mismo formato de siempre ("%.2f"), sin String.format
+    String informe() {
+        return "Productos: " + cantidad() + " | Valor inventario: " + formatoCentavos(valorCentavos());
+    }
+
+    // 12345 -> "123.45"
+    static String formatoCentavos(long c) {
+        StringBuilder sb = new StringBuilder(24);
+        if (c < 0) {
+            sb.append('-');
+            c = -c;
+        }
+        long resto = c % 100;
+        sb.append(c / 100).append('.');
+        if (resto < 10) sb.append('0');
+        return sb.append(resto).toString();
+    }
+}
@@ -0,0 +1,440 @@
+package app;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/*
+ * Almacén clave-valor en disco para productos (código -> valores).
+ * - 'productos.dat': registros agregados al final; cada escritura agrega
+ *   la versión nueva y nunca pisa las viejas (un lote = una escritura).
+ * - 'productos.idx': tabla hash de direccionamiento abierto mapeada en
+ *   memoria (posición del último registro + hash del código por casillero).
+ *   Se duplica cuando se llena a la mitad. Así el heap no crece con el
+ *   catálogo: en memoria solo queda lo que el sistema operativo cachea.
+ *   Se mapea en SEGMENTOS (un MappedByteBuffer no pasa de 2 GB) y se
+ *   direcciona con long.
+ * - Las bajas son registros marcados como borrados.
+ * - La cabecera del índice guarda cantidad y valor total en centavos,
+ *   escritos en cada lote: se reabre con los totales listos.
+ * - COMPACTACIÓN: cuando lo muerto (versiones viejas y bajas) supera a lo
+ *   vivo, se reescriben los vivos en un archivo de datos nuevo
+ *   ('productos.<generación>.dat') con su índice nuevo. El cambio se
+ *   confirma al reemplazar el índice, que dice qué generación usar.
+ *
+ * Orden en disco: cada lote fuerza los datos ANTES de tocar el índice, así
+ * el índice nunca apunta más allá de lo que está en disco. No reemplaza a
+ * Persistencia: no hay diario, y tras una caída el índice puede no tener
+ * los últimos lotes (se fuerza al cerrar, al crecer y al compactar).
+ */
+final class AlmacenDisco implements Closeable {
+    private static final int MAGIA = 0x494E564B; // "INVK"
+    private static final int FORMATO = 1;
+    private static final int CABECERA = 64;
+    private static final int CASILLERO = 16;
+    private static final int CAPACIDAD_INICIAL = 1024;
+    // El hash es de 32 bits: más casilleros no reparten mejor
+    private static final long CAPACIDAD_MAXIMA = 1L << 32;
+    static final int BYTES_POR_SEGMENTO = 1 << 30;
+    // No compacta archivos de datos chicos
+    private static final long COMPACTAR_DESDE = 1 << 20;
+
+    // Valores guardados de un producto
+    record Registro(String codigo, String nombre, String descripcion, double precio, int stock, int reservado) {}
+
+    /*
+     * Índice mapeado en segmentos de 'porSegmento' bytes (potencia de 2,
+     * múltiplo de CASILLERO: un casillero nunca cruza dos segmentos).
+     */
+    private static final class Tabla {
+        final MappedByteBuffer[] segmentos;
+        final int bits;
+        final long mascara;
+
+        Tabla(MappedByteBuffer[] segmentos, int porSegmento, long capacidad) {
+            this.segmentos = segmentos;
+            this.bits = Integer.numberOfTrailingZeros(porSegmento);
+            this.mascara = capacidad - 1;
+        }
+
+        private ByteBuffer segmento(long off) { return segmentos[(int) (off >>> bits)]; }
+        private int dentro(long off)          { return (int) (off & ((1L << bits) - 1)); }
+
+        long getLong(long off)         { return segmento(off).getLong(dentro(off)); }
+        int getInt(long off)           { return segmento(off).getInt(dentro(off)); }
+        void putLong(long off, long v) { segmento(off).putLong(dentro(off), v); }
+        void putInt(long off, int v)   { segmento(off).putInt(dentro(off), v); }
+
+        // Primer casillero a probar para el hash
+        long inicio(int h) { return (h & 0xFFFFFFFFL) & mascara; }
+
+        // Posición del registro + 1 (0 = casillero libre)
+        long posicion(long i) { return getLong(CABECERA + i * CASILLERO); }
+        int hash(long i)      { return getInt(CABECERA + i * CASILLERO + 8); }
+
+        void poner(long i, long posicionMasUno, int h) {
+            putLong(CABECERA + i * CASILLERO, posicionMasUno);
+            putInt(CABECERA + i * CASILLERO + 8, h);
+        }
+
+        // Casillero libre para el hash (la tabla nueva no tiene repetidos)
+        long libre(int h) {
+            long j = inicio(h);
+            while (posicion(j) != 0) j = (j + 1) & mascara;
+            return j;
+        }
+
+        void force() {
+            for (MappedByteBuffer m : segmentos) m.force();
+        }
+    }
+
+    private final Path dir;
+    private final Path archivoIndice;
+    private final int porSegmento;
+    private FileChannel datos;
+    private Tabla indice;
+    private long generacion;    // qué 'productos.<n>.dat' usa el índice
+    private long ocupados;      // casilleros usados (vivos o borrados)
+    private long cantidad;      // productos vivos
+    private long valorCentavos; // de los vivos
+    private long bytesVivos;    // de los registros vivos (para decidir la compactación)
+    private long fin;           // largo del archivo de datos
+
+    private AlmacenDisco(Path dir, int porSegmento) throws IOException {
+        Files.createDirectories(dir);
+        this.dir = dir;
+        this.archivoIndice = dir.resolve("productos.idx");
+        this.porSegmento = porSegmento;
+        if (Files.exists(archivoIndice)) {
+            MappedByteBuffer[] m = mapear(archivoIndice, Files.size(archivoIndice), porSegmento);
+            if (m[0].getInt(0) != MAGIA || m[0].getInt(4) != FORMATO) throw new IOException("Formato desconocido");
+            indice = new Tabla(m, porSegmento, m[0].getLong(8));
+            ocupados = m[0].getLong(16);
+            cantidad = m[0].getLong(24);
+            valorCentavos = m[0].getLong(32);
+            generacion = m[0].getLong(40);
+            bytesVivos = m[0].getLong(48);
+        } else {
+            indice = crearIndice(archivoIndice, CAPACIDAD_INICIAL);
+        }
+        this.datos = FileChannel.open(archivoDatos(generacion),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.fin = datos.size();
+        guardarCabecera();
+        borrarOtrasGeneraciones(); // restos de una compactación que no llegó a confirmarse (o ya confirmada)
+    }
+
+    // Abre (o crea) el almacén en el directorio
+    static AlmacenDisco abrir(Path dir) throws IOException {
+        return new AlmacenDisco(dir, BYTES_POR_SEGMENTO);
+    }
+
+    // Con segmentos de índice más chicos (pruebas)
+    static AlmacenDisco abrir(Path dir, int bytesPorSegmento) throws IOException {
+        if (Integer.bitCount(bytesPorSegmento) != 1 || bytesPorSegmento < CABECERA) {
+            throw new IllegalArgumentException("Segmento inválido: " + bytesPorSegmento);
+        }
+        return new AlmacenDisco(dir, bytesPorSegmento);
+    }
+
+    synchronized long cantidad()      { return cantidad; }
+    synchronized long valorCentavos() { return valorCentavos; }
+
+    // Largo del archivo de datos actual
+    synchronized long bytesDatos()    { return fin; }
+
+    // ---------- Lectura ----------
+
+    // Último registro del código, o null si no existe o está borrado
+    synchronized Registro leer(String codigo) throws IOException {
+        int h = hash(codigo);
+        for (long i = indice.inicio(h); ; i = (i + 1) & indice.mascara) {
+            long pos = indice.posicion(i) - 1;
+            if (pos < 0) return null;
+            if (indice.hash(i) == h && codigoEn(pos).equals(codigo)) {
+                return registro(pos); // null si es un borrado
+            }
+        }
+    }
+
+    // ---------- Escritura ----------
+
+    /*
+     * Guarda un lote en una sola escritura y actualiza el índice. 'borrados'
+     * son códigos dados de baja (se aplican después de 'registros').
+     * Los datos se fuerzan a disco antes de tocar el índice.
+     */
+    synchronized void escribir(List<Registro> registros, List<String> borrados) throws IOException {
+        ByteBuffer b = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+        long[] posiciones = new long[registros.size() + borrados.size() + 1];
+        int k = 0;
+        for (Registro r : registros) {
+            posiciones[k++] = fin + b.position();
+            b = codificar(b, r.codigo(), r);
+        }
+        for (String c : borrados) {
+            posiciones[k++] = fin + b.position();
+            b = codificar(b, c, null);
+        }
+        posiciones[k] = fin + b.position();
+        b.flip();
+        long p = fin;
+        while (b.hasRemaining()) p += datos.write(b, p);
+        datos.force(false);
+
+        k = 0;
+        for (Registro r : registros) {
+            ubicar(r.codigo(), posiciones[k], posiciones[k + 1] - posiciones[k], r);
+            k++;
+        }
+        for (String c : borrados) ubicar(c, posiciones[k++], 0, null);
+        fin = p;
+        guardarCabecera();
+        if (fin > COMPACTAR_DESDE && fin > 2 * bytesVivos) compactar();
+    }
+
+    // Agrega el registro (null = borrado) al buffer, creciéndolo si hace falta
+    private static ByteBuffer codificar(ByteBuffer b, String codigo, Registro r) {
+        byte[] c = codigo.getBytes(StandardCharsets.UTF_8);
+        byte[] n = r == null || r.nombre() == null ? null : r.nombre().getBytes(StandardCharsets.UTF_8);
+        byte[] d = r == null || r.descripcion() == null ? null : r.descripcion().getBytes(StandardCharsets.UTF_8);
+        int largo = 4 + 1 + 4 + c.length + 4 + (n == null ? 0 : n.length) + 4 + (d == null ? 0 : d.length) + 16;
+        if (b.remaining() < largo) {
+            ByteBuffer mas = ByteBuffer.allocate(Math.max(b.capacity() * 2, b.position() + largo)).order(ByteOrder.LITTLE_ENDIAN);
+            b.flip();
+            b = mas.put(b);
+        }
+        b.putInt(largo).put((byte) (r == null ? 1 : 0));
+        b.putInt(c.length).put(c);
+        b.putInt(n == null ? -1 : n.length);
+        if (n != null) b.put(n);
+        b.putInt(d == null ? -1 : d.length);
+        if (d != null) b.put(d);
+        b.putDouble(r == null ? 0 : r.precio()).putInt(r == null ? 0 : r.stock()).putInt(r == null ? 0 : r.reservado());
+        return b;
+    }
+
+    // Apunta el casillero del código al registro en 'pos' (de 'largo' bytes) y ajusta los totales
+    private void ubicar(String codigo, long pos, long largo, Registro nuevo) throws IOException {
+        int h = hash(codigo);
+        long i = indice.inicio(h);
+        for (; ; i = (i + 1) & indice.mascara) {
+            long previo = indice.posicion(i) - 1;
+            if (previo < 0) break;
+            if (indice.hash(i) == h && codigoEn(previo).equals(codigo)) {
+                Registro viejo = registro(previo);
+                if (viejo != null) {
+                    cantidad--;
+                    valorCentavos -= centavos(viejo);
+                    bytesVivos -= largoEn(previo);
+                }
+                break;
+            }
+        }
+        boolean libre = indice.posicion(i) == 0;
+        indice.poner(i, pos + 1, h);
+        if (nuevo != null) {
+            cantidad++;
+            valorCentavos += centavos(nuevo);
+            bytesVivos += largo;
+        }
+        if (libre && ++ocupados * 2 > indice.mascara + 1) crecer();
+    }
+
+    // Duplica la tabla: los casilleros guardan el hash, no hace falta leer los datos
+    private void crecer() throws IOException {
+        long capacidad = (indice.mascara + 1) * 2;
+        if (capacidad > CAPACIDAD_MAXIMA) throw new IOException("Índice lleno: " + ocupados + " casilleros");
+        Path tmp = archivoIndice.resolveSibling("productos.idx.tmp");
+        Tabla nuevo = crearIndice(tmp, capacidad);
+        for (long i = 0; i <= indice.mascara; i++) {
+            long pos = indice.posicion(i);
+            if (pos == 0) continue;
+            int h = indice.hash(i);
+            nuevo.poner(nuevo.libre(h), pos, h);
+        }
+        indice = nuevo;
+        guardarCabecera();
+        nuevo.force();
+        Files.move(tmp, archivoIndice, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /*
+     * Reescribe solo los registros vivos en 'productos.<generación+1>.dat'
+     * con un índice nuevo (sin bajas ni versiones viejas). Datos e índice
+     * nuevos se fuerzan a disco y recién entonces el índice reemplaza al
+     * anterior: una caída antes deja el almacén como estaba.
+     */
+    synchronized void compactar() throws IOException {
+        long siguiente = generacion + 1;
+        Path archivo = archivoDatos(siguiente);
+        Path tmp = archivoIndice.resolveSibling("productos.idx.tmp");
+        long capacidad = CAPACIDAD_INICIAL;
+        while (cantidad * 2 >= capacidad) capacidad *= 2;
+        Tabla nuevo = crearIndice(tmp, capacidad);
+        long escritos = 0;
+        FileChannel nuevos = FileChannel.open(archivo, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            ByteBuffer b = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+            for (long i = 0; i <= indice.mascara; i++) {
+                long pos = indice.posicion(i) - 1;
+                if (pos < 0) continue;
+                ByteBuffer r = leerEn(pos, largoEn(pos));
+                if (r.get(4) == 1) continue; // borrado
+                if (b.remaining() < r.limit()) {
+                    b.flip();
+                    while (b.hasRemaining()) escritos += nuevos.write(b, escritos);
+                    b.clear();
+                    if (b.capacity() < r.limit()) b = ByteBuffer.allocate(r.limit()).order(ByteOrder.LITTLE_ENDIAN);
+                }
+                int h = indice.hash(i);
+                nuevo.poner(nuevo.libre(h), escritos + b.position() + 1, h);
+                b.put(r);
+            }
+            b.flip();
+            while (b.hasRemaining()) escritos += nuevos.write(b, escritos);
+            nuevos.force(true);
+        } catch (IOException | RuntimeException e) {
+            nuevos.close();
+            Files.deleteIfExists(archivo);
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+
+        cabecera(nuevo, cantidad, siguiente, escritos);
+        nuevo.force();
+        try {
+            Files.move(tmp, archivoIndice, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            nuevos.close(); // el índice viejo sigue siendo el confirmado
+            Files.deleteIfExists(archivo);
+            throw e;
+        }
+        datos.close();
+        indice = nuevo;
+        datos = nuevos;
+        generacion = siguiente;
+        ocupados = cantidad;
+        bytesVivos = escritos;
+        fin = escritos;
+        borrarOtrasGeneraciones();
+    }
+
+    private void guardarCabecera() {
+        cabecera(indice, ocupados, generacion, bytesVivos);
+    }
+
+    private void cabecera(Tabla t, long ocupados, long generacion, long bytesVivos) {
+        t.putInt(0, MAGIA);
+        t.putInt(4, FORMATO);
+        t.putLong(8, t.mascara + 1);
+        t.putLong(16, ocupados);
+        t.putLong(24, cantidad);
+        t.putLong(32, valorCentavos);
+        t.putLong(40, generacion);
+        t.putLong(48, bytesVivos);
+    }
+
+    // ---------- Formato ----------
+
+    // La generación 0 es el 'productos.dat' original
+    private Path archivoDatos(long g) {
+        return dir.resolve(g == 0 ? "productos.dat" : "productos." + g + ".dat");
+    }
+
+    private void borrarOtrasGeneraciones() throws IOException {
+        Path actual = archivoDatos(generacion);
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir, "productos*.dat")) {
+            for (Path p : ds) {
+                if (!p.getFileName().equals(actual.getFileName())) Files.deleteIfExists(p);
+            }
+        }
+    }
+
+    private static long centavos(Registro r) {
+        return Dinero.valor(Math.round(r.precio() * 100), r.stock());
+    }
+
+    private static int hash(String codigo) {
+        int h = codigo.hashCode() * 0x9e3779b9;
+        return h ^ h >>> 16;
+    }
+
+    private ByteBuffer leerEn(long pos, int largo) throws IOException {
+        ByteBuffer b = ByteBuffer.allocate(largo).order(ByteOrder.LITTLE_ENDIAN);
+        while (b.hasRemaining()) {
+            if (datos.read(b, pos + b.position()) < 0) throw new IOException("Registro truncado en " + pos);
+        }
+        return b.flip();
+    }
+
+    private int largoEn(long pos) throws IOException {
+        return leerEn(pos, 4).getInt();
+    }
+
+    private String codigoEn(long pos) throws IOException {
+        ByteBuffer b = leerEn(pos, 9);
+        b.position(5);
+        int n = b.getInt();
+        return new String(leerEn(pos + 9, n).array(), StandardCharsets.UTF_8);
+    }
+
+    // Registro en 'pos' (null si es un borrado)
+    private Registro registro(long pos) throws IOException {
+        ByteBuffer b = leerEn(pos, largoEn(pos));
+        b.getInt();
+        boolean borrado = b.get() == 1;
+        String codigo = texto(b);
+        String nombre = texto(b);
+        String descripcion = texto(b);
+        if (borrado) return null;
+        return new Registro(codigo, nombre, descripcion, b.getDouble(), b.getInt(), b.getInt());
+    }
+
+    private static String texto(ByteBuffer b) {
+        int n = b.getInt();
+        if (n < 0) return null;
+        String s = new String(b.array(), b.position(), n, StandardCharsets.UTF_8);
+        b.position(b.position() + n);
+        return s;
+    }
+
+    private Tabla crearIndice(Path archivo, long capacidad) throws IOException {
+        Files.deleteIfExists(archivo);
+        return new Tabla(mapear(archivo, CABECERA + capacidad * CASILLERO, porSegmento), porSegmento, capacidad);
+    }
+
+    // El archivo en segmentos de 'porSegmento' bytes (el último puede ser más corto)
+    private static MappedByteBuffer[] mapear(Path archivo, long largo, int porSegmento) throws IOException {
+        try (FileChannel c = FileChannel.open(archivo, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            MappedByteBuffer[] m = new MappedByteBuffer[(int) ((largo + porSegmento - 1) / porSegmento)];
+            for (int s = 0; s < m.length; s++) {
+                long desde = (long) s * porSegmento;
+                m[s] = c.map(FileChannel.MapMode.READ_WRITE, desde, Math.min(porSegmento, largo - desde));
+                m[s].order(ByteOrder.LITTLE_ENDIAN);
+            }
+            return m;
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        guardarCabecera();
+        datos.force(true); // también aquí, los datos antes que el índice
+        indice.force();
+        datos.close();
+    }
+}
@@ -0,0 +1,194 @@
+package app;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.IntFunction;
+
+/*
+ * Motor del informe analítico: UNA pasada sobre columnas de precio
+ * (centavos) y stock calcula todos los agregados a la vez.
+ * - Cantidad, sin stock, valor total, mínimo/máximo/promedio de precio,
+ *   cantidad y valor por banda de precio y los N de mayor valor.
+ * - En paralelo con fork-join: el rango de filas se parte en mitades hasta
+ *   UMBRAL filas; cada hoja recorre su tramo con acumuladores locales (sin
+ *   compartir nada) y los parciales se combinan al volver.
+ * - La banda se calcula sin ramas (se cuentan los límites <= precio), así
+ *   el bucle es un recorrido secuencial de arreglos primitivos.
+ * - Aritmética exacta: un valor que no entra en un long lanza
+ *   ArithmeticException en vez de dar un total equivocado.
+ *
+ * Las columnas las arma cada inventario (InventarioCompacto ya las tiene;
+ * Inventario las copia desde una instantánea).
+ */
+final class Analitica {
+    static final int UMBRAL = 1 << 15;
+
+    private Analitica() {}
+
+    // Límites de banda en centavos; IllegalArgumentException si no son precios válidos y crecientes
+    static long[] limites(double[] bandas) {
+        long[] l = new long[bandas == null ? 0 : bandas.length];
+        for (int i = 0; i < l.length; i++) {
+            l[i] = Dinero.centavos(bandas[i]);
+            if (l[i] < 0 || (i > 0 && l[i] <= l[i - 1])) {
+                throw new IllegalArgumentException("Límites de banda inválidos: " + Arrays.toString(bandas));
+            }
+        }
+        return l;
+    }
+
+    /*
+     * Informe de las filas [0, n). 'viva' puede ser null (todas cuentan).
+     * 'codigo' se usa solo para los N de mayor valor, al final.
+     */
+    static InformeAnalitico calcular(long[] precio, int[] stock, boolean[] viva, int n,
+                                     long[] limites, int top, IntFunction<String> codigo) {
+        if (top < 0) throw new IllegalArgumentException("top inválido: " + top);
+        Tarea t = new Tarea(precio, stock, viva, limites, top, 0, n);
+        Parcial p = n <= UMBRAL ? t.compute() : ForkJoinPool.commonPool().invoke(t);
+        return p.informe(limites, codigo);
+    }
+
+    private static final class Tarea extends RecursiveTask<Parcial> {
+        private static final long serialVersionUID = 1L;
+
+        private final long[] precio;
+        private final int[] stock;
+        private final boolean[] viva;
+        private final long[] limites;
+        private final int top;
+        private final int desde, hasta;
+
+        Tarea(long[] precio, int[] stock, boolean[] viva, long[] limites, int top, int desde, int hasta) {
+            this.precio = precio;
+            this.stock = stock;
+            this.viva = viva;
+            this.limites = limites;
+            this.top = top;
+            this.desde = desde;
+            this.hasta = hasta;
+        }
+
+        @Override
+        protected Parcial compute() {
+            if (hasta - desde <= UMBRAL) return recorrer();
+            int medio = (desde + hasta) >>> 1;
+            Tarea izq = new Tarea(precio, stock, viva, limites, top, desde, medio);
+            izq.fork();
+            Parcial der = new Tarea(precio, stock, viva, limites, top, medio, hasta).compute();
+            return izq.join().combinar(der);
+        }
+
+        private Parcial recorrer() {
+            Parcial p = new Parcial(limites.length + 1, top);
+            long productos = 0, agotados = 0, valor = 0, suma = 0;
+            long min = Long.MAX_VALUE, max = Long.MIN_VALUE;
+            long[] bandaProductos = p.bandaProductos;
+            long[] bandaValor = p.bandaValor;
+            for (int i = desde; i < hasta; i++) {
+                if (viva != null && !viva[i]) continue;
+                long pr = precio[i];
+                int s = stock[i];
+                long v = Math.multiplyExact(pr, (long) s);
+                productos++;
+                agotados += s <= 0 ? 1 : 0;
+                valor = Math.addExact(valor, v);
+                suma = Math.addExact(suma, pr);
+                min = Math.min(min, pr);
+                max = Math.max(max, pr);
+                int b = 0;
+                for (long l : limites) b += pr >= l ? 1 : 0;
+                bandaProductos[b]++;
+                bandaValor[b] += v;
+                if (top > 0) p.destacar(v, i);
+            }
+            p.productos = productos;
+            p.agotados = agotados;
+            p.valor = valor;
+            p.sumaPrecios = suma;
+            p.min = min;
+            p.max = max;
+            return p;
+        }
+    }
+
+    // Acumuladores de un tramo
+    private static final class Parcial {
+        long productos, agotados, valor, sumaPrecios;
+        long min = Long.MAX_VALUE, max = Long.MIN_VALUE;
+        final long[] bandaProductos;
+        final long[] bandaValor;
+        // Montículo de mínimo con los 'top' de mayor valor (valor y fila)
+        final long[] topValor;
+        final int[] topFila;
+        int enTop;
+
+        Parcial(int bandas, int top) {
+            bandaProductos = new long[bandas];
+            bandaValor = new long[bandas];
+            topValor = new long[top];
+            topFila = new int[top];
+        }
+
+        void destacar(long v, int fila) {
+            if (enTop < topValor.length) {
+                int i = enTop++;
+                while (i > 0 && topValor[(i - 1) >>> 1] > v) { // sube
+                    int padre = (i - 1) >>> 1;
+                    topValor[i] = topValor[padre];
+                    topFila[i] = topFila[padre];
+                    i = padre;
+                }
+                topValor[i] = v;
+                topFila[i] = fila;
+            } else if (v > topValor[0]) {
+                int i = 0;
+                while (true) { // baja desde la raíz
+                    int h = 2 * i + 1;
+                    if (h >= enTop) break;
+                    if (h + 1 < enTop && topValor[h + 1] < topValor[h]) h++;
+                    if (topValor[h] >= v) break;
+                    topValor[i] = topValor[h];
+                    topFila[i] = topFila[h];
+                    i = h;
+                }
+                topValor[i] = v;
+                topFila[i] = fila;
+            }
+        }
+
+        Parcial combinar(Parcial o) {
+            productos += o.productos;
+            agotados += o.agotados;
+            valor = Math.addExact(valor, o.valor);
+            sumaPrecios = Math.addExact(sumaPrecios, o.sumaPrecios);
+            min = Math.min(min, o.min);
+            max = Math.max(max, o.max);
+            for (int b = 0; b < bandaProductos.length; b++) {
+                bandaProductos[b] += o.bandaProductos[b];
+                bandaValor[b] += o.bandaValor[b];
+            }
+            for (int i = 0; i < o.enTop; i++) destacar(o.topValor[i], o.topFila[i]);
+            return this;
+        }
+
+        InformeAnalitico informe(long[] limites, IntFunction<String> codigo) {
+            List<InformeAnalitico.Banda> bandas = new ArrayList<>(bandaProductos.length);
+            for (int b = 0; b < bandaProductos.length; b++) {
+                bandas.add(new InformeAnalitico.Banda(b == 0 ? 0 : limites[b - 1],
+                        b < limites.length ? limites[b] : -1, bandaProductos[b], bandaValor[b]));
+            }
+            Integer[] orden = new Integer[enTop];
+            for (int i = 0; i < enTop; i++) orden[i] = i;
+            Arrays.sort(orden, (a, b) -> Long.compare(topValor[b], topValor[a]));
+            List<InformeAnalitico.Destacado> mayores = new ArrayList<>(enTop);
+            for (int i : orden) mayores.add(new InformeAnalitico.Destacado(codigo.apply(topFila[i]), topValor[i]));
+            boolean vacio = productos == 0;
+            return new InformeAnalitico(productos, agotados, valor, vacio ? 0 : min, vacio ? 0 : max,
+                    vacio ? 0 : (double) sumaPrecios / productos, bandas, mayores);
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package app;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/*
+ * Caché acotada por cantidad con política W-TinyLFU.
+ * - Ventana LRU chica (1%) para las entradas nuevas y zona principal SLRU
+ *   (20% a prueba, 80% protegida) para las que ya demostraron uso.
+ * - Al salir de la ventana, una entrada solo entra a la zona principal si
+ *   se usó más que la víctima que desplazaría. La frecuencia se estima con
+ *   un count-min de contadores de 4 bits que se reducen a la mitad cada
+ *   10 x maximo accesos (así lo viejo pierde peso).
+ * - get no espera: busca en un ConcurrentHashMap y anota el acceso solo si
+ *   consigue el lock al instante (bajo contención se pierden algunas
+ *   anotaciones, no cambia el resultado).
+ * - 'desalojo' se llama con el lock tomado ANTES de quitar la entrada del
+ *   mapa: quien la busque la sigue encontrando hasta que se guardó en otro lado.
+ */
+final class CacheTinyLfu<K, V> {
+
+    interface Desalojo<K, V> {
+        void desalojado(K clave, V valor);
+    }
+
+    private static final int VENTANA = 0, PRUEBA = 1, PROTEGIDA = 2;
+
+    private static final class Nodo<K, V> {
+        final K clave;
+        volatile V valor;
+        int zona;
+        Nodo<K, V> ant, sig; // null = fuera de las listas
+
+        Nodo(K clave, V valor) {
+            this.clave = clave;
+            this.valor = valor;
+        }
+    }
+
+    // Lista doble con centinela: el frente es lo más reciente
+    private static final class Lista<K, V> {
+        final Nodo<K, V> centinela = new Nodo<>(null, null);
+        int tam;
+
+        Lista() {
+            centinela.ant = centinela.sig = centinela;
+        }
+
+        void alFrente(Nodo<K, V> n) {
+            n.sig = centinela.sig;
+            n.ant = centinela;
+            centinela.sig.ant = n;
+            centinela.sig = n;
+            tam++;
+        }
+
+        void quitar(Nodo<K, V> n) {
+            n.ant.sig = n.sig;
+            n.sig.ant = n.ant;
+            n.ant = n.sig = null;
+            tam--;
+        }
+
+        Nodo<K, V> ultimo() {
+            return centinela.ant == centinela ? null : centinela.ant;
+        }
+    }
+
+    private final ConcurrentHashMap<K, Nodo<K, V>> mapa;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Lista<K, V> ventana = new Lista<>();
+    private final Lista<K, V> prueba = new Lista<>();
+    private final Lista<K, V> protegida = new Lista<>();
+    private final int maximo;
+    private final int maxVentana;
+    private final int maxProtegida;
+    private final Frecuencias frecuencias;
+    private final Desalojo<K, V> desalojo;
+
+    CacheTinyLfu(int maximo, Desalojo<K, V> desalojo) {
+        if (maximo < 1) throw new IllegalArgumentException("Tamaño de caché inválido: " + maximo);
+        this.maximo = maximo;
+        this.maxVentana = Math.max(1, maximo / 100);
+        this.maxProtegida = (int) ((maximo - maxVentana) * 0.8);
+        this.frecuencias = new Frecuencias(maximo);
+        this.desalojo = desalojo;
+        this.mapa = new ConcurrentHashMap<>(Math.min(maximo, 1 << 16));
+    }
+
+    int maximo() { return maximo; }
+    int tamano() { return mapa.size(); }
+
+    V get(K clave) {
+        Nodo<K, V> n = mapa.get(clave);
+        if (lock.tryLock()) {
+            try {
+                if (n != null) acceso(n);
+                else frecuencias.incrementar(clave.hashCode()); // los fallos también cuentan
+            } finally {
+                lock.unlock();
+            }
+        }
+        return n == null ? null : n.valor;
+    }
+
+    // Valor sin anotar el acceso (para verificaciones internas)
+    V ver(K clave) {
+        Nodo<K, V> n = mapa.get(clave);
+        return n == null ? null : n.valor;
+    }
+
+    // Agrega o reemplaza; puede desalojar otras entradas (o la misma, si no gana la admisión)
+    void put(K clave, V valor) {
+        lock.lock();
+        try {
+            Nodo<K, V> n = mapa.get(clave);
+            if (n != null) {
+                n.valor = valor;
+                acceso(n);
+                return;
+            }
+            n = new Nodo<>(clave, valor);
+            frecuencias.incrementar(clave.hashCode());
+            mapa.put(clave, n);
+            n.zona = VENTANA;
+            ventana.alFrente(n);
+            desalojar();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Quita sin avisar a 'desalojo'
+    void remove(K clave) {
+        lock.lock();
+        try {
+            Nodo<K, V> n = mapa.remove(clave);
+            if (n != null && n.ant != null) lista(n.zona).quitar(n);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Lista<K, V> lista(int zona) {
+        return zona == VENTANA ? ventana : zona == PRUEBA ? prueba : protegida;
+    }
+
+    private void acceso(Nodo<K, V> n) {
+        if (n.ant == null) return; // se fue mientras tanto
+        frecuencias.incrementar(n.clave.hashCode());
+        switch (n.zona) {
+            case VENTANA -> {
+                ventana.quitar(n);
+                ventana.alFrente(n);
+            }
+            case PRUEBA -> {
+                prueba.quitar(n);
+                n.zona = PROTEGIDA;
+                protegida.alFrente(n);
+                while (protegida.tam > maxProtegida) { // la protegida devuelve su más vieja a prueba
+                    Nodo<K, V> d = protegida.ultimo();
+                    protegida.quitar(d);
+                    d.zona = PRUEBA;
+                    prueba.alFrente(d);
+                }
+            }
+            default -> {
+                protegida.quitar(n);
+                protegida.alFrente(n);
+            }
+        }
+    }
+
+    // La más vieja de la ventana pasa a prueba; si sobra una, compite con la más vieja de prueba
+    private void desalojar() {
+        while (ventana.tam > maxVentana) {
+            Nodo<K, V> candidata = ventana.ultimo();
+            ventana.quitar(candidata);
+            candidata.zona = PRUEBA;
+            prueba.alFrente(candidata);
+            if (ventana.tam + prueba.tam + protegida.tam <= maximo) continue;
+            Nodo<K, V> victima = prueba.ultimo();
+            boolean admitida = victima != candidata
+                    && frecuencias.frecuencia(candidata.clave.hashCode()) > frecuencias.frecuencia(victima.clave.hashCode());
+            expulsar(admitida ? victima : candidata);
+        }
+    }
+
+    private void expulsar(Nodo<K, V> n) {
+        lista(n.zona).quitar(n);
+        desalojo.desalojado(n.clave, n.valor);
+        mapa.remove(n.clave, n);
+    }
+
+    /*
+     * Count-min de 4 filas con contadores de 4 bits (16 por long). Se
+     * reducen a la mitad cada 'muestra' incrementos. Se usa con el lock de
+     * la caché tomado.
+     */
+    static final class Frecuencias {
+        private static final long[] SEMILLAS = {
+                0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+
+        private final long[] tabla;
+        private final int mascara;
+        private final int muestra;
+        private int incrementos;
+
+        Frecuencias(int maximo) {
+            int n = Integer.highestOneBit(Math.max(16, Math.min(maximo, 1 << 26) - 1)) << 1;
+            tabla = new long[n];
+            mascara = n - 1;
+            muestra = (int) Math.min(Integer.MAX_VALUE, 10L * maximo);
+        }
+
+        private int indice(int h, int i) {
+            long x = (h + SEMILLAS[i]) * SEMILLAS[i];
+            return (int) (x ^ x >>> 32) & mascara;
+        }
+
+        private static int desplazamiento(int h, int i) {
+            return ((h >>> (i << 3)) & 15) << 2; // uno de los 16 contadores del long
+        }
+
+        private static int mezclar(int h) {
+            h *= 0x9e3779b9;
+            return h ^ h >>> 16;
+        }
+
+        int frecuencia(int hash) {
+            int h = mezclar(hash);
+            int f = 15;
+            for (int i = 0; i < 4; i++) {
+                f = Math.min(f, (int) (tabla[indice(h, i)] >>> desplazamiento(h, i)) & 15);
+            }
+            return f;
+        }
+
+        void incrementar(int hash) {
+            int h = mezclar(hash);
+            boolean sumo = false;
+            for (int i = 0; i < 4; i++) {
+                int j = indice(h, i);
+                int d = desplazamiento(h, i);
+                if (((tabla[j] >>> d) & 15) < 15) {
+                    tabla[j] += 1L << d;
+                    sumo = true;
+                }
+            }
+            if (sumo && ++incrementos >= muestra) envejecer();
+        }
+
+        private void envejecer() {
+            for (int i = 0; i < tabla.length; i++) tabla[i] = (tabla[i] >>> 1) & 0x7777777777777777L;
+            incrementos /= 2;
+        }
+    }
+}
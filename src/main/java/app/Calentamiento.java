@@ -0,0 +1,214 @@
+package app;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.lang.management.CompilationMXBean;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+/*
+ * CALENTAMIENTO: recorre los caminos calientes sobre un inventario
+ * DESCARTABLE antes de atender, así la primera petición real ya no paga
+ * la carga de clases ni la compilación JIT.
+ * - Alta, búsqueda por código, cambios de precio/stock, movimientos,
+ *   lotes, búsquedas por texto, páginas, informes, CSV, el modo lote y el
+ *   servidor HTTP (en un puerto libre de loopback, con un cliente mínimo).
+ * - No toca el inventario real: ni sus datos ni sus métricas.
+ * - También es la corrida de ENTRENAMIENTO del archivo AppCDS (perfil
+ *   'cds' del pom): las clases que carga son las que quedan archivadas.
+ */
+final class Calentamiento {
+    // Productos del inventario descartable y pasadas sobre ellos: alcanza
+    // para que los métodos más llamados lleguen a C2 (~10 mil llamadas)
+    private static final int PRODUCTOS = 2_000;
+    private static final int PASADAS = 5;
+    private static final int PETICIONES_HTTP = 400;
+    private static final long ESPERA_MAXIMA_JIT_NS = 3_000_000_000L;
+    private static final String[] PALABRAS = {"teclado", "mouse", "monitor", "cable", "lapiz", "cuaderno", "silla", "lámpara"};
+
+    private Calentamiento() {}
+
+    // Corre todo; devuelve lo que tardó en milisegundos
+    static long correr() throws IOException {
+        long t = System.nanoTime();
+        Inventario inv = new Inventario(PRODUCTOS);
+        for (int i = 0; i < PRODUCTOS; i++) {
+            inv.agregarProducto(codigo(i), PALABRAS[i % PALABRAS.length] + " " + i, "Modelo " + (i % 97), 100 + i % 5000, i % 200);
+        }
+        for (int pasada = 0; pasada < PASADAS; pasada++) comandos(inv, pasada);
+        consultas(inv); // enciende los índices perezosos: una vez alcanza
+        archivos(inv);
+        try (ServidorHttp s = ServidorHttp.iniciar(inv, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+             Cliente c = new Cliente(s.puerto())) {
+            http(c);
+        }
+        esperarCompilador();
+        return (System.nanoTime() - t) / 1_000_000;
+    }
+
+    /*
+     * Lo que se calentó sigue compilándose en segundo plano: con pocos
+     * núcleos, el JIT le quitaría CPU a las primeras peticiones. Espera a
+     * que el tiempo de compilación deje de crecer (con un tope).
+     */
+    private static void esperarCompilador() {
+        CompilationMXBean jit = ManagementFactory.getCompilationMXBean();
+        if (jit == null || !jit.isCompilationTimeMonitoringSupported()) return;
+        long tope = System.nanoTime() + ESPERA_MAXIMA_JIT_NS;
+        for (long antes = -1, ahora = jit.getTotalCompilationTime(); ahora != antes && System.nanoTime() < tope;
+             antes = ahora, ahora = jit.getTotalCompilationTime()) {
+            LockSupport.parkNanos(50_000_000);
+        }
+    }
+
+    private static String codigo(int i) {
+        return "W" + i;
+    }
+
+    private static void comandos(Inventario inv, int pasada) {
+        for (int i = 0; i < PRODUCTOS; i++) {
+            String c = codigo(i);
+            inv.buscarPorCodigo(c);
+            inv.actualizarStock(c, (i + pasada) % 200);
+            inv.actualizarPrecio(c, 100 + (i + pasada) % 5000);
+            inv.incrementarStock(c, 2);
+            inv.descontarStock(c, 1);
+            if (inv.reservarStock(c, 1)) inv.confirmarReserva(c, 1);
+            inv.stockDisponible(c);
+        }
+        List<Comando> lote = new ArrayList<>();
+        for (int i = 0; i < PRODUCTOS; i += 4) {
+            lote.add(new Comando.ActualizarStock(codigo(i), i % 50));
+            lote.add(new Comando.Actualizar(codigo(i + 1), null, null, 200.0, null));
+        }
+        inv.ejecutarLote(lote);
+        for (int i = 0; i < 200; i++) {
+            String c = "X" + pasada + "-" + i;
+            inv.agregarProducto(c, "Temporal", "", 1, 1);
+            inv.actualizarProducto(c, "Temporal " + i, null, null, null);
+            inv.eliminarPorCodigo(c);
+        }
+    }
+
+    private static void consultas(Inventario inv) {
+        for (int i = 0; i < 16; i++) {
+            String palabra = PALABRAS[i % PALABRAS.length];
+            inv.buscarRanqueado(palabra + " " + i, 20);
+            inv.buscarRanqueado(palabra.substring(0, 4), 20);
+            inv.buscarPorNombre(palabra.substring(1, 5));
+        }
+        for (Orden o : Orden.values()) {
+            Pagina p = inv.listar(null, 100, o);
+            for (int i = 0; i < 20 && p.siguiente() != null; i++) p = inv.listar(p.siguiente(), 100, o);
+        }
+        inv.buscarPorPrecio(100, 500);
+        inv.buscarPorStock(0, 10);
+        inv.informeReposicion(10);
+        inv.generarInforme();
+        inv.informeAnalitico(new double[]{100, 1000}, 10);
+    }
+
+    // CSV de ida y vuelta y un guion del modo lote
+    private static void archivos(Inventario inv) throws IOException {
+        Path dir = Files.createTempDirectory("calentamiento");
+        try {
+            Path csv = dir.resolve("inventario.csv");
+            MenuPrincipal.exportar(inv, csv);
+            MenuPrincipal.importar(new Inventario(), csv);
+            Files.delete(csv);
+        } finally {
+            Files.delete(dir);
+        }
+        StringBuilder guion = new StringBuilder();
+        for (int i = 0; i < 300; i++) {
+            guion.append("1\nL").append(i).append("\nLote ").append(i).append("\nD\n10\n5\n7\nL").append(i).append('\n');
+        }
+        guion.append("3\nlote\n8\n3\n0\n");
+        new MenuLote(new Inventario()).ejecutar(new ByteArrayInputStream(guion.toString().getBytes(StandardCharsets.UTF_8)), new StringWriter());
+    }
+
+    private static void http(Cliente c) throws IOException {
+        for (int i = 0; i < PETICIONES_HTTP; i++) {
+            String cod = codigo(i * 7 % PRODUCTOS);
+            c.pedir("GET", "/productos/" + cod, null);
+            switch (i % 8) {
+                case 0 -> c.pedir("PUT", "/productos/" + cod, "{\"precio\": 150, \"stock\": 20}");
+                case 1 -> c.pedir("POST", "/productos/" + cod + "/descontar", "{\"cantidad\": 1}");
+                case 2 -> c.pedir("GET", "/productos?texto=" + URLEncoder.encode(PALABRAS[i % PALABRAS.length], StandardCharsets.UTF_8), null);
+                case 3 -> c.pedir("GET", "/productos/" + cod + "/disponible", null);
+                case 4 -> c.pedir("POST", "/productos", "{\"codigo\": \"H" + i + "\", \"nombre\": \"Nuevo\", \"descripcion\": \"\", \"precio\": 10, \"stock\": 1}");
+                case 5 -> c.pedir("DELETE", "/productos/H" + (i - 1), null);
+                case 6 -> c.pedir("GET", "/productos?orden=precio&limite=20", null);
+                default -> c.pedir("GET", "/productos/NO-EXISTE", null);
+            }
+        }
+        c.pedir("GET", "/informe", null);
+        c.pedir("GET", "/metricas", null);
+    }
+
+    /*
+     * Cliente HTTP/1.1 mínimo sobre UNA conexión keep-alive: escribe la
+     * petición y lee la respuesta entera (el servidor siempre manda
+     * Content-Length). Carga muchas menos clases que java.net.http.
+     */
+    static final class Cliente implements Closeable {
+        private final Socket socket;
+        private final OutputStream out;
+        private final InputStream in;
+
+        Cliente(int puerto) throws IOException {
+            socket = new Socket(InetAddress.getLoopbackAddress(), puerto);
+            socket.setTcpNoDelay(true);
+            out = socket.getOutputStream();
+            in = new BufferedInputStream(socket.getInputStream());
+        }
+
+        // Código de estado de la respuesta (el cuerpo se lee y se descarta)
+        int pedir(String metodo, String ruta, String json) throws IOException {
+            byte[] cuerpo = json == null ? new byte[0] : json.getBytes(StandardCharsets.UTF_8);
+            String cabecera = metodo + " " + ruta + " HTTP/1.1\r\nHost: localhost\r\nContent-Length: " + cuerpo.length + "\r\n\r\n";
+            out.write(cabecera.getBytes(StandardCharsets.US_ASCII));
+            out.write(cuerpo);
+            out.flush();
+
+            String estado = linea();
+            int largo = 0;
+            for (String l = linea(); !l.isEmpty(); l = linea()) {
+                int dos = l.indexOf(':');
+                if (dos > 0 && l.substring(0, dos).equalsIgnoreCase("Content-Length")) {
+                    largo = Integer.parseInt(l.substring(dos + 1).trim());
+                }
+            }
+            in.skipNBytes(largo);
+            return Integer.parseInt(estado.substring(9, 12));
+        }
+
+        private String linea() throws IOException {
+            StringBuilder sb = new StringBuilder();
+            for (int b = in.read(); b != '\n'; b = in.read()) {
+                if (b < 0) throw new IOException("Conexión cerrada");
+                if (b != '\r') sb.append((char) b);
+            }
+            return sb.toString();
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+}
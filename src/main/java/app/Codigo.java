@@ -0,0 +1,73 @@
+package app;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/*
+ * Códigos de producto como CLAVES compactas, para los almacenes que no
+ * guardan un String por producto (InventarioCompacto, SnapshotColumnar).
+ * - Los códigos cortos (hasta 10 caracteres de [0-9A-Za-z-], el caso común)
+ *   se EMPAQUETAN en un long de 6 bits por carácter: se guardan sin bytes
+ *   aparte y comparar es comparar dos long (sin ir a buscar el texto).
+ * - El resto se compara contra sus bytes UTF-8 sin crear un byte[] si el
+ *   código es ASCII.
+ * El código llega ya normalizado (Inventario.norm, que no copia si ya venía
+ * limpio). Inventario no usa esto: su clave es el String del propio
+ * producto, con el hash ya en caché, y un long por clave sería memoria extra.
+ */
+final class Codigo {
+    static final int MAX_EMPAQUETADO = 10;
+    private static final char[] SIMBOLOS = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz-".toCharArray();
+    // carácter ASCII -> 1..63 (0 = no se puede empaquetar)
+    private static final byte[] VALOR = new byte[128];
+
+    static {
+        for (int i = 0; i < SIMBOLOS.length; i++) VALOR[SIMBOLOS[i]] = (byte) (i + 1);
+    }
+
+    private Codigo() {}
+
+    /*
+     * El código en 60 bits (el primer carácter en los 6 bajos), o 0 si es
+     * largo o tiene algún carácter sin símbolo. Un mismo código siempre da
+     * lo mismo: o se empaqueta o no, nunca las dos cosas.
+     */
+    static long empaquetar(String s) {
+        int n = s.length();
+        if (n > MAX_EMPAQUETADO) return 0;
+        long x = 0;
+        for (int i = 0, corrimiento = 0; i < n; i++, corrimiento += 6) {
+            char c = s.charAt(i);
+            int v = c < 128 ? VALOR[c] : 0;
+            if (v == 0) return 0;
+            x |= (long) v << corrimiento;
+        }
+        return x;
+    }
+
+    static String desempaquetar(long x) {
+        char[] c = new char[MAX_EMPAQUETADO];
+        int n = 0;
+        for (; x != 0; x >>>= 6) c[n++] = SIMBOLOS[(int) (x & 63) - 1];
+        return new String(c, 0, n);
+    }
+
+    static boolean ascii(String s) {
+        for (int i = 0; i < s.length(); i++) if (s.charAt(i) >= 128) return false;
+        return true;
+    }
+
+    // s (ASCII) es igual a los 'largo' bytes de b desde 'off'
+    private static boolean igualAscii(String s, byte[] b, int off, int largo) {
+        if (s.length() != largo) return false;
+        for (int i = 0; i < largo; i++) if (b[off + i] != s.charAt(i)) return false;
+        return true;
+    }
+
+    // s es igual a los 'largo' bytes UTF-8 de b desde 'off' (solo crea un byte[] si s no es ASCII)
+    static boolean igualUtf8(String s, byte[] b, int off, int largo) {
+        if (ascii(s)) return igualAscii(s, b, off, largo);
+        byte[] q = s.getBytes(StandardCharsets.UTF_8);
+        return q.length == largo && Arrays.equals(b, off, off + largo, q, 0, largo);
+    }
+}
@@ -0,0 +1,28 @@
+package app;
+
+/*
+ * Comandos de escritura sobre Inventario, como DATOS.
+ * - Permiten aplicar muchos cambios en una sola llamada (ejecutarLote,
+ *   agregarTodos, actualizarLote).
+ * - Cada record replica los parámetros del método individual equivalente;
+ *   las validaciones son las mismas.
+ */
+public sealed interface Comando {
+
+    String codigo();
+
+    // Equivale a agregarProducto(...)
+    record Agregar(String codigo, String nombre, String descripcion, double precio, int stock) implements Comando {}
+
+    // Equivale a eliminarPorCodigo(...)
+    record Eliminar(String codigo) implements Comando {}
+
+    // Equivale a actualizarProducto(...): null = no tocar
+    record Actualizar(String codigo, String nombre, String descripcion, Double precio, Integer stock) implements Comando {}
+
+    // Equivale a actualizarPrecio(...)
+    record ActualizarPrecio(String codigo, double precio) implements Comando {}
+
+    // Equivale a actualizarStock(...)
+    record ActualizarStock(String codigo, int stock) implements Comando {}
+}
@@ -0,0 +1,471 @@
+package app;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+
+/*
+ * Importación y exportación MASIVA en CSV o TSV, sin pasar por el menú.
+ * Columnas: codigo, nombre, descripcion, precio, stock (cabecera opcional).
+ *
+ * Importar:
+ * - Lee el archivo por bloques con un FileChannel y corta los registros
+ *   sobre los bytes; precio y stock se leen de los bytes sin crear Strings.
+ * - Valida como agregarProducto: código no vacío (Inventario.norm), precio y
+ *   stock negativos quedan en 0 (constructor de Producto). Además rechaza
+ *   números mal escritos, precios no finitos y líneas con otra cantidad de
+ *   columnas.
+ * - Agrega por lotes (Inventario.agregarTodos): memoria acotada aunque el
+ *   archivo tenga millones de líneas.
+ * - Las líneas rechazadas se informan con su número (las primeras
+ *   MAX_RECHAZOS con detalle; el total siempre).
+ *
+ * Exportar: recorre el inventario sin copiarlo y escribe por bloques.
+ *
+ * Formatos:
+ * - CSV: separador ','; campos con ',', comillas o saltos de línea van entre
+ *   comillas ("" = una comilla). Vacío sin comillas = null; "" = texto vacío.
+ * - TSV: separador tab; \t \n \r \\ escapados con barra; \N = null.
+ */
+public final class CsvInventario {
+    public static final int MAX_RECHAZOS = 1000;
+    private static final String[] COLUMNAS = {"codigo", "nombre", "descripcion", "precio", "stock"};
+    private static final int LOTE = 4096;
+    private static final int BUFFER = 1 << 20;
+    private static final double[] POTENCIAS = new double[23];
+    static {
+        POTENCIAS[0] = 1;
+        for (int i = 1; i < POTENCIAS.length; i++) POTENCIAS[i] = POTENCIAS[i - 1] * 10;
+    }
+
+    public enum Formato {
+        CSV((byte) ','), TSV((byte) '\t');
+
+        final byte separador;
+
+        Formato(byte separador) {
+            this.separador = separador;
+        }
+
+        // TSV si el archivo termina en .tsv o .tab; si no, CSV
+        public static Formato de(Path archivo) {
+            String n = archivo.getFileName().toString().toLowerCase(Locale.ROOT);
+            return n.endsWith(".tsv") || n.endsWith(".tab") ? TSV : CSV;
+        }
+    }
+
+    // Línea no importada: número de línea (desde 1) y motivo
+    public record Rechazo(long linea, String motivo) {}
+
+    /*
+     * Resultado de una importación. 'rechazos' trae el detalle de los primeros
+     * MAX_RECHAZOS; 'rechazadas' es el total.
+     */
+    public record Resultado(long agregadas, long rechazadas, List<Rechazo> rechazos) {}
+
+    private CsvInventario() {}
+
+    // ---------- Importar ----------
+
+    public static Resultado importar(Path archivo, Inventario inv) throws IOException {
+        return importar(archivo, Formato.de(archivo), inv);
+    }
+
+    public static Resultado importar(Path archivo, Formato formato, Inventario inv) throws IOException {
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            Importacion imp = new Importacion(inv);
+            Lector l = new Lector(canal, formato);
+            Linea campos = new Linea(formato);
+            while (l.siguiente()) {
+                if (l.numero == 1 && esCabecera(l)) continue;
+                if (l.ini == l.fin) continue; // línea vacía
+                String error = campos.partir(l.a, l.ini, l.fin);
+                if (error == null) error = imp.agregar(campos, l.numero);
+                if (error != null) imp.rechazar(l.numero, error);
+            }
+            imp.vaciar();
+            imp.rechazos.sort(Comparator.comparingLong(Rechazo::linea)); // duplicados llegan al aplicar el lote
+            return new Resultado(imp.agregadas, imp.rechazadas, List.copyOf(imp.rechazos));
+        }
+    }
+
+    private static boolean esCabecera(Lector l) {
+        String s = new String(l.a, l.ini, l.fin - l.ini, StandardCharsets.UTF_8).trim().toLowerCase(Locale.ROOT);
+        return s.startsWith(COLUMNAS[0]);
+    }
+
+    // Acumula las altas en lotes y lleva la cuenta de rechazos
+    private static final class Importacion {
+        final Inventario inv;
+        final List<Comando.Agregar> lote = new ArrayList<>(LOTE);
+        final long[] lineas = new long[LOTE];
+        final List<Rechazo> rechazos = new ArrayList<>();
+        long agregadas;
+        long rechazadas;
+
+        Importacion(Inventario inv) {
+            this.inv = inv;
+        }
+
+        // Valida la línea y la suma al lote; devuelve el motivo si se rechaza
+        String agregar(Linea c, long numero) {
+            String codigo = Inventario.norm(c.texto(0));
+            if (codigo == null) return "código vacío";
+            double precio = c.decimal(3);
+            if (Double.isNaN(precio) || Double.isInfinite(precio)) return "precio inválido";
+            long stock = c.entero(4);
+            if (stock == Long.MIN_VALUE) return "stock inválido";
+            lineas[lote.size()] = numero;
+            lote.add(new Comando.Agregar(codigo, c.texto(1), c.texto(2), precio, (int) stock));
+            if (lote.size() == LOTE) vaciar();
+            return null;
+        }
+
+        void vaciar() {
+            if (lote.isEmpty()) return;
+            boolean[] ok = inv.agregarTodos(lote);
+            for (int i = 0; i < ok.length; i++) {
+                if (ok[i]) agregadas++;
+                else rechazar(lineas[i], "código duplicado");
+            }
+            lote.clear();
+        }
+
+        void rechazar(long numero, String motivo) {
+            rechazadas++;
+            if (rechazos.size() < MAX_RECHAZOS) rechazos.add(new Rechazo(numero, motivo));
+        }
+    }
+
+    /*
+     * Lee el canal por bloques y entrega un registro por vez como rango de
+     * bytes [ini, fin) de 'a' (sin \r\n). En CSV un salto de línea dentro de
+     * comillas no corta el registro. 'numero' es la línea física donde
+     * empieza. El bloque crece si un registro no cabe.
+     */
+    private static final class Lector {
+        // Estados del CSV: inicio de campo, campo sin comillas, entre comillas, comilla leída
+        private static final int INICIO = 0, FUERA = 1, DENTRO = 2, CIERRE = 3;
+
+        final FileChannel canal;
+        final boolean csv;
+        final byte sep;
+        byte[] a = new byte[BUFFER];
+        int pos, lim, scan;
+        int ini, fin;
+        int estado = INICIO;
+        long numero;
+        long proxima = 1;
+        long saltos;
+        boolean eof;
+
+        Lector(FileChannel canal, Formato formato) {
+            this.canal = canal;
+            this.csv = formato == Formato.CSV;
+            this.sep = formato.separador;
+        }
+
+        boolean siguiente() throws IOException {
+            while (true) {
+                for (; scan < lim; scan++) {
+                    byte b = a[scan];
+                    if (b == '\n') {
+                        if (estado == DENTRO) {
+                            saltos++;
+                            continue;
+                        }
+                        cortar(pos, scan);
+                        pos = ++scan;
+                        return true;
+                    }
+                    if (csv) estado = transicion(estado, b);
+                }
+                if (eof) {
+                    if (pos == lim) return false;
+                    cortar(pos, lim); // último registro sin salto final
+                    pos = scan = lim;
+                    return true;
+                }
+                leerMas();
+            }
+        }
+
+        private int transicion(int e, byte b) {
+            return switch (e) {
+                case INICIO, CIERRE -> b == '"' ? DENTRO : b == sep ? INICIO : FUERA;
+                case FUERA -> b == sep ? INICIO : FUERA;
+                default -> b == '"' ? CIERRE : DENTRO;
+            };
+        }
+
+        private void cortar(int desde, int hasta) {
+            if (hasta > desde && a[hasta - 1] == '\r') hasta--;
+            if (proxima == 1 && hasta - desde >= 3 && a[desde] == (byte) 0xEF && a[desde + 1] == (byte) 0xBB
+                    && a[desde + 2] == (byte) 0xBF) {
+                desde += 3; // BOM de UTF-8
+            }
+            ini = desde;
+            fin = hasta;
+            numero = proxima;
+            proxima += 1 + saltos;
+            saltos = 0;
+            estado = INICIO;
+        }
+
+        private void leerMas() throws IOException {
+            if (pos > 0) { // mueve lo pendiente al inicio
+                System.arraycopy(a, pos, a, 0, lim - pos);
+                lim -= pos;
+                scan -= pos;
+                pos = 0;
+            }
+            if (lim == a.length) a = Arrays.copyOf(a, a.length * 2);
+            int n = canal.read(ByteBuffer.wrap(a, lim, a.length - lim));
+            if (n < 0) eof = true;
+            else lim += n;
+        }
+    }
+
+    /*
+     * Campos de una línea como rangos de bytes; los textos se crean solo al
+     * pedirlos y los números se leen directo de los bytes.
+     */
+    private static final class Linea {
+        final Formato formato;
+        final int[] desde = new int[COLUMNAS.length];
+        final int[] hasta = new int[COLUMNAS.length];
+        final boolean[] comillas = new boolean[COLUMNAS.length];
+        byte[] a;
+        byte[] tmp = new byte[256];
+
+        Linea(Formato formato) {
+            this.formato = formato;
+        }
+
+        // Separa los campos; devuelve el motivo si la línea está mal formada
+        String partir(byte[] a, int ini, int fin) {
+            this.a = a;
+            byte sep = formato.separador;
+            int n = 0;
+            int i = ini;
+            while (true) {
+                if (n == COLUMNAS.length) return "se esperaban " + COLUMNAS.length + " columnas";
+                if (formato == Formato.CSV && i < fin && a[i] == '"') {
+                    int j = i + 1;
+                    while (true) {
+                        if (j >= fin) return "comillas sin cerrar";
+                        if (a[j] == '"') {
+                            if (j + 1 < fin && a[j + 1] == '"') j += 2;
+                            else break;
+                        } else {
+                            j++;
+                        }
+                    }
+                    desde[n] = i + 1;
+                    hasta[n] = j;
+                    comillas[n] = true;
+                    i = j + 1;
+                    if (i < fin && a[i] != sep) return "texto después de las comillas";
+                } else {
+                    int j = i;
+                    while (j < fin && a[j] != sep) j++;
+                    desde[n] = i;
+                    hasta[n] = j;
+                    comillas[n] = false;
+                    i = j;
+                }
+                n++;
+                if (i >= fin) break;
+                i++; // salta el separador
+                if (i == fin) { // separador al final: un campo vacío más
+                    if (n == COLUMNAS.length) return "se esperaban " + COLUMNAS.length + " columnas";
+                    desde[n] = hasta[n] = fin;
+                    comillas[n] = false;
+                    n++;
+                    break;
+                }
+            }
+            return n == COLUMNAS.length ? null : "se esperaban " + COLUMNAS.length + " columnas";
+        }
+
+        // Texto del campo k (null según las reglas del formato)
+        String texto(int k) {
+            int d = desde[k], h = hasta[k];
+            if (formato == Formato.CSV) {
+                if (!comillas[k]) return d == h ? null : new String(a, d, h - d, StandardCharsets.UTF_8);
+                return sinEscapes(d, h, (byte) '"');
+            }
+            if (h - d == 2 && a[d] == '\\' && a[d + 1] == 'N') return null;
+            return sinEscapes(d, h, (byte) '\\');
+        }
+
+        // Quita "" (CSV) o \x (TSV); sin escapes crea el String directo
+        private String sinEscapes(int d, int h, byte esc) {
+            int k = d;
+            while (k < h && a[k] != esc) k++;
+            if (k == h) return new String(a, d, h - d, StandardCharsets.UTF_8);
+            if (tmp.length < h - d) tmp = new byte[Math.max(h - d, tmp.length * 2)];
+            int n = 0;
+            for (int i = d; i < h; i++) {
+                byte b = a[i];
+                if (b == esc && i + 1 < h) {
+                    b = a[++i];
+                    if (esc == '\\') b = b == 't' ? (byte) '\t' : b == 'n' ? (byte) '\n' : b == 'r' ? (byte) '\r' : b;
+                }
+                tmp[n++] = b;
+            }
+            return new String(tmp, 0, n, StandardCharsets.UTF_8);
+        }
+
+        // Entero del campo k o Long.MIN_VALUE si no es un int válido
+        long entero(int k) {
+            int d = desde[k], h = hasta[k];
+            while (d < h && a[d] == ' ') d++;
+            while (h > d && a[h - 1] == ' ') h--;
+            if (d == h) return Long.MIN_VALUE;
+            boolean negativo = a[d] == '-';
+            if (negativo || a[d] == '+') d++;
+            if (d == h) return Long.MIN_VALUE;
+            long v = 0;
+            for (int i = d; i < h; i++) {
+                int c = a[i] - '0';
+                if (c < 0 || c > 9) return Long.MIN_VALUE;
+                v = v * 10 + c;
+                if (v > Integer.MAX_VALUE + 1L) return Long.MIN_VALUE;
+            }
+            v = negativo ? -v : v;
+            return v < Integer.MIN_VALUE || v > Integer.MAX_VALUE ? Long.MIN_VALUE : v;
+        }
+
+        /*
+         * Decimal del campo k o NaN si no es válido. Hasta 15 dígitos sin
+         * exponente se calcula exacto como mantisa / 10^decimales; el resto
+         * pasa por Double.parseDouble.
+         */
+        double decimal(int k) {
+            int d = desde[k], h = hasta[k];
+            while (d < h && a[d] == ' ') d++;
+            while (h > d && a[h - 1] == ' ') h--;
+            if (d == h) return Double.NaN;
+            int i = d;
+            boolean negativo = a[i] == '-';
+            if (negativo || a[i] == '+') i++;
+            long mantisa = 0;
+            int digitos = 0, decimales = 0;
+            boolean punto = false;
+            for (; i < h; i++) {
+                byte b = a[i];
+                if (b == '.' && !punto) {
+                    punto = true;
+                } else if (b >= '0' && b <= '9') {
+                    mantisa = mantisa * 10 + (b - '0');
+                    digitos++;
+                    if (punto) decimales++;
+                    if (digitos > 15) break;
+                } else {
+                    break;
+                }
+            }
+            if (i == h && digitos > 0) {
+                double v = mantisa / POTENCIAS[decimales];
+                return negativo ? -v : v;
+            }
+            try {
+                return Double.parseDouble(new String(a, d, h - d, StandardCharsets.US_ASCII));
+            } catch (NumberFormatException e) {
+                return Double.NaN;
+            }
+        }
+    }
+
+    // ---------- Exportar ----------
+
+    public static long exportar(Inventario inv, Path archivo) throws IOException {
+        return exportar(inv, archivo, Formato.de(archivo));
+    }
+
+    /*
+     * Escribe cabecera + un producto por línea y devuelve cuántos escribió.
+     * Recorre una instantánea: el archivo refleja un único momento aunque el
+     * inventario siga cambiando mientras se escribe.
+     */
+    public static long exportar(Inventario inv, Path archivo, Formato formato) throws IOException {
+        try (Instantanea foto = inv.snapshot();
+             FileChannel canal = FileChannel.open(archivo, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buf = ByteBuffer.allocate(BUFFER);
+            StringBuilder sb = new StringBuilder(256);
+            char sep = (char) formato.separador;
+            sb.append(String.join(String.valueOf(sep), COLUMNAS)).append('\n');
+            escribir(canal, buf, sb);
+            long n = 0;
+            for (Iterator<ProductoRO> it = foto.stream().iterator(); it.hasNext(); ) {
+                ProductoRO p = it.next();
+                sb.setLength(0);
+                campo(sb, p.getCodigo(), formato).append(sep);
+                campo(sb, p.getNombre(), formato).append(sep);
+                campo(sb, p.getDescripcion(), formato).append(sep);
+                sb.append(p.getPrecio()).append(sep).append(p.getStock()).append('\n');
+                escribir(canal, buf, sb);
+                n++;
+            }
+            buf.flip();
+            while (buf.hasRemaining()) canal.write(buf);
+            return n;
+        }
+    }
+
+    private static void escribir(FileChannel canal, ByteBuffer buf, StringBuilder sb) throws IOException {
+        byte[] b = sb.toString().getBytes(StandardCharsets.UTF_8);
+        if (buf.remaining() < b.length) {
+            buf.flip();
+            while (buf.hasRemaining()) canal.write(buf);
+            buf.clear();
+        }
+        if (b.length > buf.capacity()) {
+            canal.write(ByteBuffer.wrap(b));
+            return;
+        }
+        buf.put(b);
+    }
+
+    private static StringBuilder campo(StringBuilder sb, String s, Formato formato) {
+        if (formato == Formato.TSV) {
+            if (s == null) return sb.append("\\N");
+            for (int i = 0; i < s.length(); i++) {
+                char c = s.charAt(i);
+                switch (c) {
+                    case '\t' -> sb.append("\\t");
+                    case '\n' -> sb.append("\\n");
+                    case '\r' -> sb.append("\\r");
+                    case '\\' -> sb.append("\\\\");
+                    default -> sb.append(c);
+                }
+            }
+            return sb;
+        }
+        if (s == null) return sb;
+        boolean comillas = s.isEmpty();
+        for (int i = 0; i < s.length() && !comillas; i++) {
+            char c = s.charAt(i);
+            comillas = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!comillas) return sb.append(s);
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"') sb.append('"');
+            sb.append(c);
+        }
+        return sb.append('"');
+    }
+}
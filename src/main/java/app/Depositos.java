@@ -0,0 +1,110 @@
+package app;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * Registro de DEPÓSITOS (ubicaciones de stock): nombre <-> número.
+ * - El número es el índice en el arreglo de stock por depósito de cada
+ *   producto (ver Producto.Estado), así que los números son chicos y
+ *   consecutivos. El 0 es PRINCIPAL: ahí está todo el stock que nunca se
+ *   asignó a otro depósito.
+ * - Único para toda la aplicación (los números viajan dentro de los estados
+ *   de producto); solo crece. Los nombres se comparan sin espacios al borde.
+ * - En disco (diario y snapshot) el reparto se guarda por NOMBRE: los
+ *   números dependen del orden en que se registraron en cada ejecución.
+ */
+final class Depositos {
+    static final String PRINCIPAL = "PRINCIPAL";
+    static final int MAXIMO = 1024;
+
+    private static final ConcurrentHashMap<String, Integer> numeros = new ConcurrentHashMap<>();
+    private static volatile String[] nombres = {PRINCIPAL};
+
+    static {
+        numeros.put(PRINCIPAL, 0);
+    }
+
+    private Depositos() {}
+
+    // Número del depósito, registrándolo si es nuevo; -1 si el nombre es vacío o no hay lugar
+    static int numero(String nombre) {
+        String n = Inventario.norm(nombre);
+        if (n == null) return -1;
+        Integer d = numeros.get(n);
+        if (d != null) return d;
+        synchronized (Depositos.class) {
+            d = numeros.get(n);
+            if (d != null) return d;
+            if (nombres.length == MAXIMO) return -1;
+            String[] mas = Arrays.copyOf(nombres, nombres.length + 1);
+            mas[nombres.length] = n;
+            nombres = mas; // antes que el mapa: quien ve el número ve el nombre
+            numeros.put(n, mas.length - 1);
+            return mas.length - 1;
+        }
+    }
+
+    // Número de un depósito ya registrado, o -1
+    static int buscar(String nombre) {
+        String n = Inventario.norm(nombre);
+        Integer d = n == null ? null : numeros.get(n);
+        return d == null ? -1 : d;
+    }
+
+    static String nombre(int numero) {
+        return nombres[numero];
+    }
+
+    static int cantidad() {
+        return nombres.length;
+    }
+
+    // ---------- Formato en disco ----------
+    /*
+     * Reparto de un producto (null = todo en PRINCIPAL): cantidad de
+     * depósitos con stock (-1 si es null) y por cada uno largo, nombre UTF-8
+     * y unidades.
+     */
+
+    // Bytes que ocupa el reparto codificado
+    static int largoCodificado(int[] reparto) {
+        if (reparto == null) return 4;
+        int largo = 4;
+        for (int d = 0; d < reparto.length; d++) {
+            if (reparto[d] != 0) largo += 8 + nombre(d).getBytes(StandardCharsets.UTF_8).length;
+        }
+        return largo;
+    }
+
+    static ByteBuffer codificar(ByteBuffer b, int[] reparto) {
+        if (reparto == null) return b.putInt(-1);
+        int n = 0;
+        for (int u : reparto) if (u != 0) n++;
+        b.putInt(n);
+        for (int d = 0; d < reparto.length; d++) {
+            if (reparto[d] == 0) continue;
+            byte[] nombre = nombre(d).getBytes(StandardCharsets.UTF_8);
+            b.putInt(nombre.length).put(nombre).putInt(reparto[d]);
+        }
+        return b;
+    }
+
+    // Lee un reparto codificado, registrando los depósitos que falten (sin lugar: van a PRINCIPAL)
+    static int[] decodificar(ByteBuffer b) {
+        int n = b.getInt();
+        if (n < 0) return null;
+        int[] reparto = new int[1];
+        for (int k = 0; k < n; k++) {
+            byte[] nombre = new byte[b.getInt()];
+            b.get(nombre);
+            int unidades = b.getInt();
+            int d = Math.max(0, numero(new String(nombre, StandardCharsets.UTF_8)));
+            if (d >= reparto.length) reparto = Arrays.copyOf(reparto, d + 1);
+            reparto[d] += unidades;
+        }
+        return reparto;
+    }
+}
@@ -0,0 +1,224 @@
+package app;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/*
+ * Diario de escritura anticipada (write-ahead log) en segmentos binarios.
+ * - Cada registro se guarda como [largo int][crc32c int][datos].
+ * - Los hilos que escriben solo copian su registro a un buffer en memoria
+ *   (microsegundos). Un hilo 'escritor' vuelca el buffer y hace fsync:
+ *   mientras hace fsync, los registros nuevos se juntan en el otro buffer
+ *   y van al disco en el siguiente fsync (group commit).
+ * - esperar(lsn) bloquea hasta que ese registro está en disco.
+ * - rotar() cierra el segmento actual y abre 'wal-<n+1>.log'.
+ *
+ * Locks: 'lock' protege los buffers; 'canalLock' protege el archivo;
+ * 'durableLock' solo avisa a quien espera. Orden siempre
+ * canalLock -> lock -> durableLock.
+ */
+final class Diario implements Closeable {
+    static final int CABECERA = 8;
+
+    private final Path dir;
+    private final Object lock = new Object();
+    private final Object canalLock = new Object();
+    private final Object durableLock = new Object();
+    private final Thread escritor;
+
+    private ByteBuffer activo;
+    private ByteBuffer enEscritura;
+    private FileChannel canal;
+    private long segmento;
+    private long lsnAnotado;            // bytes anotados desde que se abrió (lock)
+    private volatile long lsnDurable;   // bytes ya en disco
+    private boolean cerrado;            // lock
+    private volatile IOException falla;
+
+    Diario(Path dir, long segmento, int capacidadBuffer) throws IOException {
+        this.dir = dir;
+        this.activo = ByteBuffer.allocateDirect(capacidadBuffer);
+        this.enEscritura = ByteBuffer.allocateDirect(capacidadBuffer);
+        abrirSegmento(segmento);
+        this.escritor = new Thread(this::bucleEscritor, "diario-escritor");
+        this.escritor.setDaemon(true);
+        this.escritor.start();
+    }
+
+    static Path archivoSegmento(Path dir, long n) {
+        return dir.resolve(String.format("wal-%08d.log", n));
+    }
+
+    private void abrirSegmento(long n) throws IOException {
+        canal = FileChannel.open(archivoSegmento(dir, n),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        segmento = n;
+    }
+
+    /*
+     * Anota un registro (datos entre position y limit de 'datos').
+     * Devuelve su LSN: pasarlo a esperar() para saber que está en disco.
+     */
+    long anotar(ByteBuffer datos) {
+        int largo = datos.remaining();
+        CRC32C crc = new CRC32C();
+        crc.update(datos.duplicate());
+        synchronized (lock) {
+            if (falla != null) throw new UncheckedIOException(falla);
+            if (cerrado) throw new IllegalStateException("Diario cerrado");
+            while (activo.remaining() < CABECERA + largo) {
+                if (falla != null) throw new UncheckedIOException(falla);
+                if (activo.position() == 0) activo = agrandar(activo, CABECERA + largo);
+                else esperarEspacio();
+            }
+            boolean estabaVacio = activo.position() == 0;
+            activo.putInt(largo).putInt((int) crc.getValue()).put(datos);
+            lsnAnotado += CABECERA + largo;
+            if (estabaVacio) lock.notifyAll(); // despierta al escritor
+            return lsnAnotado;
+        }
+    }
+
+    // Bloquea hasta que el registro 'lsn' está en disco (fsync hecho)
+    void esperar(long lsn) {
+        if (lsnDurable >= lsn) return;
+        synchronized (durableLock) {
+            while (lsnDurable < lsn) {
+                if (falla != null) throw new UncheckedIOException(falla);
+                try {
+                    durableLock.wait(10);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    // LSN del último registro anotado (para esperar "todo lo escrito hasta ahora")
+    long ultimoLsn() {
+        synchronized (lock) {
+            return lsnAnotado;
+        }
+    }
+
+    long segmento() {
+        synchronized (canalLock) {
+            return segmento;
+        }
+    }
+
+    /*
+     * Vuelca lo pendiente, cierra el segmento y abre el siguiente.
+     * Todo lo anotado antes queda en el segmento viejo; lo nuevo, en el nuevo.
+     * Devuelve el número del segmento nuevo.
+     */
+    long rotar() throws IOException {
+        synchronized (canalLock) {
+            synchronized (lock) {
+                long hasta = lsnAnotado;
+                escribir(activo);
+                canal.force(false);
+                canal.close();
+                abrirSegmento(segmento + 1);
+                marcarDurable(hasta);
+                lock.notifyAll();
+                return segmento;
+            }
+        }
+    }
+
+    // ---------- Hilo escritor ----------
+
+    private void bucleEscritor() {
+        try {
+            while (true) {
+                synchronized (lock) {
+                    while (activo.position() == 0 && !cerrado) lock.wait();
+                    if (cerrado && activo.position() == 0) return;
+                }
+                synchronized (canalLock) {
+                    long hasta;
+                    synchronized (lock) {
+                        ByteBuffer b = activo;
+                        activo = enEscritura;
+                        enEscritura = b;
+                        hasta = lsnAnotado;
+                        lock.notifyAll(); // hay espacio otra vez
+                    }
+                    if (enEscritura.position() > 0) {
+                        escribir(enEscritura);
+                        canal.force(false);
+                    }
+                    marcarDurable(hasta);
+                }
+            }
+        } catch (IOException e) {
+            synchronized (lock) {
+                falla = e;
+                lock.notifyAll();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Escribe y limpia un buffer (con canalLock tomado)
+    private void escribir(ByteBuffer b) throws IOException {
+        b.flip();
+        while (b.hasRemaining()) canal.write(b);
+        b.clear();
+    }
+
+    private void marcarDurable(long hasta) {
+        synchronized (durableLock) {
+            if (hasta > lsnDurable) lsnDurable = hasta;
+            durableLock.notifyAll();
+        }
+    }
+
+    private void esperarEspacio() {
+        try {
+            lock.wait();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrumpido esperando el diario", e);
+        }
+    }
+
+    private static ByteBuffer agrandar(ByteBuffer b, int minimo) {
+        int cap = Math.max(b.capacity() * 2, minimo);
+        return ByteBuffer.allocateDirect(cap);
+    }
+
+    // Vuelca todo, hace fsync y detiene el escritor
+    @Override
+    public void close() throws IOException {
+        synchronized (lock) {
+            if (cerrado) return;
+            cerrado = true;
+            lock.notifyAll();
+        }
+        try {
+            escritor.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (canalLock) {
+            synchronized (lock) {
+                if (activo.position() > 0) escribir(activo);
+            }
+            canal.force(false);
+            canal.close();
+        }
+        synchronized (lock) {
+            if (falla != null) throw falla;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package app;
+
+/*
+ * Dinero en PUNTO FIJO: montos como long de centavos (unidades menores).
+ * - Conversión desde double redondeando a 2 decimales, una sola vez, al
+ *   entrar el dato. Después todo es aritmética entera exacta.
+ * - Valor de un producto con Math.multiplyExact: un desborde es un error,
+ *   no un total equivocado.
+ * - Los precios se limitan a MAX_CENTAVOS (< 2^32): precio * stock entra
+ *   en 63 bits y la suma de columnas puede hacerse sin chequeos por
+ *   elemento (ver total).
+ */
+final class Dinero {
+    // 42.949.672,95: cabe en 32 bits sin signo
+    static final long MAX_CENTAVOS = (1L << 32) - 1;
+
+    private static final long MASCARA_BAJA = (1L << 32) - 1;
+
+    private Dinero() {}
+
+    /*
+     * Precio en centavos, o -1 si no es válido (negativo, NaN, infinito o
+     * mayor que MAX_CENTAVOS).
+     */
+    static long centavos(double precio) {
+        if (!(precio >= 0)) return -1;
+        long c = Math.round(precio * 100); // satura en Long.MAX_VALUE
+        return c > MAX_CENTAVOS ? -1 : c;
+    }
+
+    static double aDouble(long centavos) {
+        return centavos / 100.0;
+    }
+
+    // precio * stock en centavos; ArithmeticException si desborda
+    static long valor(long centavos, int stock) {
+        return Math.multiplyExact(centavos, (long) stock);
+    }
+
+    /*
+     * Suma exacta de centavos[i] * stock[i] para i < n.
+     * Con centavos <= MAX_CENTAVOS y stock >= 0 cada término es < 2^63; se
+     * separa en sus 32 bits altos y bajos y se suman por separado (hasta
+     * 2^31 filas ninguna de las dos sumas desborda). El bucle no tiene
+     * ramas ni chequeos, así C2 puede vectorizarlo; la recomposición final
+     * sí es exacta y lanza ArithmeticException si el total no entra en un long.
+     * Las filas libres deben tener stock (o precio) 0.
+     */
+    static long total(long[] centavos, int[] stock, int n) {
+        long altos = 0;
+        long bajos = 0;
+        for (int i = 0; i < n; i++) {
+            long v = centavos[i] * stock[i];
+            altos += v >>> 32;
+            bajos += v & MASCARA_BAJA;
+        }
+        return Math.addExact(Math.multiplyExact(altos, 1L << 32), bajos);
+    }
+}
@@ -0,0 +1,98 @@
+package app;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Índice de stock POR DEPÓSITO de un inventario.
+ * - Por depósito: unidades totales (LongAdder, O(1)) y el conjunto de
+ *   productos con stock ahí (consultas en O(resultado)).
+ * - Se mantiene como IndicesOrdenados: apagado hasta la primera consulta
+ *   por depósito, y cada cambio lo reubica con el lock del producto según
+ *   su estado ACTUAL; así dos cambios que avisan en otro orden no lo dejan
+ *   desfasado. Recuerda el último reparto visto de cada producto para
+ *   sumar solo la diferencia.
+ */
+final class Existencias {
+
+    private static final class Deposito {
+        final LongAdder unidades = new LongAdder();
+        final Set<Producto> productos = ConcurrentHashMap.newKeySet();
+    }
+
+    private final AtomicReferenceArray<Deposito> depositos = new AtomicReferenceArray<>(Depositos.MAXIMO);
+    // Último reparto indexado de cada producto (por depósito)
+    private final Map<Producto, int[]> vistos = new ConcurrentHashMap<>();
+    private volatile boolean activo;
+
+    boolean activo() {
+        return activo;
+    }
+
+    // Enciende el índice y carga los productos actuales (ver IndicesOrdenados.activar)
+    void activar(Iterable<Producto> productos) {
+        if (activo) return;
+        synchronized (this) {
+            if (activo) return;
+            activo = true;
+            for (Producto p : productos) {
+                synchronized (p) {
+                    actualizar(p);
+                }
+            }
+        }
+    }
+
+    private Deposito deposito(int d) {
+        Deposito x = depositos.get(d);
+        if (x != null) return x;
+        depositos.compareAndSet(d, null, new Deposito());
+        return depositos.get(d);
+    }
+
+    // Reubica el producto según su estado actual (con el lock del producto)
+    void actualizar(Producto p) {
+        Producto.Estado e = p.estado();
+        if (e.observador == null) { // ya salió del inventario
+            quitar(p);
+            return;
+        }
+        int[] antes = vistos.get(p);
+        int[] ahora = e.copiaDepositos(antes == null ? 0 : antes.length);
+        for (int d = 0; d < ahora.length; d++) {
+            int previo = antes == null || d >= antes.length ? 0 : antes[d];
+            if (previo == ahora[d]) continue;
+            Deposito x = deposito(d);
+            x.unidades.add(ahora[d] - previo);
+            if (ahora[d] > 0) x.productos.add(p);
+            else x.productos.remove(p);
+        }
+        vistos.put(p, ahora);
+    }
+
+    // Saca el producto de todos los depósitos (con el lock del producto)
+    void quitar(Producto p) {
+        int[] antes = vistos.remove(p);
+        if (antes == null) return;
+        for (int d = 0; d < antes.length; d++) {
+            if (antes[d] == 0) continue;
+            Deposito x = depositos.get(d);
+            x.unidades.add(-antes[d]);
+            x.productos.remove(p);
+        }
+    }
+
+    long unidades(int d) {
+        Deposito x = depositos.get(d);
+        return x == null ? 0 : x.unidades.sum();
+    }
+
+    // Productos con stock en el depósito (vista viva, no copia)
+    Set<Producto> productos(int d) {
+        Deposito x = depositos.get(d);
+        return x == null ? Set.of() : x.productos;
+    }
+}
@@ -0,0 +1,296 @@
+package app;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/*
+ * Flujo de cambios del inventario (change data capture).
+ * - Cada alta, baja, cambio de precio, de stock o de texto genera un Evento
+ *   con un número de secuencia creciente y los valores de antes y después.
+ *   Una transferencia entre depósitos no cambia el total pero es un STOCK:
+ *   el reparto viaja en los Valores.
+ * - Los eventos van a un anillo acotado sin locks: cada escritor reserva su
+ *   secuencia con un contador atómico y publica en su casillero.
+ * - Cada suscriptor tiene su propio hilo que recibe los eventos en LOTES, en
+ *   orden de secuencia.
+ * - Contrapresión: el anillo es el único búfer. Los escritores publican con
+ *   el lock de un producto tomado, así que NUNCA esperan: si un suscriptor
+ *   se atrasa una vuelta entera, el escritor que necesita su casillero lo da
+ *   de baja con un error en el acto. Nunca se le saltea un evento sin avisar;
+ *   como el que le faltaba ya se pisó, tiene que volver a leer el inventario.
+ * - El anillo guarda los últimos 'capacidad' eventos: un suscriptor puede
+ *   reanudar desde una secuencia mientras siga ahí.
+ *
+ * El orden de secuencia es el orden de publicación. Para un mismo producto,
+ * los cambios de precio/stock de hilos distintos pueden quedar cruzados:
+ * 'version' en los Valores dice cuál es más nuevo (ver OyenteInventario).
+ */
+public final class FlujoCambios {
+
+    public enum Tipo { ALTA, BAJA, PRECIO, STOCK, TEXTO }
+
+    // Valores de un producto en un momento ('version' ordena sus cambios de precio/stock;
+    // 'depositos' es el stock por depósito, sin los que están en 0)
+    public record Valores(String nombre, String descripcion, double precio, int stock, int reservado, long version,
+                          Map<String, Integer> depositos) {
+        static Valores de(Producto.Estado e) {
+            return new Valores(e.nombre, e.descripcion, e.precio, e.stock, e.reservado, e.version, e.porDeposito());
+        }
+    }
+
+    // 'antes' es null en las altas y 'despues' en las bajas
+    public record Evento(long secuencia, Tipo tipo, String codigo, long idAlta, Valores antes, Valores despues) {}
+
+    /*
+     * Recibe los eventos en lotes (nunca vacíos), desde el hilo de su
+     * suscripción. Si tarda más de lo que los escritores tardan en dar la
+     * vuelta al anillo, la suscripción se da de baja (ver error()).
+     */
+    @FunctionalInterface
+    public interface Suscriptor {
+        void recibir(List<Evento> lote);
+    }
+
+    static final int CAPACIDAD = 1 << 16;
+    static final int LOTE = 256;
+
+    private static final VarHandle CASILLERO = MethodHandles.arrayElementVarHandle(Evento[].class);
+
+    private final Evento[] anillo;
+    private final int mascara;
+    // Última secuencia reservada (la primera es 1)
+    private final AtomicLong ultima = new AtomicLong();
+    // Suscripciones activas; copia al escribir
+    private volatile Suscripcion[] suscripciones = new Suscripcion[0];
+    private final OyenteInventario oyente = new Oyente();
+
+    FlujoCambios(int capacidad) {
+        int c = Integer.highestOneBit(Math.max(2, capacidad - 1)) << 1;
+        this.anillo = new Evento[c];
+        this.mascara = c - 1;
+    }
+
+    OyenteInventario oyente() {
+        return oyente;
+    }
+
+    public int capacidad() {
+        return anillo.length;
+    }
+
+    // Secuencia del último evento publicado o en publicación (0 si no hubo)
+    public long ultimaSecuencia() {
+        return ultima.get();
+    }
+
+    // ---------- Publicación ----------
+
+    private final class Oyente implements OyenteInventario {
+        @Override public void alta(Producto p, Producto.Estado e) {
+            publicar(Tipo.ALTA, p, e.idAlta, null, Valores.de(e));
+        }
+
+        @Override public void baja(Producto p, Producto.Estado e) {
+            publicar(Tipo.BAJA, p, e.idAlta, Valores.de(e), null);
+        }
+
+        @Override public void texto(Producto p, Producto.Estado antes) {
+            Producto.Estado despues = p.estado(); // el texto no cambia: tenemos el lock del producto
+            publicar(Tipo.TEXTO, p, despues.idAlta, Valores.de(antes), Valores.de(despues));
+        }
+
+        @Override public void cambio(Producto p, Producto.Estado antes, Producto.Estado despues) {
+            boolean precio = antes.precio != despues.precio;
+            boolean stock = antes.stock != despues.stock || antes.reservado != despues.reservado
+                    || !antes.mismoReparto(despues);
+            if (!precio && !stock) return;
+            Valores a = Valores.de(antes);
+            Valores d = Valores.de(despues);
+            if (precio) publicar(Tipo.PRECIO, p, despues.idAlta, a, d);
+            if (stock)  publicar(Tipo.STOCK, p, despues.idAlta, a, d);
+        }
+    }
+
+    private void publicar(Tipo tipo, Producto p, long idAlta, Valores antes, Valores despues) {
+        long s = ultima.incrementAndGet();
+        liberarLugar(s);
+        int i = (int) (s & mascara);
+        Evento nuevo = new Evento(s, tipo, p.getCodigo(), idAlta, antes, despues);
+        Evento actual;
+        do {
+            actual = (Evento) CASILLERO.getAcquire(anillo, i);
+            // Un escritor demorado más de una vuelta: el suyo ya se perdió (ver Suscripcion.correr)
+            if (actual != null && actual.secuencia() > s) return;
+        } while (!CASILLERO.compareAndSet(anillo, i, actual, nuevo));
+        for (Suscripcion x : suscripciones) {
+            if (x.dormida) LockSupport.unpark(x.hilo);
+        }
+    }
+
+    /*
+     * El casillero de 's' queda libre cuando todos procesaron 's - capacidad'.
+     * Sin esperar: el que todavía no lo procesó se da de baja.
+     */
+    private void liberarLugar(long s) {
+        long libre = s - anillo.length;
+        if (libre <= procesadoMinimo()) return;
+        for (Suscripcion x : suscripciones) {
+            if (x.procesado < libre) {
+                x.descartar(new IllegalStateException("Suscriptor atrasado: el evento " + libre + " se pisó sin procesar"));
+            }
+        }
+    }
+
+    private long procesadoMinimo() {
+        long m = Long.MAX_VALUE;
+        for (Suscripcion x : suscripciones) m = Math.min(m, x.procesado);
+        return m;
+    }
+
+    // ---------- Suscripción ----------
+
+    // Recibe los eventos que se publiquen desde ahora
+    public Suscripcion suscribir(Suscriptor s) {
+        return iniciar(new Suscripcion(s, ultima.get()));
+    }
+
+    /*
+     * Reanuda desde la secuencia 'desde' (inclusive), p. ej. la siguiente a
+     * la última que se procesó. Si el anillo ya la descartó lanza
+     * IllegalArgumentException: hay que volver a leer el inventario completo.
+     */
+    public Suscripcion suscribir(long desde, Suscriptor s) {
+        if (desde < 1) throw new IllegalArgumentException("Secuencia inválida: " + desde);
+        Suscripcion x = new Suscripcion(s, Math.min(desde, ultima.get() + 1) - 1);
+        agregar(x);
+        // Ya anotada: desde aquí ningún escritor pisa lo que le falta. ¿Se pisó antes?
+        if (desde <= ultima.get() - anillo.length) {
+            quitar(x);
+            throw new IllegalArgumentException("La secuencia " + desde + " ya no está en el flujo");
+        }
+        x.hilo.start();
+        return x;
+    }
+
+    private Suscripcion iniciar(Suscripcion x) {
+        agregar(x);
+        x.hilo.start();
+        return x;
+    }
+
+    private synchronized void agregar(Suscripcion x) {
+        Suscripcion[] v = Arrays.copyOf(suscripciones, suscripciones.length + 1);
+        v[v.length - 1] = x;
+        suscripciones = v;
+    }
+
+    private synchronized void quitar(Suscripcion x) {
+        List<Suscripcion> v = new ArrayList<>(Arrays.asList(suscripciones));
+        v.remove(x);
+        suscripciones = v.toArray(new Suscripcion[0]);
+    }
+
+    /*
+     * Un suscriptor con su hilo. close() lo detiene y libera el anillo; si el
+     * suscriptor lanza una excepción, o se atrasa una vuelta del anillo, la
+     * suscripción termina sola y la guarda en error().
+     */
+    public final class Suscripcion implements AutoCloseable {
+        private final Suscriptor suscriptor;
+        private final Thread hilo;
+        // Última secuencia entregada
+        private volatile long procesado;
+        private volatile boolean dormida;
+        private volatile boolean cerrada;
+        private volatile RuntimeException error;
+
+        private Suscripcion(Suscriptor suscriptor, long procesado) {
+            this.suscriptor = suscriptor;
+            this.procesado = procesado;
+            this.hilo = new Thread(this::correr, "flujo-cambios");
+            this.hilo.setDaemon(true);
+        }
+
+        // Última secuencia ya entregada al suscriptor (para reanudar desde la siguiente)
+        public long procesado() {
+            return procesado;
+        }
+
+        public RuntimeException error() {
+            return error;
+        }
+
+        // La da de baja sin esperar a su hilo (que puede estar trabado en recibir)
+        private void descartar(RuntimeException motivo) {
+            if (cerrada) return;
+            error = motivo;
+            cerrada = true;
+            quitar(this);
+            LockSupport.unpark(hilo);
+        }
+
+        private void correr() {
+            List<Evento> lote = new ArrayList<>(LOTE);
+            try {
+                while (!cerrada) {
+                    long q = procesado + 1;
+                    while (lote.size() < LOTE) {
+                        Evento e = (Evento) CASILLERO.getAcquire(anillo, (int) (q & mascara));
+                        if (e != null && e.secuencia() > q) throw new IllegalStateException("Se perdió el evento " + q);
+                        if (e == null || e.secuencia() != q) break; // todavía no se publicó
+                        lote.add(e);
+                        q++;
+                    }
+                    if (lote.isEmpty()) {
+                        esperar(q);
+                        continue;
+                    }
+                    suscriptor.recibir(List.copyOf(lote));
+                    procesado = q - 1;
+                    lote.clear();
+                }
+            } catch (RuntimeException e) {
+                if (error == null) error = e;
+            } finally {
+                cerrada = true;
+                quitar(this);
+            }
+        }
+
+        // Sin eventos: gira un poco y después duerme hasta que un escritor la despierte
+        private void esperar(long q) {
+            for (int i = 0; i < 100; i++) {
+                if (publicado(q) || cerrada) return;
+                Thread.onSpinWait();
+            }
+            dormida = true;
+            if (!publicado(q) && !cerrada) LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(10));
+            dormida = false;
+        }
+
+        private boolean publicado(long q) {
+            Evento e = (Evento) CASILLERO.getAcquire(anillo, (int) (q & mascara));
+            return e != null && e.secuencia() == q;
+        }
+
+        @Override
+        public void close() {
+            cerrada = true;
+            LockSupport.unpark(hilo);
+            if (Thread.currentThread() == hilo) return; // cerrada desde el propio suscriptor
+            try {
+                hilo.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            quitar(this);
+        }
+    }
+}
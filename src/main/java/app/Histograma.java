@@ -0,0 +1,63 @@
+package app;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/*
+ * Histograma de latencias estilo HDR (log-lineal), en nanosegundos.
+ * - Cada potencia de 2 se parte en 2^SUB_BITS cubetas iguales: el error
+ *   relativo de cualquier percentil es menor a 1/2^SUB_BITS (~6%).
+ * - Cubre de 0 ns a ~2^63 ns con 60*16 contadores fijos.
+ * - registrar no asigna memoria ni toma locks (un incremento atómico).
+ */
+final class Histograma {
+    private static final int SUB_BITS = 4;
+    private static final int SUB = 1 << SUB_BITS;
+    private static final int CUBETAS = (64 - SUB_BITS) * SUB;
+
+    private final AtomicLongArray cuentas = new AtomicLongArray(CUBETAS);
+
+    // Cubeta de un valor (negativos cuentan como 0)
+    static int cubeta(long v) {
+        if (v < SUB) return (int) Math.max(0, v);
+        int corrimiento = 63 - Long.numberOfLeadingZeros(v) - SUB_BITS;
+        return (corrimiento + 1) * SUB + (int) ((v >>> corrimiento) - SUB);
+    }
+
+    // Mayor valor que cae en la cubeta i
+    static long tope(int i) {
+        if (i < SUB) return i;
+        int corrimiento = i / SUB - 1;
+        long desde = (long) (SUB + i % SUB) << corrimiento;
+        return desde + (1L << corrimiento) - 1;
+    }
+
+    void registrar(long nanos) {
+        cuentas.incrementAndGet(cubeta(nanos));
+    }
+
+    long total() {
+        long t = 0;
+        for (int i = 0; i < CUBETAS; i++) t += cuentas.get(i);
+        return t;
+    }
+
+    /*
+     * Valor bajo el cual cae la fracción 'q' (0..1) de las muestras
+     * (tope de su cubeta). 0 si no hay muestras.
+     */
+    long percentil(double q) {
+        long total = total();
+        if (total == 0) return 0;
+        long objetivo = Math.max(1, (long) Math.ceil(q * total));
+        long acumulado = 0;
+        for (int i = 0; i < CUBETAS; i++) {
+            acumulado += cuentas.get(i);
+            if (acumulado >= objetivo) return tope(i);
+        }
+        return tope(CUBETAS - 1);
+    }
+
+    void reiniciar() {
+        for (int i = 0; i < CUBETAS; i++) cuentas.set(i, 0);
+    }
+}
@@ -0,0 +1,399 @@
+package app;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Predicate;
+
+/*
+ * Índice de PALABRAS para la búsqueda ranqueada con errores de tipeo.
+ * - Cada producto se indexa por las palabras de su nombre y descripción,
+ *   en minúsculas y sin acentos ("Descripción" -> "descripcion").
+ * - Vocabulario ordenado (skip list): palabra exacta en O(log V) y las que
+ *   empiezan con un prefijo como un rango.
+ * - Errores de tipeo con SYMMETRIC DELETE: cada palabra (de 4 letras o más,
+ *   sin dígitos) se registra bajo todas las variantes que resultan de
+ *   borrarle 1 o 2 caracteres. Una consulta genera sus propias variantes y
+ *   los candidatos salen de ahí; solo esos se verifican con distancia de
+ *   edición (transposiciones incluidas). Distancia 1 desde 4 letras, 2
+ *   desde 8.
+ * - Puntaje por palabra de la consulta, la mejor coincidencia en el
+ *   producto: exacta > prefijo > 1 error > 2 errores, y el nombre pesa el
+ *   doble que la descripción (un prefijo en el nombre gana a una exacta en
+ *   la descripción). El producto tiene que coincidir con todas las palabras.
+ * - Top-K con un montículo acotado y algoritmo de umbral: se recorren los
+ *   productos de cada palabra de mejor a peor coincidencia y se corta
+ *   cuando ni el mejor caso restante entra en el top-K (ver buscar).
+ *
+ * Como IndiceTexto: entradas por INSTANCIA de Producto y los cambios de un
+ * producto los serializa Inventario con el lock del producto. Se enciende en
+ * la primera búsqueda (como IndicesOrdenados). Las palabras no se borran del
+ * vocabulario cuando se quedan sin productos (solo sus listas se vacían).
+ */
+final class IndiceDifuso {
+    private static final int NOMBRE = 0, DESCRIPCION = 1;
+    // Puntaje por tipo de coincidencia (exacta, prefijo, 1 error, 2 errores); el nombre vale el doble
+    private static final int[] PUNTOS = {6, 4, 2, 1};
+    private static final int EXACTA = 0, PREFIJO = 1;
+
+    /*
+     * Productos que tienen la palabra, por campo, cada uno con sus palabras
+     * (para puntuarlo sin otra búsqueda).
+     */
+    private static final class Palabra {
+        final String texto; // la instancia compartida por todos los productos que la usan
+        final Map<Producto, String[]>[] productos;
+
+        // Uno por campo (nombre, descripción); new Map<...>[] no compila
+        @SuppressWarnings({"rawtypes", "unchecked"})
+        Palabra(String texto) {
+            this.texto = texto;
+            productos = new Map[]{new ConcurrentHashMap<>(), new ConcurrentHashMap<>()};
+        }
+    }
+
+    private final ConcurrentSkipListMap<String, Palabra> vocabulario = new ConcurrentSkipListMap<>();
+    // variante con 1 o 2 borrados -> palabras del vocabulario que la generan
+    private final Map<String, Set<String>> variantes = new ConcurrentHashMap<>();
+    // producto -> palabras indexadas: las del nombre, null y las de la descripción
+    private final Map<Producto, String[]> indexadas = new ConcurrentHashMap<>();
+    private volatile boolean activo;
+
+    boolean activo() {
+        return activo;
+    }
+
+    // Enciende el índice y carga los productos actuales (ver IndicesOrdenados.activar)
+    void activar(Iterable<Producto> productos) {
+        if (activo) return;
+        synchronized (this) {
+            if (activo) return;
+            activo = true;
+            for (Producto p : productos) {
+                synchronized (p) {
+                    if (p.estado().observador != null) indexar(p);
+                }
+            }
+        }
+    }
+
+    // ---------- Texto ----------
+
+    // Minúsculas y sin acentos; el caso ASCII no crea nada extra
+    static String plegar(String s) {
+        if (s == null) return "";
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) > 0x7F) {
+                String d = Normalizer.normalize(s, Normalizer.Form.NFD);
+                StringBuilder sb = new StringBuilder(d.length());
+                for (int j = 0; j < d.length(); j++) {
+                    char c = d.charAt(j);
+                    if (Character.getType(c) != Character.NON_SPACING_MARK) sb.append(c);
+                }
+                return sb.toString().toLowerCase(Locale.ROOT);
+            }
+        }
+        return s.toLowerCase(Locale.ROOT);
+    }
+
+    // Palabras (letras y dígitos seguidos) del texto ya plegado, sin repetir
+    static String[] palabras(String s) {
+        List<String> out = new ArrayList<>();
+        int i = 0;
+        while (i < s.length()) {
+            while (i < s.length() && !Character.isLetterOrDigit(s.charAt(i))) i++;
+            int j = i;
+            while (j < s.length() && Character.isLetterOrDigit(s.charAt(j))) j++;
+            if (j > i) {
+                String w = s.substring(i, j);
+                if (!out.contains(w)) out.add(w);
+            }
+            i = j;
+        }
+        return out.toArray(new String[0]);
+    }
+
+    // Errores tolerados para una palabra de la consulta
+    private static int tolerancia(String w) {
+        return w.length() >= 8 ? 2 : w.length() >= 4 ? 1 : 0;
+    }
+
+    private static boolean difusa(String w) {
+        if (w.length() < 4) return false;
+        for (int i = 0; i < w.length(); i++) if (Character.isDigit(w.charAt(i))) return false;
+        return true;
+    }
+
+    // Variantes de w con 1 y hasta 'borrados' caracteres menos
+    private static Set<String> borrados(String w, int borrados) {
+        Set<String> out = new HashSet<>();
+        for (int i = 0; i < w.length(); i++) {
+            String a = w.substring(0, i) + w.substring(i + 1);
+            out.add(a);
+            if (borrados > 1) {
+                for (int j = i; j < a.length(); j++) out.add(a.substring(0, j) + a.substring(j + 1));
+            }
+        }
+        return out;
+    }
+
+    // Distancia de edición con transposiciones (OSA); corta en max + 1
+    static int distancia(String a, String b, int max) {
+        if (Math.abs(a.length() - b.length()) > max) return max + 1;
+        int[] dos = new int[b.length() + 1], uno = new int[b.length() + 1], fila = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) uno[j] = j;
+        for (int i = 1; i <= a.length(); i++) {
+            fila[0] = i;
+            int menor = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int costo = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int d = Math.min(Math.min(uno[j] + 1, fila[j - 1] + 1), uno[j - 1] + costo);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    d = Math.min(d, dos[j - 2] + 1);
+                }
+                fila[j] = d;
+                menor = Math.min(menor, d);
+            }
+            if (menor > max) return max + 1;
+            int[] t = dos;
+            dos = uno;
+            uno = fila;
+            fila = t;
+        }
+        return uno[b.length()];
+    }
+
+    // ---------- Mantenimiento ----------
+
+    // Indexa (o reindexa) el texto actual de un producto (con su lock)
+    void indexar(Producto p) {
+        desindexar(p);
+        Producto.Estado e = p.estado();
+        String[] nombre = palabras(plegar(e.nombre)), descripcion = palabras(plegar(e.descripcion));
+        String[] w = new String[nombre.length + 1 + descripcion.length];
+        System.arraycopy(nombre, 0, w, 0, nombre.length);
+        System.arraycopy(descripcion, 0, w, nombre.length + 1, descripcion.length);
+        // Las palabras del producto son las del vocabulario: menos memoria y, al puntuar, menos fallos de caché
+        for (int i = 0; i < w.length; i++) if (w[i] != null) w[i] = palabra(w[i]).texto;
+        indexadas.put(p, w);
+        int campo = NOMBRE;
+        for (String s : w) {
+            if (s == null) campo = DESCRIPCION;
+            else vocabulario.get(s).productos[campo].put(p, w);
+        }
+    }
+
+    // Quita un producto del índice (con su lock)
+    void desindexar(Producto p) {
+        String[] w = indexadas.remove(p);
+        if (w == null) return;
+        int campo = NOMBRE;
+        for (String s : w) {
+            if (s == null) campo = DESCRIPCION;
+            else vocabulario.get(s).productos[campo].remove(p);
+        }
+    }
+
+    private Palabra palabra(String s) {
+        Palabra x = vocabulario.get(s);
+        if (x != null) return x;
+        Palabra nueva = new Palabra(s);
+        x = vocabulario.putIfAbsent(s, nueva);
+        if (x != null) return x;
+        if (difusa(s)) {
+            for (String v : borrados(s, 2)) variantes.computeIfAbsent(v, k -> ConcurrentHashMap.newKeySet()).add(s);
+        }
+        return nueva;
+    }
+
+    // ---------- Búsqueda ----------
+
+    // Una palabra de la consulta y las del vocabulario a 1 y 2 errores (sin exacta ni prefijos)
+    private final class Termino {
+        final String w;
+        final Set<String> d1 = new HashSet<>(), d2 = new HashSet<>();
+
+        Termino(String w) {
+            this.w = w;
+            int max = tolerancia(w);
+            if (max == 0 || !difusa(w)) return;
+            Set<String> consulta = borrados(w, max);
+            consulta.add(w);
+            for (String v : consulta) {
+                Set<String> ws = variantes.getOrDefault(v, Set.of());
+                if (vocabulario.containsKey(v)) considerar(v, max); // la variante ya es una palabra
+                for (String s : ws) considerar(s, max);
+            }
+        }
+
+        private void considerar(String s, int max) {
+            if (s.startsWith(w) || d1.contains(s) || d2.contains(s)) return;
+            int d = distancia(w, s, max);
+            if (d == 1) d1.add(s);
+            else if (d == 2) d2.add(s);
+        }
+
+        // Tipo de coincidencia de una palabra del producto (-1: ninguna)
+        int tipo(String s) {
+            if (s.startsWith(w)) return s.length() == w.length() ? EXACTA : PREFIJO;
+            if (!d1.isEmpty() && d1.contains(s)) return PREFIJO + 1;
+            if (!d2.isEmpty() && d2.contains(s)) return PREFIJO + 2;
+            return -1;
+        }
+
+        // Mejor puntaje en las palabras indexadas del producto (0 = no coincide)
+        int puntaje(String[] palabras) {
+            int mejor = 0, campo = NOMBRE;
+            for (String s : palabras) {
+                if (s == null) {
+                    campo = DESCRIPCION;
+                    continue;
+                }
+                int t = tipo(s);
+                if (t >= 0) mejor = Math.max(mejor, puntos(t, campo));
+            }
+            return mejor;
+        }
+
+        // Conjuntos de productos de un tipo de coincidencia y campo (los prefijos, a medida que se recorren)
+        Iterator<Map<Producto, String[]>> conjuntos(int tipo, int campo) {
+            Iterator<Palabra> ps = switch (tipo) {
+                case EXACTA -> {
+                    Palabra x = vocabulario.get(w);
+                    yield x == null ? Collections.emptyIterator() : List.of(x).iterator();
+                }
+                case PREFIJO -> vocabulario.tailMap(w, false).entrySet().stream()
+                        .takeWhile(e -> e.getKey().startsWith(w)).map(Map.Entry::getValue).iterator();
+                default -> (tipo == PREFIJO + 1 ? d1 : d2).stream().map(vocabulario::get).filter(Objects::nonNull).iterator();
+            };
+            return new Iterator<>() {
+                public boolean hasNext() { return ps.hasNext(); }
+                public Map<Producto, String[]> next() { return ps.next().productos[campo]; }
+            };
+        }
+    }
+
+    private static int puntos(int tipo, int campo) {
+        return PUNTOS[tipo] * (campo == NOMBRE ? 2 : 1);
+    }
+
+    // (tipo, campo) de mayor a menor puntaje
+    private static final int[][] ORDEN;
+
+    static {
+        List<int[]> pares = new ArrayList<>();
+        for (int tipo = 0; tipo < PUNTOS.length; tipo++) {
+            for (int campo = NOMBRE; campo <= DESCRIPCION; campo++) pares.add(new int[]{tipo, campo});
+        }
+        pares.sort((a, b) -> Integer.compare(puntos(b[0], b[1]), puntos(a[0], a[1])));
+        ORDEN = pares.toArray(new int[0][]);
+    }
+
+    /*
+     * Productos de un término de mayor a menor puntaje. 'nivel' es el
+     * puntaje más alto que puede tener un producto que todavía no salió.
+     */
+    private static final class Flujo {
+        final Termino termino;
+        int par = -1, nivel;
+        Iterator<Map<Producto, String[]>> conjuntos = Collections.emptyIterator();
+        Iterator<Map.Entry<Producto, String[]>> productos = Collections.emptyIterator();
+
+        Flujo(Termino termino) {
+            this.termino = termino;
+            avanzar();
+        }
+
+        // Deja 'productos' con un siguiente, o nivel 0 si se terminó
+        private void avanzar() {
+            while (!productos.hasNext()) {
+                if (conjuntos.hasNext()) productos = conjuntos.next().entrySet().iterator();
+                else if (++par < ORDEN.length) {
+                    conjuntos = termino.conjuntos(ORDEN[par][0], ORDEN[par][1]);
+                    nivel = puntos(ORDEN[par][0], ORDEN[par][1]);
+                } else {
+                    nivel = 0;
+                    return;
+                }
+            }
+        }
+
+        boolean agotado() {
+            return nivel == 0;
+        }
+
+        // Producto y sus palabras
+        Map.Entry<Producto, String[]> siguiente() {
+            Map.Entry<Producto, String[]> e = productos.next();
+            avanzar();
+            return e;
+        }
+    }
+
+    // Resultado con su puntaje
+    record Resultado(Producto producto, int puntaje) {}
+
+    // Peor primero: menor puntaje y, a igual puntaje, el código mayor (orden del resultado)
+    private static final Comparator<Resultado> PEOR_PRIMERO = Comparator.comparingInt(Resultado::puntaje)
+            .thenComparing(r -> r.producto().getCodigo(), Comparator.reverseOrder());
+
+    /*
+     * Los 'limite' productos de mayor puntaje para la consulta, de mayor a
+     * menor y a igual puntaje por código. 'vigente' filtra los que ya no
+     * pertenecen al inventario.
+     *
+     * Algoritmo de umbral: un flujo por palabra, cada uno de mayor a menor
+     * puntaje, consumidos por turno. Un producto que no salió de ningún flujo
+     * no puede sumar más que la suma de sus niveles; cuando el top-K ya tiene
+     * eso (o más) se corta. Si hay más empatados en el último puntaje que
+     * lugares, entran los primeros que se encuentran. Si un flujo se agota,
+     * todo producto que coincide con todas las palabras ya salió.
+     */
+    List<Resultado> buscar(String texto, int limite, Predicate<Producto> vigente) {
+        String[] ws = palabras(plegar(texto));
+        if (ws.length == 0 || limite <= 0) return List.of();
+        Flujo[] flujos = new Flujo[ws.length];
+        for (int i = 0; i < ws.length; i++) flujos[i] = new Flujo(new Termino(ws[i]));
+
+        PriorityQueue<Resultado> top = new PriorityQueue<>(limite + 1, PEOR_PRIMERO);
+        Set<Producto> vistos = new HashSet<>();
+        for (int turno = 0; ; turno++) {
+            int umbral = 0;
+            for (Flujo f : flujos) {
+                if (f.agotado()) return ordenado(top);
+                umbral += f.nivel;
+            }
+            if (top.size() == limite && umbral <= top.peek().puntaje()) return ordenado(top);
+
+            Map.Entry<Producto, String[]> e = flujos[turno % flujos.length].siguiente();
+            Producto p = e.getKey();
+            if (!vistos.add(p)) continue;
+            String[] suyas = e.getValue();
+            int total = 0;
+            for (Flujo f : flujos) {
+                int pts = f.termino.puntaje(suyas);
+                if (pts == 0) {
+                    total = 0;
+                    break;
+                }
+                total += pts;
+            }
+            if (total == 0) continue;
+            Resultado r = new Resultado(p, total);
+            if (top.size() == limite && PEOR_PRIMERO.compare(r, top.peek()) <= 0) continue;
+            if (!vigente.test(p)) continue;
+            if (top.size() < limite) top.add(r);
+            else {
+                top.poll();
+                top.add(r);
+            }
+        }
+    }
+
+    private static List<Resultado> ordenado(PriorityQueue<Resultado> top) {
+        Resultado[] out = top.toArray(new Resultado[0]);
+        Arrays.sort(out, PEOR_PRIMERO.reversed());
+        return List.of(out);
+    }
+}
@@ -0,0 +1,129 @@
+package app;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * Índice INVERTIDO de trigramas para la búsqueda por texto.
+ * - Cada producto se indexa por los trigramas (3 caracteres seguidos) de su
+ *   nombre y descripción en minúsculas.
+ * - Guarda también el texto ya pasado a minúsculas, así la verificación final
+ *   de 'contains' no crea Strings nuevos en cada búsqueda.
+ * - Se ENCIENDE con la primera búsqueda (ver activar): hasta entonces las
+ *   altas no pagan sus ~20 postings por producto. Desde ahí Inventario lo
+ *   mantiene al día en cada alta, baja y cambio de texto.
+ *
+ * Búsqueda: se toma la lista de postings más corta entre los trigramas de la
+ * consulta y solo esos candidatos se verifican. Consultas de menos de 3
+ * caracteres recorren los textos guardados (sin volver a pasarlos a minúsculas).
+ *
+ * Las entradas se identifican por la INSTANCIA de Producto (no por el código),
+ * así una baja y un alta concurrentes del mismo código no se borran entre sí.
+ * Las estructuras son concurrentes; los cambios de UN producto los serializa
+ * Inventario sincronizando sobre ese producto.
+ */
+final class IndiceTexto {
+    private static final int N = 3;
+
+    // trigrama empaquetado -> productos que lo contienen
+    private final Map<Long, Set<Producto>> postings = new ConcurrentHashMap<>();
+    // producto -> {nombre, descripción} en minúsculas
+    private final Map<Producto, String[]> textos = new ConcurrentHashMap<>();
+    private volatile boolean activo;
+
+    boolean activo() {
+        return activo;
+    }
+
+    // Enciende el índice y carga los productos actuales (ver IndicesOrdenados.activar)
+    void activar(Iterable<Producto> productos) {
+        if (activo) return;
+        synchronized (this) {
+            if (activo) return;
+            activo = true;
+            for (Producto p : productos) {
+                synchronized (p) {
+                    if (p.estado().observador != null) indexar(p);
+                }
+            }
+        }
+    }
+
+    // Pasa a minúsculas igual que la búsqueda original (null -> "")
+    static String minusculas(String s) {
+        return s == null ? "" : s.toLowerCase(Locale.ROOT);
+    }
+
+    // Empaqueta 3 caracteres en un long (16 bits por carácter)
+    private static long trigrama(String s, int i) {
+        return ((long) s.charAt(i) << 32) | ((long) s.charAt(i + 1) << 16) | s.charAt(i + 2);
+    }
+
+    // Indexa (o reindexa) el texto actual de un producto
+    void indexar(Producto p) {
+        desindexar(p);
+        String n = minusculas(p.getNombre());
+        String d = minusculas(p.getDescripcion());
+        textos.put(p, new String[]{n, d});
+        agregarTrigramas(p, n);
+        agregarTrigramas(p, d);
+    }
+
+    // Quita un producto del índice
+    void desindexar(Producto p) {
+        String[] t = textos.remove(p);
+        if (t == null) return;
+        quitarTrigramas(p, t[0]);
+        quitarTrigramas(p, t[1]);
+    }
+
+    /*
+     * Devuelve los productos cuyo nombre o descripción contiene el texto.
+     * Mismo criterio que el recorrido completo: 'contains' en minúsculas.
+     */
+    List<Producto> buscar(String texto) {
+        String t = texto.toLowerCase(Locale.ROOT);
+        List<Producto> out = new ArrayList<>();
+        if (t.length() < N) {
+            for (Map.Entry<Producto, String[]> e : textos.entrySet()) {
+                if (coincide(e.getValue(), t)) out.add(e.getKey());
+            }
+            return out;
+        }
+        Set<Producto> menor = null;
+        for (int i = 0; i + N <= t.length(); i++) {
+            Set<Producto> s = postings.get(trigrama(t, i));
+            if (s == null) return out; // algún trigrama no existe: sin resultados
+            if (menor == null || s.size() < menor.size()) menor = s;
+        }
+        for (Producto p : menor) {
+            String[] v = textos.get(p);
+            if (v != null && coincide(v, t)) out.add(p);
+        }
+        return out;
+    }
+
+    private static boolean coincide(String[] v, String t) {
+        return v[0].contains(t) || v[1].contains(t);
+    }
+
+    private void agregarTrigramas(Producto p, String s) {
+        for (int i = 0; i + N <= s.length(); i++) {
+            postings.compute(trigrama(s, i), (k, v) -> {
+                if (v == null) v = ConcurrentHashMap.newKeySet();
+                v.add(p);
+                return v;
+            });
+        }
+    }
+
+    private void quitarTrigramas(Producto p, String s) {
+        // compute* es atómico por clave: un alta concurrente no queda en una lista huérfana
+        for (int i = 0; i + N <= s.length(); i++) {
+            postings.computeIfPresent(trigrama(s, i), (k, v) -> {
+                v.remove(p);
+                return v.isEmpty() ? null : v;
+            });
+        }
+    }
+}
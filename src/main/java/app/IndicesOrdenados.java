@@ -0,0 +1,161 @@
+package app;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/*
+ * Índices SECUNDARIOS ORDENADOS: por código, nombre, precio y stock.
+ * - Cada uno es un ConcurrentSkipListMap<Clave, Producto>: llegar a cualquier
+ *   posición cuesta O(log N) y de ahí se recorre en orden sin copiar nada.
+ * - Se activan con la primera consulta que los necesita (activar). Hasta
+ *   entonces los cambios de precio/stock no pagan nada extra.
+ * - La clave incluye el idAlta: un producto eliminado y otro nuevo con el
+ *   mismo código nunca se pisan entre sí.
+ *
+ * actualizar y quitar se llaman con el lock del producto tomado. 'actualizar'
+ * relee el estado ACTUAL del producto: aunque los avisos de cambio lleguen
+ * desordenados entre hilos, el último en pasar deja el índice al día.
+ */
+final class IndicesOrdenados {
+
+    // Posición de un producto en los índices; inmutable
+    static final class Clave {
+        final double numero;   // precio o stock (0 en los otros índices)
+        final String texto;    // nombre ("" si es null); solo índice por nombre
+        final String codigo;
+        final long idAlta;
+
+        Clave(double numero, String texto, String codigo, long idAlta) {
+            this.numero = numero;
+            this.texto = texto;
+            this.codigo = codigo;
+            this.idAlta = idAlta;
+        }
+    }
+
+    private static final Comparator<Clave> POR_CODIGO =
+            Comparator.<Clave, String>comparing(c -> c.codigo).thenComparingLong(c -> c.idAlta);
+    private static final Comparator<Clave> POR_NOMBRE =
+            Comparator.<Clave, String>comparing(c -> c.texto, String.CASE_INSENSITIVE_ORDER)
+                    .thenComparing(POR_CODIGO);
+    private static final Comparator<Clave> POR_NUMERO =
+            Comparator.<Clave>comparingDouble(c -> c.numero).thenComparing(POR_CODIGO);
+
+    private static final Orden[] ORDENES = Orden.values();
+
+    // Un skip list por Orden: Java no deja crear arreglos de un tipo genérico
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private final ConcurrentSkipListMap<Clave, Producto>[] indices = new ConcurrentSkipListMap[] {
+            new ConcurrentSkipListMap<>(POR_CODIGO),
+            new ConcurrentSkipListMap<>(POR_NOMBRE),
+            new ConcurrentSkipListMap<>(POR_NUMERO),
+            new ConcurrentSkipListMap<>(POR_NUMERO)
+    };
+    // Claves vigentes de cada producto (una por índice), para poder quitarlas
+    private final Map<Producto, Clave[]> claves = new ConcurrentHashMap<>();
+    private volatile boolean activo;
+
+    boolean activo() {
+        return activo;
+    }
+
+    /*
+     * Enciende los índices y carga los productos actuales. Los que entren o
+     * cambien mientras tanto los indexa su propio hilo (ya ve 'activo').
+     */
+    void activar(Iterable<Producto> productos) {
+        if (activo) return;
+        synchronized (this) {
+            if (activo) return;
+            activo = true;
+            for (Producto p : productos) {
+                synchronized (p) {
+                    actualizar(p);
+                }
+            }
+        }
+    }
+
+    // Mapa ordenado según 'orden' (vista viva, no copia)
+    NavigableMap<Clave, Producto> mapa(Orden orden) {
+        return indices[orden.ordinal()];
+    }
+
+    /*
+     * Productos con min <= valor <= max en el índice PRECIO o STOCK (vista
+     * viva). Los límites son claves "antes de todo código" para ese valor.
+     */
+    NavigableMap<Clave, Producto> rango(Orden orden, double min, double max) {
+        Clave desde = new Clave(min, "", "", Long.MIN_VALUE);
+        Clave hasta = new Clave(Math.nextUp(max), "", "", Long.MIN_VALUE);
+        return mapa(orden).subMap(desde, true, hasta, false);
+    }
+
+    // Clave del producto en el índice 'orden' según su estado actual
+    static Clave clave(Orden orden, Producto p, Producto.Estado e) {
+        String cod = Inventario.norm(p.getCodigo());
+        return switch (orden) {
+            case CODIGO -> new Clave(0, "", cod, e.idAlta);
+            case NOMBRE -> new Clave(0, e.nombre == null ? "" : e.nombre, cod, e.idAlta);
+            case PRECIO -> new Clave(e.precio, "", cod, e.idAlta);
+            case STOCK  -> new Clave(e.stock, "", cod, e.idAlta);
+        };
+    }
+
+    // Reubica el producto según su estado actual (con el lock del producto)
+    void actualizar(Producto p) {
+        Producto.Estado e = p.estado();
+        if (e.observador == null) { // ya salió del inventario
+            quitar(p);
+            return;
+        }
+        Clave[] viejas = claves.get(p);
+        Clave[] nuevas = new Clave[ORDENES.length];
+        for (Orden o : ORDENES) {
+            Clave n = clave(o, p, e);
+            Clave v = viejas == null ? null : viejas[o.ordinal()];
+            if (v != null && mapa(o).comparator().compare(v, n) == 0) {
+                nuevas[o.ordinal()] = v; // no se movió en este índice
+                continue;
+            }
+            if (v != null) mapa(o).remove(v, p);
+            mapa(o).put(n, p);
+            nuevas[o.ordinal()] = n;
+        }
+        claves.put(p, nuevas);
+    }
+
+    // Saca el producto de todos los índices (con el lock del producto)
+    void quitar(Producto p) {
+        Clave[] viejas = claves.remove(p);
+        if (viejas == null) return;
+        for (Orden o : ORDENES) mapa(o).remove(viejas[o.ordinal()], p);
+    }
+
+    // ---------- Cursores ----------
+    /*
+     * Cursor = orden + clave del último producto entregado, como texto:
+     *   <orden>;<numero>;<idAlta>;<largo del texto>;<texto><codigo>
+     */
+
+    static String cursor(Orden orden, Clave c) {
+        return orden.ordinal() + ";" + c.numero + ";" + c.idAlta + ";" + c.texto.length() + ";" + c.texto + c.codigo;
+    }
+
+    // Clave guardada en el cursor, o null si no es un cursor válido para 'orden'
+    static Clave desdeCursor(Orden orden, String cursor) {
+        try {
+            String[] partes = cursor.split(";", 5);
+            if (partes.length < 5 || Integer.parseInt(partes[0]) != orden.ordinal()) return null;
+            int largo = Integer.parseInt(partes[3]);
+            String resto = partes[4];
+            return new Clave(Double.parseDouble(partes[1]), resto.substring(0, largo), resto.substring(largo),
+                    Long.parseLong(partes[2]));
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+}
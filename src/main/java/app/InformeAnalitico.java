@@ -0,0 +1,73 @@
+package app;
+
+import java.util.List;
+
+/*
+ * Resultado del informe analítico (ver Analitica). Montos en centavos.
+ * Inmutable; toString da el texto que muestran el menú y el servidor.
+ */
+public final class InformeAnalitico {
+
+    // Productos con desde <= precio < hasta (hasta = -1: sin tope)
+    public record Banda(long desdeCentavos, long hastaCentavos, long productos, long valorCentavos) {}
+
+    // Producto entre los de mayor valor (precio * stock)
+    public record Destacado(String codigo, long valorCentavos) {}
+
+    private final long productos;
+    private final long sinStock;
+    private final long valorCentavos;
+    private final long precioMinimoCentavos;
+    private final long precioMaximoCentavos;
+    private final double precioPromedioCentavos;
+    private final List<Banda> bandas;
+    private final List<Destacado> mayorValor;
+
+    InformeAnalitico(long productos, long sinStock, long valorCentavos, long precioMinimoCentavos,
+                     long precioMaximoCentavos, double precioPromedioCentavos, List<Banda> bandas,
+                     List<Destacado> mayorValor) {
+        this.productos = productos;
+        this.sinStock = sinStock;
+        this.valorCentavos = valorCentavos;
+        this.precioMinimoCentavos = precioMinimoCentavos;
+        this.precioMaximoCentavos = precioMaximoCentavos;
+        this.precioPromedioCentavos = precioPromedioCentavos;
+        this.bandas = List.copyOf(bandas);
+        this.mayorValor = List.copyOf(mayorValor);
+    }
+
+    public long productos()              { return productos; }
+    public long sinStock()               { return sinStock; }
+    public long valorCentavos()          { return valorCentavos; }
+    public long precioMinimoCentavos()   { return precioMinimoCentavos; }
+    public long precioMaximoCentavos()   { return precioMaximoCentavos; }
+    public double precioPromedioCentavos() { return precioPromedioCentavos; }
+    public List<Banda> bandas()          { return bandas; }
+    // De mayor a menor valor
+    public List<Destacado> mayorValor()  { return mayorValor; }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(256);
+        sb.append("Productos: ").append(productos)
+                .append(" | Valor inventario: ").append(Agregados.formatoCentavos(valorCentavos))
+                .append("\nSin stock: ").append(sinStock)
+                .append("\nPrecio mínimo: ").append(Agregados.formatoCentavos(precioMinimoCentavos))
+                .append(" | máximo: ").append(Agregados.formatoCentavos(precioMaximoCentavos))
+                .append(" | promedio: ").append(Agregados.formatoCentavos(Math.round(precioPromedioCentavos)));
+        sb.append("\nBandas de precio:");
+        for (Banda b : bandas) {
+            sb.append("\n  [").append(Agregados.formatoCentavos(b.desdeCentavos())).append(", ")
+                    .append(b.hastaCentavos() < 0 ? "..." : Agregados.formatoCentavos(b.hastaCentavos()))
+                    .append("): ").append(b.productos()).append(" productos | valor ")
+                    .append(Agregados.formatoCentavos(b.valorCentavos()));
+        }
+        if (!mayorValor.isEmpty()) sb.append("\nMayor valor:");
+        int i = 1;
+        for (Destacado d : mayorValor) {
+            sb.append("\n  ").append(i++).append(") [").append(d.codigo()).append("] ")
+                    .append(Agregados.formatoCentavos(d.valorCentavos()));
+        }
+        return sb.toString();
+    }
+}
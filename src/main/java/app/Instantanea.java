@@ -0,0 +1,143 @@
+package app;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/*
+ * Vista fija del inventario en un momento (ver Inventario.snapshot).
+ * - Abrirla cuesta O(1): no copia productos. Cada lectura resuelve el
+ *   producto tal como estaba en ese momento siguiendo su cadena de versiones.
+ * - Los cambios posteriores (precio, stock, texto, altas y bajas) no se ven:
+ *   un informe o una exportación larga es consistente aunque los escritores
+ *   sigan trabajando, y ellos no esperan a nadie.
+ * - Mientras esté abierta, los productos cambiados guardan su versión
+ *   anterior: hay que cerrarla (try-with-resources). Usarla cerrada lanza
+ *   IllegalStateException.
+ */
+public final class Instantanea implements AutoCloseable {
+
+    private final Inventario inventario;
+    private final Versiones.Lector lector;
+    private volatile boolean cerrada;
+
+    Instantanea(Inventario inventario, Versiones.Lector lector) {
+        this.inventario = inventario;
+        this.lector = lector;
+    }
+
+    // Producto con el estado que tenía en el momento de la instantánea
+    static final class Fija implements ProductoRO {
+        private final Producto p;
+        final Producto.Estado e;
+
+        Fija(Producto p, Producto.Estado e) {
+            this.p = p;
+            this.e = e;
+        }
+
+        @Override public String getCodigo()      { return p.getCodigo(); }
+        @Override public String getNombre()      { return e.nombre; }
+        @Override public String getDescripcion() { return e.descripcion; }
+        @Override public double getPrecio()      { return e.precio; }
+        @Override public int getStock()          { return e.stock; }
+
+        @Override
+        public int getStockEn(String deposito) {
+            int d = Depositos.buscar(deposito);
+            return d < 0 ? 0 : e.en(d);
+        }
+
+        @Override
+        public String descripcionDetallada() {
+            return Producto.detalle(p.getCodigo(), e);
+        }
+    }
+
+    private void abierta() {
+        if (cerrada) throw new IllegalStateException("La instantánea está cerrada");
+    }
+
+    // Busca por código tal como estaba
+    public Optional<ProductoRO> buscarPorCodigo(String codigo) {
+        abierta();
+        String cod = Inventario.norm(codigo);
+        if (cod == null) return Optional.empty();
+        Producto v = inventario.valor(cod);
+        return Optional.ofNullable(v == null ? null : inventario.enMomento(v, lector.momento));
+    }
+
+    // Todos los productos de ese momento, sin orden (se resuelven mientras se recorre)
+    public Stream<ProductoRO> stream() {
+        abierta();
+        long m = lector.momento;
+        return inventario.valores().stream()
+                .map(v -> (ProductoRO) inventario.enMomento(v, m))
+                .filter(Objects::nonNull);
+    }
+
+    // Copia de todos los productos de ese momento
+    public List<ProductoRO> listarTodos() {
+        List<ProductoRO> out = new ArrayList<>();
+        stream().forEach(out::add);
+        return Collections.unmodifiableList(out);
+    }
+
+    // Cantidad de productos en ese momento (recorre la instantánea)
+    public long cantidad() {
+        return stream().count();
+    }
+
+    // Mismo informe que Inventario.generarInforme, con los valores de ese momento
+    public String generarInforme() {
+        long[] t = new long[2];
+        stream().forEach(p -> {
+            t[0]++;
+            t[1] += ((Fija) p).e.valorCentavos();
+        });
+        return "Productos: " + t[0] + " | Valor inventario: " + Agregados.formatoCentavos(t[1]);
+    }
+
+    /*
+     * Informe analítico con los valores de ese momento (ver Analitica):
+     * copia precio y stock a columnas en una pasada y las agrega en paralelo.
+     * 'bandas': límites de precio crecientes; 'top': cuántos de mayor valor.
+     */
+    public InformeAnalitico informeAnalitico(double[] bandas, int top) {
+        abierta();
+        long[] limites = Analitica.limites(bandas);
+        long m = lector.momento;
+        int n = 0;
+        int cap = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(16, inventario.totales().cantidad() + 64));
+        long[] precio = new long[cap];
+        int[] stock = new int[cap];
+        Producto[] producto = new Producto[cap];
+        for (Producto v : inventario.valores()) {
+            Producto.Estado e = inventario.estadoEn(v, m);
+            if (e == null) continue; // no estaba en ese momento
+            if (n == precio.length) {
+                cap = precio.length * 2;
+                precio = Arrays.copyOf(precio, cap);
+                stock = Arrays.copyOf(stock, cap);
+                producto = Arrays.copyOf(producto, cap);
+            }
+            precio[n] = Math.round(e.precio * 100); // igual que Estado.valorCentavos
+            stock[n] = e.stock;
+            producto[n++] = v; // el código es el mismo aunque el estado venga de una lápida
+        }
+        Producto[] productos = producto;
+        return Analitica.calcular(precio, stock, null, n, limites, top, i -> productos[i].getCodigo());
+    }
+
+    // Libera la instantánea: los escritores dejan de guardarle versiones
+    @Override
+    public void close() {
+        if (cerrada) return;
+        cerrada = true;
+        inventario.cerrar(lector);
+    }
+}
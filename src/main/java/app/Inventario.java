@@ -1,25 +1,273 @@
 package app;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.stream.Stream;
 
 /*
  * AGREGADO RAÍZ del dominio.
- * - Mantiene y controla la colección de productos (HashMap<codigo, Producto>).
+ * - Mantiene y controla la colección de productos (ConcurrentHashMap<codigo, Producto>).
  * - ÚNICO punto autorizado para CREAR y MODIFICAR productos.
  * - Hacia fuera devuelve SOLO 'ProductoRO' (read only) y listas inmodificables.
  *
+ * Es seguro compartir una instancia entre hilos:
+ * - buscarPorCodigo no toma locks (lectura directa del ConcurrentHashMap).
+ * - Precio y stock se cambian con CAS dentro de Producto; escribir en productos
+ *   distintos nunca compite.
+ * - Los cambios de texto de un producto (y su índice) se serializan con un lock
+ *   sobre ESE producto.
+ * - snapshot() abre en O(1) una Instantanea: una vista fija de todo el
+ *   inventario que se puede recorrer sin frenar a los escritores (ver Versiones).
+ *
+ * Mientras alguna instantánea pueda necesitar un producto dado de baja, queda
+ * en el mapa como 'lápida' (sin dueño): las consultas lo saltean y una nueva
+ * alta con su código la reemplaza y la enlaza como predecesor.
  */
 public final class Inventario {
     // Almacén interno: oculto tras la API pública
-    private final Map<String, Producto> productos = new HashMap<>();
+    private final Map<String, Producto> productos;
+    // Índice de trigramas para buscarPorNombre/buscarPorTexto
+    private final IndiceTexto indiceTexto = new IndiceTexto();
+    // Índices ordenados para listar/stream (se activan en el primer uso)
+    private final IndicesOrdenados indices = new IndicesOrdenados();
+    // Stock por depósito (se activa en la primera consulta por depósito)
+    private final Existencias existencias = new Existencias();
+    // Palabras sin acentos y errores de tipeo para buscarRanqueado (se activa en la primera búsqueda)
+    private final IndiceDifuso difuso = new IndiceDifuso();
+    // Cantidad y valor total mantenidos en cada comando (informe en O(1))
+    private final Agregados agregados = new Agregados();
+    // Dueño que se asigna a cada producto: reparte sus cambios de estado
+    private final Cambios cambios = new Cambios();
+    // Oyentes extra (diario en disco, etc.); copia al escribir
+    private volatile OyenteInventario[] oyentes = new OyenteInventario[0];
+    // Llamadas, éxitos y latencias por operación (apagadas al crear)
+    private final Metricas metricas = new Metricas();
+    // Flujo de cambios para suscriptores (se crea con el primer pedido)
+    private volatile FlujoCambios flujo;
+    // Sellos de los estados y poda de su historia para las instantáneas
+    private final Versiones versiones = new Versiones();
+    // Generador de ids de alta (ver Producto.Estado.idAlta)
+    private final AtomicLong ultimoIdAlta = new AtomicLong();
+    // Snapshot columnar cuyos productos aún no pasaron todos al mapa (null si no hay)
+    private volatile SnapshotColumnar base;
+    // Por fila de 'base': null solo en el archivo, EN_CURSO materializando, o el Producto ya en el mapa
+    private AtomicReferenceArray<Producto> filasBase;
+    private static final Producto EN_CURSO = new Producto("", null, null, 0, 0);
+
+    public Inventario() {
+        this(16);
+    }
+
+    /*
+     * Crea el inventario con el mapa ya dimensionado para 'capacidadEsperada'
+     * productos (útil antes de cargas masivas: evita redimensionar).
+     */
+    public Inventario(int capacidadEsperada) {
+        this.productos = new ConcurrentHashMap<>(Math.max(16, capacidadEsperada));
+    }
+
+    // Reparte cada cambio de precio/stock a los totales y a los oyentes
+    private final class Cambios implements Producto.Observador {
+        @Override
+        public void publicado(Producto p, Producto.Estado n) {
+            versiones.publicado(p, n);
+        }
+
+        @Override
+        public void cambio(Producto p, Producto.Estado antes, Producto.Estado despues) {
+            agregados.cambio(p, antes, despues);
+            if (indices.activo() || existencias.activo()) {
+                synchronized (p) {
+                    if (indices.activo()) indices.actualizar(p);
+                    if (existencias.activo()) existencias.actualizar(p);
+                }
+            }
+            for (OyenteInventario o : oyentes) o.cambio(p, antes, despues);
+        }
+    }
 
     // Normaliza cadenas: trim y evita vacíos
-    private static String norm(String s) {
+    static String norm(String s) {
         if (s == null) return null;
         String t = s.trim();
         return t.isEmpty() ? null : t;
     }
 
+    // Busca el producto interno (ConcurrentHashMap no acepta claves null)
+    private Producto obtener(String codigo) {
+        String cod = norm(codigo);
+        return cod == null ? null : buscarInterno(cod);
+    }
+
+    // Producto del mapa (sin lápidas); si solo está en el snapshot base, lo materializa antes
+    private Producto buscarInterno(String cod) {
+        Producto p = productos.get(cod);
+        SnapshotColumnar b = base;
+        if (p == null && b != null) {
+            int fila = b.buscar(cod);
+            if (fila >= 0) materializarFila(b, fila);
+            p = productos.get(cod);
+        }
+        return p != null && miembro(p) ? p : null;
+    }
+
+    // Sigue en este inventario (no es una lápida)
+    private boolean miembro(Producto p) {
+        return p.estado().observador == cambios;
+    }
+
+    // Clave del producto en el mapa (la misma que usó insertar)
+    private static String clave(Producto p) {
+        return norm(p.getCodigo());
+    }
+
+    /*
+     * Pasa la fila i del snapshot base al mapa (una sola vez, aunque la pidan
+     * varios hilos). Sus totales ya se sumaron al abrir: solo se vincula.
+     */
+    private void materializarFila(SnapshotColumnar b, int i) {
+        if (filasBase.compareAndSet(i, null, EN_CURSO)) {
+            Producto p = b.producto(i);
+            synchronized (p) {
+                Producto.Estado e = p.vincular(cambios, b.idAlta(i));
+                productos.put(p.getCodigo(), p);
+                versiones.publicado(p, e);
+                if (indiceTexto.activo()) indiceTexto.indexar(p);
+                if (indices.activo()) indices.actualizar(p);
+                if (existencias.activo()) existencias.actualizar(p);
+                if (difuso.activo()) difuso.indexar(p);
+            }
+            filasBase.set(i, p);
+        } else {
+            while (filasBase.get(i) == EN_CURSO) Thread.onSpinWait();
+        }
+    }
+
+    // Materializa todo el snapshot base (antes de recorridos completos)
+    private void materializarTodo() {
+        SnapshotColumnar b = base;
+        if (b == null) return;
+        for (int i = 0; i < b.filas(); i++) {
+            materializarFila(b, i); // si ya estaba, no hace nada
+        }
+        base = null;
+    }
+
+    /*
+     * Inserta si el código está libre e indexa su texto.
+     * El producto queda vinculado a este inventario: desde ese momento sus
+     * cambios de precio/stock llegan a 'agregados' y a los oyentes.
+     */
+    private boolean insertar(String cod, Producto p, long idAlta, Agregados.Lote lote) {
+        synchronized (p) {
+            Producto.Estado e = p.vincular(cambios, idAlta);
+            if (e == null) return false; // ya pertenece a otro inventario
+            agregados.alta(e, lote);
+            if (!ocupar(cod, p)) { // evita duplicados
+                agregados.baja(p.desvincular(cambios), lote);
+                return false;
+            }
+            versiones.publicado(p, e); // recién ahora lo pueden ver las instantáneas
+            if (indiceTexto.activo()) indiceTexto.indexar(p);
+            if (indices.activo()) indices.actualizar(p);
+            if (existencias.activo()) existencias.actualizar(p);
+            if (difuso.activo()) difuso.indexar(p);
+            for (OyenteInventario o : oyentes) o.alta(p, e);
+        }
+        return true;
+    }
+
+    /*
+     * Pone p bajo 'cod' si el código está libre. Una lápida no lo ocupa: se
+     * reemplaza y queda como predecesor de p mientras alguna instantánea
+     * pueda necesitarla.
+     */
+    private boolean ocupar(String cod, Producto p) {
+        while (true) {
+            Producto previo = productos.putIfAbsent(cod, p);
+            if (previo == null) return true;
+            if (miembro(previo)) return false;
+            p.predecesor(previo); // antes de publicarlo en el mapa
+            if (productos.replace(cod, previo, p)) {
+                if (retiene(previo)) {
+                    versiones.pendiente(p);
+                    if (retiene(previo)) return true;
+                }
+                p.predecesor(null);
+                return true;
+            }
+            p.predecesor(null); // la lápida ya no estaba
+        }
+    }
+
+    /*
+     * Da de baja a p: totales, índices y oyentes. Falso si ya no era de este
+     * inventario (otra baja ganó). Luego lo quita del mapa o lo deja como lápida.
+     */
+    private boolean retirar(Producto p, Agregados.Lote lote) {
+        synchronized (p) {
+            Producto.Estado e = p.desvincular(cambios);
+            if (e == null) return false;
+            indiceTexto.desindexar(p);
+            indices.quitar(p);
+            existencias.quitar(p);
+            difuso.desindexar(p);
+            agregados.baja(e, lote);
+            for (OyenteInventario o : oyentes) o.baja(p, e);
+        }
+        soltar(p);
+        return true;
+    }
+
+    // Quita la lápida p del mapa salvo que una instantánea abierta pueda necesitarla
+    private void soltar(Producto p) {
+        if (retiene(p)) {
+            versiones.pendiente(p);
+            if (retiene(p)) return; // la saca el barrido al cerrar la instantánea
+        }
+        productos.computeIfPresent(clave(p), (k, v) -> v == p && !miembro(v) ? null : v);
+    }
+
+    // Alguna instantánea abierta puede ver a p o a sus predecesores como estaban antes
+    private boolean retiene(Producto p) {
+        for (Producto x = p; x != null; x = x.predecesor()) {
+            if (versiones.necesario(x.estado())) return true;
+        }
+        return false;
+    }
+
+    // Alta con totales directos o acumulados en un lote
+    private boolean agregar(String codigo, String nombre, String descripcion, double precio, int stock,
+                            Agregados.Lote lote) {
+        String cod = norm(codigo);
+        if (cod == null || !Producto.Estado.valorValido(precio, stock)) return false;
+        if (base != null && buscarInterno(cod) != null) return false; // ya está en el snapshot
+        Producto p = new Producto(cod, nombre, descripcion, precio, stock);
+        return insertar(cod, p, ultimoIdAlta.incrementAndGet(), lote);
+    }
+
+    // Baja con totales directos o acumulados en un lote
+    private boolean eliminar(String codigo, Agregados.Lote lote) {
+        String cod = norm(codigo);
+        if (cod == null) return false;
+        Producto p = buscarInterno(cod); // si solo está en el snapshot, materializa
+        return p != null && retirar(p, lote);
+    }
+
+    // Cambia nombre/descripción con el lock tomado: índice y oyentes en orden
+    private void cambiarTexto(Producto p, String nombre, String descripcion, long versionTexto) {
+        Producto.Estado antes = p.setTexto(nombre, descripcion);
+        p.versionTexto(versionTexto);
+        if (indiceTexto.activo()) indiceTexto.indexar(p);
+        if (indices.activo()) indices.actualizar(p);
+        if (difuso.activo()) difuso.indexar(p);
+        for (OyenteInventario o : oyentes) o.texto(p, antes);
+    }
+
     // ---------- COMANDOS ----------
 
     /*
@@ -28,10 +276,8 @@ public final class Inventario {
      * Retorna true si se agregó o false en caso contrario.
      */
     public boolean agregarProducto(String codigo, String nombre, String descripcion, double precio, int stock) {
-        String cod = norm(codigo);
-        if (cod == null || productos.containsKey(cod)) return false;
-        productos.put(cod, new Producto(cod, nombre, descripcion, precio, stock));
-        return true;
+        long t = metricas.inicio();
+        return metricas.fin(Metricas.Operacion.AGREGAR, t, agregar(codigo, nombre, descripcion, precio, stock, null));
     }
 
     /*
@@ -39,7 +285,8 @@ public final class Inventario {
      * Retorna verdadero si existía y fue removido.
      */
     public boolean eliminarPorCodigo(String codigo) {
-        return productos.remove(norm(codigo)) != null;
+        long t = metricas.inicio();
+        return metricas.fin(Metricas.Operacion.ELIMINAR, t, eliminar(codigo, null));
     }
 
     /*
@@ -48,38 +295,286 @@ public final class Inventario {
      * si vienen con valores inválidos, se ignoran dentro de los setters.
      */
     public boolean actualizarProducto(String codigo, String nombre, String descripcion, Double precio, Integer stock) {
-        Producto p = productos.get(norm(codigo));
+        long t = metricas.inicio();
+        return metricas.fin(Metricas.Operacion.ACTUALIZAR, t, actualizar(codigo, nombre, descripcion, precio, stock));
+    }
+
+    private boolean actualizar(String codigo, String nombre, String descripcion, Double precio, Integer stock) {
+        String cod = norm(codigo);
+        Producto p = cod == null ? null : buscarInterno(cod);
         if (p == null) return false;
-        if (nombre != null)      p.setNombre(nombre);
-        if (descripcion != null) p.setDescripcion(descripcion);
-        if (precio != null)      p.actualizarPrecio(precio);
-        if (stock != null)       p.setStock(stock);
+        if (nombre != null || descripcion != null) {
+            synchronized (p) {
+                if (!miembro(p)) return false; // eliminado entretanto
+                cambiarTexto(p, nombre, descripcion, p.versionTexto() + 1);
+            }
+        }
+        if (precio != null || stock != null) p.actualizarEstado(precio, stock); // un solo cambio atómico
         return true;
     }
 
+    // ---------- COMANDOS EN LOTE ----------
+    /*
+     * Aplican muchos comandos en una sola llamada (p. ej. feeds de proveedores).
+     * - Devuelven un boolean por comando, igual que el método individual.
+     * - Un comando null cuenta como fallido.
+     * - Las altas y bajas del lote actualizan los totales UNA sola vez al final.
+     */
+
+    // Altas en lote
+    public boolean[] agregarTodos(List<Comando.Agregar> altas) {
+        return ejecutarLote(altas);
+    }
+
+    // Actualizaciones en lote
+    public boolean[] actualizarLote(List<Comando.Actualizar> cambios) {
+        return ejecutarLote(cambios);
+    }
+
+    // Lote mixto de cualquier comando, en orden
+    public boolean[] ejecutarLote(List<? extends Comando> comandos) {
+        long t = metricas.inicio();
+        boolean[] ok = new boolean[comandos.size()];
+        Agregados.Lote lote = new Agregados.Lote();
+        int i = 0;
+        for (Comando c : comandos) ok[i++] = ejecutar(c, lote);
+        agregados.aplicar(lote);
+        metricas.fin(Metricas.Operacion.LOTE, t, true); // un registro por lote, no por comando
+        return ok;
+    }
+
+    private boolean ejecutar(Comando c, Agregados.Lote lote) {
+        if (c instanceof Comando.Agregar a) {
+            return agregar(a.codigo(), a.nombre(), a.descripcion(), a.precio(), a.stock(), lote);
+        } else if (c instanceof Comando.Eliminar e) {
+            return eliminar(e.codigo(), lote);
+        } else if (c instanceof Comando.Actualizar a) {
+            return actualizar(a.codigo(), a.nombre(), a.descripcion(), a.precio(), a.stock());
+        } else if (c instanceof Comando.ActualizarPrecio a) {
+            return cambiarPrecio(a.codigo(), a.precio());
+        } else if (c instanceof Comando.ActualizarStock a) {
+            return cambiarStock(a.codigo(), a.stock());
+        }
+        return false; // null
+    }
+
+    // ---------- MOVIMIENTOS DE STOCK ----------
+    /*
+     * Cambios RELATIVOS de stock para pedidos concurrentes.
+     * Cada uno es un CAS sobre el estado del producto: no hay lecturas-
+     * modificaciones-escrituras perdidas ni se vende más de lo disponible.
+     * Retornan false si el código no existe, la cantidad no es positiva o
+     * no alcanza el stock/reserva.
+     */
+
+    // Descuenta si hay disponible suficiente (venta directa)
+    public boolean descontarStock(String codigo, int cantidad) {
+        long t = metricas.inicio();
+        Producto p = obtener(codigo);
+        return metricas.fin(Metricas.Operacion.MOVER_STOCK, t, p != null && p.descontarStock(cantidad));
+    }
+
+    // Suma unidades (reposición o devolución)
+    public boolean incrementarStock(String codigo, int cantidad) {
+        long t = metricas.inicio();
+        Producto p = obtener(codigo);
+        return metricas.fin(Metricas.Operacion.MOVER_STOCK, t, p != null && p.incrementarStock(cantidad));
+    }
+
+    // Aparta unidades para un pedido en curso
+    public boolean reservarStock(String codigo, int cantidad) {
+        long t = metricas.inicio();
+        Producto p = obtener(codigo);
+        return metricas.fin(Metricas.Operacion.MOVER_STOCK, t, p != null && p.reservar(cantidad));
+    }
+
+    // Confirma una reserva: las unidades salen del stock
+    public boolean confirmarReserva(String codigo, int cantidad) {
+        long t = metricas.inicio();
+        Producto p = obtener(codigo);
+        return metricas.fin(Metricas.Operacion.MOVER_STOCK, t, p != null && p.confirmarReserva(cantidad));
+    }
+
+    // Cancela una reserva: las unidades vuelven al disponible
+    public boolean liberarReserva(String codigo, int cantidad) {
+        long t = metricas.inicio();
+        Producto p = obtener(codigo);
+        return metricas.fin(Metricas.Operacion.MOVER_STOCK, t, p != null && p.liberarReserva(cantidad));
+    }
+
+    // ---------- DEPÓSITOS ----------
+    /*
+     * Stock repartido por depósito (ver Depositos). getStock y
+     * stockDisponible siguen siendo el total del producto; los comandos sin
+     * depósito suman en PRINCIPAL y descuentan de PRINCIPAL primero.
+     * Un depósito se registra la primera vez que se le asigna stock.
+     */
+
+    // Pasa unidades entre dos depósitos en un solo cambio atómico
+    public boolean moverStock(String codigo, String desde, String hacia, int cantidad) {
+        long t = metricas.inicio();
+        Producto p = obtener(codigo);
+        int d = Depositos.buscar(desde);
+        int h = Depositos.numero(hacia);
+        return metricas.fin(Metricas.Operacion.MOVER_STOCK, t, p != null && d >= 0 && h >= 0 && p.moverStock(d, h, cantidad));
+    }
+
+    // Suma unidades en un depósito
+    public boolean incrementarStock(String codigo, String deposito, int cantidad) {
+        long t = metricas.inicio();
+        Producto p = obtener(codigo);
+        int d = Depositos.numero(deposito);
+        return metricas.fin(Metricas.Operacion.MOVER_STOCK, t, p != null && d >= 0 && p.incrementarStock(d, cantidad));
+    }
+
+    // Saca unidades de un depósito (no puede tocar lo reservado)
+    public boolean descontarStock(String codigo, String deposito, int cantidad) {
+        long t = metricas.inicio();
+        Producto p = obtener(codigo);
+        int d = Depositos.buscar(deposito);
+        return metricas.fin(Metricas.Operacion.MOVER_STOCK, t, p != null && d >= 0 && p.descontarStock(d, cantidad));
+    }
+
+    // Stock del producto en un depósito, en O(1)
+    public OptionalInt stockEn(String codigo, String deposito) {
+        Producto p = obtener(codigo);
+        return p == null ? OptionalInt.empty() : OptionalInt.of(p.getStockEn(deposito));
+    }
+
+    // Reparto del producto: depósito -> unidades (solo los que tienen stock)
+    public Map<String, Integer> stockPorDeposito(String codigo) {
+        Producto p = obtener(codigo);
+        return p == null ? Map.of() : p.estado().porDeposito();
+    }
+
+    // Unidades en el depósito sumando todos los productos, en O(1)
+    public long stockTotalEn(String deposito) {
+        int d = Depositos.buscar(deposito);
+        if (d < 0) return 0;
+        activarExistencias();
+        return existencias.unidades(d);
+    }
+
+    // Productos con stock en el depósito, en O(resultado)
+    public List<ProductoRO> productosEn(String deposito) {
+        int d = Depositos.buscar(deposito);
+        if (d < 0) return List.of();
+        activarExistencias();
+        return Collections.unmodifiableList(new ArrayList<>(existencias.productos(d)));
+    }
+
+    private void activarExistencias() {
+        if (existencias.activo()) return;
+        materializarTodo();
+        existencias.activar(productos.values());
+    }
+
     // ---------- CONSULTAS ----------
 
+    /*
+     * Stock disponible para vender (stock menos reservado).
+     * Vacío si el código no existe.
+     */
+    public OptionalInt stockDisponible(String codigo) {
+        Producto p = obtener(codigo);
+        return p == null ? OptionalInt.empty() : OptionalInt.of(p.estado().disponible());
+    }
+
     /*
      * Busca por código y devuelve un Optional<ProductoRO>.
      * Nunca expone la clase concreta 'Producto'.
      */
     public Optional<ProductoRO> buscarPorCodigo(String codigo) {
-        return Optional.ofNullable(productos.get(norm(codigo)));
+        long t = metricas.inicio();
+        Optional<ProductoRO> r = buscar(codigo);
+        metricas.fin(Metricas.Operacion.BUSCAR_CODIGO, t, r.isPresent());
+        return r;
+    }
+
+    private Optional<ProductoRO> buscar(String codigo) {
+        String cod = norm(codigo);
+        if (cod == null) return Optional.empty();
+        Producto p = productos.get(cod);
+        SnapshotColumnar b = base;
+        if (p != null || b == null) return Optional.ofNullable(p != null && miembro(p) ? p : null);
+        // Solo en el snapshot: vista directa sobre el archivo, sin materializar
+        int fila = b.buscar(cod);
+        if (fila < 0) return Optional.empty();
+        if (filasBase.get(fila) == null) return Optional.of(new VistaBase(b, filasBase, fila));
+        materializarFila(b, fila); // espera a quien la está materializando
+        return Optional.ofNullable(buscarInterno(cod));
+    }
+
+    /*
+     * Producto de una fila del snapshot base sin materializarla: lee del
+     * archivo mientras la fila siga ahí y, desde que se materializa, del
+     * Producto del mapa (así nunca queda con valores viejos). Cada lectura
+     * elige la fuente una sola vez: descripcionDetallada es coherente.
+     */
+    private static final class VistaBase implements ProductoRO {
+        private final ProductoRO archivo;
+        private final AtomicReferenceArray<Producto> filas;
+        private final int fila;
+
+        VistaBase(SnapshotColumnar b, AtomicReferenceArray<Producto> filas, int fila) {
+            this.archivo = b.vista(fila);
+            this.filas = filas;
+            this.fila = fila;
+        }
+
+        private ProductoRO actual() {
+            Producto p = filas.get(fila);
+            while (p == EN_CURSO) {
+                Thread.onSpinWait();
+                p = filas.get(fila);
+            }
+            return p != null ? p : archivo;
+        }
+
+        @Override public String getCodigo()                { return archivo.getCodigo(); }
+        @Override public String getNombre()                { return actual().getNombre(); }
+        @Override public String getDescripcion()           { return actual().getDescripcion(); }
+        @Override public double getPrecio()                { return actual().getPrecio(); }
+        @Override public int getStock()                    { return actual().getStock(); }
+        @Override public int getStockEn(String deposito)   { return actual().getStockEn(deposito); }
+        @Override public String descripcionDetallada()     { return actual().descripcionDetallada(); }
     }
 
     /*
      * Búsqueda por texto en nombre o descripción
      * Devuelve una lista de ProductoRO.
+     * Usa el índice de trigramas: solo se revisan los productos candidatos.
      */
     public List<ProductoRO> buscarPorNombre(String texto) {
         if (texto == null || texto.isBlank()) return List.of();
-        String t = texto.toLowerCase(Locale.ROOT);
-        List<ProductoRO> out = new ArrayList<>();
-        for (Producto p : productos.values()) {
-            String n = p.getNombre() == null ? "" : p.getNombre().toLowerCase(Locale.ROOT);
-            String d = p.getDescripcion() == null ? "" : p.getDescripcion().toLowerCase(Locale.ROOT);
-            if (n.contains(t) || d.contains(t)) out.add(p); // p es un ProductoRO
+        long t = metricas.inicio();
+        if (!indiceTexto.activo()) {
+            materializarTodo();
+            indiceTexto.activar(productos.values());
+        }
+        List<ProductoRO> out = new ArrayList<>(indiceTexto.buscar(texto)); // Producto es un ProductoRO
+        metricas.fin(Metricas.Operacion.BUSCAR_NOMBRE, t, !out.isEmpty());
+        return Collections.unmodifiableList(out);
+    }
+
+    /*
+     * Búsqueda RANQUEADA: los 'limite' productos que mejor coinciden con las
+     * palabras del texto, del mejor al peor (a igual puntaje, por código;
+     * entre empatados en el último lugar, cualquiera de ellos).
+     * Ignora mayúsculas y acentos, acepta prefijos ("tecl" -> "teclado") y
+     * errores de tipeo (1 desde 4 letras, 2 desde 8). Las coincidencias en el
+     * nombre pesan más que en la descripción. Ver IndiceDifuso.
+     */
+    public List<ProductoRO> buscarRanqueado(String texto, int limite) {
+        if (texto == null || texto.isBlank() || limite <= 0) return List.of();
+        long t = metricas.inicio();
+        if (!difuso.activo()) {
+            materializarTodo();
+            difuso.activar(productos.values());
         }
+        List<ProductoRO> out = new ArrayList<>(limite);
+        for (IndiceDifuso.Resultado r : difuso.buscar(texto, limite, this::miembro)) out.add(r.producto());
+        metricas.fin(Metricas.Operacion.BUSCAR_NOMBRE, t, !out.isEmpty());
         return Collections.unmodifiableList(out);
     }
 
@@ -88,21 +583,270 @@ public final class Inventario {
      * No se expone el Map interno ni se permite 'clear/add' desde fuera.
      */
     public List<ProductoRO> listarTodos() {
-        List<ProductoRO> copia = new ArrayList<>(productos.values());
+        long t = metricas.inicio();
+        materializarTodo();
+        List<ProductoRO> copia = new ArrayList<>(productos.size());
+        for (Producto p : productos.values()) if (miembro(p)) copia.add(p);
+        metricas.fin(Metricas.Operacion.LISTAR, t, true);
         return Collections.unmodifiableList(copia);
     }
 
+    // ---------- LISTADOS ORDENADOS Y PAGINADOS ----------
+    /*
+     * Recorren el inventario sin copiarlo entero.
+     * - Los ordenados usan índices secundarios (skip lists) que se crean con
+     *   el primer uso y luego se mantienen en cada cambio.
+     * - Son vistas vivas: un producto que cambia mientras se recorre puede
+     *   verse en su posición vieja o en la nueva (nunca se lanza
+     *   ConcurrentModificationException).
+     * - orden null = Orden.CODIGO.
+     */
+
+    // Todos los productos, sin orden y sin copiar
+    public Stream<ProductoRO> stream() {
+        materializarTodo();
+        return productos.values().stream().filter(this::miembro).map(p -> (ProductoRO) p);
+    }
+
+    // Todos los productos en el orden pedido, sin copiar
+    public Stream<ProductoRO> stream(Orden orden) {
+        return Collections.<ProductoRO>unmodifiableCollection(ordenado(orden).values()).stream();
+    }
+
+    /*
+     * Página que sigue a 'cursor' (null = primera página).
+     * Cuesta O(log N + limite). El cursor sale de Pagina.siguiente de la
+     * página anterior con el mismo orden; uno inválido lanza
+     * IllegalArgumentException.
+     */
+    public Pagina listar(String cursor, int limite, Orden orden) {
+        long t = metricas.inicio();
+        Orden o = orden == null ? Orden.CODIGO : orden;
+        NavigableMap<IndicesOrdenados.Clave, Producto> m = ordenado(o);
+        if (cursor != null) {
+            IndicesOrdenados.Clave c = IndicesOrdenados.desdeCursor(o, cursor);
+            if (c == null) throw new IllegalArgumentException("Cursor inválido");
+            m = m.tailMap(c, false);
+        }
+        Pagina r = pagina(m.entrySet().iterator(), limite, o);
+        metricas.fin(Metricas.Operacion.LISTAR, t, true);
+        return r;
+    }
+
+    /*
+     * Página por posición: salta 'offset' productos y devuelve hasta 'limite'.
+     * Cuesta O(offset + limite); para recorrer todo conviene el cursor.
+     */
+    public Pagina listar(int offset, int limite, Orden orden) {
+        long t = metricas.inicio();
+        Orden o = orden == null ? Orden.CODIGO : orden;
+        Iterator<Map.Entry<IndicesOrdenados.Clave, Producto>> it = ordenado(o).entrySet().iterator();
+        for (int i = 0; i < offset && it.hasNext(); i++) it.next();
+        Pagina r = pagina(it, limite, o);
+        metricas.fin(Metricas.Operacion.LISTAR, t, true);
+        return r;
+    }
+
+    // ---------- CONSULTAS POR RANGO ----------
+    /*
+     * Usan los índices ordenados de precio y stock: cuestan O(log N) más el
+     * tamaño del resultado, sin recorrer el inventario. Límites inclusivos;
+     * un rango vacío (min > max o NaN) devuelve una lista vacía.
+     */
+
+    // Productos con min <= precio <= max, de menor a mayor precio
+    public List<ProductoRO> buscarPorPrecio(double min, double max) {
+        if (!(min <= max)) return List.of();
+        long t = metricas.inicio();
+        ordenado(Orden.PRECIO); // activa los índices
+        List<ProductoRO> r = copiar(indices.rango(Orden.PRECIO, min, max));
+        metricas.fin(Metricas.Operacion.RANGO, t, !r.isEmpty());
+        return r;
+    }
+
+    // Productos con min <= stock <= max, de menor a mayor stock
+    public List<ProductoRO> buscarPorStock(int min, int max) {
+        if (min > max) return List.of();
+        long t = metricas.inicio();
+        ordenado(Orden.STOCK); // activa los índices
+        List<ProductoRO> r = copiar(indices.rango(Orden.STOCK, min, max));
+        metricas.fin(Metricas.Operacion.RANGO, t, !r.isEmpty());
+        return r;
+    }
+
+    /*
+     * Reporte de reposición: productos con stock por debajo de 'umbral',
+     * empezando por los de menos stock.
+     */
+    public List<ProductoRO> informeReposicion(int umbral) {
+        if (umbral <= 0) return List.of();
+        return buscarPorStock(Integer.MIN_VALUE, umbral - 1);
+    }
+
+    private static List<ProductoRO> copiar(Map<IndicesOrdenados.Clave, Producto> m) {
+        return Collections.unmodifiableList(new ArrayList<>(m.values()));
+    }
+
+    // Índice ordenado listo para recorrer
+    private NavigableMap<IndicesOrdenados.Clave, Producto> ordenado(Orden orden) {
+        materializarTodo();
+        indices.activar(productos.values());
+        return indices.mapa(orden == null ? Orden.CODIGO : orden);
+    }
+
+    private static Pagina pagina(Iterator<Map.Entry<IndicesOrdenados.Clave, Producto>> it, int limite, Orden orden) {
+        List<ProductoRO> out = new ArrayList<>(Math.max(0, Math.min(limite, 1024)));
+        IndicesOrdenados.Clave ultima = null;
+        while (out.size() < limite && it.hasNext()) {
+            Map.Entry<IndicesOrdenados.Clave, Producto> e = it.next();
+            out.add(e.getValue());
+            ultima = e.getKey();
+        }
+        String siguiente = ultima != null && it.hasNext() ? IndicesOrdenados.cursor(orden, ultima) : null;
+        return new Pagina(Collections.unmodifiableList(out), siguiente);
+    }
+
     /*
      * Informe simple del inventario
      * cantidad de productos y valor total
+     * Tiempo constante: lee los totales que mantiene cada comando
+     * (valor exacto en centavos, cada precio redondeado a 2 decimales).
      */
     public String generarInforme() {
-        int total = productos.size();
-        double valor = 0.0;
-        for (Producto p : productos.values()) {
-            valor += p.getPrecio() * p.getStock();
+        long t = metricas.inicio();
+        String r = agregados.informe();
+        metricas.fin(Metricas.Operacion.INFORME, t, true);
+        return r;
+    }
+
+    /*
+     * Informe analítico: cantidad y valor por banda de precio, sin stock,
+     * mínimo/máximo/promedio de precio y los 'top' de mayor valor, todo en
+     * una pasada paralela sobre una instantánea (ver Analitica).
+     */
+    public InformeAnalitico informeAnalitico(double[] bandas, int top) {
+        try (Instantanea s = snapshot()) {
+            return s.informeAnalitico(bandas, top);
+        }
+    }
+
+    // Totales que mantiene cada comando (InventarioParticionado los suma)
+    Agregados totales() {
+        return agregados;
+    }
+
+    /*
+     * Métricas de este inventario (llamadas, éxitos y latencias por operación).
+     * Apagadas por defecto: metricas().activar(true) para empezar a medir.
+     */
+    public Metricas metricas() {
+        return metricas;
+    }
+
+    /*
+     * Flujo de cambios de este inventario: cada alta, baja y cambio de
+     * precio, stock o texto como un evento numerado (ver FlujoCambios).
+     * Se crea con la primera llamada; los cambios anteriores no están.
+     */
+    public FlujoCambios flujoCambios() {
+        FlujoCambios f = flujo;
+        if (f != null) return f;
+        synchronized (cambios) {
+            if (flujo == null) {
+                f = new FlujoCambios(FlujoCambios.CAPACIDAD);
+                registrar(f.oyente());
+                flujo = f;
+            }
+            return flujo;
+        }
+    }
+
+    // ---------- INSTANTÁNEAS ----------
+
+    /*
+     * Vista fija del inventario en este momento, en O(1): no copia nada.
+     * Los escritores siguen sin esperar; solo guardan la versión anterior de
+     * lo que cambian mientras la instantánea siga abierta. Hay que cerrarla
+     * (try-with-resources) para que esa historia se pode.
+     * Si el inventario se abrió desde un snapshot columnar, la primera vez
+     * se materializan sus productos.
+     */
+    public Instantanea snapshot() {
+        materializarTodo();
+        return new Instantanea(this, versiones.abrir());
+    }
+
+    // Valores del mapa, lápidas incluidas (para Instantanea)
+    Collection<Producto> valores() {
+        return productos.values();
+    }
+
+    Producto valor(String cod) {
+        return productos.get(cod);
+    }
+
+    /*
+     * Cómo estaba el valor 'v' del mapa en 'momento': él o la lápida que
+     * reemplazó, con el estado de entonces. Null si el código no estaba.
+     */
+    Instantanea.Fija enMomento(Producto v, long momento) {
+        for (Producto x = v; x != null; x = x.predecesor()) {
+            Producto.Estado e = versiones.en(x.estado(), momento);
+            if (e != null && e.observador == cambios) return new Instantanea.Fija(x, e);
+        }
+        return null;
+    }
+
+    // Igual que enMomento, solo el estado (sin crear la vista)
+    Producto.Estado estadoEn(Producto v, long momento) {
+        for (Producto x = v; x != null; x = x.predecesor()) {
+            Producto.Estado e = versiones.en(x.estado(), momento);
+            if (e != null && e.observador == cambios) return e;
+        }
+        return null;
+    }
+
+    // Cierra la instantánea y poda lo que solo ella retenía
+    void cerrar(Versiones.Lector l) {
+        versiones.cerrar(l);
+        for (Producto p : versiones.tomarPendientes()) {
+            if (depurar(p)) versiones.pendiente(p);
+        }
+    }
+
+    // Poda la historia de p y sus predecesores; true si algo sigue retenido
+    private boolean depurar(Producto p) {
+        boolean queda = false;
+        for (Producto x = p; x != null; x = x.predecesor()) {
+            queda |= !versiones.podar(x.estado());
+            Producto previo = x.predecesor();
+            if (previo != null && !retiene(previo)) x.predecesor(null);
         }
-        return "Productos: " + total + " | Valor inventario: " + String.format("%.2f", valor);
+        if (!miembro(p)) {
+            if (retiene(p)) return true;
+            productos.computeIfPresent(clave(p), (k, v) -> v == p && !miembro(v) ? null : v);
+        }
+        return queda || p.predecesor() != null;
+    }
+
+    // ---------- SNAPSHOTS COLUMNARES ----------
+
+    /*
+     * Abre un inventario desde un snapshot columnar (ver guardarSnapshot).
+     * Tarda milisegundos aunque tenga millones de productos: el archivo se
+     * mapea en memoria y cada producto se crea recién cuando se modifica o
+     * cuando una operación recorre todo el inventario.
+     */
+    public static Inventario desdeSnapshot(Path archivo) throws IOException {
+        SnapshotColumnar b = SnapshotColumnar.abrir(archivo);
+        Inventario inv = new Inventario(b.filas());
+        inv.cargarBase(b);
+        return inv;
+    }
+
+    // Guarda el inventario completo en formato columnar
+    public void guardarSnapshot(Path archivo) throws IOException {
+        escribirSnapshot(archivo, 0);
     }
 
     // ---------- ADAPTADORES PARA PRUEBAS DE INTEGRACIÓN (E2E) ----------
@@ -120,10 +864,9 @@ public final class Inventario {
     public boolean agregar(Producto p) {
         if (p == null) return false;
         String cod = norm(p.getCodigo());
-        if (cod == null) return false;
-        if (productos.containsKey(cod)) return false; // evita duplicados
-        productos.put(cod, p);
-        return true;
+        if (cod == null || !Producto.Estado.valorValido(p.getPrecio(), p.getStock())) return false;
+        if (base != null && buscarInterno(cod) != null) return false; // ya está en el snapshot
+        return insertar(cod, p, ultimoIdAlta.incrementAndGet(), null);
     }
 
     // Elimina por código
@@ -133,20 +876,26 @@ public final class Inventario {
 
     // Actualiza precio por código
     public boolean actualizarPrecio(String codigo, double nuevoPrecio) {
+        long t = metricas.inicio();
+        return metricas.fin(Metricas.Operacion.ACTUALIZAR_PRECIO, t, cambiarPrecio(codigo, nuevoPrecio));
+    }
+
+    private boolean cambiarPrecio(String codigo, double nuevoPrecio) {
         if (nuevoPrecio < 0) return false;
-        Producto p = productos.get(norm(codigo));
-        if (p == null) return false;
-        p.actualizarPrecio(nuevoPrecio);
-        return true;
+        Producto p = obtener(codigo);
+        return p != null && p.actualizarPrecio(nuevoPrecio); // se rechaza si el valor desborda
     }
 
     // Actualiza stock por código
     public boolean actualizarStock(String codigo, int nuevoStock) {
+        long t = metricas.inicio();
+        return metricas.fin(Metricas.Operacion.ACTUALIZAR_STOCK, t, cambiarStock(codigo, nuevoStock));
+    }
+
+    private boolean cambiarStock(String codigo, int nuevoStock) {
         if (nuevoStock < 0) return false;
-        Producto p = productos.get(norm(codigo));
-        if (p == null) return false;
-        p.setStock(nuevoStock);
-        return true;
+        Producto p = obtener(codigo);
+        return p != null && p.setStock(nuevoStock); // no baja de lo ya reservado
     }
 
     // Búsqueda por texto en nombre/descripcion
@@ -154,4 +903,105 @@ public final class Inventario {
         // Reutiliza la búsqueda ya implementada
         return buscarPorNombre(texto);
     }
+
+    // ---------- SOPORTE PARA PERSISTENCIA (solo paquete 'app') ----------
+    /*
+     * Usado por Persistencia para registrar el diario y para reconstruir el
+     * inventario desde disco. Las restauraciones respetan idAlta y versiones:
+     * reaplicar un registro viejo o repetido no cambia nada.
+     */
+
+    // Registra un oyente de cambios (antes de compartir el inventario)
+    void registrar(OyenteInventario o) {
+        synchronized (cambios) {
+            OyenteInventario[] v = Arrays.copyOf(oyentes, oyentes.length + 1);
+            v[v.length - 1] = o;
+            oyentes = v;
+        }
+    }
+
+    // Quita un oyente registrado (si no estaba, no hace nada)
+    void desregistrar(OyenteInventario o) {
+        synchronized (cambios) {
+            List<OyenteInventario> v = new ArrayList<>(Arrays.asList(oyentes));
+            v.remove(o);
+            oyentes = v.toArray(new OyenteInventario[0]);
+        }
+    }
+
+    /*
+     * Escribe el inventario en formato columnar sin materializar el snapshot
+     * base: sus filas que nadie tocó se copian de su archivo. Primero van los
+     * productos del mapa que no salieron del base; después cada fila del base,
+     * del archivo o de su Producto si ya se materializó. Así ninguno queda
+     * dos veces ni se pierde aunque se materialice a mitad del recorrido.
+     */
+    int escribirSnapshot(Path archivo, long segmento) throws IOException {
+        SnapshotColumnar b = base;
+        AtomicReferenceArray<Producto> fb = filasBase;
+        SnapshotColumnar.Volcado v = new SnapshotColumnar.Volcado(b);
+        for (Producto p : productos.values()) { // incluye lápidas: el Volcado las descarta
+            if (b != null) {
+                int fila = b.buscar(clave(p));
+                Producto r = fila < 0 ? null : fb.get(fila);
+                if (r == p || r == EN_CURSO) continue; // va con su fila del base
+            }
+            v.agregar(p);
+        }
+        if (b != null) {
+            for (int i = 0; i < b.filas(); i++) {
+                Producto p = fb.get(i);
+                while (p == EN_CURSO) {
+                    Thread.onSpinWait();
+                    p = fb.get(i);
+                }
+                if (p == null) v.agregarFila(i);
+                else v.agregar(p);
+            }
+        }
+        return v.escribir(archivo, segmento);
+    }
+
+    Producto interno(String cod) {
+        return buscarInterno(cod);
+    }
+
+    /*
+     * Usa un snapshot columnar como contenido inicial (el inventario debe
+     * estar vacío). Los totales salen de la cabecera; los productos se
+     * materializan cuando se tocan o cuando se recorre todo.
+     */
+    void cargarBase(SnapshotColumnar b) {
+        if (!productos.isEmpty() || base != null) throw new IllegalStateException("El inventario no está vacío");
+        filasBase = new AtomicReferenceArray<>(b.filas());
+        agregados.sumar(b.filas(), b.valorCentavos());
+        ultimoIdAlta.accumulateAndGet(b.maxIdAlta(), Math::max);
+        base = b;
+    }
+
+    // Alta desde disco: reemplaza solo a un alta anterior (idAlta menor)
+    void restaurarAlta(String cod, Producto p, long idAlta) {
+        ultimoIdAlta.accumulateAndGet(idAlta, Math::max);
+        Producto actual = buscarInterno(cod);
+        if (actual != null) {
+            if (actual.estado().idAlta >= idAlta) return;
+            retirar(actual, null);
+        }
+        insertar(cod, p, idAlta, null);
+    }
+
+    // Baja desde disco: solo si sigue presente esa misma alta
+    void restaurarBaja(String cod, long idAlta) {
+        Producto actual = buscarInterno(cod);
+        if (actual != null && actual.estado().idAlta == idAlta) retirar(actual, null);
+    }
+
+    // Texto desde disco: solo si es más nuevo que el actual
+    void restaurarTexto(String cod, long idAlta, long versionTexto, String nombre, String descripcion) {
+        Producto p = buscarInterno(cod);
+        if (p == null || p.estado().idAlta != idAlta) return;
+        synchronized (p) {
+            if (versionTexto > p.versionTexto()) cambiarTexto(p, nombre, descripcion, versionTexto);
+        }
+    }
 }
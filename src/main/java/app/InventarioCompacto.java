@@ -0,0 +1,585 @@
+package app;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.locks.StampedLock;
+
+/*
+ * Inventario ALTERNATIVO de bajo consumo de memoria, para catálogos de
+ * decenas de millones de productos.
+ * - Sin un objeto por producto: cada campo es un arreglo primitivo indexado
+ *   por fila (precio long[] en centavos, stock int[], ...).
+ * - Dinero en punto fijo (ver Dinero): el precio se redondea a centavos al
+ *   entrar y el valor total es exacto; una operación que lo desbordaría se
+ *   rechaza. Los métodos '...Centavos' evitan el double y el boxing.
+ * - Los textos (código, nombre, descripción) viven como UTF-8 en un único
+ *   byte[] ('arena'); cada fila guarda offset y largo empaquetados en un long.
+ *   Los códigos cortos van dentro de ese mismo long (ver Codigo): no usan la
+ *   arena y se comparan sin leerla.
+ * - El código se encuentra con una tabla hash de direccionamiento abierto
+ *   (int[] de filas, sondeo lineal, borrado con desplazamiento hacia atrás).
+ * - Hacia fuera entrega vistas 'ProductoRO' livianas (fila + sello).
+ *
+ * Misma API y mismas validaciones que Inventario para altas, bajas,
+ * actualizaciones y consultas básicas.
+ *
+ * Concurrencia: un escritor a la vez (StampedLock); las lecturas son
+ * optimistas y solo toman el lock si hubo una escritura en medio.
+ */
+public final class InventarioCompacto {
+    private static final long NULO = -1L;          // referencia a texto null
+    private static final long EMPAQUETADO = Long.MIN_VALUE; // marca de código empaquetado en la referencia
+    private static final int MIN_FILAS = 16;
+    // Tope de un byte[] en la JVM
+    private static final int MAX_ARENA = Integer.MAX_VALUE - 8;
+
+    private final StampedLock lock = new StampedLock();
+
+    // Columnas por fila
+    private long[] precio;      // centavos; 0 en filas libres
+    private int[] stock;
+    private long[] refCodigo;
+    private long[] refNombre;
+    private long[] refDescripcion;
+    private int[] hashCodigo;
+    private int[] sello;        // cambia cuando la fila se borra o se reutiliza
+    private boolean[] viva;
+    private int filas;          // filas usadas alguna vez
+    private int[] libres = new int[MIN_FILAS];
+    private int nLibres;
+
+    // Textos
+    private byte[] arena = new byte[1024];
+    private int usoArena;
+    private long basuraArena;
+
+    // Índice código -> fila + 1 (0 = vacío)
+    private int[] tabla;
+    private int cantidad;
+    private long valorCentavos;
+
+    public InventarioCompacto() {
+        this(MIN_FILAS);
+    }
+
+    public InventarioCompacto(int capacidadEsperada) {
+        int n = Math.max(MIN_FILAS, capacidadEsperada);
+        precio = new long[n];
+        stock = new int[n];
+        refCodigo = new long[n];
+        refNombre = new long[n];
+        refDescripcion = new long[n];
+        hashCodigo = new int[n];
+        sello = new int[n];
+        viva = new boolean[n];
+        tabla = new int[Integer.highestOneBit(n * 2 - 1) << 1];
+    }
+
+    // ---------- COMANDOS ----------
+
+    // Igual que Inventario.agregarProducto (precio con más de 2 decimales: se redondea)
+    public boolean agregarProducto(String codigo, String nombre, String descripcion, double precio, int stock) {
+        return agregarProductoCentavos(codigo, nombre, descripcion, precio < 0 ? 0 : Dinero.centavos(precio), stock);
+    }
+
+    // Igual, con el precio en centavos (negativo o mayor que Dinero.MAX_CENTAVOS: false)
+    public boolean agregarProductoCentavos(String codigo, String nombre, String descripcion, long precio, int stock) {
+        String cod = Inventario.norm(codigo);
+        if (cod == null || precio < 0 || precio > Dinero.MAX_CENTAVOS) return false;
+        int stockInicial = Math.max(0, stock);
+        long emp = empaquetado(cod);
+        int h = mezclar(cod.hashCode());
+        long st = lock.writeLock();
+        try {
+            if (buscarFila(cod, emp, h) >= 0) return false;
+            long total = sumar(valorCentavos, 0, precio, stockInicial);
+            if (total < 0) return false;
+            int fila = nuevaFila();
+            this.precio[fila] = precio;
+            this.stock[fila] = stockInicial;
+            refCodigo[fila] = emp != 0 ? emp : guardar(cod);
+            refNombre[fila] = guardar(nombre);
+            refDescripcion[fila] = guardar(descripcion);
+            hashCodigo[fila] = h;
+            viva[fila] = true;
+            sello[fila]++;
+            insertarEnTabla(fila);
+            cantidad++;
+            valorCentavos = total;
+            return true;
+        } finally {
+            lock.unlockWrite(st);
+        }
+    }
+
+    // Igual que Inventario.eliminarPorCodigo
+    public boolean eliminarPorCodigo(String codigo) {
+        String cod = Inventario.norm(codigo);
+        if (cod == null) return false;
+        long emp = empaquetado(cod);
+        int h = mezclar(cod.hashCode());
+        long st = lock.writeLock();
+        try {
+            int fila = buscarFila(cod, emp, h);
+            if (fila < 0) return false;
+            valorCentavos -= valor(fila);
+            cantidad--;
+            quitarDeTabla(fila);
+            liberar(refCodigo[fila]);
+            liberar(refNombre[fila]);
+            liberar(refDescripcion[fila]);
+            viva[fila] = false;
+            precio[fila] = 0; // la fila libre no suma en Dinero.total
+            stock[fila] = 0;
+            sello[fila]++;
+            if (nLibres == libres.length) libres = Arrays.copyOf(libres, nLibres * 2);
+            libres[nLibres++] = fila;
+            if (basuraArena > usoArena / 2) compactarArena();
+            return true;
+        } finally {
+            lock.unlockWrite(st);
+        }
+    }
+
+    // Igual que Inventario.actualizarProducto (null = no tocar, inválidos se ignoran)
+    public boolean actualizarProducto(String codigo, String nombre, String descripcion, Double precio, Integer stock) {
+        long c = precio == null ? -1 : Dinero.centavos(precio);
+        return actualizar(codigo, nombre, descripcion, c, stock == null ? -1 : stock);
+    }
+
+    /*
+     * Igual, sin boxing: precio en centavos y stock negativos = no tocar.
+     * Falso si no existe o si el valor total desbordaría (no cambia nada).
+     */
+    public boolean actualizarProductoCentavos(String codigo, String nombre, String descripcion, long precio, int stock) {
+        return actualizar(codigo, nombre, descripcion, precio > Dinero.MAX_CENTAVOS ? -1 : precio, stock);
+    }
+
+    private boolean actualizar(String codigo, String nombre, String descripcion, long precio, int stock) {
+        String cod = Inventario.norm(codigo);
+        if (cod == null) return false;
+        long emp = empaquetado(cod);
+        int h = mezclar(cod.hashCode());
+        long st = lock.writeLock();
+        try {
+            int fila = buscarFila(cod, emp, h);
+            if (fila < 0) return false;
+            long pr = precio >= 0 ? precio : this.precio[fila];
+            int s = stock >= 0 ? stock : this.stock[fila];
+            long total = sumar(valorCentavos, valor(fila), pr, s);
+            if (total < 0) return false;
+            if (nombre != null) {
+                long ref = guardar(nombre);
+                liberar(refNombre[fila]);
+                refNombre[fila] = ref;
+            }
+            if (descripcion != null) {
+                long ref = guardar(descripcion);
+                liberar(refDescripcion[fila]);
+                refDescripcion[fila] = ref;
+            }
+            this.precio[fila] = pr;
+            this.stock[fila] = s;
+            valorCentavos = total;
+            // Cambiar textos deja basura igual que una baja
+            if (basuraArena > usoArena / 2) compactarArena();
+            return true;
+        } finally {
+            lock.unlockWrite(st);
+        }
+    }
+
+    public boolean actualizarPrecio(String codigo, double nuevoPrecio) {
+        long c = Dinero.centavos(nuevoPrecio);
+        return c >= 0 && actualizar(codigo, null, null, c, -1);
+    }
+
+    public boolean actualizarPrecioCentavos(String codigo, long nuevoPrecio) {
+        if (nuevoPrecio < 0 || nuevoPrecio > Dinero.MAX_CENTAVOS) return false;
+        return actualizar(codigo, null, null, nuevoPrecio, -1);
+    }
+
+    public boolean actualizarStock(String codigo, int nuevoStock) {
+        if (nuevoStock < 0) return false;
+        return actualizar(codigo, null, null, -1, nuevoStock);
+    }
+
+    // ---------- CONSULTAS ----------
+
+    // Vista del producto (lee los arreglos en cada llamada)
+    public Optional<ProductoRO> buscarPorCodigo(String codigo) {
+        String cod = Inventario.norm(codigo);
+        if (cod == null) return Optional.empty();
+        long emp = empaquetado(cod);
+        int h = mezclar(cod.hashCode());
+        long st = lock.tryOptimisticRead();
+        int fila = buscarFilaSegura(cod, emp, h);
+        int s = fila >= 0 ? sello[fila] : 0;
+        if (!lock.validate(st)) {
+            st = lock.readLock();
+            try {
+                fila = buscarFila(cod, emp, h);
+                s = fila >= 0 ? sello[fila] : 0;
+            } finally {
+                lock.unlockRead(st);
+            }
+        }
+        return fila < 0 ? Optional.empty() : Optional.of(new Vista(fila, s));
+    }
+
+    // Mismo criterio que Inventario.buscarPorNombre ('contains' en minúsculas)
+    public List<ProductoRO> buscarPorNombre(String texto) {
+        if (texto == null || texto.isBlank()) return List.of();
+        String t = texto.toLowerCase(Locale.ROOT);
+        List<ProductoRO> out = new ArrayList<>();
+        long st = lock.readLock();
+        try {
+            for (int i = 0; i < filas; i++) {
+                if (!viva[i]) continue;
+                if (IndiceTexto.minusculas(leer(refNombre[i])).contains(t)
+                        || IndiceTexto.minusculas(leer(refDescripcion[i])).contains(t)) {
+                    out.add(new Vista(i, sello[i]));
+                }
+            }
+        } finally {
+            lock.unlockRead(st);
+        }
+        return Collections.unmodifiableList(out);
+    }
+
+    // Vistas de todos los productos (una por fila viva, sin copiar datos)
+    public List<ProductoRO> listarTodos() {
+        long st = lock.readLock();
+        try {
+            List<ProductoRO> out = new ArrayList<>(cantidad);
+            for (int i = 0; i < filas; i++) {
+                if (viva[i]) out.add(new Vista(i, sello[i]));
+            }
+            return Collections.unmodifiableList(out);
+        } finally {
+            lock.unlockRead(st);
+        }
+    }
+
+    // Valor total exacto en centavos, en O(1)
+    public long valorCentavos() {
+        long st = lock.readLock();
+        try {
+            return valorCentavos;
+        } finally {
+            lock.unlockRead(st);
+        }
+    }
+
+    // Mismo formato que Inventario.generarInforme, en O(1)
+    public String generarInforme() {
+        long st = lock.readLock();
+        try {
+            return "Productos: " + cantidad + " | Valor inventario: " + Agregados.formatoCentavos(valorCentavos);
+        } finally {
+            lock.unlockRead(st);
+        }
+    }
+
+    /*
+     * Igual que Inventario.informeAnalitico, directo sobre las columnas (sin
+     * copiarlas). Las escrituras esperan mientras se calcula.
+     */
+    public InformeAnalitico informeAnalitico(double[] bandas, int top) {
+        long[] limites = Analitica.limites(bandas);
+        long st = lock.readLock();
+        try {
+            return Analitica.calcular(precio, stock, viva, filas, limites, top, f -> leer(refCodigo[f]));
+        } finally {
+            lock.unlockRead(st);
+        }
+    }
+
+    /*
+     * Valor total recorriendo las columnas (sin el total mantenido).
+     * Sirve para verificar el total: recorrido secuencial de dos arreglos
+     * primitivos contiguos, en enteros y sin ramas (ver Dinero.total).
+     */
+    long recalcularValorCentavos() {
+        long st = lock.readLock();
+        try {
+            return Dinero.total(precio, stock, filas);
+        } finally {
+            lock.unlockRead(st);
+        }
+    }
+
+    public int cantidad() {
+        long st = lock.readLock();
+        try {
+            return cantidad;
+        } finally {
+            lock.unlockRead(st);
+        }
+    }
+
+    // ---------- Vista liviana ----------
+
+    /*
+     * ProductoRO sobre una fila. Si el producto se elimina (o la fila se
+     * reutiliza) la vista queda inválida y sus lecturas lanzan
+     * IllegalStateException en vez de mostrar otro producto.
+     */
+    private final class Vista implements ProductoRO {
+        private final int fila;
+        private final int sello;
+
+        Vista(int fila, int sello) {
+            this.fila = fila;
+            this.sello = sello;
+        }
+
+        @Override public String getCodigo()      { return texto(refCodigo, fila, sello); }
+        @Override public String getNombre()      { return texto(refNombre, fila, sello); }
+        @Override public String getDescripcion() { return texto(refDescripcion, fila, sello); }
+
+        @Override
+        public double getPrecio() {
+            long st = lock.tryOptimisticRead();
+            long v = precio[fila];
+            boolean ok = InventarioCompacto.this.sello[fila] == sello;
+            if (!lock.validate(st)) {
+                st = lock.readLock();
+                try {
+                    v = precio[fila];
+                    ok = InventarioCompacto.this.sello[fila] == sello;
+                } finally {
+                    lock.unlockRead(st);
+                }
+            }
+            if (!ok) throw new IllegalStateException("El producto ya no existe");
+            return Dinero.aDouble(v);
+        }
+
+        @Override
+        public int getStock() {
+            long st = lock.tryOptimisticRead();
+            int v = stock[fila];
+            boolean ok = InventarioCompacto.this.sello[fila] == sello;
+            if (!lock.validate(st)) {
+                st = lock.readLock();
+                try {
+                    v = stock[fila];
+                    ok = InventarioCompacto.this.sello[fila] == sello;
+                } finally {
+                    lock.unlockRead(st);
+                }
+            }
+            if (!ok) throw new IllegalStateException("El producto ya no existe");
+            return v;
+        }
+
+        @Override
+        public String descripcionDetallada() {
+            long st = lock.readLock(); // todos los campos del mismo momento
+            try {
+                if (InventarioCompacto.this.sello[fila] != sello) throw new IllegalStateException("El producto ya no existe");
+                return "[" + leer(refCodigo[fila]) + "] " + leer(refNombre[fila]) + " - " + leer(refDescripcion[fila]) +
+                        " | Precio: " + Agregados.formatoCentavos(precio[fila]) +
+                        " | Stock: " + stock[fila];
+            } finally {
+                lock.unlockRead(st);
+            }
+        }
+    }
+
+    // Textos: siempre con lock de lectura (la arena puede compactarse)
+    private String texto(long[] refs, int fila, int s) {
+        long st = lock.readLock();
+        try {
+            if (sello[fila] != s) throw new IllegalStateException("El producto ya no existe");
+            return leer(refs[fila]);
+        } finally {
+            lock.unlockRead(st);
+        }
+    }
+
+    // ---------- Internos (con el lock tomado salvo buscarFilaSegura) ----------
+
+    private static int mezclar(int h) {
+        return h ^ (h >>> 16);
+    }
+
+    private long valor(int fila) {
+        return Dinero.valor(precio[fila], stock[fila]);
+    }
+
+    // total - antes + precio * stock, o -1 si desborda
+    private static long sumar(long total, long antes, long precio, int stock) {
+        try {
+            return Math.addExact(total - antes, Dinero.valor(precio, stock));
+        } catch (ArithmeticException e) {
+            return -1;
+        }
+    }
+
+    private int buscarFila(String cod, long emp, int h) {
+        int mascara = tabla.length - 1;
+        for (int i = h & mascara; ; i = (i + 1) & mascara) {
+            int f = tabla[i] - 1;
+            if (f < 0) return -1;
+            if (hashCodigo[f] == h && igual(refCodigo[f], cod, emp)) return f;
+        }
+    }
+
+    /*
+     * buscarFila para lectura optimista: los arreglos pueden cambiar en medio,
+     * así que se acota el sondeo y se protege de índices fuera de rango. El
+     * resultado solo se usa si lock.validate confirma que nada cambió.
+     */
+    private int buscarFilaSegura(String cod, long emp, int h) {
+        try {
+            int[] t = tabla;
+            int mascara = t.length - 1;
+            for (int i = h & mascara, n = 0; n < t.length; i = (i + 1) & mascara, n++) {
+                int f = t[i] - 1;
+                if (f < 0) return -1;
+                if (hashCodigo[f] == h && igual(refCodigo[f], cod, emp)) return f;
+            }
+            return -1;
+        } catch (RuntimeException e) {
+            return -1; // lectura inconsistente: la validación fallará
+        }
+    }
+
+    // Referencia del código empaquetado, o 0 si va a la arena
+    private static long empaquetado(String cod) {
+        long x = Codigo.empaquetar(cod);
+        return x == 0 ? 0 : EMPAQUETADO | x;
+    }
+
+    // Un código empaquetado solo puede estar empaquetado (y viceversa)
+    private boolean igual(long ref, String cod, long emp) {
+        if (emp != 0) return ref == emp;
+        return ref >= 0 && Codigo.igualUtf8(cod, arena, (int) (ref >>> 24), (int) (ref & 0xFFFFFF));
+    }
+
+    private int nuevaFila() {
+        if (nLibres > 0) return libres[--nLibres];
+        if (filas == precio.length) crecer();
+        return filas++;
+    }
+
+    private void crecer() {
+        int n = precio.length * 2;
+        precio = Arrays.copyOf(precio, n);
+        stock = Arrays.copyOf(stock, n);
+        refCodigo = Arrays.copyOf(refCodigo, n);
+        refNombre = Arrays.copyOf(refNombre, n);
+        refDescripcion = Arrays.copyOf(refDescripcion, n);
+        hashCodigo = Arrays.copyOf(hashCodigo, n);
+        sello = Arrays.copyOf(sello, n);
+        viva = Arrays.copyOf(viva, n);
+    }
+
+    private void insertarEnTabla(int fila) {
+        if ((cantidad + 1) * 2 > tabla.length) {
+            int[] vieja = tabla;
+            tabla = new int[vieja.length * 2];
+            for (int f : vieja) if (f != 0) ponerEnTabla(f - 1);
+        }
+        ponerEnTabla(fila);
+    }
+
+    private void ponerEnTabla(int fila) {
+        int mascara = tabla.length - 1;
+        int i = hashCodigo[fila] & mascara;
+        while (tabla[i] != 0) i = (i + 1) & mascara;
+        tabla[i] = fila + 1;
+    }
+
+    // Borrado con desplazamiento hacia atrás: no deja marcas de borrado
+    private void quitarDeTabla(int fila) {
+        int mascara = tabla.length - 1;
+        int i = hashCodigo[fila] & mascara;
+        while (tabla[i] != fila + 1) i = (i + 1) & mascara;
+        int j = i;
+        while (true) {
+            j = (j + 1) & mascara;
+            int f = tabla[j] - 1;
+            if (f < 0) break;
+            int ideal = hashCodigo[f] & mascara;
+            // ¿'ideal' está fuera del tramo (i, j]? entonces f puede bajar a i
+            if (i <= j ? (ideal <= i || ideal > j) : (ideal <= i && ideal > j)) {
+                tabla[i] = tabla[j];
+                i = j;
+            }
+        }
+        tabla[i] = 0;
+    }
+
+    // ---------- Arena de textos ----------
+
+    private long guardar(String s) {
+        return s == null ? NULO : guardar(s.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private long guardar(byte[] b) {
+        if (b.length > 0xFFFFFF) throw new IllegalArgumentException("Texto demasiado largo");
+        long necesario = (long) usoArena + b.length;
+        if (necesario > arena.length) {
+            if (necesario > MAX_ARENA) {
+                throw new IllegalStateException("Arena de textos llena: " + usoArena + " bytes");
+            }
+            arena = Arrays.copyOf(arena, (int) Math.min(MAX_ARENA, Math.max(2L * arena.length, necesario)));
+        }
+        System.arraycopy(b, 0, arena, usoArena, b.length);
+        long ref = ((long) usoArena << 24) | b.length;
+        usoArena += b.length;
+        return ref;
+    }
+
+    // Bytes ocupados en la arena, vivos o no (para las pruebas)
+    int bytesArena() {
+        long st = lock.readLock();
+        try {
+            return usoArena;
+        } finally {
+            lock.unlockRead(st);
+        }
+    }
+
+    private void liberar(long ref) {
+        if (ref >= 0) basuraArena += ref & 0xFFFFFF;
+    }
+
+    private String leer(long ref) {
+        if (ref == NULO) return null;
+        if (ref < 0) return Codigo.desempaquetar(ref & ~EMPAQUETADO);
+        return new String(arena, (int) (ref >>> 24), (int) (ref & 0xFFFFFF), StandardCharsets.UTF_8);
+    }
+
+    // Copia solo los textos vivos a una arena nueva
+    private void compactarArena() {
+        byte[] nueva = new byte[Math.max(1024, (int) (usoArena - basuraArena))];
+        int uso = 0;
+        for (int i = 0; i < filas; i++) {
+            if (!viva[i]) continue;
+            refCodigo[i] = mover(refCodigo[i], nueva, uso);
+            uso += largo(refCodigo[i]);
+            refNombre[i] = mover(refNombre[i], nueva, uso);
+            uso += largo(refNombre[i]);
+            refDescripcion[i] = mover(refDescripcion[i], nueva, uso);
+            uso += largo(refDescripcion[i]);
+        }
+        arena = nueva;
+        usoArena = uso;
+        basuraArena = 0;
+    }
+
+    private static int largo(long ref) {
+        return ref < 0 ? 0 : (int) (ref & 0xFFFFFF); // null o empaquetado: nada en la arena
+    }
+
+    private long mover(long ref, byte[] destino, int pos) {
+        if (ref < 0) return ref;
+        int largo = (int) (ref & 0xFFFFFF);
+        System.arraycopy(arena, (int) (ref >>> 24), destino, pos, largo);
+        return ((long) pos << 24) | largo;
+    }
+}
@@ -0,0 +1,349 @@
+package app;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/*
+ * Inventario ESCALONADO para catálogos más grandes que el heap.
+ * - En memoria solo vive el conjunto caliente de productos, en una caché
+ *   W-TinyLFU acotada por cantidad (CacheTinyLfu). El resto está en un
+ *   almacén clave-valor en disco (AlmacenDisco).
+ * - buscarPorCodigo lee a través: si el producto no está en memoria lo trae
+ *   del disco y lo deja en la caché.
+ * - Los cambios quedan en memoria ('sucios') y se escriben al disco en
+ *   LOTES: cuando un producto sale de la caché pasa a 'porEscribir', y al
+ *   juntar LOTE productos (o bajas) se escriben en una sola operación.
+ * - El heap queda acotado por el tamaño de la caché más un lote.
+ *
+ * Los ProductoRO devueltos son vistas vivas mientras el producto siga en
+ * memoria; si sale y vuelve a cargarse, es otro objeto.
+ *
+ * Misma API y mismas validaciones que Inventario para altas, bajas,
+ * actualizaciones, movimientos de stock y consultas por código. No tiene
+ * búsquedas por texto ni listados: recorrerían el disco completo.
+ *
+ * Concurrencia: las lecturas de lo que está en memoria no toman locks. Las
+ * escrituras y las cargas desde disco toman un cerrojo por código
+ * (repartido en franjas); el volcado al disco revisa cada producto con su
+ * cerrojo, así un cambio nunca se pierde entre la caché y el disco.
+ * Hay que cerrarlo (close) para volcar lo pendiente.
+ */
+public final class InventarioEscalonado implements Closeable {
+    static final int LOTE = 512;
+    private static final int FRANJAS = 256;
+
+    private final AlmacenDisco almacen;
+    private final CacheTinyLfu<String, Producto> cache;
+    // Desalojados de la caché, hasta que el volcado los escriba (o vuelvan a la caché)
+    private final Map<String, Producto> porEscribir = new ConcurrentHashMap<>();
+    // Bajas todavía no escritas (tapan al registro viejo del disco)
+    private final Set<String> bajas = ConcurrentHashMap.newKeySet();
+    // Productos con cambios que el disco todavía no tiene
+    private final Set<Producto> sucios = ConcurrentHashMap.newKeySet();
+    private final Agregados agregados = new Agregados();
+    private final Cambios cambios = new Cambios();
+    private final Object[] cerrojos = new Object[FRANJAS];
+    private final Object escritura = new Object(); // un volcado a la vez
+    private final AtomicBoolean volcando = new AtomicBoolean();
+    private final AtomicLong ultimoIdAlta = new AtomicLong();
+    private final LongAdder aciertos = new LongAdder();
+    private final LongAdder fallos = new LongAdder();
+
+    // Marca sucio todo producto que cambia y mantiene los totales
+    private final class Cambios implements Producto.Observador {
+        @Override
+        public void publicado(Producto p, Producto.Estado n) {
+            if (n.observador != null) sucios.add(p); // la baja (sin dueño) no se escribe como cambio
+        }
+
+        @Override
+        public void cambio(Producto p, Producto.Estado antes, Producto.Estado despues) {
+            agregados.cambio(p, antes, despues);
+        }
+    }
+
+    private InventarioEscalonado(AlmacenDisco almacen, int maximoEnMemoria) {
+        this.almacen = almacen;
+        this.cache = new CacheTinyLfu<>(maximoEnMemoria, porEscribir::put);
+        for (int i = 0; i < FRANJAS; i++) cerrojos[i] = new Object();
+        agregados.sumar(almacen.cantidad(), almacen.valorCentavos());
+    }
+
+    /*
+     * Abre (o crea) el inventario en el directorio, con a lo sumo
+     * 'maximoEnMemoria' productos en la caché.
+     */
+    public static InventarioEscalonado abrir(Path dir, int maximoEnMemoria) throws IOException {
+        return new InventarioEscalonado(AlmacenDisco.abrir(dir), maximoEnMemoria);
+    }
+
+    private Object cerrojo(String cod) {
+        int h = cod.hashCode();
+        return cerrojos[(h ^ h >>> 16) & (FRANJAS - 1)];
+    }
+
+    // ---------- Memoria y disco ----------
+
+    // Producto en memoria (caché o esperando el volcado), sin locks
+    private Producto enMemoria(String cod) {
+        Producto p = cache.get(cod);
+        return p != null ? p : porEscribir.get(cod);
+    }
+
+    /*
+     * Producto del código, trayéndolo del disco si hace falta. Se llama con
+     * el cerrojo del código tomado: queda en la caché y es el único objeto
+     * para ese código.
+     */
+    private Producto cargar(String cod) {
+        Producto p = cache.ver(cod);
+        if (p != null) return p;
+        p = porEscribir.get(cod);
+        if (p == null) {
+            if (bajas.contains(cod)) return null;
+            AlmacenDisco.Registro r;
+            try {
+                r = almacen.leer(cod);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if (r == null) return null;
+            p = new Producto(r.codigo(), r.nombre(), r.descripcion(), r.precio(), r.stock(), r.reservado(), 0, 0);
+            p.vincular(cambios, ultimoIdAlta.incrementAndGet());
+        } else {
+            porEscribir.remove(cod, p); // vuelve a la caché (si se desaloja enseguida, vuelve aquí)
+        }
+        cache.put(cod, p);
+        return p;
+    }
+
+    // Lectura: memoria sin locks; si no está, carga con el cerrojo
+    private Producto leer(String codigo) {
+        String cod = Inventario.norm(codigo);
+        if (cod == null) return null;
+        Producto p = enMemoria(cod);
+        if (p != null) {
+            aciertos.increment();
+            return p;
+        }
+        if (bajas.contains(cod)) return null;
+        fallos.increment();
+        synchronized (cerrojo(cod)) {
+            p = cargar(cod);
+        }
+        volcarSiHaceFalta(); // cargar pudo desalojar a otro
+        return p;
+    }
+
+    // Escritura sobre un producto existente, con su cerrojo
+    private boolean modificar(String codigo, Predicate<Producto> op) {
+        String cod = Inventario.norm(codigo);
+        if (cod == null) return false;
+        boolean ok;
+        synchronized (cerrojo(cod)) {
+            Producto p = cargar(cod);
+            ok = p != null && op.test(p);
+        }
+        volcarSiHaceFalta();
+        return ok;
+    }
+
+    private void volcarSiHaceFalta() {
+        if (porEscribir.size() + bajas.size() < LOTE || !volcando.compareAndSet(false, true)) return;
+        try {
+            volcar(false);
+        } finally {
+            volcando.set(false);
+        }
+    }
+
+    /*
+     * Escribe un lote: los desalojados sucios y las bajas (y con 'todo'
+     * también los sucios que siguen en la caché). Cada producto se toma con
+     * su cerrojo; solo se suelta de la memoria si no volvió a cambiar
+     * mientras se escribía.
+     */
+    private void volcar(boolean todo) {
+        synchronized (escritura) {
+            List<AlmacenDisco.Registro> registros = new ArrayList<>();
+            Set<Producto> escritos = new HashSet<>(); // la iteración concurrente puede repetir claves
+            List<String> borrados = new ArrayList<>();
+            for (Map.Entry<String, Producto> en : porEscribir.entrySet()) {
+                String cod = en.getKey();
+                Producto p = en.getValue();
+                synchronized (cerrojo(cod)) {
+                    if (porEscribir.get(cod) != p || escritos.contains(p)) continue;
+                    if (sucios.remove(p)) {
+                        registros.add(registro(p));
+                        escritos.add(p);
+                    } else {
+                        porEscribir.remove(cod, p); // limpio: el disco ya lo tiene
+                    }
+                }
+            }
+            if (todo) {
+                for (Producto p : sucios) {
+                    synchronized (cerrojo(p.getCodigo())) {
+                        if (sucios.remove(p)) {
+                            registros.add(registro(p));
+                            escritos.add(p);
+                        }
+                    }
+                }
+            }
+            for (String cod : bajas) {
+                synchronized (cerrojo(cod)) {
+                    if (bajas.contains(cod)) borrados.add(cod);
+                }
+            }
+            if (registros.isEmpty() && borrados.isEmpty()) return;
+            try {
+                almacen.escribir(registros, borrados);
+            } catch (IOException e) {
+                for (Producto p : escritos) sucios.add(p); // quedan para el próximo intento
+                throw new UncheckedIOException(e);
+            }
+            for (Producto p : escritos) {
+                synchronized (cerrojo(p.getCodigo())) {
+                    if (!sucios.contains(p)) porEscribir.remove(p.getCodigo(), p);
+                }
+            }
+            for (String cod : borrados) {
+                synchronized (cerrojo(cod)) {
+                    bajas.remove(cod);
+                }
+            }
+        }
+    }
+
+    private static AlmacenDisco.Registro registro(Producto p) {
+        Producto.Estado e = p.estado();
+        return new AlmacenDisco.Registro(p.getCodigo(), e.nombre, e.descripcion, e.precio, e.stock, e.reservado);
+    }
+
+    // ---------- COMANDOS ----------
+
+    public boolean agregarProducto(String codigo, String nombre, String descripcion, double precio, int stock) {
+        String cod = Inventario.norm(codigo);
+        if (cod == null || !Producto.Estado.valorValido(precio, stock)) return false;
+        synchronized (cerrojo(cod)) {
+            if (cargar(cod) != null) return false;
+            Producto p = new Producto(cod, nombre, descripcion, precio, stock);
+            Producto.Estado e = p.vincular(cambios, ultimoIdAlta.incrementAndGet());
+            agregados.alta(e, null);
+            sucios.add(p);
+            cache.put(cod, p);
+            bajas.remove(cod); // el registro nuevo reemplaza a la baja pendiente
+        }
+        volcarSiHaceFalta();
+        return true;
+    }
+
+    public boolean eliminarPorCodigo(String codigo) {
+        String cod = Inventario.norm(codigo);
+        if (cod == null) return false;
+        synchronized (cerrojo(cod)) {
+            Producto p = cargar(cod);
+            if (p == null) return false;
+            bajas.add(cod); // antes de soltarlo: las lecturas no deben volver al disco
+            Producto.Estado e = p.desvincular(cambios);
+            agregados.baja(e, null);
+            sucios.remove(p);
+            cache.remove(cod);
+            porEscribir.remove(cod, p);
+        }
+        volcarSiHaceFalta();
+        return true;
+    }
+
+    public boolean actualizarProducto(String codigo, String nombre, String descripcion, Double precio, Integer stock) {
+        return modificar(codigo, p -> {
+            if (nombre != null || descripcion != null) p.setTexto(nombre, descripcion);
+            if (precio != null || stock != null) p.actualizarEstado(precio, stock);
+            return true;
+        });
+    }
+
+    public boolean actualizarPrecio(String codigo, double nuevoPrecio) {
+        if (nuevoPrecio < 0) return false;
+        return modificar(codigo, p -> p.actualizarPrecio(nuevoPrecio));
+    }
+
+    public boolean actualizarStock(String codigo, int nuevoStock) {
+        if (nuevoStock < 0) return false;
+        return modificar(codigo, p -> p.setStock(nuevoStock));
+    }
+
+    public boolean descontarStock(String codigo, int cantidad) {
+        return modificar(codigo, p -> p.descontarStock(cantidad));
+    }
+
+    public boolean incrementarStock(String codigo, int cantidad) {
+        return modificar(codigo, p -> p.incrementarStock(cantidad));
+    }
+
+    public boolean reservarStock(String codigo, int cantidad) {
+        return modificar(codigo, p -> p.reservar(cantidad));
+    }
+
+    public boolean confirmarReserva(String codigo, int cantidad) {
+        return modificar(codigo, p -> p.confirmarReserva(cantidad));
+    }
+
+    public boolean liberarReserva(String codigo, int cantidad) {
+        return modificar(codigo, p -> p.liberarReserva(cantidad));
+    }
+
+    // ---------- CONSULTAS ----------
+
+    public Optional<ProductoRO> buscarPorCodigo(String codigo) {
+        return Optional.ofNullable(leer(codigo));
+    }
+
+    public OptionalInt stockDisponible(String codigo) {
+        Producto p = leer(codigo);
+        return p == null ? OptionalInt.empty() : OptionalInt.of(p.estado().disponible());
+    }
+
+    // Mismo informe que Inventario.generarInforme (totales en O(1), incluido lo que está en disco)
+    public String generarInforme() {
+        return agregados.informe();
+    }
+
+    // Fracción de lecturas por código resueltas sin ir al disco
+    public double tasaAciertos() {
+        long a = aciertos.sum();
+        long t = a + fallos.sum();
+        return t == 0 ? 0 : (double) a / t;
+    }
+
+    // Productos en memoria ahora (caché + esperando el volcado)
+    public int enMemoria() {
+        return cache.tamano() + porEscribir.size();
+    }
+
+    // Escribe al disco todos los cambios pendientes
+    public void volcar() {
+        volcar(true);
+    }
+
+    @Override
+    public void close() throws IOException {
+        volcar(true);
+        almacen.close();
+    }
+}
@@ -0,0 +1,230 @@
+package app;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/*
+ * Inventario repartido en N particiones por código (hash del código).
+ * - Cada partición es un Inventario independiente (ya seguro entre hilos):
+ *   los comandos y lecturas por código van directo a su partición, en el
+ *   hilo que llama, así particiones distintas nunca compiten entre sí.
+ * - buscarPorNombre y listarTodos consultan todas las particiones en paralelo
+ *   (fork-join) y juntan los resultados. El orden no está garantizado, igual
+ *   que en Inventario.
+ * - ejecutarLote separa el lote por partición y aplica cada parte en el
+ *   hilo de esa partición, en paralelo: es la forma rápida de cargar feeds
+ *   grandes.
+ *
+ * Mismas validaciones y mismos resultados que un Inventario único.
+ * Hay que cerrarlo (close) para terminar los hilos de los lotes.
+ */
+public final class InventarioParticionado implements Closeable {
+
+    private final Inventario[] particiones;
+    private final ExecutorService[] hilosLote;
+
+    // Una partición por núcleo
+    public InventarioParticionado() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public InventarioParticionado(int cantidad) {
+        if (cantidad < 1) throw new IllegalArgumentException("Cantidad de particiones inválida: " + cantidad);
+        particiones = new Inventario[cantidad];
+        hilosLote = new ExecutorService[cantidad];
+        for (int i = 0; i < cantidad; i++) {
+            particiones[i] = new Inventario();
+            String nombre = "particion-" + i;
+            hilosLote[i] = Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, nombre);
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
+    public int cantidadParticiones() {
+        return particiones.length;
+    }
+
+    // Partición dueña del código (ya normalizado); los null van a la 0 y fallan ahí
+    private int particion(String cod) {
+        if (cod == null) return 0;
+        int h = cod.hashCode();
+        return Math.floorMod(h ^ (h >>> 16), particiones.length);
+    }
+
+    private Inventario de(String codigo) {
+        return particiones[particion(Inventario.norm(codigo))];
+    }
+
+    private static <T> T esperar(CompletableFuture<T> f) {
+        try {
+            return f.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException r) throw r;
+            if (e.getCause() instanceof Error r) throw r;
+            throw e;
+        }
+    }
+
+    // ---------- COMANDOS ----------
+
+    public boolean agregarProducto(String codigo, String nombre, String descripcion, double precio, int stock) {
+        return de(codigo).agregarProducto(codigo, nombre, descripcion, precio, stock);
+    }
+
+    public boolean eliminarPorCodigo(String codigo) {
+        return de(codigo).eliminarPorCodigo(codigo);
+    }
+
+    public boolean actualizarProducto(String codigo, String nombre, String descripcion, Double precio, Integer stock) {
+        return de(codigo).actualizarProducto(codigo, nombre, descripcion, precio, stock);
+    }
+
+    public boolean actualizarPrecio(String codigo, double nuevoPrecio) {
+        return de(codigo).actualizarPrecio(codigo, nuevoPrecio);
+    }
+
+    public boolean actualizarStock(String codigo, int nuevoStock) {
+        return de(codigo).actualizarStock(codigo, nuevoStock);
+    }
+
+    public boolean descontarStock(String codigo, int cantidad) {
+        return de(codigo).descontarStock(codigo, cantidad);
+    }
+
+    public boolean incrementarStock(String codigo, int cantidad) {
+        return de(codigo).incrementarStock(codigo, cantidad);
+    }
+
+    public boolean reservarStock(String codigo, int cantidad) {
+        return de(codigo).reservarStock(codigo, cantidad);
+    }
+
+    public boolean confirmarReserva(String codigo, int cantidad) {
+        return de(codigo).confirmarReserva(codigo, cantidad);
+    }
+
+    public boolean liberarReserva(String codigo, int cantidad) {
+        return de(codigo).liberarReserva(codigo, cantidad);
+    }
+
+    /*
+     * Lote mixto, como Inventario.ejecutarLote: un boolean por comando.
+     * Los comandos de una misma partición se aplican en el orden del lote;
+     * los de particiones distintas, en paralelo.
+     */
+    public boolean[] ejecutarLote(List<? extends Comando> comandos) {
+        int n = particiones.length;
+        List<List<Comando>> partes = new ArrayList<>(n);
+        List<int[]> posiciones = new ArrayList<>(n);
+        int[] largos = new int[n];
+        for (int i = 0; i < n; i++) {
+            partes.add(new ArrayList<>());
+            posiciones.add(new int[8]);
+        }
+        int k = 0;
+        for (Comando c : comandos) {
+            int i = particion(c == null ? null : Inventario.norm(c.codigo()));
+            partes.get(i).add(c);
+            int[] pos = posiciones.get(i);
+            if (largos[i] == pos.length) posiciones.set(i, pos = Arrays.copyOf(pos, pos.length * 2));
+            pos[largos[i]++] = k++;
+        }
+
+        List<CompletableFuture<boolean[]>> pendientes = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            List<Comando> parte = partes.get(i);
+            Inventario inv = particiones[i];
+            pendientes.add(parte.isEmpty() ? CompletableFuture.completedFuture(new boolean[0])
+                    : CompletableFuture.supplyAsync(() -> inv.ejecutarLote(parte), hilosLote[i]));
+        }
+        boolean[] ok = new boolean[k];
+        for (int i = 0; i < n; i++) {
+            boolean[] r = esperar(pendientes.get(i));
+            int[] pos = posiciones.get(i);
+            for (int j = 0; j < r.length; j++) ok[pos[j]] = r[j];
+        }
+        return ok;
+    }
+
+    // ---------- CONSULTAS ----------
+
+    public Optional<ProductoRO> buscarPorCodigo(String codigo) {
+        return de(codigo).buscarPorCodigo(codigo);
+    }
+
+    public OptionalInt stockDisponible(String codigo) {
+        return de(codigo).stockDisponible(codigo);
+    }
+
+    public List<ProductoRO> buscarPorNombre(String texto) {
+        if (texto == null || texto.isBlank()) return List.of();
+        return juntar(inv -> inv.buscarPorNombre(texto));
+    }
+
+    public List<ProductoRO> listarTodos() {
+        return juntar(Inventario::listarTodos);
+    }
+
+    /*
+     * Mismo informe que Inventario.generarInforme. Cada partición ya tiene
+     * sus totales en O(1): se suman sin pasar por el fork-join.
+     */
+    public String generarInforme() {
+        long cantidad = 0;
+        long centavos = 0;
+        for (Inventario inv : particiones) {
+            cantidad += inv.totales().cantidad();
+            centavos += inv.totales().valorCentavos();
+        }
+        return "Productos: " + cantidad + " | Valor inventario: " + Agregados.formatoCentavos(centavos);
+    }
+
+    // Scatter-gather: la consulta en cada partición en paralelo, resultados concatenados
+    private List<ProductoRO> juntar(Function<Inventario, List<ProductoRO>> consulta) {
+        List<ForkJoinTask<List<ProductoRO>>> tareas = new ArrayList<>(particiones.length);
+        for (Inventario inv : particiones) tareas.add(ForkJoinTask.adapt(() -> consulta.apply(inv)));
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        if (ForkJoinTask.inForkJoinPool()) {
+            ForkJoinTask.invokeAll(tareas);
+        } else {
+            for (ForkJoinTask<List<ProductoRO>> t : tareas) pool.execute(t);
+        }
+        int total = 0;
+        List<List<ProductoRO>> partes = new ArrayList<>(tareas.size());
+        for (ForkJoinTask<List<ProductoRO>> t : tareas) {
+            List<ProductoRO> r = t.join();
+            partes.add(r);
+            total += r.size();
+        }
+        List<ProductoRO> out = new ArrayList<>(total);
+        for (List<ProductoRO> r : partes) out.addAll(r);
+        return Collections.unmodifiableList(out);
+    }
+
+    // Termina los hilos de los lotes (los ya encolados se aplican)
+    @Override
+    public void close() {
+        for (ExecutorService e : hilosLote) e.shutdown();
+        try {
+            for (ExecutorService e : hilosLote) e.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
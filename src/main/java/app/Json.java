@@ -0,0 +1,282 @@
+package app;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/*
+ * JSON escrito a mano para el servidor HTTP (sin dependencias).
+ * - Salida: escribe UTF-8 directo en un byte[] que se reutiliza entre
+ *   respuestas del mismo hilo; los precios con 2 decimales se escriben sin
+ *   pasar por Double.toString.
+ * - Entrada: solo objetos planos {"clave": valor} con textos, números,
+ *   true/false y null (lo que usan los comandos). Error = IllegalArgumentException.
+ */
+final class Json {
+
+    private Json() {}
+
+    // ---------- Salida ----------
+
+    static final class Salida {
+        private byte[] b = new byte[512];
+        private int n;
+        private boolean coma; // hace falta ',' antes del próximo valor
+
+        Salida reiniciar() {
+            n = 0;
+            coma = false;
+            return this;
+        }
+
+        byte[] bytes() { return b; }
+        int largo()    { return n; }
+
+        private void byte_(int c) {
+            if (n == b.length) b = Arrays.copyOf(b, b.length * 2);
+            b[n++] = (byte) c;
+        }
+
+        private void separar() {
+            if (coma) byte_(',');
+            coma = true;
+        }
+
+        Salida abrirObjeto() { separar(); byte_('{'); coma = false; return this; }
+        Salida cerrarObjeto() { byte_('}'); coma = true; return this; }
+        Salida abrirLista()  { separar(); byte_('['); coma = false; return this; }
+        Salida cerrarLista() { byte_(']'); coma = true; return this; }
+
+        // Nombre de campo; el valor va a continuación
+        Salida campo(String nombre) {
+            separar();
+            cadena(nombre);
+            byte_(':');
+            coma = false;
+            return this;
+        }
+
+        Salida texto(String s) {
+            if (s == null) return nulo();
+            separar();
+            cadena(s);
+            return this;
+        }
+
+        Salida nulo() {
+            separar();
+            byte_('n'); byte_('u'); byte_('l'); byte_('l');
+            return this;
+        }
+
+        Salida logico(boolean v) {
+            separar();
+            for (char c : (v ? "true" : "false").toCharArray()) byte_(c);
+            return this;
+        }
+
+        Salida entero(long v) {
+            separar();
+            digitos(v);
+            return this;
+        }
+
+        // Precio: si tiene a lo sumo 2 decimales se escribe a mano
+        Salida decimal(double v) {
+            if (Double.isNaN(v) || Double.isInfinite(v)) return nulo();
+            separar();
+            long c = Math.round(v * 100);
+            if (Math.abs(v) < 1e15 && c / 100.0 == v) {
+                if (c < 0) { byte_('-'); c = -c; }
+                digitos(c / 100);
+                byte_('.');
+                long d = c % 100;
+                byte_('0' + (int) (d / 10));
+                byte_('0' + (int) (d % 10));
+                return this;
+            }
+            for (char ch : Double.toString(v).toCharArray()) byte_(ch);
+            return this;
+        }
+
+        private void digitos(long v) {
+            if (v == Long.MIN_VALUE) {
+                for (char ch : Long.toString(v).toCharArray()) byte_(ch);
+                return;
+            }
+            if (v < 0) { byte_('-'); v = -v; }
+            int ini = n;
+            do {
+                byte_('0' + (int) (v % 10));
+                v /= 10;
+            } while (v > 0);
+            for (int i = ini, j = n - 1; i < j; i++, j--) { // se escribió al revés
+                byte t = b[i]; b[i] = b[j]; b[j] = t;
+            }
+        }
+
+        // Texto entre comillas con escapes; codifica UTF-8 sin crear byte[]
+        private void cadena(String s) {
+            byte_('"');
+            for (int i = 0; i < s.length(); i++) {
+                char c = s.charAt(i);
+                if (c == '"' || c == '\\') { byte_('\\'); byte_(c); }
+                else if (c < 0x20) {
+                    switch (c) {
+                        case '\n' -> { byte_('\\'); byte_('n'); }
+                        case '\r' -> { byte_('\\'); byte_('r'); }
+                        case '\t' -> { byte_('\\'); byte_('t'); }
+                        default -> {
+                            byte_('\\'); byte_('u'); byte_('0'); byte_('0');
+                            byte_(Character.forDigit(c >> 4, 16)); byte_(Character.forDigit(c & 15, 16));
+                        }
+                    }
+                } else if (c < 0x80) {
+                    byte_(c);
+                } else if (c < 0x800) {
+                    byte_(0xC0 | c >> 6);
+                    byte_(0x80 | c & 0x3F);
+                } else if (Character.isHighSurrogate(c) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1))) {
+                    int cp = Character.toCodePoint(c, s.charAt(++i));
+                    byte_(0xF0 | cp >> 18);
+                    byte_(0x80 | cp >> 12 & 0x3F);
+                    byte_(0x80 | cp >> 6 & 0x3F);
+                    byte_(0x80 | cp & 0x3F);
+                } else {
+                    byte_(0xE0 | c >> 12);
+                    byte_(0x80 | c >> 6 & 0x3F);
+                    byte_(0x80 | c & 0x3F);
+                }
+            }
+            byte_('"');
+        }
+
+        // Producto como objeto JSON
+        Salida producto(ProductoRO p) {
+            abrirObjeto();
+            campo("codigo").texto(p.getCodigo());
+            campo("nombre").texto(p.getNombre());
+            campo("descripcion").texto(p.getDescripcion());
+            campo("precio").decimal(p.getPrecio());
+            campo("stock").entero(p.getStock());
+            return cerrarObjeto();
+        }
+
+        @Override
+        public String toString() {
+            return new String(b, 0, n, StandardCharsets.UTF_8);
+        }
+    }
+
+    // ---------- Entrada ----------
+
+    /*
+     * Lee un objeto plano. Los valores quedan como String, Double, Boolean o
+     * null (presente con valor null: containsKey distingue de ausente).
+     */
+    static Map<String, Object> leerObjeto(String s) {
+        Lector l = new Lector(s);
+        Map<String, Object> out = new HashMap<>();
+        l.espacios();
+        l.esperar('{');
+        l.espacios();
+        if (l.ver() == '}') {
+            l.i++;
+        } else {
+            while (true) {
+                l.espacios();
+                String k = l.cadena();
+                l.espacios();
+                l.esperar(':');
+                l.espacios();
+                out.put(k, l.valor());
+                l.espacios();
+                char c = l.siguiente();
+                if (c == '}') break;
+                if (c != ',') throw new IllegalArgumentException("JSON inválido en " + (l.i - 1));
+            }
+        }
+        l.espacios();
+        if (l.i != s.length()) throw new IllegalArgumentException("JSON inválido: sobra texto");
+        return out;
+    }
+
+    private static final class Lector {
+        final String s;
+        int i;
+
+        Lector(String s) {
+            this.s = s;
+        }
+
+        char ver() {
+            if (i >= s.length()) throw new IllegalArgumentException("JSON incompleto");
+            return s.charAt(i);
+        }
+
+        char siguiente() {
+            char c = ver();
+            i++;
+            return c;
+        }
+
+        void esperar(char c) {
+            if (siguiente() != c) throw new IllegalArgumentException("Se esperaba '" + c + "' en " + (i - 1));
+        }
+
+        void espacios() {
+            while (i < s.length() && Character.isWhitespace(s.charAt(i))) i++;
+        }
+
+        Object valor() {
+            char c = ver();
+            if (c == '"') return cadena();
+            if (s.startsWith("null", i)) { i += 4; return null; }
+            if (s.startsWith("true", i)) { i += 4; return Boolean.TRUE; }
+            if (s.startsWith("false", i)) { i += 5; return Boolean.FALSE; }
+            int ini = i;
+            while (i < s.length() && "+-.0123456789eE".indexOf(s.charAt(i)) >= 0) i++;
+            if (ini == i) throw new IllegalArgumentException("Valor JSON inválido en " + ini);
+            try {
+                return Double.parseDouble(s.substring(ini, i));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Número inválido en " + ini);
+            }
+        }
+
+        String cadena() {
+            esperar('"');
+            StringBuilder sb = null;
+            int ini = i;
+            while (true) {
+                char c = siguiente();
+                if (c == '"') return sb == null ? s.substring(ini, i - 1) : sb.toString();
+                if (c != '\\') {
+                    if (sb != null) sb.append(c);
+                    continue;
+                }
+                if (sb == null) sb = new StringBuilder(s.substring(ini, i - 1));
+                char e = siguiente();
+                switch (e) {
+                    case '"', '\\', '/' -> sb.append(e);
+                    case 'b' -> sb.append('\b');
+                    case 'f' -> sb.append('\f');
+                    case 'n' -> sb.append('\n');
+                    case 'r' -> sb.append('\r');
+                    case 't' -> sb.append('\t');
+                    case 'u' -> {
+                        if (i + 4 > s.length()) throw new IllegalArgumentException("Escape \\u incompleto");
+                        try {
+                            sb.append((char) Integer.parseInt(s.substring(i, i + 4), 16));
+                        } catch (NumberFormatException x) {
+                            throw new IllegalArgumentException("Escape \\u inválido");
+                        }
+                        i += 4;
+                    }
+                    default -> throw new IllegalArgumentException("Escape inválido: \\" + e);
+                }
+            }
+        }
+    }
+}
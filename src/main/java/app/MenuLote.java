@@ -0,0 +1,376 @@
+package app;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/*
+ * Modo LOTE del menú: ejecuta un guion de comandos sin interacción.
+ * - La entrada es la misma que se tipea en el menú (opción y luego cada
+ *   dato en su línea), así que un guion del menú sirve tal cual. Sin
+ *   indicaciones ("Código: ", el menú...): solo los resultados.
+ * - Diferencias: 'Listar todos' (4) muestra todas las páginas sin
+ *   preguntar, y un número inválido en 'Actualizar' (5) descarta ese
+ *   comando en vez de cortar el programa. Termina con 0 o al final de la
+ *   entrada.
+ * - Lectura sin Scanner: líneas cortadas a mano sobre un búfer de bytes
+ *   (las ASCII se convierten sin decodificar UTF-8).
+ * - En TUBERÍA: un hilo lee y arma las operaciones y las pasa en bloques
+ *   por una cola acotada; el hilo que llamó las ejecuta en orden y escribe
+ *   los resultados en un Writer con búfer grande.
+ */
+final class MenuLote {
+    // Páginas internas de 'Listar todos' (se muestran todas)
+    private static final int TAM_PAGINA = 1000;
+    // Resultados de 'Mejores coincidencias' (12), como una página del menú
+    private static final int MAX_RESULTADOS = 20;
+    private static final int TAM_BLOQUE = 1024;
+    private static final int BLOQUES_EN_COLA = 16;
+    private static final Operacion[] FIN = new Operacion[0];
+
+    // Un comando del guion, ya leído y validado
+    private sealed interface Operacion {}
+    private record Escritura(Comando comando) implements Operacion {}
+    private record Buscar(String texto, boolean ranqueada) implements Operacion {}
+    private record Listar() implements Operacion {}
+    private record Informe() implements Operacion {}
+    private record Ver(String codigo) implements Operacion {}
+    private record Reponer(int umbral) implements Operacion {}
+    private record VerMetricas(String accion) implements Operacion {}
+    private record Importar(String archivo) implements Operacion {}
+    private record Exportar(String archivo) implements Operacion {}
+    private record Mensaje(String texto) implements Operacion {}
+    private record Salir() implements Operacion {}
+
+    private final Inventario inventario;
+
+    MenuLote(Inventario inventario) {
+        this.inventario = inventario;
+    }
+
+    /*
+     * Ejecuta el guion de 'entrada' escribiendo en 'salida' (que se vacía al
+     * final, no se cierra). Devuelve la cantidad de comandos ejecutados.
+     */
+    long ejecutar(InputStream entrada, Writer salida) throws IOException {
+        BlockingQueue<Operacion[]> cola = new ArrayBlockingQueue<>(BLOQUES_EN_COLA);
+        Interprete interprete = new Interprete(new Lector(entrada), cola);
+        Thread hilo = new Thread(interprete, "menu-lote");
+        hilo.setDaemon(true);
+        hilo.start();
+        long comandos = 0;
+        try {
+            while (true) {
+                Operacion[] bloque = cola.take();
+                if (bloque == FIN) break;
+                for (Operacion op : bloque) {
+                    if (op instanceof Salir) {
+                        salida.write("Adiós.\n");
+                        return comandos;
+                    }
+                    if (!(op instanceof Mensaje)) comandos++;
+                    ejecutar(op, salida);
+                }
+            }
+            if (interprete.error != null) throw interprete.error;
+            return comandos;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return comandos;
+        } finally {
+            hilo.interrupt(); // si terminó antes (0), el lector deja de esperar lugar en la cola
+            salida.flush();
+        }
+    }
+
+    // Escribe el resultado de 'op', línea por línea
+    private void ejecutar(Operacion op, Writer out) throws IOException {
+        if (op instanceof Escritura e) {
+            linea(escribir(e.comando()), out);
+        } else if (op instanceof Buscar b) {
+            productos(b.ranqueada() ? inventario.buscarRanqueado(b.texto(), MAX_RESULTADOS)
+                    : inventario.buscarPorNombre(b.texto()), "Sin resultados.", out);
+        } else if (op instanceof Listar) {
+            listar(out);
+        } else if (op instanceof Informe) {
+            linea(inventario.generarInforme(), out);
+        } else if (op instanceof Ver v) {
+            Optional<ProductoRO> p = inventario.buscarPorCodigo(v.codigo());
+            linea(p.map(ProductoRO::descripcionDetallada).orElse("No existe."), out);
+        } else if (op instanceof Reponer r) {
+            productos(inventario.informeReposicion(r.umbral()), "Nada que reponer.", out);
+        } else if (op instanceof VerMetricas m) {
+            Metricas met = inventario.metricas();
+            linea(met.informe(), out);
+            switch (m.accion().toLowerCase(Locale.ROOT)) {
+                case "a" -> met.activar(true);
+                case "d" -> met.activar(false);
+                case "r" -> met.reiniciar();
+                default -> { }
+            }
+        } else if (op instanceof Importar i) {
+            Path archivo = MenuPrincipal.ruta(i.archivo());
+            linea(archivo == null ? "Ruta inválida: " + i.archivo() : MenuPrincipal.importar(inventario, archivo), out);
+        } else if (op instanceof Exportar x) {
+            Path archivo = MenuPrincipal.ruta(x.archivo());
+            linea(archivo == null ? "Ruta inválida: " + x.archivo() : MenuPrincipal.exportar(inventario, archivo), out);
+        } else if (op instanceof Mensaje m) {
+            linea(m.texto(), out);
+        }
+    }
+
+    // Todas las páginas seguidas, por código
+    private void listar(Writer out) throws IOException {
+        Pagina p = inventario.listar(null, TAM_PAGINA, Orden.CODIGO);
+        if (p.productos().isEmpty()) linea("Inventario vacío.", out);
+        while (true) {
+            for (ProductoRO x : p.productos()) linea(x.descripcionDetallada(), out);
+            if (p.siguiente() == null) return;
+            p = inventario.listar(p.siguiente(), TAM_PAGINA, Orden.CODIGO);
+        }
+    }
+
+    // Mismos textos que el menú interactivo
+    private String escribir(Comando c) {
+        if (c instanceof Comando.Agregar a) {
+            return inventario.agregarProducto(a.codigo(), a.nombre(), a.descripcion(), a.precio(), a.stock())
+                    ? "Agregado." : "No se pudo agregar, código duplicado o inválido.";
+        } else if (c instanceof Comando.Eliminar e) {
+            return inventario.eliminarPorCodigo(e.codigo()) ? "Eliminado." : "No existe.";
+        } else if (c instanceof Comando.Actualizar a) {
+            return inventario.actualizarProducto(a.codigo(), a.nombre(), a.descripcion(), a.precio(), a.stock())
+                    ? "Actualizado." : "No existe el código.";
+        }
+        throw new IllegalArgumentException("Comando no soportado: " + c);
+    }
+
+    private static void productos(List<ProductoRO> r, String vacio, Writer out) throws IOException {
+        if (r.isEmpty()) linea(vacio, out);
+        for (ProductoRO p : r) linea(p.descripcionDetallada(), out);
+    }
+
+    private static void linea(String s, Writer out) throws IOException {
+        out.write(s);
+        out.write('\n');
+    }
+
+    // ---------- Lectura ----------
+
+    /*
+     * Arma las operaciones del guion con las mismas reglas que el menú (un
+     * número inválido se avisa y se vuelve a pedir) y las manda por bloques.
+     */
+    private static final class Interprete implements Runnable {
+        private final Lector lector;
+        private final BlockingQueue<Operacion[]> cola;
+        private Operacion[] bloque = new Operacion[TAM_BLOQUE];
+        private int n;
+        volatile IOException error;
+
+        Interprete(Lector lector, BlockingQueue<Operacion[]> cola) {
+            this.lector = lector;
+            this.cola = cola;
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (true) {
+                    Operacion op = leer();
+                    if (op == null) break; // fin de la entrada
+                    emitir(op);
+                    if (op instanceof Salir) break;
+                }
+                if (n > 0) cola.put(Arrays.copyOf(bloque, n));
+                cola.put(FIN);
+            } catch (IOException e) {
+                error = e;
+                terminar();
+            } catch (InterruptedException e) {
+                // el ejecutor ya no lee: nada más que hacer
+            }
+        }
+
+        private void terminar() {
+            try {
+                cola.put(FIN);
+            } catch (InterruptedException ignored) {
+                // el ejecutor ya no lee
+            }
+        }
+
+        private void emitir(Operacion op) throws InterruptedException {
+            bloque[n++] = op;
+            if (n == TAM_BLOQUE) {
+                cola.put(bloque);
+                bloque = new Operacion[TAM_BLOQUE];
+                n = 0;
+            }
+        }
+
+        // Siguiente operación, o null si la entrada termina (aunque sea a mitad de un comando)
+        private Operacion leer() throws IOException, InterruptedException {
+            Integer op = entero();
+            if (op == null) return null;
+            switch (op) {
+                case 1 -> {
+                    String codigo = lector.linea(), nombre = lector.linea(), desc = lector.linea();
+                    if (desc == null) return null;
+                    Double precio = decimal();
+                    Integer stock = precio == null ? null : entero();
+                    return stock == null ? null : new Escritura(new Comando.Agregar(codigo, nombre, desc, precio, stock));
+                }
+                case 2 -> {
+                    String codigo = lector.linea();
+                    return codigo == null ? null : new Escritura(new Comando.Eliminar(codigo));
+                }
+                case 3, 12 -> {
+                    String texto = lector.linea();
+                    return texto == null ? null : new Buscar(texto, op == 12);
+                }
+                case 4 -> {
+                    return new Listar();
+                }
+                case 5 -> {
+                    return actualizar();
+                }
+                case 6 -> {
+                    return new Informe();
+                }
+                case 7 -> {
+                    String codigo = lector.linea();
+                    return codigo == null ? null : new Ver(codigo);
+                }
+                case 8 -> {
+                    Integer umbral = entero();
+                    return umbral == null ? null : new Reponer(umbral);
+                }
+                case 9 -> {
+                    String accion = lector.linea();
+                    return accion == null ? null : new VerMetricas(accion);
+                }
+                case 10 -> {
+                    String archivo = lector.linea();
+                    return archivo == null ? null : new Importar(archivo);
+                }
+                case 11 -> {
+                    String archivo = lector.linea();
+                    return archivo == null ? null : new Exportar(archivo);
+                }
+                case 0 -> {
+                    return new Salir();
+                }
+                default -> {
+                    return new Mensaje("Opción inválida.");
+                }
+            }
+        }
+
+        private Operacion actualizar() throws IOException {
+            String codigo = lector.linea(), nombre = lector.linea(), desc = lector.linea();
+            String sPrecio = lector.linea(), sStock = lector.linea();
+            if (sStock == null) return null;
+            try {
+                Double precio = sPrecio.isEmpty() ? null : Double.parseDouble(sPrecio);
+                Integer stock = sStock.isEmpty() ? null : Integer.parseInt(sStock);
+                return new Escritura(new Comando.Actualizar(codigo, nombre.isEmpty() ? null : nombre,
+                        desc.isEmpty() ? null : desc, precio, stock));
+            } catch (NumberFormatException e) {
+                return new Mensaje("Número inválido.");
+            }
+        }
+
+        // Como MenuPrincipal.leerEntero: reintenta con la línea siguiente
+        private Integer entero() throws IOException, InterruptedException {
+            for (String s = lector.linea(); s != null; s = lector.linea()) {
+                try {
+                    return Integer.parseInt(s);
+                } catch (NumberFormatException e) {
+                    emitir(new Mensaje("Número inválido, intenta de nuevo."));
+                }
+            }
+            return null;
+        }
+
+        private Double decimal() throws IOException, InterruptedException {
+            for (String s = lector.linea(); s != null; s = lector.linea()) {
+                try {
+                    return Double.parseDouble(s);
+                } catch (NumberFormatException e) {
+                    emitir(new Mensaje("Número inválido, intenta de nuevo."));
+                }
+            }
+            return null;
+        }
+    }
+
+    /*
+     * Líneas de un InputStream, sin espacios al borde (como el trim del
+     * menú). Corta sobre un búfer de bytes propio; '\r\n' también vale.
+     */
+    static final class Lector {
+        private final InputStream in;
+        private final byte[] buf = new byte[1 << 16];
+        private int pos, fin;
+        private byte[] linea = new byte[256];
+
+        Lector(InputStream in) {
+            this.in = in;
+        }
+
+        // Siguiente línea, o null al final de la entrada
+        String linea() throws IOException {
+            int n = 0;
+            boolean ascii = true, alguna = false;
+            while (true) {
+                if (pos == fin) {
+                    fin = in.read(buf, 0, buf.length);
+                    pos = 0;
+                    if (fin <= 0) {
+                        fin = 0;
+                        if (!alguna) return null;
+                        break;
+                    }
+                }
+                alguna = true;
+                int i = pos;
+                while (i < fin && buf[i] != '\n') i++;
+                int largo = i - pos;
+                if (n + largo > linea.length) linea = Arrays.copyOf(linea, Math.max(linea.length * 2, n + largo));
+                for (int k = pos; k < i; k++) {
+                    byte b = buf[k];
+                    ascii &= b >= 0;
+                    linea[n++] = b;
+                }
+                if (i < fin) {
+                    pos = i + 1;
+                    break;
+                }
+                pos = fin;
+            }
+            int desde = 0, hasta = n;
+            while (desde < hasta && (linea[desde] & 0xFF) <= ' ') desde++;
+            while (hasta > desde && (linea[hasta - 1] & 0xFF) <= ' ') hasta--;
+            // ASCII es un subconjunto de Latin-1: se copia sin decodificar
+            return new String(linea, desde, hasta - desde, ascii ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_8);
+        }
+    }
+
+    // Para la línea de comandos: el guion de un archivo o '-' (entrada estándar)
+    static long ejecutar(Inventario inventario, String guion, Writer salida) throws IOException {
+        MenuLote lote = new MenuLote(inventario);
+        if (guion.equals("-")) return lote.ejecutar(System.in, salida);
+        try (InputStream in = Files.newInputStream(Path.of(guion))) {
+            return lote.ejecutar(in, salida);
+        }
+    }
+}
@@ -1,8 +1,20 @@
 package app;
 
+import javax.management.JMException;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.nio.charset.Charset;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
 import java.util.Scanner;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 /*
  * Interfaz de usuario por CONSOLA.
@@ -12,12 +24,209 @@ import java.util.Scanner;
  *        muestra resultados en texto.
  */
 public class MenuPrincipal {
-    private final Inventario inventario = new Inventario();
+    // Productos por página en 'Listar todos'
+    private static final int TAM_PAGINA = 20;
+    // En modo servidor, el cierre (Ctrl+C) espera a que main guarde y cierre todo
+    private static final CountDownLatch TERMINADO = new CountDownLatch(1);
+    // Argumentos que llevan un valor a continuación
+    private static final List<String> CON_VALOR = List.of("--datos", "--importar", "--exportar", "--servidor", "--lote");
+
+    private final Inventario inventario;
     private final Scanner sc = new Scanner(System.in);
 
-    // Punto de entrada de la app
+    public MenuPrincipal() {
+        this(new Inventario());
+    }
+
+    MenuPrincipal(Inventario inventario) {
+        this.inventario = inventario;
+    }
+
+    /*
+     * Punto de entrada de la app
+     * Con '--datos <directorio>' el inventario se guarda en disco y se
+     * recupera al volver a iniciar; sin él, vive solo en memoria.
+     * Con '--importar <archivo>' y/o '--exportar <archivo>' (CSV o TSV según
+     * la extensión) hace eso y termina, sin mostrar el menú.
+     * Con '--servidor <puerto>' atiende por HTTP/JSON (ver ServidorHttp) en
+     * lugar del menú, hasta que se detenga el proceso.
+     * Con '--lote <archivo>' ('-' = entrada estándar) ejecuta un guion con
+     * las mismas entradas que el menú, sin mostrarlo (ver MenuLote).
+     * Con '--calentar', antes de atender recorre los caminos calientes sobre
+     * un inventario descartable (ver Calentamiento); '--entrenar' solo hace
+     * eso y termina (la corrida de entrenamiento del archivo AppCDS).
+     * Las métricas del inventario quedan publicadas por JMX como
+     * "app:type=Inventario,name=principal".
+     */
     public static void main(String[] args) {
-        new MenuPrincipal().run();
+        Path datos = null, importar = null, exportar = null;
+        Integer puerto = null;
+        String lote = null;
+        boolean calentar = List.of(args).contains("--calentar"), entrenar = List.of(args).contains("--entrenar");
+        for (int i = 0; i < args.length; i++) {
+            String opcion = args[i];
+            if (!CON_VALOR.contains(opcion)) continue;
+            if (i + 1 == args.length) {
+                System.out.println("Falta el valor de " + opcion + ".");
+                return;
+            }
+            String valor = args[++i];
+            if (!opcion.equals("--servidor") && ruta(valor) == null) {
+                System.out.println("Ruta inválida: " + valor);
+                return;
+            }
+            switch (opcion) {
+                case "--datos" -> datos = Path.of(valor);
+                case "--importar" -> importar = Path.of(valor);
+                case "--exportar" -> exportar = Path.of(valor);
+                case "--servidor" -> {
+                    puerto = puerto(valor);
+                    if (puerto == null) {
+                        System.out.println("Puerto inválido: " + valor + " (debe ser un número entre 0 y 65535).");
+                        return;
+                    }
+                }
+                default -> lote = valor;
+            }
+        }
+        Inventario inv = new Inventario();
+        try {
+            inv.metricas().registrarJmx("principal");
+        } catch (JMException e) {
+            System.out.println("Métricas JMX no disponibles: " + e.getMessage());
+        }
+        try {
+            if (entrenar) {
+                System.out.println("Entrenamiento: " + calentar() + " ms");
+                return;
+            }
+            if (datos == null) {
+                iniciar(inv, importar, exportar, puerto, lote, calentar);
+                return;
+            }
+            Persistencia p;
+            try {
+                p = Persistencia.abrir(datos, inv);
+            } catch (IOException e) {
+                System.out.println("No se pudo usar el directorio de datos: " + e.getMessage());
+                return;
+            }
+            try (p) { // close() escribe y fuerza lo pendiente del diario
+                iniciar(inv, importar, exportar, puerto, lote, calentar);
+            } catch (IOException e) {
+                System.out.println("No se pudo cerrar el directorio de datos: " + e.getMessage());
+            }
+        } finally {
+            try {
+                inv.metricas().desregistrarJmx("principal"); // otra ejecución en la misma JVM vuelve a registrar
+            } catch (JMException e) {
+                System.out.println("Métricas JMX no disponibles: " + e.getMessage());
+            }
+            TERMINADO.countDown();
+        }
+    }
+
+    // Ruta del sistema de archivos, o null si no es válida
+    static Path ruta(String texto) {
+        try {
+            return Path.of(texto);
+        } catch (InvalidPathException e) {
+            return null;
+        }
+    }
+
+    // Puerto TCP válido, o null
+    private static Integer puerto(String texto) {
+        try {
+            int n = Integer.parseInt(texto.trim());
+            return n >= 0 && n <= 65_535 ? n : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    // Menú interactivo, servidor HTTP, guion, o solo importar/exportar si se pidió por argumentos
+    private static void iniciar(Inventario inv, Path importar, Path exportar, Integer puerto, String lote,
+                                boolean calentar) {
+        if (importar != null) importarArchivo(inv, importar);
+        if (exportar != null) exportarArchivo(inv, exportar);
+        if (calentar) calentar(); // ya con los datos cargados, justo antes de atender
+        if (puerto != null) servir(inv, puerto);
+        else if (lote != null) ejecutarLote(inv, lote);
+        else if (importar == null && exportar == null) new MenuPrincipal(inv).run();
+    }
+
+    // Milisegundos que tardó el calentamiento
+    private static long calentar() {
+        try {
+            return Calentamiento.correr();
+        } catch (IOException e) {
+            System.out.println("Calentamiento incompleto: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    // Guion sin menú; la salida va con un búfer grande (se vacía al terminar)
+    private static void ejecutarLote(Inventario inv, String guion) {
+        Writer salida = new BufferedWriter(new OutputStreamWriter(System.out, Charset.defaultCharset()), 1 << 16);
+        try {
+            MenuLote.ejecutar(inv, guion, salida);
+        } catch (IOException e) {
+            System.out.println("No se pudo leer el guion: " + e.getMessage());
+        }
+    }
+
+    // Atiende por HTTP hasta que llegue la señal de cierre
+    private static void servir(Inventario inv, int puerto) {
+        CountDownLatch parar = new CountDownLatch(1);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            parar.countDown();
+            try {
+                TERMINADO.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException ignored) {
+                // se cierra igual
+            }
+        }));
+        try (ServidorHttp s = ServidorHttp.iniciar(inv, new InetSocketAddress(puerto))) {
+            System.out.println("Servidor HTTP en el puerto " + s.puerto() + " (Ctrl+C para terminar).");
+            parar.await();
+        } catch (IOException e) {
+            System.out.println("No se pudo iniciar el servidor: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void importarArchivo(Inventario inv, Path archivo) {
+        System.out.println(importar(inv, archivo));
+    }
+
+    private static void exportarArchivo(Inventario inv, Path archivo) {
+        System.out.println(exportar(inv, archivo));
+    }
+
+    // Importa y devuelve el resumen a mostrar (también lo usa MenuLote)
+    static String importar(Inventario inv, Path archivo) {
+        try {
+            CsvInventario.Resultado r = CsvInventario.importar(archivo, inv);
+            StringBuilder sb = new StringBuilder("Agregados: ").append(r.agregadas())
+                    .append(" | Rechazados: ").append(r.rechazadas());
+            for (CsvInventario.Rechazo x : r.rechazos()) sb.append("\nLínea ").append(x.linea()).append(": ").append(x.motivo());
+            if (r.rechazadas() > r.rechazos().size()) {
+                sb.append("\n... y ").append(r.rechazadas() - r.rechazos().size()).append(" más.");
+            }
+            return sb.toString();
+        } catch (IOException e) {
+            return "No se pudo importar: " + e.getMessage();
+        }
+    }
+
+    static String exportar(Inventario inv, Path archivo) {
+        try {
+            return "Exportados: " + CsvInventario.exportar(inv, archivo);
+        } catch (IOException e) {
+            return "No se pudo exportar: " + e.getMessage();
+        }
     }
 
     // Bucle principal del menú
@@ -32,6 +241,11 @@ public class MenuPrincipal {
             System.out.println("5) Actualizar producto");
             System.out.println("6) Generar informe");
             System.out.println("7) Ver producto por código");
+            System.out.println("8) Productos por reponer");
+            System.out.println("9) Métricas");
+            System.out.println("10) Importar CSV/TSV");
+            System.out.println("11) Exportar CSV/TSV");
+            System.out.println("12) Mejores coincidencias (tolera errores de tipeo)");
             System.out.println("0) Salir");
             System.out.print("Opción: ");
             op = leerEntero();
@@ -44,6 +258,11 @@ public class MenuPrincipal {
                 case 5 -> actualizar();
                 case 6 -> informe();
                 case 7 -> verPorCodigo();
+                case 8 -> reposicion();
+                case 9 -> metricas();
+                case 10 -> importarArchivo(inventario, leerRuta("Archivo a importar: "));
+                case 11 -> exportarArchivo(inventario, leerRuta("Archivo de destino: "));
+                case 12 -> buscarRanqueado();
                 case 0 -> System.out.println("Adiós.");
                 default -> System.out.println("Opción inválida.");
             }
@@ -69,7 +288,7 @@ public class MenuPrincipal {
         System.out.println(inventario.eliminarPorCodigo(codigo) ? "Eliminado." : "No existe.");
     }
 
-    // Busca por nombre o descripción
+    // Busca por nombre o descripción (también en medio de una palabra): todos los resultados
     private void buscarTexto() {
         String texto = leerLinea("Texto a buscar: ");
         List<ProductoRO> r = inventario.buscarPorNombre(texto);
@@ -77,11 +296,27 @@ public class MenuPrincipal {
         else r.forEach(p -> System.out.println(p.descripcionDetallada()));
     }
 
-    // Listar todos
+    // Busca por palabras, sin acentos y con errores de tipeo: las mejores coincidencias primero (una página)
+    private void buscarRanqueado() {
+        String texto = leerLinea("Texto a buscar: ");
+        List<ProductoRO> r = inventario.buscarRanqueado(texto, TAM_PAGINA);
+        if (r.isEmpty()) System.out.println("Sin resultados.");
+        else r.forEach(p -> System.out.println(p.descripcionDetallada()));
+    }
+
+    // Listar todos, por código y de a una página
     private void listar() {
-        List<ProductoRO> todos = inventario.listarTodos();
-        if (todos.isEmpty()) System.out.println("Inventario vacío.");
-        else todos.forEach(p -> System.out.println(p.descripcionDetallada()));
+        Pagina pagina = inventario.listar(null, TAM_PAGINA, Orden.CODIGO);
+        if (pagina.productos().isEmpty()) {
+            System.out.println("Inventario vacío.");
+            return;
+        }
+        while (true) {
+            pagina.productos().forEach(p -> System.out.println(p.descripcionDetallada()));
+            if (pagina.siguiente() == null) return;
+            if (leerLinea("Enter para ver más, 'q' para volver: ").equalsIgnoreCase("q")) return;
+            pagina = inventario.listar(pagina.siguiente(), TAM_PAGINA, Orden.CODIGO);
+        }
     }
 
     // Actualiza campos
@@ -116,6 +351,26 @@ public class MenuPrincipal {
         System.out.println(p.map(ProductoRO::descripcionDetallada).orElse("No existe."));
     }
 
+    // Productos con stock bajo el umbral
+    private void reposicion() {
+        int umbral = leerEntero("Stock mínimo: ");
+        List<ProductoRO> r = inventario.informeReposicion(umbral);
+        if (r.isEmpty()) System.out.println("Nada que reponer.");
+        else r.forEach(p -> System.out.println(p.descripcionDetallada()));
+    }
+
+    // Muestra las métricas y permite encenderlas, apagarlas o reiniciarlas
+    private void metricas() {
+        Metricas m = inventario.metricas();
+        System.out.println(m.informe());
+        switch (leerLinea("a) Activar  d) Desactivar  r) Reiniciar  Enter) Volver: ").toLowerCase(Locale.ROOT)) {
+            case "a" -> m.activar(true);
+            case "d" -> m.activar(false);
+            case "r" -> m.reiniciar();
+            default -> { }
+        }
+    }
+
     // ---------- Entradas seguras ----------
 
     private String leerLinea(String prompt) {
@@ -123,6 +378,16 @@ public class MenuPrincipal {
         return sc.nextLine().trim();
     }
 
+    private Path leerRuta(String prompt) {
+        while (true) {
+            try {
+                return Path.of(leerLinea(prompt));
+            } catch (InvalidPathException e) {
+                System.out.println("Ruta inválida, intenta de nuevo.");
+            }
+        }
+    }
+
     private int leerEntero() {
         return leerEntero(null);
     }
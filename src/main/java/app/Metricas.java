@@ -0,0 +1,158 @@
+package app;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Métricas por operación de un Inventario: llamadas, éxitos y latencias.
+ * - Se encienden y apagan en caliente (activar). Apagadas solo cuestan la
+ *   lectura de un volatile por operación; no se llama a System.nanoTime.
+ * - Encendidas no asignan memoria: LongAdder para los conteos y un
+ *   Histograma de cubetas fijas para las latencias.
+ * - Se consultan con informe(), por JMX (registrarJmx) o desde el menú.
+ *
+ * "Éxito" depende de la operación: agregado, encontrado, actualizado...
+ */
+public final class Metricas implements MetricasMBean {
+
+    // Operaciones medidas (una o varias llamadas públicas de Inventario cada una)
+    public enum Operacion {
+        AGREGAR, ELIMINAR, ACTUALIZAR, ACTUALIZAR_PRECIO, ACTUALIZAR_STOCK, MOVER_STOCK,
+        LOTE, BUSCAR_CODIGO, BUSCAR_NOMBRE, LISTAR, RANGO, INFORME
+    }
+
+    private static final Operacion[] OPERACIONES = Operacion.values();
+    // Dueño de cada nombre registrado por registrarJmx (con el lock de la clase)
+    private static final Map<ObjectName, Metricas> REGISTRADAS = new HashMap<>();
+
+    private final LongAdder[] llamadas = new LongAdder[OPERACIONES.length];
+    private final LongAdder[] exitos = new LongAdder[OPERACIONES.length];
+    private final Histograma[] latencias = new Histograma[OPERACIONES.length];
+    private volatile boolean activas;
+
+    Metricas() {
+        for (int i = 0; i < OPERACIONES.length; i++) {
+            llamadas[i] = new LongAdder();
+            exitos[i] = new LongAdder();
+            latencias[i] = new Histograma();
+        }
+    }
+
+    // ---------- Uso desde Inventario ----------
+
+    // Marca de inicio; 0 si están apagadas (y entonces 'fin' no registra nada)
+    long inicio() {
+        return activas ? System.nanoTime() | 1 : 0;
+    }
+
+    // Registra una llamada iniciada con 'inicio'; devuelve 'exito' para encadenar
+    boolean fin(Operacion op, long inicio, boolean exito) {
+        if (inicio != 0) {
+            long nanos = System.nanoTime() - inicio;
+            int i = op.ordinal();
+            llamadas[i].increment();
+            if (exito) exitos[i].increment();
+            latencias[i].registrar(nanos);
+        }
+        return exito;
+    }
+
+    // ---------- Consulta ----------
+
+    public void activar(boolean activas) {
+        this.activas = activas;
+    }
+
+    @Override public boolean isActivas()             { return activas; }
+    @Override public void setActivas(boolean activas) { activar(activas); }
+
+    public long conteo(Operacion op) {
+        return llamadas[op.ordinal()].sum();
+    }
+
+    public double tasaExito(Operacion op) {
+        long n = conteo(op);
+        return n == 0 ? 0 : (double) exitos[op.ordinal()].sum() / n;
+    }
+
+    // Latencia en nanosegundos bajo la cual cae la fracción 'q' de las llamadas
+    public long percentilNanos(Operacion op, double q) {
+        return latencias[op.ordinal()].percentil(q);
+    }
+
+    @Override
+    public void reiniciar() {
+        for (int i = 0; i < OPERACIONES.length; i++) {
+            llamadas[i].reset();
+            exitos[i].reset();
+            latencias[i].reiniciar();
+        }
+    }
+
+    // Una línea por operación con llamadas; las que no se usaron se omiten
+    public String informe() {
+        StringBuilder sb = new StringBuilder("Métricas ").append(activas ? "(activas)" : "(apagadas)");
+        for (Operacion op : OPERACIONES) {
+            long n = conteo(op);
+            if (n == 0) continue;
+            sb.append(String.format(Locale.ROOT, "%n%-17s n=%d éxito=%.1f%% p50=%.1fus p99=%.1fus p99.9=%.1fus max=%.1fus",
+                    op, n, 100 * tasaExito(op), micros(op, 0.5), micros(op, 0.99), micros(op, 0.999), micros(op, 1)));
+        }
+        return sb.toString();
+    }
+
+    private double micros(Operacion op, double q) {
+        return percentilNanos(op, q) / 1000.0;
+    }
+
+    // ---------- JMX ----------
+
+    /*
+     * Publica estas métricas en el MBeanServer de la JVM como
+     * "app:type=Inventario,name=<nombre>" (visible en jconsole/VisualVM).
+     * Si ya había otras con ese nombre, las reemplaza. El lock de la clase
+     * evita que dos registros del mismo nombre se crucen.
+     */
+    public void registrarJmx(String nombre) throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName on = nombreJmx(nombre);
+        synchronized (Metricas.class) {
+            if (server.isRegistered(on)) server.unregisterMBean(on);
+            server.registerMBean(new StandardMBean(this, MetricasMBean.class), on);
+            REGISTRADAS.put(on, this);
+        }
+    }
+
+    // Quita el registro de 'nombre' si sigue siendo el de estas métricas
+    public void desregistrarJmx(String nombre) throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName on = nombreJmx(nombre);
+        synchronized (Metricas.class) {
+            if (!REGISTRADAS.remove(on, this)) return;
+            if (server.isRegistered(on)) server.unregisterMBean(on);
+        }
+    }
+
+    private static ObjectName nombreJmx(String nombre) throws JMException {
+        return new ObjectName("app:type=Inventario,name=" + ObjectName.quote(nombre));
+    }
+
+    @Override
+    public String[] getOperaciones() {
+        String[] out = new String[OPERACIONES.length];
+        for (int i = 0; i < out.length; i++) out[i] = OPERACIONES[i].name();
+        return out;
+    }
+
+    @Override public String getInforme()                             { return informe(); }
+    @Override public long conteo(String operacion)                   { return conteo(Operacion.valueOf(operacion)); }
+    @Override public double tasaExito(String operacion)              { return tasaExito(Operacion.valueOf(operacion)); }
+    @Override public double percentilMicros(String operacion, double q) { return micros(Operacion.valueOf(operacion), q); }
+}
@@ -0,0 +1,27 @@
+package app;
+
+/*
+ * Vista JMX de las métricas de un Inventario (ver Metricas.registrarJmx).
+ * Los nombres de operación son los de Metricas.Operacion (p. ej. "BUSCAR_CODIGO").
+ */
+public interface MetricasMBean {
+
+    boolean isActivas();
+
+    void setActivas(boolean activas);
+
+    String[] getOperaciones();
+
+    // Informe de texto con todas las operaciones
+    String getInforme();
+
+    long conteo(String operacion);
+
+    // Fracción de llamadas con éxito (encontrado, agregado, ...), 0..1
+    double tasaExito(String operacion);
+
+    // Latencia en microsegundos bajo la cual cae la fracción 'q' (0..1)
+    double percentilMicros(String operacion, double q);
+
+    void reiniciar();
+}
@@ -0,0 +1,11 @@
+package app;
+
+/*
+ * Criterio de orden para los listados de Inventario (listar, stream).
+ * - CODIGO: orden natural del código.
+ * - NOMBRE: sin distinguir mayúsculas; empate por código.
+ * - PRECIO y STOCK: de menor a mayor; empate por código.
+ */
+public enum Orden {
+    CODIGO, NOMBRE, PRECIO, STOCK
+}
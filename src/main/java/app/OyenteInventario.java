@@ -0,0 +1,24 @@
+package app;
+
+/*
+ * Recibe los cambios de un Inventario a medida que ocurren.
+ * - Se registra con Inventario.registrar (solo dentro del paquete 'app').
+ * - alta/baja/texto se llaman con el lock del producto tomado: llegan en
+ *   orden para ESE producto. 'cambio' (precio/stock/reservado) puede llegar
+ *   desordenado entre hilos: usar Estado.version para ordenar.
+ * - Deben ser rápidos: corren en el hilo que hizo el cambio.
+ */
+interface OyenteInventario {
+
+    // Un producto entró al inventario con el estado 'e'
+    void alta(Producto p, Producto.Estado e);
+
+    // Un producto salió del inventario; 'e' es su último estado
+    void baja(Producto p, Producto.Estado e);
+
+    // Cambió el nombre y/o la descripción (ver Producto.versionTexto); 'antes' tiene el texto anterior
+    void texto(Producto p, Producto.Estado antes);
+
+    // Cambió precio, stock o reservado
+    void cambio(Producto p, Producto.Estado antes, Producto.Estado despues);
+}
@@ -0,0 +1,12 @@
+package app;
+
+import java.util.List;
+
+/*
+ * Una página de un listado ordenado (ver Inventario.listar).
+ * - 'productos': a lo sumo 'limite' productos, en orden.
+ * - 'siguiente': cursor para pedir la página siguiente, o null si no hay más.
+ *   Es un texto opaco: solo sirve para volver a llamar a listar con el mismo
+ *   orden.
+ */
+public record Pagina(List<ProductoRO> productos, String siguiente) {}
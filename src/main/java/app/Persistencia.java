@@ -0,0 +1,383 @@
+package app;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.CRC32C;
+
+/*
+ * Persistencia DURABLE de un Inventario en un directorio.
+ * - Cada cambio (alta, baja, texto, precio/stock/reservado) se anota en un
+ *   diario binario (Diario: group commit + fsync por tandas).
+ * - Cada cierto volumen de diario se escribe un snapshot completo (formato
+ *   SnapshotColumnar) y se borran los segmentos que ya no hacen falta.
+ * - Al abrir, se mapea el último snapshot (sin cargarlo: los productos se
+ *   materializan al tocarlos) y se reaplica la cola del diario.
+ *
+ * Los registros guardan el ESTADO resultante (no el comando) junto con idAlta
+ * y versiones, así reaplicarlos es idempotente: un snapshot puede tomarse sin
+ * detener a los escritores y el orden entre hilos no importa. El estado
+ * incluye el reparto por depósito (al final del registro: los diarios
+ * anteriores, sin él, se leen como todo en PRINCIPAL).
+ *
+ * Archivos: 'wal-<n>.log' y 'snapshot-<n>.bin' (el snapshot n se completa
+ * reaplicando los segmentos >= n).
+ */
+public final class Persistencia implements Closeable {
+    private static final long UMBRAL_SNAPSHOT = 64L << 20; // 64 MB de diario
+
+    static final byte ALTA = 1;
+    static final byte BAJA = 2;
+    static final byte ESTADO = 3;
+    static final byte TEXTO = 4;
+
+    private final Path dir;
+    private final Inventario inventario;
+    private final boolean esperarDisco;
+    private final long umbralSnapshot;
+    private final Diario diario;
+    private final Object snapshotLock = new Object();
+    private final AtomicBoolean snapshotPendiente = new AtomicBoolean();
+    private final ExecutorService fondo = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "persistencia-snapshot");
+        t.setDaemon(true);
+        return t;
+    });
+    private final Anotador anotador = new Anotador();
+    private volatile long lsnUltimaRotacion;
+    private boolean cerrada; // snapshotLock
+
+    // Buffer de codificación por hilo (sin asignar en cada cambio)
+    private static final ThreadLocal<ByteBuffer> BUFFER = ThreadLocal.withInitial(() -> ByteBuffer.allocate(256));
+
+    private Persistencia(Path dir, Inventario inventario, boolean esperarDisco, long umbralSnapshot,
+                         long segmento) throws IOException {
+        this.dir = dir;
+        this.inventario = inventario;
+        this.esperarDisco = esperarDisco;
+        this.umbralSnapshot = umbralSnapshot;
+        this.diario = new Diario(dir, segmento, 1 << 20);
+    }
+
+    /*
+     * Abre (o crea) el directorio, recupera su contenido en 'inventario' (que
+     * debe estar vacío) y desde ahí anota cada cambio. Sin esperar al disco en
+     * cada comando: el fsync llega por tandas en milisegundos.
+     */
+    public static Persistencia abrir(Path dir, Inventario inventario) throws IOException {
+        return abrir(dir, inventario, false, UMBRAL_SNAPSHOT);
+    }
+
+    /*
+     * esperarDisco: cada comando vuelve solo cuando su registro está en disco.
+     * umbralSnapshot: bytes de diario que disparan un snapshot en segundo plano.
+     */
+    public static Persistencia abrir(Path dir, Inventario inventario, boolean esperarDisco,
+                                     long umbralSnapshot) throws IOException {
+        Files.createDirectories(dir);
+        long siguiente = recuperar(dir, inventario) + 1;
+        Persistencia p = new Persistencia(dir, inventario, esperarDisco, umbralSnapshot, siguiente);
+        inventario.registrar(p.anotador);
+        return p;
+    }
+
+    // Espera a que todo lo anotado hasta ahora esté en disco
+    public void sincronizar() {
+        diario.esperar(diario.ultimoLsn());
+    }
+
+    /*
+     * Escribe un snapshot completo sin detener a los escritores.
+     * Luego borra los segmentos y snapshots anteriores.
+     */
+    public void snapshot() throws IOException {
+        synchronized (snapshotLock) {
+            if (cerrada) return;
+            long desde = diario.rotar(); // lo anotado desde aquí va al segmento 'desde'
+            lsnUltimaRotacion = diario.ultimoLsn();
+            Path tmp = dir.resolve("snapshot.tmp");
+            inventario.escribirSnapshot(tmp, desde);
+            Files.move(tmp, archivoSnapshot(dir, desde), StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+            borrarAnteriores(desde);
+        }
+    }
+
+    // Deja de anotar (el inventario sigue en memoria) y cierra el diario
+    @Override
+    public void close() throws IOException {
+        inventario.desregistrar(anotador);
+        fondo.shutdown();
+        synchronized (snapshotLock) {
+            if (cerrada) return;
+            cerrada = true;
+            diario.close();
+        }
+    }
+
+    // ---------- Anotación de cambios ----------
+
+    private final class Anotador implements OyenteInventario {
+        @Override public void alta(Producto p, Producto.Estado e) {
+            anotar(codificarAlta(p, e));
+        }
+        @Override public void baja(Producto p, Producto.Estado e) {
+            ByteBuffer b = codigo(BAJA, p, 8).putLong(e.idAlta);
+            anotar(b.flip());
+        }
+        @Override public void texto(Producto p, Producto.Estado antes) {
+            anotar(codificarTexto(p));
+        }
+        @Override public void cambio(Producto p, Producto.Estado antes, Producto.Estado despues) {
+            ByteBuffer b = codigo(ESTADO, p, 32 + Depositos.largoCodificado(despues.depositos))
+                    .putLong(despues.idAlta).putLong(despues.version)
+                    .putDouble(despues.precio).putInt(despues.stock).putInt(despues.reservado);
+            anotar(Depositos.codificar(b, despues.depositos).flip());
+        }
+    }
+
+    private void anotar(ByteBuffer b) {
+        long lsn = diario.anotar(b);
+        if (esperarDisco) diario.esperar(lsn);
+        if (lsn - lsnUltimaRotacion > umbralSnapshot && snapshotPendiente.compareAndSet(false, true)) {
+            try {
+                fondo.execute(() -> {
+                    try {
+                        snapshot();
+                    } catch (IOException e) {
+                        System.err.println("Snapshot fallido: " + e.getMessage());
+                    } finally {
+                        snapshotPendiente.set(false);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                snapshotPendiente.set(false); // cerrando: el próximo arranque reaplica el diario
+            }
+        }
+    }
+
+    // ---------- Codificación ----------
+
+    private static ByteBuffer buffer(int minimo) {
+        ByteBuffer b = BUFFER.get();
+        if (b.capacity() < minimo) {
+            b = ByteBuffer.allocate(Math.max(minimo, b.capacity() * 2));
+            BUFFER.set(b);
+        }
+        return b.clear();
+    }
+
+    // Tipo + código; 'extra' = bytes que vienen después
+    private static ByteBuffer codigo(byte tipo, Producto p, int extra) {
+        byte[] cod = p.getCodigo().getBytes(StandardCharsets.UTF_8);
+        return buffer(5 + cod.length + extra).put(tipo).putInt(cod.length).put(cod);
+    }
+
+    // Alta completa con su estado inicial
+    private static ByteBuffer codificarAlta(Producto p, Producto.Estado e) {
+        byte[] n = texto(p.getNombre());
+        byte[] d = texto(p.getDescripcion());
+        ByteBuffer b = codigo(ALTA, p, 48 + largo(n) + largo(d) + Depositos.largoCodificado(e.depositos))
+                .putLong(e.idAlta).putLong(e.version).putLong(p.versionTexto())
+                .putDouble(e.precio).putInt(e.stock).putInt(e.reservado);
+        return Depositos.codificar(ponerTexto(ponerTexto(b, n), d), e.depositos).flip();
+    }
+
+    private static ByteBuffer codificarTexto(Producto p) {
+        byte[] n = texto(p.getNombre());
+        byte[] d = texto(p.getDescripcion());
+        ByteBuffer b = codigo(TEXTO, p, 16 + largo(n) + largo(d))
+                .putLong(p.estado().idAlta).putLong(p.versionTexto());
+        return ponerTexto(ponerTexto(b, n), d).flip();
+    }
+
+    private static byte[] texto(String s) {
+        return s == null ? null : s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int largo(byte[] t) {
+        return 4 + (t == null ? 0 : t.length);
+    }
+
+    private static ByteBuffer ponerTexto(ByteBuffer b, byte[] t) {
+        if (t == null) return b.putInt(-1);
+        return b.putInt(t.length).put(t);
+    }
+
+    private static String leerTexto(ByteBuffer b) {
+        int n = b.getInt();
+        if (n < 0) return null;
+        String s = new String(b.array(), b.arrayOffset() + b.position(), n, StandardCharsets.UTF_8);
+        b.position(b.position() + n);
+        return s;
+    }
+
+    /*
+     * Lee el siguiente registro o null si el archivo terminó o el registro
+     * está cortado/corrupto (cola de un diario que no alcanzó a escribirse).
+     */
+    private static ByteBuffer leerRegistro(DataInputStream in) throws IOException {
+        int largo;
+        int crcLeido;
+        try {
+            largo = in.readInt();
+            crcLeido = in.readInt();
+        } catch (EOFException e) {
+            return null;
+        }
+        if (largo <= 0 || largo > (64 << 20)) return null;
+        byte[] datos = new byte[largo];
+        try {
+            in.readFully(datos);
+        } catch (EOFException e) {
+            return null;
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(datos);
+        if ((int) crc.getValue() != crcLeido) return null;
+        return ByteBuffer.wrap(datos);
+    }
+
+    // ---------- Recuperación ----------
+
+    // Estado de un producto cuya alta aún no apareció al reaplicar
+    private static final class Pendiente {
+        final double precio;
+        final int stock;
+        final int reservado;
+        final long version;
+        final int[] depositos;
+
+        Pendiente(double precio, int stock, int reservado, long version, int[] depositos) {
+            this.precio = precio;
+            this.stock = stock;
+            this.reservado = reservado;
+            this.version = version;
+            this.depositos = depositos;
+        }
+    }
+
+    /*
+     * Carga el último snapshot y reaplica los segmentos posteriores.
+     * Devuelve el número de segmento más alto visto (0 si no hay nada).
+     */
+    private static long recuperar(Path dir, Inventario inv) throws IOException {
+        TreeMap<Long, Path> snapshots = listar(dir, "snapshot-", ".bin");
+        TreeMap<Long, Path> segmentos = listar(dir, "wal-", ".log");
+        long desde = 0;
+        Map<Long, Pendiente> pendientes = new HashMap<>();
+        if (!snapshots.isEmpty()) {
+            Map.Entry<Long, Path> ultimo = snapshots.lastEntry();
+            SnapshotColumnar base = SnapshotColumnar.abrir(ultimo.getValue());
+            if (base.segmento() != ultimo.getKey()) throw new IOException("Snapshot dañado: " + ultimo.getValue());
+            desde = ultimo.getKey();
+            inv.cargarBase(base);
+        }
+        for (Map.Entry<Long, Path> seg : segmentos.tailMap(desde, true).entrySet()) {
+            reaplicarSegmento(seg.getValue(), inv, pendientes);
+        }
+        long max = desde;
+        if (!segmentos.isEmpty()) max = Math.max(max, segmentos.lastKey());
+        return max;
+    }
+
+    // Reaplica un segmento; si la cola está cortada, la descarta del archivo
+    private static void reaplicarSegmento(Path archivo, Inventario inv, Map<Long, Pendiente> pendientes)
+            throws IOException {
+        long valido = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                Files.newInputStream(archivo), 1 << 16))) {
+            ByteBuffer b;
+            while ((b = leerRegistro(in)) != null) {
+                aplicar(b, inv, pendientes);
+                valido += Diario.CABECERA + b.limit();
+            }
+        }
+        if (valido < Files.size(archivo)) {
+            try (FileChannel c = FileChannel.open(archivo, StandardOpenOption.WRITE)) {
+                c.truncate(valido);
+            }
+        }
+    }
+
+    private static void aplicar(ByteBuffer b, Inventario inv, Map<Long, Pendiente> pendientes) {
+        byte tipo = b.get();
+        String cod = Inventario.norm(leerTexto(b));
+        if (cod == null) return;
+        switch (tipo) {
+            case ALTA -> {
+                long id = b.getLong();
+                long version = b.getLong();
+                long versionTexto = b.getLong();
+                double precio = b.getDouble();
+                int stock = b.getInt();
+                int reservado = b.getInt();
+                String nombre = leerTexto(b);
+                String desc = leerTexto(b);
+                Producto p = new Producto(cod, nombre, desc, precio, stock, reservado, version, versionTexto,
+                        depositos(b));
+                inv.restaurarAlta(cod, p, id);
+                Pendiente pe = pendientes.remove(id);
+                if (pe != null && inv.interno(cod) == p) {
+                    p.restaurarEstado(pe.precio, pe.stock, pe.reservado, pe.version, pe.depositos);
+                }
+            }
+            case BAJA -> inv.restaurarBaja(cod, b.getLong());
+            case ESTADO -> {
+                long id = b.getLong();
+                long version = b.getLong();
+                Pendiente pe = new Pendiente(b.getDouble(), b.getInt(), b.getInt(), version, depositos(b));
+                Producto p = inv.interno(cod);
+                if (p != null && p.estado().idAlta == id) {
+                    p.restaurarEstado(pe.precio, pe.stock, pe.reservado, pe.version, pe.depositos);
+                } else if (p == null || p.estado().idAlta < id) {
+                    pendientes.merge(id, pe, (a, n) -> n.version > a.version ? n : a);
+                }
+            }
+            case TEXTO -> {
+                long id = b.getLong();
+                long versionTexto = b.getLong();
+                inv.restaurarTexto(cod, id, versionTexto, leerTexto(b), leerTexto(b));
+            }
+            default -> { } // tipo desconocido: se ignora
+        }
+    }
+
+    // Reparto al final del registro (los diarios anteriores no lo traen: todo en PRINCIPAL)
+    private static int[] depositos(ByteBuffer b) {
+        return b.hasRemaining() ? Depositos.decodificar(b) : null;
+    }
+
+    // ---------- Archivos ----------
+
+    static Path archivoSnapshot(Path dir, long n) {
+        return dir.resolve(String.format("snapshot-%08d.bin", n));
+    }
+
+    private static TreeMap<Long, Path> listar(Path dir, String prefijo, String sufijo) throws IOException {
+        TreeMap<Long, Path> out = new TreeMap<>();
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir, prefijo + "*" + sufijo)) {
+            for (Path p : ds) {
+                String n = p.getFileName().toString();
+                try {
+                    out.put(Long.parseLong(n.substring(prefijo.length(), n.length() - sufijo.length())), p);
+                } catch (NumberFormatException ignorado) {
+                    // archivo ajeno con nombre parecido
+                }
+            }
+        }
+        return out;
+    }
+
+    private void borrarAnteriores(long desde) throws IOException {
+        for (Path p : listar(dir, "wal-", ".log").headMap(desde, false).values()) Files.deleteIfExists(p);
+        for (Path p : listar(dir, "snapshot-", ".bin").headMap(desde, false).values()) Files.deleteIfExists(p);
+    }
+}
@@ -1,5 +1,12 @@
 package app;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 /*
  * Implementación CONCRETA del producto.
  * - NO es 'public' (package-private): solo es visible dentro del paquete 'app'.
@@ -7,43 +14,484 @@ package app;
  * - Las operaciones de cambio (setters) también son package-private: únicamente
  *   el código dentro de 'app' puede usarlas.
  *
+ * Concurrencia:
+ * - Nombre, descripción, precio, stock y reservado viven juntos en un 'Estado'
+ *   inmutable. Cada cambio crea un Estado nuevo y lo publica con CAS, así un
+ *   lector nunca mezcla el precio de una actualización con el stock de otra y
+ *   dos escritores no se pisan (sin ventas perdidas ni sobreventa).
+ * - Cada cambio publicado se avisa al Observador dueño (el inventario), que
+ *   así mantiene sus totales sin recorrer el mapa.
+ * - Los cambios de texto los serializa Inventario sincronizando sobre el
+ *   propio producto (por el índice de texto).
+ * - Mientras haya instantáneas abiertas cada Estado enlaza al que reemplazó
+ *   (ver Versiones): así se lee el producto tal como estaba en otro momento.
+ *
  * Nota: El MenuPrincipal no puede crear ni modificar 'Producto' directamente.
  *       Debe pasar por 'Inventario'.
  */
 final class Producto implements ProductoRO {
+
+    /*
+     * Recibe cada cambio de estado publicado (precio, stock o reservado).
+     * Lo implementa quien mantiene datos derivados (p. ej. Agregados).
+     */
+    interface Observador {
+        void cambio(Producto p, Estado antes, Estado despues);
+
+        // Se publicó 'n' (cualquier cambio, también de texto o de dueño); ver Versiones
+        default void publicado(Producto p, Estado n) {}
+    }
+
+    /*
+     * Texto, precio, stock físico y stock reservado, inmutables: se reemplazan juntos.
+     * Disponible para vender = stock - reservado (nunca negativo).
+     * 'observador' es el inventario dueño: viaja en el mismo CAS, así cada
+     * cambio se avisa exactamente al inventario que lo contenía en ese momento.
+     * 'idAlta' identifica esa pertenencia (cada alta recibe uno nuevo) y
+     * 'version' cuenta los cambios de precio/stock/reservado: el diario los
+     * usa para reaplicar en orden (el texto lleva su propia versionTexto).
+     * 'sello' y 'anterior' son de Versiones: cuándo quedó visible y a qué
+     * estado reemplazó (solo si tiene dueño; sin dueño no hay instantáneas).
+     * 'depositos' reparte el stock por depósito (índice = número en
+     * Depositos); null = todo en PRINCIPAL. Viaja en el mismo estado que el
+     * total, así una transferencia entre dos depósitos es un solo CAS.
+     */
+    static final class Estado {
+        private static final VarHandle SELLO;
+        static {
+            try {
+                SELLO = MethodHandles.lookup().findVarHandle(Estado.class, "sello", long.class);
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        final String nombre;
+        final String descripcion;
+        final double precio;
+        final int stock;
+        final int reservado;
+        final Observador observador;
+        final long idAlta;
+        final long version;
+        final int[] depositos;            // no se modifica: cada cambio crea otro
+        private volatile long sello;      // 0 = todavía sin sellar
+        private volatile Estado anterior; // se corta cuando ninguna instantánea lo necesita
+
+        Estado(String nombre, String descripcion, double precio, int stock, int reservado,
+               Observador observador, long idAlta, long version, Estado anterior) {
+            this(nombre, descripcion, precio, stock, reservado, observador, idAlta, version, anterior, null);
+        }
+
+        Estado(String nombre, String descripcion, double precio, int stock, int reservado,
+               Observador observador, long idAlta, long version, Estado anterior, int[] depositos) {
+            this.nombre = nombre;
+            this.descripcion = descripcion;
+            this.precio = precio;
+            this.stock = stock;
+            this.reservado = reservado;
+            this.observador = observador;
+            this.idAlta = idAlta;
+            this.version = version;
+            this.anterior = anterior;
+            this.depositos = depositos;
+        }
+
+        int disponible() { return stock - reservado; }
+
+        /*
+         * Valor en centavos (precio redondeado a 2 decimales por stock).
+         * Exacto: los cambios cuyo valor no entra en un long se rechazan
+         * (ver valorValido), así los totales de Agregados no se corrompen.
+         */
+        long valorCentavos() { return valorCentavos(precio, stock); }
+
+        static long valorCentavos(double precio, int stock) { return Dinero.valor(Math.round(precio * 100), stock); }
+
+        // precio * stock en centavos entra en un long (Math.round satura: ese precio ya no entra)
+        static boolean valorValido(double precio, int stock) {
+            if (stock <= 0) return true;
+            long c = Math.round(precio * 100);
+            return c < Long.MAX_VALUE && c <= Long.MAX_VALUE / stock;
+        }
+
+        // Stock en el depósito 'd'
+        int en(int d) {
+            if (depositos == null) return d == 0 ? stock : 0;
+            return d < depositos.length ? depositos[d] : 0;
+        }
+
+        /*
+         * Reparto para un nuevo stock total: lo que entra va a PRINCIPAL y lo
+         * que sale se toma de PRINCIPAL y después de los demás, en orden.
+         */
+        int[] repartir(int nuevoStock) {
+            if (depositos == null || nuevoStock == stock) return depositos;
+            int[] d = depositos.clone();
+            int falta = stock - nuevoStock;
+            if (falta < 0) d[0] -= falta;
+            for (int i = 0; falta > 0; i++) {
+                int t = Math.min(d[i], falta);
+                d[i] -= t;
+                falta -= t;
+            }
+            return d;
+        }
+
+        // Mismas unidades en cada depósito (aunque uno no tenga el arreglo)
+        boolean mismoReparto(Estado o) {
+            if (depositos == o.depositos) return true;
+            int n = Math.max(depositos == null ? 1 : depositos.length, o.depositos == null ? 1 : o.depositos.length);
+            for (int d = 0; d < n; d++) {
+                if (en(d) != o.en(d)) return false;
+            }
+            return true;
+        }
+
+        // Depósito -> unidades (solo los que tienen stock)
+        Map<String, Integer> porDeposito() {
+            if (depositos == null) return stock > 0 ? Map.of(Depositos.PRINCIPAL, stock) : Map.of();
+            Map<String, Integer> out = new LinkedHashMap<>();
+            for (int d = 0; d < depositos.length; d++) {
+                if (depositos[d] > 0) out.put(Depositos.nombre(d), depositos[d]);
+            }
+            return Collections.unmodifiableMap(out);
+        }
+
+        // Copia del reparto con lugar para los depósitos < 'largo'
+        int[] copiaDepositos(int largo) {
+            if (depositos != null) return Arrays.copyOf(depositos, Math.max(largo, depositos.length));
+            int[] d = new int[Math.max(largo, 1)];
+            d[0] = stock;
+            return d;
+        }
+
+        // Siguiente versión con otros valores, mismo dueño
+        Estado con(double precio, int stock, int reservado) {
+            return new Estado(nombre, descripcion, precio, stock, reservado, observador, idAlta, version + 1,
+                    observador != null ? this : null, repartir(stock));
+        }
+
+        // Siguiente versión con otro reparto por depósito (el total es su suma)
+        Estado conDepositos(int[] d, int stock) {
+            return new Estado(nombre, descripcion, precio, stock, reservado, observador, idAlta, version + 1,
+                    observador != null ? this : null, d);
+        }
+
+        // Otro texto, mismos valores y misma versión
+        Estado conTexto(String nombre, String descripcion) {
+            return new Estado(nombre, descripcion, precio, stock, reservado, observador, idAlta, version,
+                    observador != null ? this : null, depositos);
+        }
+
+        // Sello del estado; si no tiene, le pone 'ahora' (gana el primero)
+        long sellar(long ahora) {
+            long s = sello;
+            if (s != 0 || SELLO.compareAndSet(this, 0L, ahora)) return s != 0 ? s : ahora;
+            return sello;
+        }
+
+        long sello()      { return sello; }
+        Estado anterior() { return anterior; }
+        void cortar()     { anterior = null; }
+    }
+
+    private static final VarHandle ESTADO;
+    static {
+        try {
+            ESTADO = MethodHandles.lookup().findVarHandle(Producto.class, "estado", Estado.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
     private final String codigo;
-    private String nombre;
-    private String descripcion;
-    private double precio;
-    private int stock;
+    private volatile Estado estado;
+    // Cambios de nombre/descripción (se modifica con el lock del producto)
+    private long versionTexto;
+    // Lápida a la que reemplazó este producto bajo el mismo código (ver Inventario.ocupar)
+    private volatile Producto predecesor;
 
     // Constructor package private
     Producto(String codigo, String nombre, String descripcion, double precio, int stock) {
         this.codigo = codigo;
-        this.nombre = nombre;
-        this.descripcion = descripcion;
-        this.precio = Math.max(0.0, precio);
-        this.stock  = Math.max(0, stock);
+        this.estado = new Estado(nombre, descripcion, Math.max(0.0, precio), Math.max(0, stock), 0, null, 0, 0, null);
+    }
+
+    // Reconstrucción desde disco (snapshot o diario): valores ya validados
+    Producto(String codigo, String nombre, String descripcion, double precio, int stock, int reservado,
+             long version, long versionTexto) {
+        this(codigo, nombre, descripcion, precio, stock, reservado, version, versionTexto, null);
+    }
+
+    // Igual, con el reparto por depósito (null = todo en PRINCIPAL)
+    Producto(String codigo, String nombre, String descripcion, double precio, int stock, int reservado,
+             long version, long versionTexto, int[] depositos) {
+        this.codigo = codigo;
+        this.estado = new Estado(nombre, descripcion, precio, stock, reservado, null, 0, version, null, depositos);
+        this.versionTexto = versionTexto;
     }
 
     // ======= Lectura =======
     @Override public String getCodigo()      { return codigo; }
-    @Override public String getNombre()      { return nombre; }
-    @Override public String getDescripcion() { return descripcion; }
-    @Override public double getPrecio()      { return precio; }
-    @Override public int getStock()          { return stock; }
+    @Override public String getNombre()      { return estado.nombre; }
+    @Override public String getDescripcion() { return estado.descripcion; }
+    @Override public double getPrecio()      { return estado.precio; }
+    @Override public int getStock()          { return estado.stock; }
+
+    @Override
+    public int getStockEn(String deposito) {
+        int d = Depositos.buscar(deposito);
+        return d < 0 ? 0 : estado.en(d);
+    }
+
+    // Lectura consistente de precio y stock en una sola operación
+    Estado estado()                          { return estado; }
+
+    Producto predecesor()                    { return predecesor; }
+    void predecesor(Producto p)              { this.predecesor = p; }
 
     // ======= Actualizar =======
-    void setNombre(String nombre)            { this.nombre = nombre; }
-    void setDescripcion(String descripcion)  { this.descripcion = descripcion; }
-    void setStock(int stock)                 { if (stock >= 0) this.stock = stock; }
-    void actualizarPrecio(double nuevoPrecio){ if (nuevoPrecio >= 0) this.precio = nuevoPrecio; }
+    void setNombre(String nombre) {
+        Estado e;
+        do {
+            e = estado;
+        } while (!publicarTexto(e, e.conTexto(nombre, e.descripcion)));
+    }
+
+    void setDescripcion(String descripcion) {
+        Estado e;
+        do {
+            e = estado;
+        } while (!publicarTexto(e, e.conTexto(e.nombre, descripcion)));
+    }
+
+    // Nombre y descripción en un solo cambio (null: no se toca); devuelve el estado reemplazado
+    Estado setTexto(String nombre, String descripcion) {
+        Estado e;
+        do {
+            e = estado;
+        } while (!publicarTexto(e, e.conTexto(nombre != null ? nombre : e.nombre,
+                descripcion != null ? descripcion : e.descripcion)));
+        return e;
+    }
+
+    long versionTexto()                      { return versionTexto; }
+    void versionTexto(long v)                { this.versionTexto = v; }
+
+    // Publica el nuevo estado solo si nadie cambió 'e' entretanto y avisa al dueño
+    private boolean publicar(Estado e, Estado n) {
+        if (!ESTADO.compareAndSet(this, e, n)) return false;
+        if (e.observador != null) {
+            e.observador.publicado(this, n);
+            e.observador.cambio(this, e, n);
+        }
+        return true;
+    }
+
+    // Igual, pero sin avisar un cambio de valores (los totales no cambian)
+    private boolean publicarTexto(Estado e, Estado n) {
+        if (!ESTADO.compareAndSet(this, e, n)) return false;
+        if (e.observador != null) e.observador.publicado(this, n);
+        return true;
+    }
+
+    /*
+     * Asigna el inventario dueño con su id de alta. Falla (null) si ya tiene uno.
+     * Devuelve el estado vinculado: su valor es el que el dueño debe sumar.
+     * No avisa 'publicado': el dueño lo hace recién cuando el producto ya
+     * está en su mapa (antes ninguna instantánea debe verlo).
+     */
+    Estado vincular(Observador o, long idAlta) {
+        Estado e;
+        Estado n;
+        do {
+            e = estado;
+            if (e.observador != null) return null;
+            n = new Estado(e.nombre, e.descripcion, e.precio, e.stock, e.reservado, o, idAlta, e.version, null,
+                    e.depositos);
+        } while (!ESTADO.compareAndSet(this, e, n));
+        return n;
+    }
+
+    /*
+     * Quita el dueño. Devuelve el último estado que tuvo con ese dueño
+     * (su valor es el que el dueño debe restar) o null si no era suyo.
+     */
+    Estado desvincular(Observador o) {
+        Estado e;
+        Estado n;
+        do {
+            e = estado;
+            if (e.observador != o) return null;
+            n = new Estado(e.nombre, e.descripcion, e.precio, e.stock, e.reservado, null, 0, e.version, e,
+                    e.depositos);
+        } while (!ESTADO.compareAndSet(this, e, n));
+        o.publicado(this, n);
+        return e;
+    }
+
+    // Reaplica un estado leído del diario (con su reparto) si es más nuevo que el actual
+    boolean restaurarEstado(double precio, int stock, int reservado, long version, int[] depositos) {
+        Estado e;
+        do {
+            e = estado;
+            if (version <= e.version) return false;
+        } while (!publicar(e, new Estado(e.nombre, e.descripcion, precio, stock, reservado, e.observador, e.idAlta,
+                version, e.observador != null ? e : null, depositos)));
+        return true;
+    }
+
+    // Fija el stock; se ignora si es negativo, menor que lo ya reservado o si el valor desborda
+    boolean setStock(int stock) {
+        if (stock < 0) return false;
+        Estado e;
+        do {
+            e = estado;
+            if (stock < e.reservado || !Estado.valorValido(e.precio, stock)) return false;
+        } while (!publicar(e, e.con(e.precio, stock, e.reservado)));
+        return true;
+    }
+
+    // Cambia el precio; se ignora si es negativo o si el valor desborda
+    boolean actualizarPrecio(double nuevoPrecio) {
+        if (nuevoPrecio < 0) return false;
+        Estado e;
+        do {
+            e = estado;
+            if (!Estado.valorValido(nuevoPrecio, e.stock)) return false;
+        } while (!publicar(e, e.con(nuevoPrecio, e.stock, e.reservado)));
+        return true;
+    }
+
+    // Cambia precio y stock en un único paso (null o inválido: no se toca; si el valor desborda, ninguno)
+    void actualizarEstado(Double nuevoPrecio, Integer nuevoStock) {
+        Estado e;
+        Estado n;
+        do {
+            e = estado;
+            double pr = nuevoPrecio != null && nuevoPrecio >= 0 ? nuevoPrecio : e.precio;
+            int st    = nuevoStock != null && nuevoStock >= e.reservado ? nuevoStock : e.stock;
+            if (!Estado.valorValido(pr, st)) return;
+            n = e.con(pr, st, e.reservado);
+        } while (!publicar(e, n));
+    }
+
+    // ======= Movimientos relativos de stock (CAS, sin perder ventas) =======
+
+    // Descuenta 'cantidad' si hay suficiente stock disponible
+    boolean descontarStock(int cantidad) {
+        if (cantidad <= 0) return false;
+        Estado e;
+        do {
+            e = estado;
+            if (e.disponible() < cantidad) return false;
+        } while (!publicar(e, e.con(e.precio, e.stock - cantidad, e.reservado)));
+        return true;
+    }
+
+    // Suma 'cantidad' al stock; se rechaza si desborda un int o el valor un long
+    boolean incrementarStock(int cantidad) {
+        if (cantidad <= 0) return false;
+        Estado e;
+        do {
+            e = estado;
+            if (e.stock > Integer.MAX_VALUE - cantidad || !Estado.valorValido(e.precio, e.stock + cantidad)) {
+                return false;
+            }
+        } while (!publicar(e, e.con(e.precio, e.stock + cantidad, e.reservado)));
+        return true;
+    }
+
+    // Aparta 'cantidad' del disponible sin sacarla aún del stock
+    boolean reservar(int cantidad) {
+        if (cantidad <= 0) return false;
+        Estado e;
+        do {
+            e = estado;
+            if (e.disponible() < cantidad) return false;
+        } while (!publicar(e, e.con(e.precio, e.stock, e.reservado + cantidad)));
+        return true;
+    }
+
+    // Convierte una reserva en venta: baja stock y reservado a la vez
+    boolean confirmarReserva(int cantidad) {
+        if (cantidad <= 0) return false;
+        Estado e;
+        do {
+            e = estado;
+            if (e.reservado < cantidad) return false;
+        } while (!publicar(e, e.con(e.precio, e.stock - cantidad, e.reservado - cantidad)));
+        return true;
+    }
+
+    // Devuelve una reserva al disponible
+    boolean liberarReserva(int cantidad) {
+        if (cantidad <= 0) return false;
+        Estado e;
+        do {
+            e = estado;
+            if (e.reservado < cantidad) return false;
+        } while (!publicar(e, e.con(e.precio, e.stock, e.reservado - cantidad)));
+        return true;
+    }
+
+    // ======= Depósitos =======
+
+    // Pasa 'cantidad' de un depósito a otro en un solo cambio (el total no cambia)
+    boolean moverStock(int desde, int hacia, int cantidad) {
+        if (cantidad <= 0 || desde == hacia) return false;
+        Estado e;
+        int[] d;
+        do {
+            e = estado;
+            if (e.en(desde) < cantidad) return false;
+            d = e.copiaDepositos(Math.max(desde, hacia) + 1);
+            d[desde] -= cantidad;
+            d[hacia] += cantidad;
+        } while (!publicar(e, e.conDepositos(d, e.stock)));
+        return true;
+    }
+
+    // Suma unidades en un depósito; se rechaza si el total desborda un int o el valor un long
+    boolean incrementarStock(int deposito, int cantidad) {
+        if (cantidad <= 0) return false;
+        Estado e;
+        int[] d;
+        do {
+            e = estado;
+            if (e.stock > Integer.MAX_VALUE - cantidad || !Estado.valorValido(e.precio, e.stock + cantidad)) {
+                return false;
+            }
+            d = e.copiaDepositos(deposito + 1);
+            d[deposito] += cantidad;
+        } while (!publicar(e, e.conDepositos(d, e.stock + cantidad)));
+        return true;
+    }
+
+    // Saca unidades de un depósito: tiene que tenerlas y no pueden estar reservadas
+    boolean descontarStock(int deposito, int cantidad) {
+        if (cantidad <= 0) return false;
+        Estado e;
+        int[] d;
+        do {
+            e = estado;
+            if (e.en(deposito) < cantidad || e.disponible() < cantidad) return false;
+            d = e.copiaDepositos(deposito + 1);
+            d[deposito] -= cantidad;
+        } while (!publicar(e, e.conDepositos(d, e.stock - cantidad)));
+        return true;
+    }
 
     // ======= Presentación =======
     @Override
     public String descripcionDetallada() {
-        return "[" + codigo + "] " + nombre + " - " + descripcion +
-                " | Precio: " + String.format("%.2f", precio) +
-                " | Stock: " + stock;
+        return detalle(codigo, estado); // una sola lectura: texto, precio y stock del mismo cambio
+    }
+
+    static String detalle(String codigo, Estado e) {
+        return "[" + codigo + "] " + e.nombre + " - " + e.descripcion +
+                " | Precio: " + String.format("%.2f", e.precio) +
+                " | Stock: " + e.stock;
     }
 }
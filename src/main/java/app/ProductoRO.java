@@ -13,5 +13,10 @@ public interface ProductoRO {
     double getPrecio();
     int getStock();
 
+    // Stock en un depósito (ver Depositos); sin reparto, todo está en PRINCIPAL
+    default int getStockEn(String deposito) {
+        return Depositos.buscar(deposito) == 0 ? getStock() : 0;
+    }
+
     String descripcionDetallada();
 }
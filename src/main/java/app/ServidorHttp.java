@@ -0,0 +1,435 @@
+package app;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * Servidor HTTP/JSON sobre la API pública de Inventario (HttpServer del JDK).
+ *
+ * Rutas:
+ *  GET    /productos/{codigo}                 → producto | 404
+ *  GET    /productos/{codigo}/disponible      → {"codigo","disponible"} | 404
+ *  GET    /productos?texto=...                → búsqueda por nombre/descripción
+ *  GET    /productos?precioMin=&precioMax=    → rango de precio (o stockMin/stockMax)
+ *  GET    /productos?orden=&cursor=&limite=   → página ordenada {"productos","siguiente"}
+ *  GET    /reposicion?umbral=N                → productos con stock < N
+ *  GET    /informe, /metricas                 → texto plano
+ *  GET    /analitica?bandas=10,100&top=N      → informe analítico en texto plano
+ *  POST   /productos                          → alta {codigo,nombre,descripcion,precio,stock}: 201 | 409
+ *  PUT    /productos/{codigo}                 → cambios parciales (los mismos campos): 200 | 404
+ *  DELETE /productos/{codigo}                 → 204 | 404
+ *  POST   /productos/{codigo}/{movimiento}    → {"cantidad": n}; movimiento = descontar,
+ *                                               incrementar, reservar, confirmar o liberar: 204 | 404 | 409
+ * Errores: {"error": "..."} con 400, 404, 405, 409, 413 o 500.
+ *
+ * Concurrencia:
+ * - Las conexiones las atiende el selector NIO del HttpServer (un hilo), así
+ *   que miles de conexiones abiertas no cuestan hilos; solo las peticiones en
+ *   curso ocupan uno del ejecutor.
+ * - Ejecutor: un hilo virtual por petición si la JVM los tiene (Java 21+,
+ *   se busca por reflexión porque compilamos para 17); si no, un pool fijo.
+ *   Los handlers no bloquean salvo al leer el cuerpo, así que alcanza.
+ * - Keep-alive: HTTP/1.1 persistente siempre, con Content-Length en cada
+ *   respuesta y el cuerpo de la petición consumido entero.
+ */
+public final class ServidorHttp implements Closeable {
+
+    // Conexiones ociosas que el JDK mantiene abiertas (por defecto 200)
+    private static final String MAX_OCIOSAS = "sun.net.httpserver.maxIdleConnections";
+    // Sin TCP_NODELAY cada respuesta (cabecera y cuerpo van en dos escrituras)
+    // espera ~40 ms al ACK retardado del cliente en una conexión keep-alive
+    private static final String SIN_RETARDO = "sun.net.httpserver.nodelay";
+    // Tope del cuerpo de una petición
+    private static final int MAX_CUERPO = 64 * 1024;
+    private static final String JSON = "application/json; charset=utf-8";
+    private static final String TEXTO = "text/plain; charset=utf-8";
+
+    // Un búfer de salida por hilo de plataforma (con hilos virtuales dura una petición)
+    private static final ThreadLocal<Json.Salida> SALIDA = ThreadLocal.withInitial(Json.Salida::new);
+
+    private final Inventario inventario;
+    private final HttpServer servidor;
+    private final ExecutorService ejecutor;
+
+    private ServidorHttp(Inventario inventario, HttpServer servidor, ExecutorService ejecutor) {
+        this.inventario = inventario;
+        this.servidor = servidor;
+        this.ejecutor = ejecutor;
+    }
+
+    /*
+     * Levanta el servidor (puerto 0 = uno libre, ver puerto()).
+     * Las propiedades del JDK se fijan solo si no vienen de la línea de
+     * comandos, y el JDK las lee al crear el primer HttpServer del proceso.
+     */
+    public static ServidorHttp iniciar(Inventario inventario, InetSocketAddress direccion) throws IOException {
+        if (System.getProperty(MAX_OCIOSAS) == null) System.setProperty(MAX_OCIOSAS, "65536");
+        if (System.getProperty(SIN_RETARDO) == null) System.setProperty(SIN_RETARDO, "true");
+        HttpServer http = HttpServer.create(direccion, 4096);
+        ExecutorService ejecutor = ejecutor();
+        ServidorHttp s = new ServidorHttp(inventario, http, ejecutor);
+        http.createContext("/", s::atender);
+        http.setExecutor(ejecutor);
+        http.start();
+        return s;
+    }
+
+    public int puerto() {
+        return servidor.getAddress().getPort();
+    }
+
+    /*
+     * Cierra las conexiones y espera a que terminen los handlers en curso.
+     * stop(n) con n > 0 en Java 17 espera siempre los n segundos completos.
+     */
+    @Override
+    public void close() {
+        servidor.stop(0);
+        ejecutor.shutdown();
+        try {
+            ejecutor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Hilos virtuales si existen; si no, pool fijo de hilos daemon
+    static ExecutorService ejecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            AtomicInteger n = new AtomicInteger();
+            return Executors.newFixedThreadPool(Math.max(8, Runtime.getRuntime().availableProcessors() * 4), r -> {
+                Thread t = new Thread(r, "http-" + n.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
+    // ---------- Despacho ----------
+
+    private void atender(HttpExchange ex) throws IOException {
+        try (ex) {
+            try {
+                despachar(ex);
+            } catch (CuerpoExcedido e) {
+                // ya respondido
+            } catch (IllegalArgumentException e) {
+                error(ex, 400, e.getMessage());
+            } catch (RuntimeException e) {
+                error(ex, 500, "Error interno");
+            }
+        }
+    }
+
+    private void despachar(HttpExchange ex) throws IOException {
+        String metodo = ex.getRequestMethod();
+        String[] ruta = segmentos(ex.getRequestURI().getRawPath());
+        Map<String, String> q = consulta(ex.getRequestURI().getRawQuery());
+
+        if (ruta.length == 1 && ruta[0].equals("informe")) {
+            if (soloGet(ex, metodo)) texto(ex, inventario.generarInforme());
+            return;
+        }
+        if (ruta.length == 1 && ruta[0].equals("analitica")) {
+            if (soloGet(ex, metodo)) texto(ex, inventario.informeAnalitico(numeros(q, "bandas"), entero(q, "top", 10)).toString());
+            return;
+        }
+        if (ruta.length == 1 && ruta[0].equals("metricas")) {
+            if (soloGet(ex, metodo)) texto(ex, inventario.metricas().informe());
+            return;
+        }
+        if (ruta.length == 1 && ruta[0].equals("reposicion")) {
+            if (soloGet(ex, metodo)) lista(ex, inventario.informeReposicion(entero(q, "umbral", 1)), null);
+            return;
+        }
+        if (ruta.length == 0 || !ruta[0].equals("productos")) {
+            error(ex, 404, "Ruta inexistente");
+            return;
+        }
+        switch (ruta.length) {
+            case 1 -> {
+                if (metodo.equals("GET")) consultar(ex, q);
+                else if (metodo.equals("POST")) alta(ex);
+                else noPermitido(ex, "GET, POST");
+            }
+            case 2 -> {
+                String codigo = ruta[1];
+                switch (metodo) {
+                    case "GET" -> producto(ex, codigo);
+                    case "PUT" -> cambio(ex, codigo);
+                    case "DELETE" -> {
+                        if (inventario.eliminarPorCodigo(codigo)) vacio(ex, 204);
+                        else error(ex, 404, "No existe");
+                    }
+                    default -> noPermitido(ex, "GET, PUT, DELETE");
+                }
+            }
+            case 3 -> {
+                if (ruta[2].equals("disponible")) {
+                    if (soloGet(ex, metodo)) disponible(ex, ruta[1]);
+                } else if (metodo.equals("POST")) {
+                    movimiento(ex, ruta[1], ruta[2]);
+                } else {
+                    noPermitido(ex, "POST");
+                }
+            }
+            default -> error(ex, 404, "Ruta inexistente");
+        }
+    }
+
+    // ---------- Handlers ----------
+
+    private void producto(HttpExchange ex, String codigo) throws IOException {
+        Optional<ProductoRO> p = inventario.buscarPorCodigo(codigo);
+        if (p.isEmpty()) {
+            error(ex, 404, "No existe");
+            return;
+        }
+        enviar(ex, 200, salida().producto(p.get()));
+    }
+
+    private void disponible(HttpExchange ex, String codigo) throws IOException {
+        OptionalInt d = inventario.stockDisponible(codigo);
+        if (d.isEmpty()) {
+            error(ex, 404, "No existe");
+            return;
+        }
+        Json.Salida s = salida().abrirObjeto();
+        s.campo("codigo").texto(codigo).campo("disponible").entero(d.getAsInt());
+        enviar(ex, 200, s.cerrarObjeto());
+    }
+
+    // Búsqueda, rango o página según los parámetros presentes
+    private void consultar(HttpExchange ex, Map<String, String> q) throws IOException {
+        if (q.containsKey("texto")) {
+            lista(ex, inventario.buscarPorNombre(q.get("texto")), null);
+        } else if (q.containsKey("precioMin") || q.containsKey("precioMax")) {
+            lista(ex, inventario.buscarPorPrecio(decimal(q, "precioMin", Double.NEGATIVE_INFINITY),
+                    decimal(q, "precioMax", Double.POSITIVE_INFINITY)), null);
+        } else if (q.containsKey("stockMin") || q.containsKey("stockMax")) {
+            lista(ex, inventario.buscarPorStock(entero(q, "stockMin", Integer.MIN_VALUE),
+                    entero(q, "stockMax", Integer.MAX_VALUE)), null);
+        } else {
+            Orden orden;
+            try {
+                orden = Orden.valueOf(q.getOrDefault("orden", "CODIGO").toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Orden inválido");
+            }
+            Pagina p = inventario.listar(q.get("cursor"), entero(q, "limite", 100), orden);
+            lista(ex, p.productos(), p.siguiente());
+        }
+    }
+
+    private void alta(HttpExchange ex) throws IOException {
+        Map<String, Object> c = Json.leerObjeto(leerCuerpo(ex));
+        Double precio = numero(c, "precio");
+        Integer stock = stock(c);
+        boolean ok = inventario.agregarProducto(texto(c, "codigo"), texto(c, "nombre"), texto(c, "descripcion"),
+                precio == null ? 0 : precio, stock == null ? 0 : stock);
+        if (ok) vacio(ex, 201);
+        else error(ex, 409, "Código duplicado o inválido");
+    }
+
+    private void cambio(HttpExchange ex, String codigo) throws IOException {
+        Map<String, Object> c = Json.leerObjeto(leerCuerpo(ex));
+        if (!inventario.actualizarProducto(codigo, texto(c, "nombre"), texto(c, "descripcion"), numero(c, "precio"), stock(c))) {
+            error(ex, 404, "No existe");
+            return;
+        }
+        producto(ex, codigo);
+    }
+
+    private void movimiento(HttpExchange ex, String codigo, String tipo) throws IOException {
+        Map<String, Object> c = Json.leerObjeto(leerCuerpo(ex));
+        Double d = numero(c, "cantidad");
+        if (d == null || d != Math.rint(d) || d < 1 || d > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Cantidad inválida");
+        }
+        int cantidad = d.intValue();
+        boolean ok;
+        switch (tipo) {
+            case "descontar" -> ok = inventario.descontarStock(codigo, cantidad);
+            case "incrementar" -> ok = inventario.incrementarStock(codigo, cantidad);
+            case "reservar" -> ok = inventario.reservarStock(codigo, cantidad);
+            case "confirmar" -> ok = inventario.confirmarReserva(codigo, cantidad);
+            case "liberar" -> ok = inventario.liberarReserva(codigo, cantidad);
+            default -> {
+                error(ex, 404, "Ruta inexistente");
+                return;
+            }
+        }
+        if (ok) vacio(ex, 204);
+        else if (inventario.stockDisponible(codigo).isEmpty()) error(ex, 404, "No existe");
+        else error(ex, 409, "Stock insuficiente");
+    }
+
+    // ---------- Respuestas ----------
+
+    private static Json.Salida salida() {
+        return SALIDA.get().reiniciar();
+    }
+
+    private static void lista(HttpExchange ex, List<ProductoRO> productos, String siguiente) throws IOException {
+        Json.Salida s = salida().abrirObjeto().campo("productos").abrirLista();
+        for (ProductoRO p : productos) s.producto(p);
+        s.cerrarLista();
+        if (siguiente != null) s.campo("siguiente").texto(siguiente);
+        enviar(ex, 200, s.cerrarObjeto());
+    }
+
+    private static void enviar(HttpExchange ex, int estado, Json.Salida s) throws IOException {
+        ex.getResponseHeaders().set("Content-Type", JSON);
+        ex.sendResponseHeaders(estado, s.largo());
+        ex.getResponseBody().write(s.bytes(), 0, s.largo());
+    }
+
+    private static void texto(HttpExchange ex, String s) throws IOException {
+        byte[] b = s.getBytes(StandardCharsets.UTF_8);
+        ex.getResponseHeaders().set("Content-Type", TEXTO);
+        ex.sendResponseHeaders(200, b.length);
+        ex.getResponseBody().write(b);
+    }
+
+    /*
+     * Sin cuerpo, el JDK da la respuesta por terminada en sendResponseHeaders:
+     * si el cuerpo de la petición no se leyó hasta el final (un DELETE nunca
+     * lo lee), cierra la conexión keep-alive. close() lo consume antes.
+     */
+    private static void vacio(HttpExchange ex, int estado) throws IOException {
+        ex.getRequestBody().close();
+        ex.sendResponseHeaders(estado, -1);
+    }
+
+    private static void error(HttpExchange ex, int estado, String mensaje) throws IOException {
+        enviar(ex, estado, salida().abrirObjeto().campo("error").texto(mensaje).cerrarObjeto());
+    }
+
+    private static boolean soloGet(HttpExchange ex, String metodo) throws IOException {
+        if (metodo.equals("GET")) return true;
+        noPermitido(ex, "GET");
+        return false;
+    }
+
+    private static void noPermitido(HttpExchange ex, String permitidos) throws IOException {
+        ex.getResponseHeaders().set("Allow", permitidos);
+        error(ex, 405, "Método no permitido");
+    }
+
+    // ---------- Entrada ----------
+
+    // Cuerpo completo (el que no se lee lo descarta el HttpServer al cerrar el intercambio)
+    private static String leerCuerpo(HttpExchange ex) throws IOException {
+        try (InputStream in = ex.getRequestBody()) {
+            byte[] b = in.readNBytes(MAX_CUERPO + 1);
+            if (b.length > MAX_CUERPO) {
+                error(ex, 413, "Cuerpo demasiado grande");
+                throw new CuerpoExcedido();
+            }
+            return new String(b, StandardCharsets.UTF_8);
+        }
+    }
+
+    // Ya se respondió 413; se corta el handler sin otra respuesta
+    private static final class CuerpoExcedido extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        CuerpoExcedido() {
+            super("Cuerpo demasiado grande");
+        }
+    }
+
+    // Ruta en segmentos ya decodificados ("+" es literal en la ruta)
+    private static String[] segmentos(String ruta) {
+        String[] s = ruta.replaceAll("^/+|/+$", "").split("/+");
+        if (s.length == 1 && s[0].isEmpty()) return new String[0];
+        for (int i = 0; i < s.length; i++) s[i] = URLDecoder.decode(s[i].replace("+", "%2B"), StandardCharsets.UTF_8);
+        return s;
+    }
+
+    private static Map<String, String> consulta(String raw) {
+        Map<String, String> out = new HashMap<>();
+        if (raw == null || raw.isEmpty()) return out;
+        for (String par : raw.split("&")) {
+            int i = par.indexOf('=');
+            String k = i < 0 ? par : par.substring(0, i);
+            String v = i < 0 ? "" : par.substring(i + 1);
+            out.put(URLDecoder.decode(k, StandardCharsets.UTF_8), URLDecoder.decode(v, StandardCharsets.UTF_8));
+        }
+        return out;
+    }
+
+    private static int entero(Map<String, String> q, String k, int porDefecto) {
+        String v = q.get(k);
+        if (v == null) return porDefecto;
+        try {
+            return Integer.parseInt(v.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Parámetro '" + k + "' inválido");
+        }
+    }
+
+    private static double decimal(Map<String, String> q, String k, double porDefecto) {
+        String v = q.get(k);
+        if (v == null) return porDefecto;
+        try {
+            return Double.parseDouble(v.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Parámetro '" + k + "' inválido");
+        }
+    }
+
+    // Lista separada por comas ("10,99.5"); vacía si no vino
+    private static double[] numeros(Map<String, String> q, String k) {
+        String v = q.get(k);
+        if (v == null || v.isBlank()) return new double[0];
+        String[] partes = v.split(",");
+        double[] out = new double[partes.length];
+        try {
+            for (int i = 0; i < partes.length; i++) out[i] = Double.parseDouble(partes[i].trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Parámetro '" + k + "' inválido");
+        }
+        return out;
+    }
+
+    private static String texto(Map<String, Object> c, String k) {
+        Object v = c.get(k);
+        if (v == null || v instanceof String) return (String) v;
+        throw new IllegalArgumentException("Campo '" + k + "' debe ser texto");
+    }
+
+    private static Double numero(Map<String, Object> c, String k) {
+        Object v = c.get(k);
+        if (v == null || v instanceof Double) return (Double) v;
+        throw new IllegalArgumentException("Campo '" + k + "' debe ser numérico");
+    }
+
+    private static Integer stock(Map<String, Object> c) {
+        Double d = numero(c, "stock");
+        if (d == null) return null;
+        if (d != Math.rint(d) || d < Integer.MIN_VALUE || d > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Campo 'stock' debe ser entero");
+        }
+        return d.intValue();
+    }
+}
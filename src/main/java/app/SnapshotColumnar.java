@@ -0,0 +1,357 @@
+package app;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/*
+ * Snapshot en formato COLUMNAR, leído con FileChannel.map.
+ * - Cada campo es una columna contigua: precio double[n], stock int[n], ...
+ *   y los textos como offsets int[n+1] + bytes UTF-8.
+ * - Incluye una tabla hash (direccionamiento abierto) código -> fila, así un
+ *   código se encuentra sin cargar nada.
+ * - La cabecera trae la cantidad y el valor total en centavos: el informe
+ *   está listo al abrir.
+ * - El reparto por depósito va como un texto más: offsets + bytes con el
+ *   formato de Depositos.codificar (vacío = todo en PRINCIPAL). Los
+ *   snapshots de formato 1 no lo tienen.
+ * Abrir es O(1): no se parsea ni se crea ningún Producto. Las filas se leen
+ * bajo demanda (vista(i) o producto(i)). Al escribir uno nuevo, las filas que
+ * siguen iguales a las de otro snapshot se copian de su archivo (ver Volcado).
+ *
+ * Límite: un solo mapeo, así que el archivo debe ser menor a 2 GB.
+ */
+final class SnapshotColumnar {
+    private static final int MAGIA = 0x494E5643; // "INVC"
+    private static final int FORMATO = 2;
+    private static final int FORMATO_SIN_DEPOSITOS = 1;
+    private static final int CABECERA = 256;
+    private static final int NOMBRE_NULO = 1;
+    private static final int DESCRIPCION_NULA = 2;
+
+    // Columnas, en el orden en que aparecen en el archivo
+    private static final int PRECIO = 0, ID_ALTA = 1, VERSION = 2, VERSION_TEXTO = 3, STOCK = 4,
+            RESERVADO = 5, COD_OFF = 6, NOM_OFF = 7, DES_OFF = 8, HASH = 9, NULOS = 10,
+            COD_BYTES = 11, NOM_BYTES = 12, DES_BYTES = 13, DEP_OFF = 14, DEP_BYTES = 15, COLUMNAS = 16;
+
+    private final ByteBuffer buf;
+    private final boolean conDepositos;
+    private final int filas;
+    private final long segmento;
+    private final long valorCentavos;
+    private final long maxIdAlta;
+    private final int mascaraHash;
+    private final long[] col = new long[COLUMNAS];
+
+    private SnapshotColumnar(ByteBuffer buf) throws IOException {
+        this.buf = buf;
+        int formato = buf.getInt(4);
+        if (buf.getInt(0) != MAGIA || (formato != FORMATO && formato != FORMATO_SIN_DEPOSITOS)) {
+            throw new IOException("Formato desconocido");
+        }
+        this.conDepositos = formato == FORMATO;
+        this.filas = (int) buf.getLong(8);
+        this.segmento = buf.getLong(16);
+        this.valorCentavos = buf.getLong(24);
+        this.maxIdAlta = buf.getLong(32);
+        this.mascaraHash = (int) buf.getLong(40) - 1;
+        for (int c = 0; c < (conDepositos ? COLUMNAS : DEP_OFF); c++) col[c] = buf.getLong(48 + 8 * c);
+    }
+
+    // Mapea el archivo en memoria (solo lectura)
+    static SnapshotColumnar abrir(Path archivo) throws IOException {
+        try (FileChannel c = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            MappedByteBuffer m = c.map(FileChannel.MapMode.READ_ONLY, 0, c.size());
+            return new SnapshotColumnar(m.order(ByteOrder.LITTLE_ENDIAN));
+        }
+    }
+
+    int filas()          { return filas; }
+    long segmento()      { return segmento; }
+    long valorCentavos() { return valorCentavos; }
+    long maxIdAlta()     { return maxIdAlta; }
+
+    double precio(int i)     { return buf.getDouble((int) col[PRECIO] + 8 * i); }
+    int stock(int i)         { return buf.getInt((int) col[STOCK] + 4 * i); }
+    int reservado(int i)     { return buf.getInt((int) col[RESERVADO] + 4 * i); }
+    long idAlta(int i)       { return buf.getLong((int) col[ID_ALTA] + 8 * i); }
+    long version(int i)      { return buf.getLong((int) col[VERSION] + 8 * i); }
+    long versionTexto(int i) { return buf.getLong((int) col[VERSION_TEXTO] + 8 * i); }
+
+    String codigo(int i)      { return texto(COD_OFF, COD_BYTES, i); }
+    String nombre(int i)      { return nulos(i, NOMBRE_NULO) ? null : texto(NOM_OFF, NOM_BYTES, i); }
+    String descripcion(int i) { return nulos(i, DESCRIPCION_NULA) ? null : texto(DES_OFF, DES_BYTES, i); }
+
+    // Reparto por depósito de la fila (null = todo en PRINCIPAL)
+    int[] depositos(int i) {
+        if (!conDepositos) return null;
+        int o = (int) col[DEP_OFF] + 4 * i;
+        int desde = buf.getInt(o);
+        int largo = buf.getInt(o + 4) - desde;
+        if (largo == 0) return null;
+        return Depositos.decodificar(buf.slice((int) col[DEP_BYTES] + desde, largo).order(ByteOrder.LITTLE_ENDIAN));
+    }
+
+    private boolean nulos(int i, int bit) {
+        return (buf.get((int) col[NULOS] + i) & bit) != 0;
+    }
+
+    // Largo en bytes del texto de la fila i (0 si es null o no está en el formato)
+    private int largoTexto(int offsets, int i) {
+        if (offsets == DEP_OFF && !conDepositos) return 0;
+        int o = (int) col[offsets] + 4 * i;
+        return buf.getInt(o + 4) - buf.getInt(o);
+    }
+
+    private String texto(int offsets, int bytes, int i) {
+        int o = (int) col[offsets] + 4 * i;
+        int desde = buf.getInt(o);
+        int largo = buf.getInt(o + 4) - desde;
+        byte[] b = new byte[largo];
+        buf.get((int) col[bytes] + desde, b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+
+    // Fila del código (ya normalizado) o -1; compara bytes, sin crear Strings
+    int buscar(String codigo) {
+        byte[] q = Codigo.ascii(codigo) ? null : codigo.getBytes(StandardCharsets.UTF_8); // ASCII: se compara el String
+        int h = mezclar(codigo.hashCode()) & mascaraHash;
+        int tabla = (int) col[HASH];
+        while (true) {
+            int fila = buf.getInt(tabla + 4 * h) - 1;
+            if (fila < 0) return -1;
+            if (codigoIgual(fila, codigo, q)) return fila;
+            h = (h + 1) & mascaraHash;
+        }
+    }
+
+    private boolean codigoIgual(int fila, String codigo, byte[] q) {
+        int o = (int) col[COD_OFF] + 4 * fila;
+        int desde = buf.getInt(o);
+        int largo = buf.getInt(o + 4) - desde;
+        if (largo != (q == null ? codigo.length() : q.length)) return false;
+        int base = (int) col[COD_BYTES] + desde;
+        for (int k = 0; k < largo; k++) {
+            if (buf.get(base + k) != (q == null ? (byte) codigo.charAt(k) : q[k])) return false;
+        }
+        return true;
+    }
+
+    private static int mezclar(int h) {
+        return h ^ (h >>> 16);
+    }
+
+    // Crea el Producto de la fila i (sin dueño; se vincula al materializar)
+    Producto producto(int i) {
+        return new Producto(codigo(i), nombre(i), descripcion(i), precio(i), stock(i), reservado(i),
+                version(i), versionTexto(i), depositos(i));
+    }
+
+    // Vista de solo lectura sobre la fila i: lee del archivo en cada llamada (ver Inventario.VistaBase)
+    ProductoRO vista(int i) {
+        return new Vista(i);
+    }
+
+    private final class Vista implements ProductoRO {
+        private final int i;
+
+        Vista(int i) { this.i = i; }
+
+        @Override public String getCodigo()      { return codigo(i); }
+        @Override public String getNombre()      { return nombre(i); }
+        @Override public String getDescripcion() { return descripcion(i); }
+        @Override public double getPrecio()      { return precio(i); }
+        @Override public int getStock()          { return stock(i); }
+
+        @Override
+        public int getStockEn(String deposito) {
+            int d = Depositos.buscar(deposito);
+            int[] reparto = depositos(i);
+            if (reparto == null) return d == 0 ? getStock() : 0;
+            return d >= 0 && d < reparto.length ? reparto[d] : 0;
+        }
+
+        @Override
+        public String descripcionDetallada() {
+            return "[" + getCodigo() + "] " + getNombre() + " - " + getDescripcion() +
+                    " | Precio: " + String.format("%.2f", getPrecio()) +
+                    " | Stock: " + getStock();
+        }
+    }
+
+    // ---------- Escritura ----------
+
+    // Fila leída de un Producto con su lock: texto, estado y versiones coherentes
+    private static final class Fila {
+        final byte[] codigo, nombre, descripcion, depositos;
+        final int hash;
+        final Producto.Estado e;
+        final long versionTexto;
+
+        Fila(Producto p, String cod) {
+            this.codigo = cod.getBytes(StandardCharsets.UTF_8);
+            this.hash = cod.hashCode();
+            this.nombre = p.getNombre() == null ? null : p.getNombre().getBytes(StandardCharsets.UTF_8);
+            this.descripcion = p.getDescripcion() == null ? null : p.getDescripcion().getBytes(StandardCharsets.UTF_8);
+            this.e = p.estado();
+            this.versionTexto = p.versionTexto();
+            this.depositos = e.depositos == null ? null
+                    : Depositos.codificar(ByteBuffer.allocate(Depositos.largoCodificado(e.depositos))
+                            .order(ByteOrder.LITTLE_ENDIAN), e.depositos).array();
+        }
+    }
+
+    /*
+     * Filas de un snapshot a escribir, en dos clases:
+     * - productos vinculados a un inventario: se copian (con su lock) al agregarlos;
+     * - filas de otro snapshot ('base') que nadie modificó: solo se anota el
+     *   número y se copian de su archivo al escribir, sin crear ningún Producto.
+     */
+    static final class Volcado {
+        private final SnapshotColumnar base;
+        private final List<Fila> productos = new ArrayList<>();
+        private int[] filasBase = new int[16];
+        private int nBase;
+        private long valor, maxId;
+        private final long[] bytes = new long[4];
+
+        Volcado(SnapshotColumnar base) {
+            this.base = base;
+        }
+
+        void agregar(Producto p) {
+            Fila f;
+            synchronized (p) {
+                f = new Fila(p, Inventario.norm(p.getCodigo()));
+            }
+            if (f.e.observador == null) return; // salió del inventario mientras se recorría
+            productos.add(f);
+            valor += f.e.valorCentavos();
+            maxId = Math.max(maxId, f.e.idAlta);
+            bytes[0] += f.codigo.length;
+            bytes[1] += f.nombre == null ? 0 : f.nombre.length;
+            bytes[2] += f.descripcion == null ? 0 : f.descripcion.length;
+            bytes[3] += f.depositos == null ? 0 : f.depositos.length;
+        }
+
+        void agregarFila(int i) {
+            if (nBase == filasBase.length) filasBase = Arrays.copyOf(filasBase, nBase * 2);
+            filasBase[nBase++] = i;
+            valor += Producto.Estado.valorCentavos(base.precio(i), base.stock(i));
+            maxId = Math.max(maxId, base.idAlta(i));
+            bytes[0] += base.largoTexto(COD_OFF, i);
+            bytes[1] += base.largoTexto(NOM_OFF, i);
+            bytes[2] += base.largoTexto(DES_OFF, i);
+            bytes[3] += base.largoTexto(DEP_OFF, i);
+        }
+
+        /*
+         * Escribe las filas en 'archivo'. 'segmento' es el primer segmento de
+         * diario a reaplicar (0 si no aplica). Devuelve la cantidad de filas.
+         */
+        int escribir(Path archivo, long segmento) throws IOException {
+            int n = productos.size() + nBase;
+            int capHash = Integer.highestOneBit(Math.max(2, n * 2 - 1)) << 1;
+
+            long[] largo = new long[COLUMNAS];
+            largo[PRECIO] = 8L * n;
+            largo[ID_ALTA] = 8L * n;
+            largo[VERSION] = 8L * n;
+            largo[VERSION_TEXTO] = 8L * n;
+            largo[STOCK] = 4L * n;
+            largo[RESERVADO] = 4L * n;
+            largo[COD_OFF] = largo[NOM_OFF] = largo[DES_OFF] = largo[DEP_OFF] = 4L * (n + 1);
+            largo[HASH] = 4L * capHash;
+            largo[NULOS] = n;
+            largo[COD_BYTES] = bytes[0];
+            largo[NOM_BYTES] = bytes[1];
+            largo[DES_BYTES] = bytes[2];
+            largo[DEP_BYTES] = bytes[3];
+            long[] inicio = new long[COLUMNAS];
+            long pos = CABECERA;
+            for (int c = 0; c < COLUMNAS; c++) {
+                inicio[c] = pos;
+                pos = (pos + largo[c] + 7) & ~7L; // columnas alineadas a 8 bytes
+            }
+            if (pos > Integer.MAX_VALUE) throw new IOException("Snapshot mayor a 2 GB");
+
+            try (FileChannel c = FileChannel.open(archivo, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                MappedByteBuffer m = c.map(FileChannel.MapMode.READ_WRITE, 0, pos);
+                m.order(ByteOrder.LITTLE_ENDIAN);
+                m.putInt(0, MAGIA).putInt(4, FORMATO).putLong(8, n).putLong(16, segmento)
+                        .putLong(24, valor).putLong(32, maxId).putLong(40, capHash);
+                for (int k = 0; k < COLUMNAS; k++) m.putLong(48 + 8 * k, inicio[k]);
+
+                int[] off = new int[4];
+                int mascara = capHash - 1;
+                int i = 0;
+                for (Fila f : productos) {
+                    m.putDouble((int) inicio[PRECIO] + 8 * i, f.e.precio);
+                    m.putLong((int) inicio[ID_ALTA] + 8 * i, f.e.idAlta);
+                    m.putLong((int) inicio[VERSION] + 8 * i, f.e.version);
+                    m.putLong((int) inicio[VERSION_TEXTO] + 8 * i, f.versionTexto);
+                    m.putInt((int) inicio[STOCK] + 4 * i, f.e.stock);
+                    m.putInt((int) inicio[RESERVADO] + 4 * i, f.e.reservado);
+                    off[0] = ponerTexto(m, inicio, COD_OFF, COD_BYTES, i, off[0], f.codigo);
+                    off[1] = ponerTexto(m, inicio, NOM_OFF, NOM_BYTES, i, off[1], f.nombre);
+                    off[2] = ponerTexto(m, inicio, DES_OFF, DES_BYTES, i, off[2], f.descripcion);
+                    off[3] = ponerTexto(m, inicio, DEP_OFF, DEP_BYTES, i, off[3], f.depositos);
+                    m.put((int) inicio[NULOS] + i,
+                            (byte) ((f.nombre == null ? NOMBRE_NULO : 0) | (f.descripcion == null ? DESCRIPCION_NULA : 0)));
+                    ponerHash(m, inicio, mascara, f.hash, i++);
+                }
+                for (int k = 0; k < nBase; k++) {
+                    int fila = filasBase[k];
+                    m.putDouble((int) inicio[PRECIO] + 8 * i, base.precio(fila));
+                    m.putLong((int) inicio[ID_ALTA] + 8 * i, base.idAlta(fila));
+                    m.putLong((int) inicio[VERSION] + 8 * i, base.version(fila));
+                    m.putLong((int) inicio[VERSION_TEXTO] + 8 * i, base.versionTexto(fila));
+                    m.putInt((int) inicio[STOCK] + 4 * i, base.stock(fila));
+                    m.putInt((int) inicio[RESERVADO] + 4 * i, base.reservado(fila));
+                    off[0] = copiarTexto(m, inicio, COD_OFF, COD_BYTES, i, off[0], fila);
+                    off[1] = copiarTexto(m, inicio, NOM_OFF, NOM_BYTES, i, off[1], fila);
+                    off[2] = copiarTexto(m, inicio, DES_OFF, DES_BYTES, i, off[2], fila);
+                    off[3] = copiarTexto(m, inicio, DEP_OFF, DEP_BYTES, i, off[3], fila);
+                    m.put((int) inicio[NULOS] + i, base.buf.get((int) base.col[NULOS] + fila));
+                    ponerHash(m, inicio, mascara, base.codigo(fila).hashCode(), i++);
+                }
+                int[] offsets = {COD_OFF, NOM_OFF, DES_OFF, DEP_OFF};
+                for (int k = 0; k < 4; k++) m.putInt((int) inicio[offsets[k]] + 4 * n, off[k]);
+                m.force();
+            }
+            return n;
+        }
+
+        // Copia los bytes del texto de la fila 'fila' del snapshot base
+        private int copiarTexto(ByteBuffer m, long[] inicio, int offsets, int bytes, int i, int off, int fila) {
+            m.putInt((int) inicio[offsets] + 4 * i, off);
+            int largo = base.largoTexto(offsets, fila);
+            if (largo == 0) return off;
+            int desde = (int) base.col[bytes] + base.buf.getInt((int) base.col[offsets] + 4 * fila);
+            m.put((int) inicio[bytes] + off, base.buf, desde, largo);
+            return off + largo;
+        }
+    }
+
+    private static void ponerHash(ByteBuffer m, long[] inicio, int mascara, int hash, int i) {
+        int h = mezclar(hash) & mascara;
+        while (m.getInt((int) inicio[HASH] + 4 * h) != 0) h = (h + 1) & mascara;
+        m.putInt((int) inicio[HASH] + 4 * h, i + 1);
+    }
+
+    private static int ponerTexto(ByteBuffer m, long[] inicio, int offsets, int bytes, int i, int off, byte[] t) {
+        m.putInt((int) inicio[offsets] + 4 * i, off);
+        if (t == null) return off;
+        m.put((int) inicio[bytes] + off, t);
+        return off + t.length;
+    }
+}
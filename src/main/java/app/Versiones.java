@@ -0,0 +1,122 @@
+package app;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Versiones de los productos para las instantáneas (MVCC).
+ * - Un reloj lógico: cada Estado publicado recibe un 'sello' con la hora en
+ *   que quedó visible; una instantánea abierta en el momento M ve, de cada
+ *   producto, el último estado con sello <= M.
+ * - Cada Estado enlaza al que reemplazó (Estado.anterior). Tras cada
+ *   publicación se corta la cadena en el estado más viejo que alguna
+ *   instantánea abierta todavía puede ver: sin instantáneas la cadena queda
+ *   en un solo estado y escribir no acumula nada.
+ * - Lo que quedó retenido por una instantánea se anota en 'pendientes' y se
+ *   poda cuando se cierra (ver Inventario.barrer).
+ *
+ * Para no perder nada, quien poda sella primero y recién después mira cuál
+ * es la instantánea más vieja: una que se abra después ya ve esos sellos.
+ */
+final class Versiones {
+
+    // Instantánea abierta. Se ordena por (clave, id); clave <= momento.
+    static final class Lector {
+        final long clave;
+        final long id;
+        long momento;
+
+        Lector(long clave, long id) {
+            this.clave = clave;
+            this.id = id;
+        }
+    }
+
+    private final AtomicLong reloj = new AtomicLong(1);
+    private final AtomicLong ids = new AtomicLong();
+    private final ConcurrentSkipListMap<Lector, Boolean> lectores = new ConcurrentSkipListMap<>(
+            (a, b) -> a.clave != b.clave ? Long.compare(a.clave, b.clave) : Long.compare(a.id, b.id));
+    // Productos con historia o lápidas retenidas por alguna instantánea
+    private final Set<Producto> pendientes = ConcurrentHashMap.newKeySet();
+
+    /*
+     * Registra una instantánea. Se anota con la hora actual ANTES de fijar su
+     * momento: así ninguna poda concurrente corta algo que va a necesitar.
+     */
+    Lector abrir() {
+        Lector l = new Lector(reloj.get(), ids.incrementAndGet());
+        lectores.put(l, Boolean.TRUE);
+        l.momento = reloj.getAndIncrement();
+        return l;
+    }
+
+    void cerrar(Lector l) {
+        lectores.remove(l);
+    }
+
+    // Cota inferior del momento de la instantánea más vieja (MAX_VALUE si no hay)
+    long minimo() {
+        Map.Entry<Lector, Boolean> e = lectores.firstEntry();
+        return e == null ? Long.MAX_VALUE : e.getKey().clave;
+    }
+
+    long sellar(Producto.Estado e) {
+        return e.sellar(reloj.get());
+    }
+
+    // Se publicó 'n' en p: sella y poda su cadena
+    void publicado(Producto p, Producto.Estado n) {
+        if (podar(n)) return;
+        pendientes.add(p);
+        podar(n); // la instantánea pudo cerrarse antes de anotarlo: su barrido no lo vio
+    }
+
+    /*
+     * Sella toda la cadena desde 'n' y la corta en el primer estado que ve la
+     * instantánea más vieja. True si no queda historia detrás de 'n'.
+     */
+    boolean podar(Producto.Estado n) {
+        for (Producto.Estado x = n; x != null; x = x.anterior()) sellar(x);
+        long k = minimo();
+        for (Producto.Estado x = n; x != null; x = x.anterior()) {
+            if (x.sello() <= k) {
+                x.cortar();
+                break;
+            }
+        }
+        return n.anterior() == null;
+    }
+
+    /*
+     * Estado visible en 'momento' partiendo del actual; null si el producto
+     * todavía no estaba (o se creó después). Los que no tienen sello se
+     * sellan ahora: quedan después del momento de cualquier lector abierto.
+     */
+    Producto.Estado en(Producto.Estado actual, long momento) {
+        Producto.Estado x = actual;
+        while (x != null && sellar(x) > momento) x = x.anterior();
+        return x;
+    }
+
+    // Alguna instantánea abierta puede necesitar lo que había antes de 'e'
+    boolean necesario(Producto.Estado e) {
+        long s = sellar(e);
+        return minimo() < s;
+    }
+
+    void pendiente(Producto p) {
+        pendientes.add(p);
+    }
+
+    // Saca los pendientes para revisarlos (quien los revisa vuelve a anotar los que sigan retenidos)
+    List<Producto> tomarPendientes() {
+        List<Producto> out = new ArrayList<>(pendientes);
+        for (Producto p : out) pendientes.remove(p);
+        return out;
+    }
+}
@@ -0,0 +1,91 @@
+package app;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * Pruebas de los totales mantenidos al vuelo (informe en O(1)).
+ * Verifica:
+ *  - Formato en centavos igual al "%.2f" anterior.
+ *  - Los totales siguen cada comando, incluso con varios hilos.
+ *  - Un cambio cuyo valor (precio * stock) desborda un long se rechaza.
+ */
+class AgregadosTest {
+
+    @Test
+    void formato_centavos() {
+        assertEquals("0.00", Agregados.formatoCentavos(0));
+        assertEquals("0.05", Agregados.formatoCentavos(5));
+        assertEquals("350.00", Agregados.formatoCentavos(35000));
+        assertEquals("-1.50", Agregados.formatoCentavos(-150));
+    }
+
+    @Test
+    void informe_sigue_cada_comando() {
+        Inventario inv = new Inventario();
+        inv.agregarProducto("A","X","",100,2);          // 200
+        inv.agregar(new Producto("B","Y","",50,3));     // 150
+        inv.actualizarPrecio("A", 10.5);                // 21
+        inv.actualizarStock("B", 1);                    // 50
+        inv.actualizarProducto("A", null, null, null, 4); // 42
+        assertEquals("Productos: 2 | Valor inventario: 92.00", inv.generarInforme());
+
+        inv.descontarStock("A", 1);                     // 31.5
+        inv.eliminarPorCodigo("B");
+        assertEquals("Productos: 1 | Valor inventario: 31.50", inv.generarInforme());
+    }
+
+    @Test
+    void totales_exactos_con_varios_hilos() throws Exception {
+        Inventario inv = new Inventario();
+        for (int i = 0; i < 100; i++) inv.agregarProducto("C" + i, "P", "", 1.25, 1000);
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            CountDownLatch fin = new CountDownLatch(8);
+            for (int h = 0; h < 8; h++) {
+                int hilo = h;
+                pool.execute(() -> {
+                    for (int i = 0; i < 5000; i++) {
+                        String cod = "C" + (i % 100);
+                        if (i % 3 == 0) inv.actualizarPrecio(cod, hilo + 0.75);
+                        else inv.descontarStock(cod, 1);
+                        if (i % 500 == 0) inv.eliminarPorCodigo("C" + hilo);
+                    }
+                    fin.countDown();
+                });
+            }
+            assertTrue(fin.await(20, TimeUnit.SECONDS));
+        } finally {
+            pool.shutdownNow();
+        }
+
+        long esperado = 0;
+        for (ProductoRO p : inv.listarTodos()) esperado += Math.round(p.getPrecio() * 100) * p.getStock();
+        assertEquals("Productos: " + inv.listarTodos().size() + " | Valor inventario: "
+                + Agregados.formatoCentavos(esperado), inv.generarInforme());
+    }
+
+    @Test
+    void valor_que_desborda_se_rechaza() {
+        Inventario inv = new Inventario();
+        double enorme = 1e17; // 1e19 centavos: con stock 1 ya no entra en un long
+        assertFalse(inv.agregarProducto("A", "X", "", enorme, 2));
+        assertTrue(inv.agregarProducto("B", "Y", "", enorme, 0));
+        assertFalse(inv.actualizarStock("B", 1_000));
+        assertFalse(inv.incrementarStock("B", 1));
+        assertFalse(inv.incrementarStock("B", "NORTE", 1));
+        inv.actualizarProducto("B", null, null, null, 5);   // se ignora
+        assertEquals(0, inv.buscarPorCodigo("B").orElseThrow().getStock());
+
+        assertTrue(inv.agregarProducto("C", "Z", "", 10, Integer.MAX_VALUE));
+        assertFalse(inv.actualizarPrecio("C", 1e10));
+        assertFalse(inv.agregar(new Producto("D", "W", "", 1e12, Integer.MAX_VALUE)));
+        assertEquals(10.0, inv.buscarPorCodigo("C").orElseThrow().getPrecio());
+        assertEquals("Productos: 2 | Valor inventario: " + Agregados.formatoCentavos(1000L * Integer.MAX_VALUE),
+                inv.generarInforme());
+    }
+}
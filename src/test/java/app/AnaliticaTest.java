@@ -0,0 +1,103 @@
+package app;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * Pruebas del informe analítico.
+ * Verifica:
+ *  - Cada agregado coincide con calcularlo a mano sobre listarTodos.
+ *  - Mismo informe en Inventario e InventarioCompacto, también en paralelo.
+ *  - Límites de banda inválidos y el texto del informe.
+ */
+class AnaliticaTest {
+
+    private static long centavos(ProductoRO p) {
+        return Math.round(p.getPrecio() * 100);
+    }
+
+    @Test
+    void coincide_con_el_calculo_directo() {
+        Inventario inv = new Inventario();
+        SplittableRandom r = new SplittableRandom(3);
+        for (int i = 0; i < 5000; i++) inv.agregarProducto("P" + i, "N", "", r.nextInt(50_000) / 100.0, r.nextInt(5) == 0 ? 0 : r.nextInt(300));
+        double[] bandas = {10, 100, 250};
+        InformeAnalitico a = inv.informeAnalitico(bandas, 5);
+
+        List<ProductoRO> todos = inv.listarTodos();
+        assertEquals(todos.size(), a.productos());
+        assertEquals(todos.stream().filter(p -> p.getStock() == 0).count(), a.sinStock());
+        assertEquals(todos.stream().mapToLong(p -> centavos(p) * p.getStock()).sum(), a.valorCentavos());
+        assertEquals(todos.stream().mapToLong(AnaliticaTest::centavos).min().orElseThrow(), a.precioMinimoCentavos());
+        assertEquals(todos.stream().mapToLong(AnaliticaTest::centavos).max().orElseThrow(), a.precioMaximoCentavos());
+        assertEquals(todos.stream().mapToLong(AnaliticaTest::centavos).average().orElseThrow(), a.precioPromedioCentavos(), 1e-6);
+
+        long[] limites = {0, 1000, 10_000, 25_000, Long.MAX_VALUE};
+        for (int b = 0; b < 4; b++) {
+            long desde = limites[b], hasta = limites[b + 1];
+            List<ProductoRO> en = todos.stream().filter(p -> centavos(p) >= desde && centavos(p) < hasta).toList();
+            InformeAnalitico.Banda banda = a.bandas().get(b);
+            assertEquals(en.size(), banda.productos(), "banda " + b);
+            assertEquals(en.stream().mapToLong(p -> centavos(p) * p.getStock()).sum(), banda.valorCentavos());
+        }
+        assertEquals(-1, a.bandas().get(3).hastaCentavos());
+
+        List<Long> mayores = todos.stream().map(p -> centavos(p) * p.getStock())
+                .sorted(Comparator.reverseOrder()).limit(5).toList();
+        assertEquals(mayores, a.mayorValor().stream().map(InformeAnalitico.Destacado::valorCentavos).toList());
+        ProductoRO primero = inv.buscarPorCodigo(a.mayorValor().get(0).codigo()).orElseThrow();
+        assertEquals(mayores.get(0), centavos(primero) * primero.getStock());
+    }
+
+    @Test
+    void mismo_informe_en_paralelo_y_en_compacto() {
+        int n = Analitica.UMBRAL * 6 + 123; // varias hojas de fork-join
+        Inventario inv = new Inventario(n);
+        InventarioCompacto comp = new InventarioCompacto(n);
+        for (int i = 0; i < n; i++) {
+            double precio = (i * 37 % 100_000) / 100.0;
+            int stock = i % 11 == 0 ? 0 : i % 500;
+            inv.agregarProducto("C" + i, "", "", precio, stock);
+            comp.agregarProducto("C" + i, "", "", precio, stock);
+        }
+        for (int i = 0; i < n; i += 3) {
+            inv.eliminarPorCodigo("C" + i);
+            comp.eliminarPorCodigo("C" + i);
+        }
+        double[] bandas = {1, 5, 50, 500};
+        InformeAnalitico a = inv.informeAnalitico(bandas, 20);
+        InformeAnalitico b = comp.informeAnalitico(bandas, 20);
+        assertEquals(n - (n + 2) / 3, a.productos());
+        assertEquals(a.valorCentavos(), comp.valorCentavos());
+        assertEquals(a.bandas(), b.bandas());
+        assertEquals(a.sinStock(), b.sinStock());
+        assertEquals(a.precioPromedioCentavos(), b.precioPromedioCentavos(), 1e-9);
+        assertEquals(a.mayorValor().stream().map(InformeAnalitico.Destacado::valorCentavos).toList(),
+                b.mayorValor().stream().map(InformeAnalitico.Destacado::valorCentavos).toList());
+    }
+
+    @Test
+    void bandas_invalidas_y_texto() {
+        Inventario inv = new Inventario();
+        assertThrows(IllegalArgumentException.class, () -> inv.informeAnalitico(new double[]{10, 5}, 3));
+        assertThrows(IllegalArgumentException.class, () -> inv.informeAnalitico(new double[]{-1}, 3));
+        assertEquals(0, inv.informeAnalitico(null, 3).productos());
+
+        inv.agregarProducto("A", "Uno", "", 2.5, 4);
+        inv.agregarProducto("B", "Dos", "", 20, 0);
+        assertEquals("""
+                Productos: 2 | Valor inventario: 10.00
+                Sin stock: 1
+                Precio mínimo: 2.50 | máximo: 20.00 | promedio: 11.25
+                Bandas de precio:
+                  [0.00, 10.00): 1 productos | valor 10.00
+                  [10.00, ...): 1 productos | valor 0.00
+                Mayor valor:
+                  1) [A] 10.00""", inv.informeAnalitico(new double[]{10}, 1).toString());
+    }
+}
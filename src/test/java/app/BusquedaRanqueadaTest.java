@@ -0,0 +1,103 @@
+package app;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * Pruebas de la búsqueda ranqueada (IndiceDifuso).
+ * Verifica:
+ *  - Orden: exacta > prefijo > errores, y nombre antes que descripción.
+ *  - Errores de tipeo (1 y 2) y acentos.
+ *  - Top-K acotado, sin el de menor puntaje, y empatados por código.
+ *  - Altas, cambios de texto y bajas después de activado el índice.
+ */
+class BusquedaRanqueadaTest {
+
+    private static List<String> codigos(List<ProductoRO> l) {
+        return l.stream().map(ProductoRO::getCodigo).toList();
+    }
+
+    @Test
+    void ranking_nombre_antes_que_descripcion() {
+        Inventario inv = new Inventario();
+        inv.agregarProducto("D1", "Cable", "Para el teclado", 1, 1);
+        inv.agregarProducto("N1", "Teclado mecánico", "", 1, 1);
+        inv.agregarProducto("N2", "Teclados", "Pack", 1, 1);
+        inv.agregarProducto("X1", "Mouse", "Inalámbrico", 1, 1);
+
+        // exacta en nombre, prefijo en nombre, exacta en descripción
+        assertEquals(List.of("N1", "N2", "D1"), codigos(inv.buscarRanqueado("teclado", 10)));
+        // un prefijo en el nombre gana a la palabra exacta en la descripción
+        assertEquals(List.of("N1", "N2", "D1"), codigos(inv.buscarRanqueado("tecla", 10)));
+        // todas las palabras tienen que coincidir
+        assertEquals(List.of("N1"), codigos(inv.buscarRanqueado("teclado meca", 10)));
+        assertTrue(inv.buscarRanqueado("teclado mouse", 10).isEmpty());
+        assertTrue(inv.buscarRanqueado("  ", 10).isEmpty());
+        assertTrue(inv.buscarRanqueado("teclado", 0).isEmpty());
+    }
+
+    @Test
+    void errores_de_tipeo_y_acentos() {
+        Inventario inv = new Inventario();
+        inv.agregarProducto("A", "Monitor", "Descripción completa", 1, 1);
+        inv.agregarProducto("B", "Impresora", "Láser", 1, 1);
+        inv.agregarProducto("C", "Red", "", 1, 1);
+
+        assertEquals(List.of("A"), codigos(inv.buscarRanqueado("descripcion", 10)));
+        assertEquals(List.of("A"), codigos(inv.buscarRanqueado("DESCRIPCIÓN", 10)));
+        assertEquals(List.of("B"), codigos(inv.buscarRanqueado("laser", 10)));
+        assertEquals(List.of("A"), codigos(inv.buscarRanqueado("monitr", 10)));      // 1 borrado
+        assertEquals(List.of("A"), codigos(inv.buscarRanqueado("mointor", 10)));     // transposición
+        assertEquals(List.of("B"), codigos(inv.buscarRanqueado("impresosa", 10)));   // 1 cambio
+        assertEquals(List.of("B"), codigos(inv.buscarRanqueado("imprezoras", 10)));  // 2 errores
+        assertTrue(inv.buscarRanqueado("monxtxr", 10).isEmpty());                    // 7 letras: solo 1 error
+        assertTrue(inv.buscarRanqueado("rex", 10).isEmpty());                        // cortas: sin errores
+    }
+
+    @Test
+    void exacta_antes_que_error_y_top_k() {
+        Inventario inv = new Inventario();
+        inv.agregarProducto("T1", "Mesa", "", 1, 1);
+        inv.agregarProducto("T2", "Misa", "", 1, 1);
+        for (int i = 0; i < 50; i++) inv.agregarProducto(String.format("M%02d", i), "Mesa", "", 1, 1);
+
+        List<String> r = codigos(inv.buscarRanqueado("mesa", 5));
+        assertEquals(5, r.size());
+        assertFalse(r.contains("T2"));
+        assertEquals(r.stream().sorted().toList(), r); // a igual puntaje, por código
+        List<String> todos = codigos(inv.buscarRanqueado("mesa", 100));
+        assertEquals(52, todos.size());
+        assertEquals("T2", todos.get(51)); // el de 1 error al final
+    }
+
+    @Test
+    void sigue_los_cambios_del_inventario() {
+        Inventario inv = new Inventario();
+        inv.agregarProducto("A", "Silla", "", 1, 1);
+        assertEquals(List.of("A"), codigos(inv.buscarRanqueado("silla", 10))); // activa el índice
+
+        inv.agregarProducto("B", "Sillón", "", 1, 1);
+        assertEquals(List.of("A", "B"), codigos(inv.buscarRanqueado("sill", 10)));
+
+        inv.actualizarProducto("A", "Banco", null, null, null);
+        assertEquals(List.of("B"), codigos(inv.buscarRanqueado("sill", 10)));
+        assertEquals(List.of("A"), codigos(inv.buscarRanqueado("banco", 10)));
+
+        inv.eliminarPorCodigo("B");
+        assertTrue(inv.buscarRanqueado("sillon", 10).isEmpty());
+        inv.agregarProducto("B", "Sillón nuevo", "", 1, 1);
+        assertEquals(List.of("B"), codigos(inv.buscarRanqueado("sillon", 10)));
+    }
+
+    @Test
+    void distancia_con_transposiciones() {
+        assertEquals(0, IndiceDifuso.distancia("mesa", "mesa", 2));
+        assertEquals(1, IndiceDifuso.distancia("mesa", "msea", 2));
+        assertEquals(2, IndiceDifuso.distancia("mesa", "mxsx", 2));
+        assertEquals(3, IndiceDifuso.distancia("mesa", "otra cosa", 2)); // corta en max + 1
+        assertEquals("descripcion camion", IndiceDifuso.plegar("Descripción CAMIÓN"));
+    }
+}
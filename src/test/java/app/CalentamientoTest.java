@@ -0,0 +1,38 @@
+package app;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * Pruebas del calentamiento y la corrida de entrenamiento.
+ * Verifica:
+ *  - El recorrido completo termina sin errores (también el tramo HTTP).
+ *  - '--entrenar' solo calienta y termina, sin mostrar el menú.
+ */
+class CalentamientoTest {
+
+    @Test
+    void recorre_todo_sin_errores() throws Exception {
+        assertTrue(Calentamiento.correr() >= 0);
+    }
+
+    @Test
+    void entrenar_calienta_y_termina() {
+        PrintStream out0 = System.out;
+        ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        try {
+            System.setOut(new PrintStream(buf, true, StandardCharsets.UTF_8));
+            MenuPrincipal.main(new String[]{"--entrenar"});
+        } finally {
+            System.setOut(out0);
+        }
+        String salida = buf.toString(StandardCharsets.UTF_8);
+        assertTrue(salida.startsWith("Entrenamiento: "), salida);
+        assertFalse(salida.contains("Menú"), salida);
+    }
+}
@@ -0,0 +1,73 @@
+package app;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * Pruebas de los códigos compactos.
+ * Verifica:
+ *  - Empaquetado de códigos cortos, ida y vuelta, y los que no entran.
+ *  - Comparación contra bytes UTF-8 (ASCII y no ASCII).
+ *  - InventarioCompacto con códigos empaquetados y en la arena, también
+ *    después de compactar la arena.
+ */
+class CodigoTest {
+
+    @Test
+    void empaquetar_y_desempaquetar() {
+        for (String s : new String[]{"0", "00", "P123456", "abc-XYZ-09", "zzzzzzzzzz", "-"}) {
+            long x = Codigo.empaquetar(s);
+            assertNotEquals(0, x, s);
+            assertEquals(s, Codigo.desempaquetar(x));
+        }
+        assertNotEquals(Codigo.empaquetar("0"), Codigo.empaquetar("00"));
+        assertNotEquals(Codigo.empaquetar("A1"), Codigo.empaquetar("a1"));
+        assertEquals(0, Codigo.empaquetar("abc-XYZ-090")); // 11 caracteres
+        assertEquals(0, Codigo.empaquetar("A_1"));
+        assertEquals(0, Codigo.empaquetar("ñandú"));
+        assertEquals(0, Codigo.empaquetar("A 1"));
+    }
+
+    @Test
+    void igual_a_bytes_utf8() {
+        byte[] b = "xxcódigo ñyy".getBytes(StandardCharsets.UTF_8);
+        int largo = "código ñ".getBytes(StandardCharsets.UTF_8).length;
+        assertTrue(Codigo.igualUtf8("código ñ", b, 2, largo));
+        assertFalse(Codigo.igualUtf8("codigo ñ", b, 2, largo));
+        byte[] a = "--CODIGO-LARGO-1--".getBytes(StandardCharsets.UTF_8);
+        assertTrue(Codigo.igualUtf8("CODIGO-LARGO-1", a, 2, 14));
+        assertFalse(Codigo.igualUtf8("CODIGO-LARGO-2", a, 2, 14));
+        assertFalse(Codigo.igualUtf8("CODIGO-LARGO-", a, 2, 14));
+    }
+
+    @Test
+    void inventario_compacto_con_codigos_de_todo_tipo() {
+        InventarioCompacto inv = new InventarioCompacto();
+        String[] codigos = {"A1", "CODIGO-MUY-LARGO-123", "código ñ", "x_y", "0", "00"};
+        for (String c : codigos) assertTrue(inv.agregarProducto(" " + c + " ", "N", "D", 1, 5));
+        for (String c : codigos) {
+            assertFalse(inv.agregarProducto(c, "N", "D", 1, 5));
+            assertEquals(c, inv.buscarPorCodigo("\t" + c).orElseThrow().getCodigo());
+            assertTrue(inv.actualizarStock(c, 7));
+        }
+        assertTrue(inv.buscarPorCodigo("a1").isEmpty());
+        assertTrue(inv.buscarPorCodigo("000").isEmpty());
+
+        // Muchas ediciones de texto y una baja: la arena se compacta y los códigos siguen ahí
+        for (int i = 0; i < 2000; i++) {
+            assertTrue(inv.actualizarProducto(codigos[i % codigos.length], "Nombre " + i, "x".repeat(200), null, null));
+        }
+        assertTrue(inv.eliminarPorCodigo("A1"));
+        assertTrue(inv.buscarPorCodigo("A1").isEmpty());
+        for (int i = 1; i < codigos.length; i++) {
+            ProductoRO p = inv.buscarPorCodigo(codigos[i]).orElseThrow();
+            assertEquals(codigos[i], p.getCodigo());
+            assertEquals(7, p.getStock());
+        }
+        assertTrue(inv.eliminarPorCodigo("código ñ"));
+        assertEquals(codigos.length - 2, inv.cantidad());
+    }
+}
@@ -0,0 +1,107 @@
+package app;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * Pruebas de la importación/exportación CSV y TSV.
+ * Verifica:
+ *  - Exportar e importar conserva todos los campos (comas, comillas, saltos, null).
+ *  - Líneas rechazadas con su número y motivo.
+ *  - Archivos más grandes que el bloque de lectura y líneas muy largas.
+ */
+class CsvInventarioTest {
+
+    @TempDir
+    Path dir;
+
+    private static String volcado(Inventario inv) {
+        return inv.listarTodos().stream()
+                .sorted(Comparator.comparing(ProductoRO::getCodigo))
+                .map(p -> p.getCodigo() + "|" + p.getNombre() + "|" + p.getDescripcion() + "|" + p.getPrecio() + "|" + p.getStock())
+                .collect(Collectors.joining("\n"));
+    }
+
+    private Inventario ejemplo() {
+        Inventario inv = new Inventario();
+        inv.agregarProducto("A1", "Lápiz, grafito", "Dice \"HB\"", 500.25, 10);
+        inv.agregarProducto("B2", "Cuaderno", null, 1200, 5);
+        inv.agregarProducto("C3", "", "Línea 1\nLínea 2\tcon tab \\ y barra", 0.1, 0);
+        inv.agregarProducto("D4", "Ñandú", "", 1e7, Integer.MAX_VALUE);
+        return inv;
+    }
+
+    @Test
+    void ida_y_vuelta_en_csv_y_tsv() throws Exception {
+        Inventario original = ejemplo();
+        for (String nombre : new String[]{"inv.csv", "inv.tsv"}) {
+            Path archivo = dir.resolve(nombre);
+            assertEquals(4, CsvInventario.exportar(original, archivo));
+            Inventario copia = new Inventario();
+            CsvInventario.Resultado r = CsvInventario.importar(archivo, copia);
+            assertEquals(4, r.agregadas(), nombre + " " + r.rechazos());
+            assertEquals(0, r.rechazadas());
+            assertEquals(volcado(original), volcado(copia), nombre);
+        }
+    }
+
+    @Test
+    void rechaza_lineas_invalidas_con_su_numero() throws Exception {
+        Path archivo = dir.resolve("datos.csv");
+        Files.writeString(archivo, "\uFEFFcodigo,nombre,descripcion,precio,stock\r\n" +
+                "A1,Lapiz,HB,500,10\r\n" +              // 2 ok
+                "A2,Goma\r\n" +                         // 3 faltan columnas
+                " ,Sin codigo,,1,1\r\n" +               // 4 código vacío
+                "A3,Regla,,abc,1\r\n" +                 // 5 precio
+                "A4,Regla,,1,1.5\r\n" +                 // 6 stock
+                "A1,Otra vez,,1,1\r\n" +                // 7 duplicado
+                "A5,\"sin cerrar,,1,1\r\n" +            // 8.. comillas sin cerrar hasta el final
+                "\r\n", StandardCharsets.UTF_8);
+        Inventario inv = new Inventario();
+        CsvInventario.Resultado r = CsvInventario.importar(archivo, inv);
+        assertEquals(1, r.agregadas());
+        assertEquals(6, r.rechazadas());
+        assertEquals(List.of(3L, 4L, 5L, 6L, 7L, 8L),
+                r.rechazos().stream().map(CsvInventario.Rechazo::linea).collect(Collectors.toList()));
+        assertEquals("código duplicado", r.rechazos().get(4).motivo());
+
+        // Negativos: mismas reglas que agregarProducto (quedan en 0)
+        Path neg = dir.resolve("neg.tsv");
+        Files.writeString(neg, "N1\tNeg\t\\N\t-5\t-3\n", StandardCharsets.UTF_8);
+        assertEquals(1, CsvInventario.importar(neg, inv).agregadas());
+        ProductoRO p = inv.buscarPorCodigo("N1").orElseThrow();
+        assertEquals(0.0, p.getPrecio());
+        assertEquals(0, p.getStock());
+        assertNull(p.getDescripcion());
+    }
+
+    @Test
+    void archivos_grandes_y_lineas_largas() throws Exception {
+        Path archivo = dir.resolve("grande.csv");
+        String larga = "x".repeat(3 << 20); // más que el bloque de lectura
+        try (BufferedWriter w = Files.newBufferedWriter(archivo, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < 200_000; i++) {
+                w.write("P" + i + ",Producto " + i + ",," + (i % 1000) + "." + (i % 100) + "," + (i % 50) + "\n");
+            }
+            w.write("LARGO," + larga + ",,1,1\n");
+            w.write("ULTIMO,Sin salto final,,2,2");
+        }
+        Inventario inv = new Inventario(200_000);
+        CsvInventario.Resultado r = CsvInventario.importar(archivo, inv);
+        assertEquals(200_002, r.agregadas());
+        assertEquals(0, r.rechazadas());
+        assertEquals(larga, inv.buscarPorCodigo("LARGO").get().getNombre());
+        assertEquals(123.23, inv.buscarPorCodigo("P123123").get().getPrecio());
+        assertEquals(2, inv.buscarPorCodigo("ULTIMO").get().getStock());
+    }
+}
@@ -0,0 +1,120 @@
+package app;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * Pruebas del stock por depósito.
+ * Verifica:
+ *  - Transferencias atómicas que no cambian el total ni el informe.
+ *  - Los comandos sin depósito siguen funcionando sobre el total.
+ *  - Totales por depósito y productos por depósito mantenidos, también con
+ *    transferencias concurrentes.
+ *  - Las instantáneas ven el reparto de su momento.
+ */
+class DepositosTest {
+
+    private static Set<String> codigos(List<ProductoRO> l) {
+        return l.stream().map(ProductoRO::getCodigo).collect(Collectors.toSet());
+    }
+
+    @Test
+    void transferencias_y_comandos_sin_deposito() {
+        Inventario inv = new Inventario();
+        inv.agregarProducto("A", "Uno", "", 2, 10);
+        String informe = inv.generarInforme();
+
+        assertEquals(10, inv.stockEn("A", Depositos.PRINCIPAL).getAsInt());
+        assertTrue(inv.moverStock("A", Depositos.PRINCIPAL, "NORTE", 4));
+        assertTrue(inv.moverStock("A", "NORTE", " SUR ", 1));
+        assertFalse(inv.moverStock("A", "NORTE", "SUR", 4));  // en NORTE quedan 3
+        assertFalse(inv.moverStock("A", "NO-EXISTE", "SUR", 1));
+        assertFalse(inv.moverStock("X", Depositos.PRINCIPAL, "SUR", 1));
+        assertEquals(Map.of(Depositos.PRINCIPAL, 6, "NORTE", 3, "SUR", 1), inv.stockPorDeposito("A"));
+        assertEquals(10, inv.buscarPorCodigo("A").orElseThrow().getStock());
+        assertEquals(3, inv.buscarPorCodigo("A").orElseThrow().getStockEn("NORTE"));
+        assertEquals(informe, inv.generarInforme());
+
+        assertTrue(inv.reservarStock("A", 8));
+        assertFalse(inv.descontarStock("A", "NORTE", 3)); // solo 2 disponibles
+        assertTrue(inv.descontarStock("A", "NORTE", 2));
+        assertTrue(inv.liberarReserva("A", 8));
+        assertTrue(inv.incrementarStock("A", 5));          // entra a PRINCIPAL
+        assertTrue(inv.descontarStock("A", 12));           // sale de PRINCIPAL (11) y luego de NORTE
+        assertEquals(Map.of("SUR", 1), inv.stockPorDeposito("A"));
+        assertTrue(inv.actualizarStock("A", 4));
+        assertEquals(Map.of(Depositos.PRINCIPAL, 3, "SUR", 1), inv.stockPorDeposito("A"));
+        assertTrue(inv.incrementarStock("A", "ESTE", 2));
+        assertEquals(6, inv.stockDisponible("A").getAsInt());
+        assertEquals("Productos: 1 | Valor inventario: 12.00", inv.generarInforme());
+    }
+
+    @Test
+    void totales_y_productos_por_deposito() {
+        Inventario inv = new Inventario();
+        for (int i = 0; i < 20; i++) inv.agregarProducto("P" + i, "", "", 1, 20);
+        for (int i = 0; i < 20; i += 2) inv.moverStock("P" + i, Depositos.PRINCIPAL, "CENTRO", i);
+        assertEquals(90, inv.stockTotalEn("CENTRO"));     // 0 + 2 + ... + 18
+        assertEquals(310, inv.stockTotalEn(Depositos.PRINCIPAL));
+        assertEquals(9, inv.productosEn("CENTRO").size()); // P0 no movió nada
+
+        // Ya activo: se mantiene con cada cambio
+        inv.moverStock("P18", "CENTRO", Depositos.PRINCIPAL, 18);
+        inv.eliminarPorCodigo("P16");
+        inv.incrementarStock("P1", "CENTRO", 7);
+        assertEquals(90 - 18 - 16 + 7, inv.stockTotalEn("CENTRO"));
+        assertEquals(Set.of("P1", "P2", "P4", "P6", "P8", "P10", "P12", "P14"), codigos(inv.productosEn("CENTRO")));
+        assertEquals(0, inv.stockTotalEn("OTRO"));
+        assertTrue(inv.productosEn("OTRO").isEmpty());
+    }
+
+    @Test
+    void transferencias_concurrentes() throws Exception {
+        Inventario inv = new Inventario();
+        String[] depositos = {Depositos.PRINCIPAL, "D1", "D2", "D3"};
+        for (int i = 0; i < 10; i++) inv.agregarProducto("C" + i, "", "", 1, 1000);
+        assertEquals(10_000, inv.stockTotalEn(Depositos.PRINCIPAL));
+        List<Thread> hilos = new ArrayList<>();
+        for (int h = 0; h < 6; h++) {
+            int semilla = h;
+            hilos.add(new Thread(() -> {
+                Random r = new Random(semilla);
+                for (int k = 0; k < 20_000; k++) {
+                    inv.moverStock("C" + r.nextInt(10), depositos[r.nextInt(4)], depositos[r.nextInt(4)], 1 + r.nextInt(5));
+                }
+            }));
+        }
+        hilos.forEach(Thread::start);
+        for (Thread t : hilos) t.join();
+
+        long suma = 0;
+        for (String d : depositos) {
+            long enD = 0;
+            for (int i = 0; i < 10; i++) enD += inv.stockEn("C" + i, d).getAsInt();
+            assertEquals(enD, inv.stockTotalEn(d), d);
+            suma += enD;
+        }
+        assertEquals(10_000, suma);
+        for (int i = 0; i < 10; i++) assertEquals(1000, inv.buscarPorCodigo("C" + i).orElseThrow().getStock());
+    }
+
+    @Test
+    void instantanea_ve_el_reparto_de_su_momento() {
+        Inventario inv = new Inventario();
+        inv.agregarProducto("A", "", "", 1, 5);
+        inv.moverStock("A", Depositos.PRINCIPAL, "NORTE", 2);
+        try (Instantanea s = inv.snapshot()) {
+            inv.moverStock("A", "NORTE", Depositos.PRINCIPAL, 2);
+            assertEquals(2, s.buscarPorCodigo("A").orElseThrow().getStockEn("NORTE"));
+            assertEquals(0, inv.stockEn("A", "NORTE").getAsInt());
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package app;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * Pruebas del dinero en punto fijo.
+ * Verifica:
+ *  - Conversión a centavos y rechazo de precios inválidos.
+ *  - La suma por columnas es exacta aun cerca del límite de un long.
+ *  - El inventario compacto rechaza lo que desbordaría el valor total.
+ */
+class DineroTest {
+
+    @Test
+    void conversion_a_centavos() {
+        assertEquals(1050, Dinero.centavos(10.5));
+        assertEquals(1, Dinero.centavos(0.005));
+        assertEquals(0, Dinero.centavos(0));
+        assertEquals(-1, Dinero.centavos(-0.01));
+        assertEquals(-1, Dinero.centavos(Double.NaN));
+        assertEquals(-1, Dinero.centavos(Double.POSITIVE_INFINITY));
+        assertEquals(Dinero.MAX_CENTAVOS, Dinero.centavos(Dinero.MAX_CENTAVOS / 100.0));
+        assertEquals(-1, Dinero.centavos(Dinero.MAX_CENTAVOS / 100.0 + 1));
+        assertThrows(ArithmeticException.class, () -> Dinero.valor(Long.MAX_VALUE / 2, 3));
+    }
+
+    @Test
+    void total_exacto_por_columnas() {
+        SplittableRandom r = new SplittableRandom(7);
+        int n = 10_000;
+        long[] precio = new long[n];
+        int[] stock = new int[n];
+        BigInteger esperado = BigInteger.ZERO;
+        for (int i = 0; i < n; i++) {
+            precio[i] = r.nextLong(Dinero.MAX_CENTAVOS + 1);
+            stock[i] = r.nextInt(200);
+            esperado = esperado.add(BigInteger.valueOf(precio[i]).multiply(BigInteger.valueOf(stock[i])));
+        }
+        assertEquals(esperado.longValueExact(), Dinero.total(precio, stock, n));
+
+        // Dos términos cerca de 2^63: cada uno entra en un long, la suma no
+        long[] grandes = {Dinero.MAX_CENTAVOS, Dinero.MAX_CENTAVOS};
+        int[] muchos = {Integer.MAX_VALUE, Integer.MAX_VALUE};
+        assertEquals(Dinero.MAX_CENTAVOS * Integer.MAX_VALUE, Dinero.total(grandes, muchos, 1));
+        assertThrows(ArithmeticException.class, () -> Dinero.total(grandes, muchos, 2));
+    }
+
+    @Test
+    void compacto_rechaza_desbordes() {
+        InventarioCompacto comp = new InventarioCompacto();
+        assertTrue(comp.agregarProductoCentavos("A", "Caro", "", Dinero.MAX_CENTAVOS, Integer.MAX_VALUE));
+        assertFalse(comp.agregarProductoCentavos("B", "Otro", "", Dinero.MAX_CENTAVOS, 2));
+        assertTrue(comp.buscarPorCodigo("B").isEmpty());
+        assertFalse(comp.agregarProductoCentavos("C", "Inválido", "", Dinero.MAX_CENTAVOS + 1, 1));
+
+        assertTrue(comp.agregarProductoCentavos("B", "Otro", "", 199, 3));
+        assertFalse(comp.actualizarPrecioCentavos("B", Dinero.MAX_CENTAVOS)); // no entra junto a A: no cambia nada
+        assertEquals(1.99, comp.buscarPorCodigo("B").orElseThrow().getPrecio());
+        assertTrue(comp.actualizarProductoCentavos("B", null, null, 250, -1));
+        assertEquals(2.5, comp.buscarPorCodigo("B").orElseThrow().getPrecio());
+        assertEquals(Dinero.MAX_CENTAVOS * Integer.MAX_VALUE + 750, comp.valorCentavos());
+        assertEquals(comp.valorCentavos(), comp.recalcularValorCentavos());
+        assertEquals("[B] Otro -  | Precio: 2.50 | Stock: 3", comp.buscarPorCodigo("B").orElseThrow().descripcionDetallada());
+    }
+}
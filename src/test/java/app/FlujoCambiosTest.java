@@ -0,0 +1,216 @@
+package app;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * Pruebas del flujo de cambios (FlujoCambios).
+ * Verifica:
+ *  - Un evento tipado por alta, baja, precio, stock y texto, con antes/después.
+ *  - Una transferencia entre depósitos llega como STOCK con el reparto.
+ *  - Contrapresión sin frenar a los escritores: el suscriptor trabado (o que
+ *    espera el lock de un producto) se da de baja al dar la vuelta el anillo,
+ *    con un error, y los demás siguen sin perder eventos.
+ *  - Reanudar desde una secuencia y rechazo de las ya descartadas.
+ *  - Muchos escritores concurrentes: secuencias contiguas y en orden.
+ */
+class FlujoCambiosTest {
+
+    private static List<FlujoCambios.Evento> tomar(BlockingQueue<FlujoCambios.Evento> q, int n) throws Exception {
+        List<FlujoCambios.Evento> out = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            FlujoCambios.Evento e = q.poll(5, TimeUnit.SECONDS);
+            assertNotNull(e, "faltan eventos: llegaron " + out.size() + " de " + n);
+            out.add(e);
+        }
+        return out;
+    }
+
+    @Test
+    void un_evento_por_cada_cambio() throws Exception {
+        Inventario inv = new Inventario();
+        BlockingQueue<FlujoCambios.Evento> q = new LinkedBlockingQueue<>();
+        try (FlujoCambios.Suscripcion s = inv.flujoCambios().suscribir(q::addAll)) {
+            inv.agregarProducto("A1", "Lapiz", "HB", 100, 10);
+            inv.actualizarPrecio("A1", 120);
+            inv.descontarStock("A1", 3);
+            inv.actualizarProducto("A1", "Lapicera", null, 150.0, 20); // texto + precio + stock
+            inv.reservarStock("A1", 2);
+            inv.actualizarStock("A1", 20); // sin cambios: no hay evento
+            inv.eliminarPorCodigo("A1");
+
+            List<FlujoCambios.Evento> ev = tomar(q, 8);
+            assertEquals(List.of(FlujoCambios.Tipo.ALTA, FlujoCambios.Tipo.PRECIO, FlujoCambios.Tipo.STOCK,
+                    FlujoCambios.Tipo.TEXTO, FlujoCambios.Tipo.PRECIO, FlujoCambios.Tipo.STOCK,
+                    FlujoCambios.Tipo.STOCK, FlujoCambios.Tipo.BAJA), ev.stream().map(FlujoCambios.Evento::tipo).toList());
+            for (int i = 0; i < ev.size(); i++) assertEquals(i + 1, ev.get(i).secuencia());
+            assertNull(ev.get(0).antes());
+            assertEquals(10, ev.get(0).despues().stock());
+            assertEquals(100.0, ev.get(1).antes().precio());
+            assertEquals(120.0, ev.get(1).despues().precio());
+            assertEquals(7, ev.get(2).despues().stock());
+            assertEquals("Lapiz", ev.get(3).antes().nombre());
+            assertEquals("Lapicera", ev.get(3).despues().nombre());
+            assertEquals(2, ev.get(6).despues().reservado());
+            assertNull(ev.get(7).despues());
+            assertEquals("A1", ev.get(7).codigo());
+            assertEquals(ev.get(0).idAlta(), ev.get(7).idAlta());
+            assertTrue(q.isEmpty());
+            // 'procesado' avanza cuando recibir() vuelve, un poco después de que llegan los eventos
+            long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (s.procesado() < 8 && System.nanoTime() < limite) Thread.onSpinWait();
+            assertEquals(8, s.procesado());
+        }
+    }
+
+    @Test
+    void suscriptor_trabado_se_da_de_baja_sin_frenar_a_los_escritores() throws Exception {
+        Inventario inv = new Inventario();
+        FlujoCambios f = new FlujoCambios(8);
+        inv.registrar(f.oyente());
+        inv.agregarProducto("A1", "Lapiz", "", 1, 0);
+
+        CountDownLatch nunca = new CountDownLatch(1);
+        FlujoCambios.Suscripcion trabada = f.suscribir(1, lote -> {
+            try {
+                nunca.await();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        List<Long> recibidas = new ArrayList<>();
+        FlujoCambios.Suscripcion sana = f.suscribir(1, lote -> {
+            for (FlujoCambios.Evento e : lote) recibidas.add(e.secuencia());
+        });
+        for (int i = 0; i < 100; i++) {
+            inv.incrementarStock("A1", 1); // nunca espera al suscriptor trabado
+            // La sana va al día: solo la trabada se atrasa una vuelta
+            long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (sana.procesado() < f.ultimaSecuencia() && System.nanoTime() < limite) Thread.onSpinWait();
+        }
+        assertInstanceOf(IllegalStateException.class, trabada.error());
+        assertThrows(IllegalArgumentException.class, () -> f.suscribir(trabada.procesado() + 1, lote -> { }));
+
+        sana.close();
+        assertNull(sana.error());
+        assertEquals(101, recibidas.size());
+        for (int i = 0; i < recibidas.size(); i++) assertEquals(i + 1, recibidas.get(i));
+        nunca.countDown();
+    }
+
+    @Test
+    void suscriptor_que_espera_un_producto_no_traba_al_escritor() throws Exception {
+        Inventario inv = new Inventario();
+        FlujoCambios f = new FlujoCambios(8);
+        inv.registrar(f.oyente());
+
+        // Activar el índice ordenado toma el lock de cada producto; se activa
+        // cuando el escritor ya dio la vuelta al anillo con el lock de un alta
+        CountDownLatch dentro = new CountDownLatch(1);
+        CountDownLatch activado = new CountDownLatch(1);
+        FlujoCambios.Suscripcion s = f.suscribir(lote -> {
+            if (activado.getCount() > 0) {
+                dentro.countDown();
+                long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+                while (f.ultimaSecuencia() <= f.capacidad() && System.nanoTime() < limite) Thread.onSpinWait();
+                inv.listar(null, 10, Orden.PRECIO);
+                activado.countDown();
+            }
+        });
+        inv.agregarProducto("P0", "Producto", "", 1, 1);
+        assertTrue(dentro.await(10, TimeUnit.SECONDS));
+        Thread escritor = new Thread(() -> {
+            for (int i = 1; i < 2_000; i++) inv.agregarProducto("P" + i, "Producto", "", 1 + i, 1);
+        });
+        escritor.start();
+        escritor.join(20_000);
+        assertFalse(escritor.isAlive(), "escritor y suscriptor quedaron trabados");
+        assertTrue(activado.await(10, TimeUnit.SECONDS));
+        assertEquals(2_000, inv.listar(null, 5_000, Orden.PRECIO).productos().size());
+        s.close();
+    }
+
+    @Test
+    void reanuda_desde_una_secuencia() throws Exception {
+        Inventario inv = new Inventario();
+        FlujoCambios f = new FlujoCambios(16);
+        inv.registrar(f.oyente());
+        inv.agregarProducto("A1", "Lapiz", "", 1, 0);
+        for (int i = 0; i < 5; i++) inv.incrementarStock("A1", 1);
+
+        BlockingQueue<FlujoCambios.Evento> q = new LinkedBlockingQueue<>();
+        FlujoCambios.Suscripcion s = f.suscribir(1, q::addAll);
+        tomar(q, 6);
+        s.close(); // espera al hilo: recién ahí 'procesado' incluye el último lote
+        long ultima = s.procesado();
+
+        for (int i = 0; i < 5; i++) inv.incrementarStock("A1", 1); // mientras no había nadie
+        BlockingQueue<FlujoCambios.Evento> q2 = new LinkedBlockingQueue<>();
+        try (FlujoCambios.Suscripcion s2 = f.suscribir(ultima + 1, q2::addAll)) {
+            List<FlujoCambios.Evento> ev = tomar(q2, 5);
+            assertEquals(ultima + 1, ev.get(0).secuencia());
+            assertEquals(6, ev.get(0).despues().stock());
+        }
+
+        for (int i = 0; i < 20; i++) inv.incrementarStock("A1", 1); // da la vuelta al anillo
+        assertThrows(IllegalArgumentException.class, () -> f.suscribir(1, q::addAll));
+        assertThrows(IllegalArgumentException.class, () -> f.suscribir(0, q::addAll));
+    }
+
+    @Test
+    void transferencia_entre_depositos_es_un_cambio_de_stock() throws Exception {
+        Inventario inv = new Inventario();
+        FlujoCambios f = new FlujoCambios(16);
+        inv.registrar(f.oyente());
+        inv.agregarProducto("A1", "Lapiz", "", 1, 10);
+        assertTrue(inv.moverStock("A1", Depositos.PRINCIPAL, "Norte", 4));
+
+        BlockingQueue<FlujoCambios.Evento> q = new LinkedBlockingQueue<>();
+        try (FlujoCambios.Suscripcion s = f.suscribir(1, q::addAll)) {
+            FlujoCambios.Evento e = tomar(q, 2).get(1);
+            assertEquals(FlujoCambios.Tipo.STOCK, e.tipo());
+            assertEquals(10, e.despues().stock());
+            assertEquals(Map.of(Depositos.PRINCIPAL, 10), e.antes().depositos());
+            assertEquals(Map.of(Depositos.PRINCIPAL, 6, "Norte", 4), e.despues().depositos());
+        }
+    }
+
+    @Test
+    void escritores_concurrentes_en_orden_de_secuencia() throws Exception {
+        Inventario inv = new Inventario();
+        FlujoCambios f = new FlujoCambios(1 << 17); // no da la vuelta: nadie se da de baja
+        inv.registrar(f.oyente());
+        for (int h = 0; h < 4; h++) inv.agregarProducto("P" + h, "", "", 1, 0);
+
+        long[] esperada = {5};
+        boolean[] roto = {false};
+        FlujoCambios.Suscripcion s = f.suscribir(5, lote -> {
+            for (FlujoCambios.Evento e : lote) {
+                if (e.secuencia() != esperada[0]++) roto[0] = true;
+            }
+        });
+        Thread[] hilos = new Thread[4];
+        for (int h = 0; h < hilos.length; h++) {
+            String cod = "P" + h;
+            hilos[h] = new Thread(() -> {
+                for (int i = 0; i < 20_000; i++) inv.incrementarStock(cod, 1);
+            });
+            hilos[h].start();
+        }
+        for (Thread t : hilos) t.join();
+        long fin = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (s.procesado() < 80_004 && System.nanoTime() < fin) Thread.sleep(1);
+        s.close();
+        assertEquals(80_004, s.procesado());
+        assertFalse(roto[0]);
+    }
+}
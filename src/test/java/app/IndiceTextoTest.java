@@ -0,0 +1,50 @@
+package app;
+
+import org.junit.jupiter.api.Test;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * Pruebas del índice de trigramas usado por buscarPorNombre.
+ * Verifica que los resultados coinciden con el 'contains' en minúsculas
+ * y que el índice sigue a las altas, bajas y cambios de texto.
+ */
+class IndiceTextoTest {
+
+    @Test
+    void busca_subcadenas_cortas_y_largas() {
+        Inventario inv = new Inventario();
+        inv.agregarProducto("A1","Lapiz","Grafito HB",500,10);
+        inv.agregarProducto("B2","Cuaderno","80 hojas",1200,5);
+        inv.agregarProducto("C3","Goma",null,300,1);
+
+        assertEquals(1, inv.buscarPorNombre("GRAFITO").size());
+        assertEquals(1, inv.buscarPorNombre("hb").size());      // menos de 3 caracteres
+        assertEquals(1, inv.buscarPorNombre("ma").size());      // descripción nula
+        assertEquals(3, inv.buscarPorNombre("o").size());
+        assertTrue(inv.buscarPorNombre("lapiz grafito").isEmpty()); // no cruza nombre y descripción
+    }
+
+    @Test
+    void indice_sigue_altas_bajas_y_cambios() {
+        Inventario inv = new Inventario();
+        inv.agregarProducto("A1","Lapiz","HB",500,10);
+        inv.agregar(new Producto("B2","Regla","30 cm",900,3));
+        assertEquals(1, inv.buscarPorTexto("regla").size());
+
+        inv.actualizarProducto("A1","Portaminas",null,null,null);
+        assertTrue(inv.buscarPorNombre("lapiz").isEmpty());
+        List<ProductoRO> r = inv.buscarPorNombre("minas");
+        assertEquals(1, r.size());
+        assertEquals("A1", r.get(0).getCodigo());
+
+        inv.eliminarPorCodigo("B2");
+        assertTrue(inv.buscarPorNombre("regla").isEmpty());
+
+        // Ya encendido por las búsquedas: sigue las altas y cambios nuevos
+        inv.agregarProducto("C3","Goma","Blanda",300,4);
+        inv.actualizarProducto("A1",null,"Minas 0.5",null,null);
+        assertEquals(1, inv.buscarPorNombre("goma").size());
+        assertEquals(1, inv.buscarPorNombre("0.5").size());
+    }
+}
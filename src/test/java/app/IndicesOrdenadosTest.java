@@ -0,0 +1,157 @@
+package app;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * Pruebas de los listados ordenados y paginados.
+ * Verifica:
+ *  - Recorrer con cursor entrega todo, en orden y sin repetir.
+ *  - Los índices siguen a los cambios de precio, stock, nombre y bajas.
+ *  - Índices coherentes tras escrituras concurrentes.
+ *  - Consultas por rango de precio/stock y reporte de reposición.
+ */
+class IndicesOrdenadosTest {
+
+    private static final Comparator<ProductoRO> POR_CODIGO = Comparator.comparing(ProductoRO::getCodigo);
+
+    private static Comparator<ProductoRO> comparador(Orden orden) {
+        return switch (orden) {
+            case CODIGO -> POR_CODIGO;
+            case NOMBRE -> Comparator.comparing((ProductoRO p) -> p.getNombre() == null ? "" : p.getNombre(),
+                    String.CASE_INSENSITIVE_ORDER).thenComparing(POR_CODIGO);
+            case PRECIO -> Comparator.comparingDouble(ProductoRO::getPrecio).thenComparing(POR_CODIGO);
+            case STOCK  -> Comparator.comparingInt(ProductoRO::getStock).thenComparing(POR_CODIGO);
+        };
+    }
+
+    private static List<String> codigos(List<ProductoRO> productos) {
+        return productos.stream().map(ProductoRO::getCodigo).collect(Collectors.toList());
+    }
+
+    // Recorre todas las páginas con cursor
+    private static List<ProductoRO> recorrer(Inventario inv, Orden orden, int limite) {
+        List<ProductoRO> out = new ArrayList<>();
+        String cursor = null;
+        do {
+            Pagina p = inv.listar(cursor, limite, orden);
+            assertTrue(p.productos().size() <= limite);
+            out.addAll(p.productos());
+            cursor = p.siguiente();
+        } while (cursor != null);
+        return out;
+    }
+
+    @Test
+    void paginas_con_cursor_en_cada_orden() {
+        Inventario inv = new Inventario();
+        for (int i = 0; i < 1000; i++) {
+            inv.agregarProducto("C" + i, (i % 2 == 0 ? "prod " : "Prod ") + (i % 37), null, (i * 7) % 101, (i * 13) % 50);
+        }
+        inv.agregarProducto("SIN", null, null, 1, 1);
+        for (Orden o : Orden.values()) {
+            List<ProductoRO> esperado = new ArrayList<>(inv.listarTodos());
+            esperado.sort(comparador(o));
+            assertEquals(codigos(esperado), codigos(recorrer(inv, o, 33)), o.name());
+            assertEquals(codigos(esperado), codigos(inv.stream(o).collect(Collectors.toList())), o.name());
+        }
+        Pagina p = inv.listar(990, 50, Orden.CODIGO);
+        assertEquals(11, p.productos().size());
+        assertNull(p.siguiente());
+        assertThrows(IllegalArgumentException.class, () -> inv.listar("basura", 10, Orden.PRECIO));
+        assertEquals(1001, inv.stream().count());
+    }
+
+    @Test
+    void indices_siguen_a_los_cambios() {
+        Inventario inv = new Inventario();
+        inv.agregarProducto("A", "Uno", "", 10, 5);
+        inv.agregarProducto("B", "Dos", "", 20, 3);
+        inv.agregarProducto("C", "Tres", "", 30, 1);
+        assertEquals(List.of("A", "B", "C"), codigos(inv.listar(null, 10, Orden.PRECIO).productos()));
+
+        inv.actualizarPrecio("A", 99);
+        inv.descontarStock("A", 5);
+        inv.actualizarProducto("C", "Cero", null, null, null);
+        inv.eliminarPorCodigo("B");
+        inv.agregarProducto("B", "Bis", "", 1, 100);
+
+        assertEquals(List.of("B", "C", "A"), codigos(inv.listar(null, 10, Orden.PRECIO).productos()));
+        assertEquals(List.of("A", "C", "B"), codigos(inv.listar(null, 10, Orden.STOCK).productos()));
+        assertEquals(List.of("B", "C", "A"), codigos(inv.listar(null, 10, Orden.NOMBRE).productos()));
+
+        // Cursor de una página vieja sigue sirviendo tras cambios
+        Pagina primera = inv.listar(null, 1, Orden.CODIGO);
+        inv.eliminarPorCodigo("A");
+        assertEquals(List.of("B", "C"), codigos(inv.listar(primera.siguiente(), 10, Orden.CODIGO).productos()));
+    }
+
+    @Test
+    void indices_coherentes_tras_escrituras_concurrentes() throws Exception {
+        Inventario inv = new Inventario();
+        for (int i = 0; i < 200; i++) inv.agregarProducto("P" + i, "N", "", 10, 1000);
+        inv.listar(null, 1, Orden.PRECIO); // activa los índices
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> tareas = new ArrayList<>();
+            for (int h = 0; h < 4; h++) {
+                int hilo = h;
+                tareas.add(pool.submit(() -> {
+                    for (int i = 0; i < 5000; i++) {
+                        String cod = "P" + (i % 200);
+                        switch (i % 4) {
+                            case 0 -> inv.descontarStock(cod, 1);
+                            case 1 -> inv.actualizarPrecio(cod, (hilo * 31 + i) % 97);
+                            case 2 -> inv.actualizarProducto(cod, "N" + (i % 5), null, null, null);
+                            default -> {
+                                inv.eliminarPorCodigo("X" + (i % 3));
+                                inv.agregarProducto("X" + (i % 3), "Temp", "", i % 11, 1);
+                            }
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> t : tareas) t.get(30, TimeUnit.SECONDS);
+        } finally {
+            pool.shutdownNow();
+        }
+        for (Orden o : Orden.values()) {
+            List<ProductoRO> esperado = new ArrayList<>(inv.listarTodos());
+            esperado.sort(comparador(o));
+            assertEquals(codigos(esperado), codigos(recorrer(inv, o, 17)), o.name());
+        }
+    }
+
+    @Test
+    void rangos_de_precio_y_stock() {
+        Inventario inv = new Inventario();
+        for (int i = 0; i < 100; i++) inv.agregarProducto("R" + i, "N", "", i * 0.5, 100 - i);
+
+        List<ProductoRO> r = inv.buscarPorPrecio(10, 12);
+        assertEquals(List.of("R20", "R21", "R22", "R23", "R24"), codigos(r));
+        assertEquals(List.of("R99", "R98", "R97"), codigos(inv.buscarPorStock(1, 3)));
+        assertTrue(inv.buscarPorPrecio(5, 1).isEmpty());
+        assertTrue(inv.buscarPorPrecio(Double.NaN, 1).isEmpty());
+
+        // Cambios incrementales: entran y salen del rango
+        inv.actualizarPrecio("R0", 11);
+        inv.actualizarProducto("R22", null, null, 50.0, null);
+        assertEquals(List.of("R20", "R21", "R0", "R23", "R24"), codigos(inv.buscarPorPrecio(10, 12)));
+
+        inv.descontarStock("R50", 48);
+        inv.eliminarPorCodigo("R98");
+        assertEquals(List.of("R99", "R50", "R97"), codigos(inv.informeReposicion(4)));
+        assertTrue(inv.informeReposicion(0).isEmpty());
+    }
+}
@@ -0,0 +1,117 @@
+package app;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * Pruebas de las instantáneas del inventario (Inventario.snapshot).
+ * Verifica:
+ *  - No ven cambios posteriores: precio, stock, texto, altas, bajas y re-altas.
+ *  - Con escritores concurrentes, leerla dos veces da exactamente lo mismo.
+ *  - Al cerrarla se poda la historia y las lápidas; sin instantáneas no se acumula nada.
+ */
+class InstantaneaTest {
+
+    private static Producto interno(Inventario inv, String cod) {
+        return (Producto) inv.buscarPorCodigo(cod).orElseThrow();
+    }
+
+    @Test
+    void no_ve_cambios_posteriores() {
+        Inventario inv = new Inventario();
+        inv.agregarProducto("A1", "Lapiz", "HB", 100, 10);
+        inv.agregarProducto("B2", "Goma", "Blanca", 50, 4);
+
+        Instantanea foto = inv.snapshot();
+        inv.actualizarProducto("A1", "Lapicera", "Azul", 300.0, 1);
+        inv.descontarStock("A1", 1);
+        inv.eliminarPorCodigo("B2");
+        inv.agregarProducto("C3", "Regla", "", 10, 10);
+        inv.agregarProducto("B2", "Goma nueva", "", 75, 8); // re-alta con el mismo código
+        inv.eliminarPorCodigo("B2");
+        inv.agregarProducto("B2", "Goma otra vez", "", 80, 9);
+
+        ProductoRO a = foto.buscarPorCodigo(" A1 ").orElseThrow();
+        assertEquals("[A1] Lapiz - HB | Precio: 100.00 | Stock: 10", a.descripcionDetallada());
+        assertEquals("Goma", foto.buscarPorCodigo("B2").orElseThrow().getNombre());
+        assertEquals(4, foto.buscarPorCodigo("B2").orElseThrow().getStock());
+        assertTrue(foto.buscarPorCodigo("C3").isEmpty());
+        assertEquals(2, foto.cantidad());
+        assertEquals(2, foto.listarTodos().size());
+        assertEquals("Productos: 2 | Valor inventario: 1200.00", foto.generarInforme());
+
+        // El inventario vivo no ve las lápidas
+        assertEquals(3, inv.listarTodos().size());
+        assertEquals(3, inv.stream().count());
+        assertEquals("Goma otra vez", inv.buscarPorCodigo("B2").orElseThrow().getNombre());
+        assertEquals(0, inv.stockDisponible("A1").getAsInt());
+        assertFalse(inv.buscarPorNombre("goma").isEmpty());
+
+        // Una instantánea nueva ve el estado actual
+        try (Instantanea otra = inv.snapshot()) {
+            assertEquals(inv.generarInforme(), otra.generarInforme());
+            assertEquals("Goma otra vez", otra.buscarPorCodigo("B2").orElseThrow().getNombre());
+        }
+
+        foto.close();
+        assertThrows(IllegalStateException.class, foto::cantidad);
+        assertEquals(3, inv.valores().size()); // lápidas fuera del mapa
+        assertNull(interno(inv, "A1").estado().anterior());
+        assertNull(interno(inv, "B2").predecesor());
+    }
+
+    @Test
+    void sin_instantaneas_no_se_guarda_historia() {
+        Inventario inv = new Inventario();
+        inv.agregarProducto("A1", "Lapiz", "HB", 1, 1);
+        for (int i = 0; i < 1000; i++) inv.actualizarPrecio("A1", i);
+        inv.eliminarPorCodigo("A1");
+        assertTrue(inv.valores().isEmpty());
+        inv.agregarProducto("A1", "Otro", "", 1, 1);
+        Producto p = interno(inv, "A1");
+        assertNull(p.estado().anterior());
+        assertNull(p.predecesor());
+    }
+
+    @Test
+    void lecturas_repetibles_con_escritores_concurrentes() throws Exception {
+        Inventario inv = new Inventario();
+        for (int i = 0; i < 200; i++) inv.agregarProducto("P" + i, "Prod " + i, "", 0, 0);
+
+        AtomicBoolean corriendo = new AtomicBoolean(true);
+        Thread[] escritores = new Thread[4];
+        for (int h = 0; h < escritores.length; h++) {
+            int hilo = h;
+            escritores[h] = new Thread(() -> {
+                for (int k = 0; corriendo.get(); k++) {
+                    String cod = "P" + (k * 7 + hilo) % 200;
+                    inv.actualizarProducto(cod, null, null, (double) k, k); // precio == stock siempre
+                    if (k % 50 == 0) {
+                        inv.eliminarPorCodigo("X" + hilo);
+                        inv.agregarProducto("X" + hilo, "Temporal", "", k, k);
+                    }
+                }
+            });
+            escritores[h].start();
+        }
+        try {
+            for (int r = 0; r < 50; r++) {
+                try (Instantanea foto = inv.snapshot()) {
+                    String primero = foto.generarInforme();
+                    foto.stream().forEach(p -> assertEquals(p.getPrecio(), p.getStock(), 0.0, p.getCodigo()));
+                    assertEquals(primero, foto.generarInforme());
+                }
+            }
+        } finally {
+            corriendo.set(false);
+            for (Thread t : escritores) t.join();
+        }
+
+        // Sin instantáneas abiertas: nada retenido
+        assertEquals(inv.listarTodos().size(), inv.valores().size());
+        for (ProductoRO p : inv.listarTodos()) assertNull(((Producto) p).estado().anterior(), p.getCodigo());
+    }
+}
@@ -0,0 +1,95 @@
+package app;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * Pruebas del inventario compacto (columnas primitivas).
+ * Verifica:
+ *  - Mismos resultados que Inventario para la misma secuencia de comandos.
+ *  - Bajas y altas repetidas (tabla hash sin marcas y arena compactada).
+ *  - Muchas actualizaciones de texto de una fila: la arena se compacta.
+ *  - Vistas de productos eliminados.
+ */
+class InventarioCompactoTest {
+
+    private static String volcado(java.util.List<ProductoRO> productos) {
+        return productos.stream()
+                .sorted(Comparator.comparing(ProductoRO::getCodigo))
+                .map(ProductoRO::descripcionDetallada)
+                .collect(Collectors.joining("\n"));
+    }
+
+    @Test
+    void mismos_resultados_que_inventario() {
+        Inventario inv = new Inventario();
+        InventarioCompacto comp = new InventarioCompacto();
+        for (int i = 0; i < 2000; i++) {
+            String cod = " P" + (i % 700) + " ";
+            String nombre = "Prod ñ " + i;
+            String desc = i % 3 == 0 ? null : "Desc " + i;
+            assertEquals(inv.agregarProducto(cod, nombre, desc, i * 1.25 - 10, i - 5),
+                    comp.agregarProducto(cod, nombre, desc, i * 1.25 - 10, i - 5));
+            if (i % 5 == 0) assertEquals(inv.eliminarPorCodigo("P" + (i % 350)), comp.eliminarPorCodigo("P" + (i % 350)));
+            if (i % 7 == 0) assertEquals(inv.actualizarPrecio("P" + (i % 90), i), comp.actualizarPrecio("P" + (i % 90), i));
+            if (i % 11 == 0) assertEquals(inv.actualizarProducto("P" + (i % 60), "Nuevo " + i, null, null, i),
+                    comp.actualizarProducto("P" + (i % 60), "Nuevo " + i, null, null, i));
+        }
+        assertFalse(comp.actualizarStock("P1", -1));
+        assertFalse(comp.agregarProducto("  ", "x", "", 1, 1));
+
+        assertEquals(inv.generarInforme(), comp.generarInforme());
+        assertEquals(volcado(inv.listarTodos()), volcado(comp.listarTodos()));
+        assertEquals(volcado(inv.buscarPorNombre("NUEVO")), volcado(comp.buscarPorNombre("NUEVO")));
+        assertEquals(inv.buscarPorCodigo("P5").map(ProductoRO::descripcionDetallada),
+                comp.buscarPorCodigo("P5").map(ProductoRO::descripcionDetallada));
+    }
+
+    @Test
+    void altas_y_bajas_repetidas() {
+        InventarioCompacto comp = new InventarioCompacto();
+        for (int ronda = 0; ronda < 50; ronda++) {
+            for (int i = 0; i < 1000; i++) assertTrue(comp.agregarProducto("C" + i, "Nombre " + ronda, "", 2, 3));
+            for (int i = 0; i < 1000; i += 2) assertTrue(comp.eliminarPorCodigo("C" + i));
+            for (int i = 1; i < 1000; i += 2) assertTrue(comp.buscarPorCodigo("C" + i).isPresent());
+            for (int i = 1; i < 1000; i += 2) assertTrue(comp.eliminarPorCodigo("C" + i));
+            assertEquals(0, comp.cantidad());
+        }
+        assertTrue(comp.agregarProducto("Z", "Ultimo", null, 1.5, 2));
+        assertEquals("Productos: 1 | Valor inventario: 3.00", comp.generarInforme());
+        assertEquals(comp.recalcularValorCentavos(), 300);
+        assertNull(comp.buscarPorCodigo("Z").get().getDescripcion());
+    }
+
+    @Test
+    void actualizar_textos_no_agranda_la_arena_sin_fin() {
+        InventarioCompacto comp = new InventarioCompacto();
+        comp.agregarProducto("CODIGO-LARGO-1", "Uno", "", 1, 1);
+        String largo = "x".repeat(1_000);
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(comp.actualizarProducto("CODIGO-LARGO-1", largo + i, largo, null, null));
+        }
+        // Vivo: ~2 KB; sin compactar serían ~20 MB
+        assertTrue(comp.bytesArena() < 10_000, "arena: " + comp.bytesArena());
+        assertEquals(largo + 9_999, comp.buscarPorCodigo("CODIGO-LARGO-1").orElseThrow().getNombre());
+    }
+
+    @Test
+    void vista_de_producto_eliminado_no_muestra_otro() {
+        InventarioCompacto comp = new InventarioCompacto();
+        comp.agregarProducto("A", "Uno", "", 1, 1);
+        ProductoRO vista = comp.buscarPorCodigo("A").orElseThrow();
+        comp.actualizarStock("A", 9);
+        assertEquals(9, vista.getStock());
+
+        comp.eliminarPorCodigo("A");
+        comp.agregarProducto("B", "Dos", "", 2, 2); // reutiliza la fila
+        assertThrows(IllegalStateException.class, vista::getNombre);
+        assertThrows(IllegalStateException.class, vista::getStock);
+        assertEquals("Dos", comp.buscarPorCodigo("B").get().getNombre());
+    }
+}
@@ -0,0 +1,93 @@
+package app;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * Pruebas de Inventario compartido entre varios hilos.
+ * Verifica:
+ *  - Altas concurrentes sin pérdidas ni duplicados.
+ *  - Lecturas sin mezclar precio y stock de cambios distintos.
+ *  - Descuentos concurrentes sobre un mismo producto sin sobreventa.
+ */
+class InventarioConcurrenteTest {
+
+    private static final int HILOS = 8;
+
+    @Test
+    void altas_concurrentes_no_se_pierden() throws Exception {
+        Inventario inv = new Inventario();
+        ExecutorService pool = Executors.newFixedThreadPool(HILOS);
+        try {
+            CountDownLatch fin = new CountDownLatch(HILOS);
+            for (int h = 0; h < HILOS; h++) {
+                pool.execute(() -> {
+                    // Todos los hilos intentan los mismos códigos: solo uno gana cada uno
+                    for (int i = 0; i < 1000; i++) inv.agregarProducto("C" + i, "Prod " + i, "", 1, 1);
+                    fin.countDown();
+                });
+            }
+            assertTrue(fin.await(10, TimeUnit.SECONDS));
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(1000, inv.listarTodos().size());
+        assertEquals(1, inv.buscarPorNombre("prod 999").size());
+    }
+
+    @Test
+    void lector_no_ve_precio_y_stock_de_cambios_distintos() throws Exception {
+        Inventario inv = new Inventario();
+        inv.agregarProducto("A1", "Lapiz", "HB", 0, 0);
+        Producto p = (Producto) inv.buscarPorCodigo("A1").orElseThrow();
+
+        AtomicBoolean corriendo = new AtomicBoolean(true);
+        AtomicBoolean roto = new AtomicBoolean(false);
+        Thread escritor = new Thread(() -> {
+            for (int k = 0; k < 200_000; k++) inv.actualizarProducto("A1", null, null, (double) k, k);
+            corriendo.set(false);
+        });
+        Thread lector = new Thread(() -> {
+            while (corriendo.get()) {
+                Producto.Estado e = p.estado();
+                if (e.precio != e.stock) roto.set(true);
+            }
+        });
+        escritor.start();
+        lector.start();
+        escritor.join();
+        lector.join();
+
+        assertFalse(roto.get(), "Se leyó un precio y un stock de cambios distintos");
+        assertEquals(199_999, p.getStock());
+    }
+
+    @Test
+    void descuentos_concurrentes_no_sobrevenden() throws Exception {
+        Inventario inv = new Inventario();
+        inv.agregarProducto("HOT", "Consola", "", 1000, 5000);
+        AtomicInteger vendidos = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(HILOS);
+        try {
+            CountDownLatch fin = new CountDownLatch(HILOS);
+            for (int h = 0; h < HILOS; h++) {
+                pool.execute(() -> {
+                    for (int i = 0; i < 1000; i++) {
+                        if (inv.descontarStock("HOT", 1)) vendidos.incrementAndGet();
+                    }
+                    fin.countDown();
+                });
+            }
+            assertTrue(fin.await(10, TimeUnit.SECONDS));
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(5000, vendidos.get());
+        assertEquals(0, inv.buscarPorCodigo("HOT").get().getStock());
+    }
+}
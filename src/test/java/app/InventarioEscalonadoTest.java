@@ -0,0 +1,157 @@
+package app;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * Pruebas del inventario escalonado (caché W-TinyLFU + almacén en disco).
+ * Verifica:
+ *  - Lectura a través del disco y cambios que sobreviven al desalojo y a reabrir.
+ *  - Memoria acotada y alta tasa de aciertos con acceso sesgado.
+ *  - Bajas y re-altas, y escrituras concurrentes sin pérdidas.
+ *  - La caché no deja que un recorrido único desplace a las entradas calientes.
+ *  - El almacén se compacta (el archivo de datos no crece sin límite) y su
+ *    índice funciona repartido en varios segmentos.
+ */
+class InventarioEscalonadoTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void lee_a_traves_del_disco_y_reabre() throws Exception {
+        try (InventarioEscalonado inv = InventarioEscalonado.abrir(dir, 100)) {
+            for (int i = 0; i < 5000; i++) assertTrue(inv.agregarProducto("P" + i, "Producto " + i, i % 2 == 0 ? null : "d", i, 1));
+            assertFalse(inv.agregarProducto("P10", "Duplicado", "", 1, 1)); // ya salió de la memoria
+            assertTrue(inv.enMemoria() <= 100 + 2 * InventarioEscalonado.LOTE, "en memoria: " + inv.enMemoria());
+
+            assertTrue(inv.actualizarProducto("P10", "Renombrado", null, 99.5, 7));
+            assertTrue(inv.descontarStock("P11", 1));
+            assertFalse(inv.descontarStock("P11", 1));
+            assertTrue(inv.eliminarPorCodigo("P12"));
+            assertFalse(inv.eliminarPorCodigo("P12"));
+            for (int i = 1000; i < 5000; i++) inv.buscarPorCodigo("P" + i); // desaloja a los de arriba
+
+            assertEquals("[P10] Renombrado - null | Precio: 99.50 | Stock: 7",
+                    inv.buscarPorCodigo("P10").orElseThrow().descripcionDetallada());
+            assertEquals(0, inv.stockDisponible("P11").getAsInt());
+            assertTrue(inv.buscarPorCodigo("P12").isEmpty());
+            assertTrue(inv.buscarPorCodigo("NO").isEmpty());
+        }
+        long valor = 0;
+        for (int i = 0; i < 5000; i++) valor += i * 100L;
+        valor += 99_50 * 7 - 10 * 100 - 11 * 100 - 12 * 100;
+        String informe = "Productos: 4999 | Valor inventario: " + Agregados.formatoCentavos(valor);
+
+        try (InventarioEscalonado inv = InventarioEscalonado.abrir(dir, 100)) {
+            assertEquals(informe, inv.generarInforme());
+            assertEquals("Renombrado", inv.buscarPorCodigo("P10").orElseThrow().getNombre());
+            assertEquals("d", inv.buscarPorCodigo("P4999").orElseThrow().getDescripcion());
+            assertTrue(inv.buscarPorCodigo("P12").isEmpty());
+            assertTrue(inv.agregarProducto("P12", "Otra vez", "", 2, 2));
+            assertEquals("Otra vez", inv.buscarPorCodigo("P12").orElseThrow().getNombre());
+        }
+    }
+
+    @Test
+    void memoria_acotada_y_aciertos_con_productos_calientes() throws Exception {
+        try (InventarioEscalonado inv = InventarioEscalonado.abrir(dir, 500)) {
+            for (int i = 0; i < 20_000; i++) inv.agregarProducto("P" + i, "", "", 1, 1);
+            inv.volcar();
+            Random r = new Random(1);
+            for (int k = 0; k < 200_000; k++) {
+                // 90% de los pedidos van a 200 productos calientes
+                int i = r.nextInt(10) < 9 ? r.nextInt(200) : r.nextInt(20_000);
+                assertTrue(inv.buscarPorCodigo("P" + i).isPresent());
+                assertTrue(inv.enMemoria() <= 500 + InventarioEscalonado.LOTE + 1);
+            }
+            assertTrue(inv.tasaAciertos() > 0.85, "tasa de aciertos: " + inv.tasaAciertos());
+        }
+    }
+
+    @Test
+    void escrituras_concurrentes_con_desalojos() throws Exception {
+        try (InventarioEscalonado inv = InventarioEscalonado.abrir(dir, 64)) {
+            for (int i = 0; i < 1000; i++) inv.agregarProducto("C" + i, "", "", 1, 0);
+            List<Thread> hilos = new ArrayList<>();
+            for (int h = 0; h < 8; h++) {
+                int semilla = h;
+                hilos.add(new Thread(() -> {
+                    Random r = new Random(semilla);
+                    for (int k = 0; k < 5000; k++) assertTrue(inv.incrementarStock("C" + r.nextInt(1000), 1));
+                }));
+            }
+            hilos.forEach(Thread::start);
+            for (Thread t : hilos) t.join();
+            assertEquals("Productos: 1000 | Valor inventario: 40000.00", inv.generarInforme());
+            int total = 0;
+            for (int i = 0; i < 1000; i++) total += inv.buscarPorCodigo("C" + i).orElseThrow().getStock();
+            assertEquals(40_000, total);
+        }
+    }
+
+    @Test
+    void cache_resiste_un_recorrido_completo() {
+        List<Integer> desalojados = new ArrayList<>();
+        CacheTinyLfu<Integer, Integer> c = new CacheTinyLfu<>(100, (k, v) -> desalojados.add(k));
+        for (int vuelta = 0; vuelta < 5; vuelta++) {
+            for (int i = 0; i < 80; i++) {
+                if (c.get(i) == null) c.put(i, i);
+            }
+        }
+        for (int i = 1000; i < 11_000; i++) {
+            if (c.get(i) == null) c.put(i, i); // un recorrido que no se repite
+        }
+        int calientes = 0;
+        for (int i = 0; i < 80; i++) if (c.ver(i) != null) calientes++;
+        assertTrue(calientes >= 75, "calientes que quedaron: " + calientes);
+        assertEquals(100, c.tamano());
+        assertEquals(10_080 - 100, desalojados.size());
+    }
+
+    @Test
+    void almacen_compacta_y_usa_varios_segmentos() throws Exception {
+        int segmento = 4096; // el índice crece a muchos segmentos
+        try (AlmacenDisco a = AlmacenDisco.abrir(dir, segmento)) {
+            List<AlmacenDisco.Registro> lote = new ArrayList<>();
+            for (int i = 0; i < 3000; i++) lote.add(new AlmacenDisco.Registro("P" + i, "Producto " + i, "d", 1, i, 0));
+            a.escribir(lote, List.of());
+            // Reescribir muchas veces los mismos productos: sin compactar pasaría de 5 MB
+            for (int vuelta = 0; vuelta < 100; vuelta++) {
+                List<AlmacenDisco.Registro> cambios = new ArrayList<>();
+                for (int i = 0; i < 1000; i++) cambios.add(new AlmacenDisco.Registro("P" + i, "Producto " + i, "d", 2, vuelta, 0));
+                a.escribir(cambios, List.of("P" + (2000 + vuelta)));
+            }
+            assertTrue(a.bytesDatos() < (2 << 20), "datos: " + a.bytesDatos());
+            assertEquals(2900, a.cantidad());
+            assertEquals(99, a.leer("P999").stock());
+            assertNull(a.leer("P2050"));
+            assertEquals(2999, a.leer("P2999").stock());
+        }
+        try (AlmacenDisco a = AlmacenDisco.abrir(dir, segmento)) {
+            a.compactar();
+            assertEquals(2900, a.cantidad());
+            assertEquals(99, a.leer("P0").stock());
+            assertNull(a.leer("P2000"));
+            long valor = 1000 * 2 * 100 * 99L;
+            for (int i = 1000; i < 3000; i++) {
+                if (i < 2000 || i >= 2100) valor += i * 100L; // P2000..P2099 se dieron de baja
+            }
+            assertEquals(valor, a.valorCentavos());
+        }
+        try (var archivos = Files.list(dir)) {
+            assertEquals(1, archivos.filter(p -> p.getFileName().toString().endsWith(".dat")).count());
+        }
+        try (AlmacenDisco a = AlmacenDisco.abrir(dir, segmento)) {
+            assertEquals(99, a.leer("P500").stock());
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package app;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * Pruebas del inventario particionado.
+ * Verifica:
+ *  - Los mismos comandos dan los mismos resultados que un Inventario único.
+ *  - Los lotes respetan el orden dentro de cada partición.
+ *  - Escrituras concurrentes desde muchos hilos sin pérdidas.
+ */
+class InventarioParticionadoTest {
+
+    private static Set<String> claves(List<ProductoRO> l) {
+        return l.stream().map(ProductoRO::descripcionDetallada).collect(Collectors.toSet());
+    }
+
+    @Test
+    void mismos_resultados_que_sin_particionar() {
+        Inventario unico = new Inventario();
+        try (InventarioParticionado part = new InventarioParticionado(4)) {
+            for (int i = 0; i < 500; i++) {
+                String cod = "P" + i;
+                assertEquals(unico.agregarProducto(cod, "Producto " + i, i % 3 == 0 ? "rojo" : "azul", i * 1.25, i),
+                        part.agregarProducto(cod, "Producto " + i, i % 3 == 0 ? "rojo" : "azul", i * 1.25, i));
+            }
+            assertFalse(part.agregarProducto(" P7 ", "Duplicado", "", 1, 1));
+            assertFalse(part.agregarProducto(null, "Sin código", "", 1, 1));
+            for (int i = 0; i < 500; i += 7) {
+                String cod = "P" + i;
+                assertEquals(unico.descontarStock(cod, 5), part.descontarStock(cod, 5));
+                assertEquals(unico.actualizarPrecio(cod, i), part.actualizarPrecio(cod, i));
+                assertEquals(unico.reservarStock(cod, 2), part.reservarStock(cod, 2));
+            }
+            for (int i = 0; i < 500; i += 11) assertEquals(unico.eliminarPorCodigo("P" + i), part.eliminarPorCodigo("P" + i));
+            assertEquals(unico.actualizarProducto("P13", "Renombrado", null, null, 99),
+                    part.actualizarProducto("P13", "Renombrado", null, null, 99));
+
+            assertEquals(unico.generarInforme(), part.generarInforme());
+            assertEquals(claves(unico.listarTodos()), claves(part.listarTodos()));
+            assertEquals(claves(unico.buscarPorNombre("rojo")), claves(part.buscarPorNombre("rojo")));
+            assertEquals(claves(unico.buscarPorNombre("renomb")), claves(part.buscarPorNombre("renomb")));
+            assertEquals(unico.stockDisponible("P14"), part.stockDisponible("P14"));
+            assertTrue(part.buscarPorCodigo("P11").isEmpty());
+            assertEquals("Renombrado", part.buscarPorCodigo("P13").orElseThrow().getNombre());
+        }
+    }
+
+    @Test
+    void lote_en_orden_dentro_de_cada_particion() {
+        try (InventarioParticionado part = new InventarioParticionado(3)) {
+            List<Comando> lote = new ArrayList<>();
+            for (int i = 0; i < 100; i++) lote.add(new Comando.Agregar("L" + i, "Lote", "", 1, 1));
+            lote.add(new Comando.Eliminar("L5"));
+            lote.add(new Comando.Agregar("L5", "Otra vez", "", 2, 2));
+            lote.add(new Comando.Agregar("L6", "Duplicado", "", 2, 2));
+            lote.add(null);
+            lote.add(new Comando.ActualizarStock("L7", 40));
+
+            boolean[] ok = part.ejecutarLote(lote);
+            assertEquals(105, ok.length);
+            for (int i = 0; i < 102; i++) assertTrue(ok[i], "comando " + i);
+            assertFalse(ok[102]);
+            assertFalse(ok[103]);
+            assertTrue(ok[104]);
+            assertEquals("Otra vez", part.buscarPorCodigo("L5").orElseThrow().getNombre());
+            assertEquals(40, part.buscarPorCodigo("L7").orElseThrow().getStock());
+            assertEquals("Productos: 100 | Valor inventario: 142.00", part.generarInforme());
+        }
+    }
+
+    @Test
+    void escrituras_concurrentes_sin_perdidas() throws Exception {
+        try (InventarioParticionado part = new InventarioParticionado()) {
+            for (int i = 0; i < 64; i++) part.agregarProducto("C" + i, "", "", 1, 0);
+            Thread[] hilos = new Thread[8];
+            for (int h = 0; h < hilos.length; h++) {
+                hilos[h] = new Thread(() -> {
+                    for (int i = 0; i < 5000; i++) part.incrementarStock("C" + (i % 64), 1);
+                });
+                hilos[h].start();
+            }
+            for (Thread t : hilos) t.join();
+            int total = part.listarTodos().stream().mapToInt(ProductoRO::getStock).sum();
+            assertEquals(8 * 5000, total);
+        }
+    }
+}
@@ -12,6 +12,7 @@ import static org.junit.jupiter.api.Assertions.*;
  *  - Eliminación y actualizaciones.
  *  - Búsquedas y listados inmodificables.
  *  - Generación de informe simple.
+ *  - Comandos en lote con resultado por ítem.
  */
 class InventarioTest {
 
@@ -69,4 +70,48 @@ class InventarioTest {
         assertTrue(informe.contains("Productos: 2"));
         assertTrue(informe.contains("350.00"));
     }
+
+    @Test
+    void reservar_confirmar_y_liberar_stock() {
+        Inventario inv = new Inventario();
+        inv.agregarProducto("A1","Lapiz","HB",500,10);
+
+        assertTrue(inv.reservarStock("A1", 4));
+        assertEquals(6, inv.stockDisponible("A1").getAsInt());
+        assertFalse(inv.descontarStock("A1", 7));   // solo quedan 6 disponibles
+        assertFalse(inv.actualizarStock("A1", 3));  // no baja de lo reservado
+
+        assertTrue(inv.confirmarReserva("A1", 3));
+        assertTrue(inv.liberarReserva("A1", 1));
+        assertFalse(inv.liberarReserva("A1", 1));   // ya no queda reserva
+        assertEquals(7, inv.buscarPorCodigo("A1").get().getStock());
+
+        assertTrue(inv.incrementarStock("A1", 5));
+        assertTrue(inv.descontarStock("A1", 12));
+        assertEquals(0, inv.stockDisponible("A1").getAsInt());
+        assertFalse(inv.descontarStock("NO", 1));
+        assertTrue(inv.stockDisponible("NO").isEmpty());
+    }
+
+    @Test
+    void lote_reporta_resultado_por_item() {
+        Inventario inv = new Inventario(1000);
+        boolean[] altas = inv.agregarTodos(List.of(
+                new Comando.Agregar("A1","Lapiz","HB",500,10),
+                new Comando.Agregar("A1","Duplicado","",1,1),
+                new Comando.Agregar(" ","Sin codigo","",1,1),
+                new Comando.Agregar("B2","Cuaderno","80 hojas",1200,5)));
+        assertArrayEquals(new boolean[]{true, false, false, true}, altas);
+
+        boolean[] mixto = inv.ejecutarLote(java.util.Arrays.asList(
+                new Comando.ActualizarPrecio("A1", 600),
+                new Comando.ActualizarStock("B2", -1),
+                new Comando.Eliminar("B2"),
+                new Comando.Actualizar("A1", "Lápiz", null, null, 2),
+                null));
+        assertArrayEquals(new boolean[]{true, false, true, true, false}, mixto);
+
+        assertEquals("Productos: 1 | Valor inventario: 1200.00", inv.generarInforme());
+        assertEquals("Lápiz", inv.buscarPorCodigo("A1").get().getNombre());
+    }
 }
@@ -0,0 +1,118 @@
+package app;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * Pruebas del modo lote del menú.
+ * Verifica:
+ *  - Mismos textos que el menú, sin el menú ni las indicaciones.
+ *  - Números inválidos, '\r\n', espacios y UTF-8 en la entrada.
+ *  - Fin de la entrada a mitad de un comando y corte con 0.
+ *  - Rutas inválidas al importar/exportar: se informan y el guion sigue.
+ *  - 'Buscar' (3) encuentra en medio de una palabra y no corta los
+ *    resultados; 'Mejores coincidencias' (12) da una página.
+ *  - Un guion grande (muchos bloques entre los dos hilos) llega completo y en orden.
+ */
+class MenuLoteTest {
+
+    private static String correr(Inventario inv, String guion) throws IOException {
+        StringWriter out = new StringWriter();
+        new MenuLote(inv).ejecutar(new ByteArrayInputStream(guion.getBytes(StandardCharsets.UTF_8)), out);
+        return out.toString();
+    }
+
+    @Test
+    void mismos_resultados_sin_indicaciones() throws IOException {
+        Inventario inv = new Inventario();
+        String guion = String.join("\n",
+                "1", "P-010", "Pendrive", "32GB USB 3.0", "5990", "5",
+                "1", "P-010", "Otro", "x", "1", "1",
+                "7", "P-010",
+                "5", "P-010", "", "", "", "2",
+                "6",
+                "8", "3",
+                "2", "P-999",
+                "42",
+                "0",
+                "1", "P-011", "No", "llega", "1", "1");
+        String salida = correr(inv, guion);
+        String[] lineas = salida.split("\n");
+        assertEquals("Agregado.", lineas[0]);
+        assertEquals("No se pudo agregar, código duplicado o inválido.", lineas[1]);
+        assertTrue(lineas[2].contains("P-010") && lineas[2].contains("Pendrive"), salida);
+        assertEquals("Actualizado.", lineas[3]);
+        assertTrue(salida.contains("Productos: 1"), salida);
+        assertTrue(salida.contains("No existe.\nOpción inválida.\nAdiós.\n"), salida);
+        assertFalse(salida.contains("Menú") || salida.contains("Código: "), salida);
+        assertTrue(inv.buscarPorCodigo("P-011").isEmpty()); // después de 0 no se ejecuta nada
+        assertEquals(2, inv.buscarPorCodigo("P-010").orElseThrow().getStock());
+    }
+
+    @Test
+    void entradas_raras() throws IOException {
+        Inventario inv = new Inventario();
+        String guion = "uno\r\n 1 \r\n  Ñ-1\t\r\nCañón\r\nde época\r\nbarato\r\n10\r\n3\r\n"
+                + "5\r\nÑ-1\r\n\r\n\r\nmucho\r\n\r\n"
+                + "12\r\ncanon\r\n"
+                + "1\nZ\nZ"; // termina a mitad de un comando
+        String salida = correr(inv, guion);
+        assertEquals(String.join("\n",
+                "Número inválido, intenta de nuevo.",
+                "Número inválido, intenta de nuevo.", // el precio se vuelve a pedir
+                "Agregado.",
+                "Número inválido.",
+                inv.buscarPorCodigo("Ñ-1").orElseThrow().descripcionDetallada()) + "\n", salida);
+        assertEquals("Cañón", inv.buscarPorCodigo("Ñ-1").orElseThrow().getNombre());
+        assertEquals(1, inv.listarTodos().size());
+    }
+
+    @Test
+    void guion_grande_en_orden() throws IOException {
+        Inventario inv = new Inventario();
+        int n = 50_000;
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < n; i++) {
+            sb.append("1\nC").append(i).append("\nNombre ").append(i).append("\nD\n1.5\n").append(i % 7).append('\n');
+            if (i % 3 == 0) sb.append("2\nC").append(i).append('\n');
+        }
+        sb.append("4\n");
+        StringWriter out = new StringWriter();
+        long comandos = new MenuLote(inv).ejecutar(new ByteArrayInputStream(sb.toString().getBytes(StandardCharsets.UTF_8)), out);
+        assertEquals(n + (n + 2) / 3 + 1, comandos);
+
+        String[] lineas = out.toString().split("\n");
+        int k = 0;
+        for (int i = 0; i < n; i++) {
+            assertEquals("Agregado.", lineas[k++]);
+            if (i % 3 == 0) assertEquals("Eliminado.", lineas[k++]);
+        }
+        assertEquals(inv.listarTodos().size(), lineas.length - k); // 'Listar todos' sin paginar
+        assertEquals(n - (n + 2) / 3, inv.listarTodos().size());
+    }
+
+    @Test
+    void buscar_en_medio_de_palabra_y_ranqueado() throws IOException {
+        Inventario inv = new Inventario();
+        inv.agregarProducto("L-1", "Lapiz", "grafito", 300, 10);
+        inv.agregarProducto("P-1", "Portaminas", "0.5 mm", 1500, 4);
+        for (int i = 0; i < 30; i++) inv.agregarProducto("G-" + i, "Goma " + i, "blanca", 200, 1);
+
+        assertEquals(inv.buscarPorCodigo("L-1").orElseThrow().descripcionDetallada() + "\n", correr(inv, "3\npiz\n"));
+        assertEquals(inv.buscarPorCodigo("P-1").orElseThrow().descripcionDetallada() + "\n", correr(inv, "3\nminas\n"));
+        assertEquals(30, correr(inv, "3\ngoma\n").split("\n").length);
+        assertEquals(20, correr(inv, "12\ngoma\n").split("\n").length);
+        assertTrue(correr(inv, "12\nlapis\n").startsWith(inv.buscarPorCodigo("L-1").orElseThrow().descripcionDetallada()));
+    }
+
+    @Test
+    void ruta_invalida_no_corta_el_guion() throws IOException {
+        Inventario inv = new Inventario();
+        assertEquals("Ruta inválida: a\0b\nRuta inválida: c\0d\nProductos: 0 | Valor inventario: 0.00\n",
+                correr(inv, "10\na\0b\n11\nc\0d\n6\n"));
+    }
+}
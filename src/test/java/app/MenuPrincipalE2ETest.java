@@ -78,4 +78,67 @@ class MenuPrincipalE2ETest {
         assertTrue(codigoFlexible.matcher(salida).find(),
                 "La consulta por código no mostró P-010. Salida:\n" + salida);
     }
+
+    @Test
+    void puertoInvalidoOFaltanteNoRevienta() {
+        PrintStream out0 = System.out;
+        ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        try {
+            System.setOut(new PrintStream(buf, true, StandardCharsets.UTF_8));
+            MenuPrincipal.main(new String[]{"--servidor", "ochenta"});
+            MenuPrincipal.main(new String[]{"--servidor", "70000"});
+            MenuPrincipal.main(new String[]{"--servidor"});
+        } finally {
+            System.setOut(out0);
+        }
+        String salida = buf.toString(StandardCharsets.UTF_8);
+        assertTrue(salida.contains("Puerto inválido: ochenta"), salida);
+        assertTrue(salida.contains("Puerto inválido: 70000"), salida);
+        assertTrue(salida.contains("Falta el valor de --servidor."), salida);
+        assertFalse(salida.contains("Menú") || salida.contains("Servidor HTTP"), salida);
+    }
+
+    @Test
+    void variasEjecucionesEnLaMismaJvmNoDejanJmxRegistrado() throws Exception {
+        String nl = System.lineSeparator();
+        InputStream in0 = System.in;
+        PrintStream out0 = System.out;
+        ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        try {
+            System.setOut(new PrintStream(buf, true, StandardCharsets.UTF_8));
+            for (int i = 0; i < 2; i++) {
+                System.setIn(new ByteArrayInputStream(("0" + nl).getBytes(StandardCharsets.UTF_8)));
+                MenuPrincipal.main(new String[0]);
+            }
+        } finally {
+            System.setIn(in0);
+            System.setOut(out0);
+        }
+        String salida = buf.toString(StandardCharsets.UTF_8);
+        assertFalse(salida.contains("Métricas JMX no disponibles"), salida);
+        assertFalse(java.lang.management.ManagementFactory.getPlatformMBeanServer()
+                .isRegistered(new javax.management.ObjectName("app:type=Inventario,name=\"principal\"")));
+    }
+
+    @Test
+    void rutaInvalidaVuelveAPreguntar() {
+        String nl = System.lineSeparator();
+        String input = String.join(nl, "10", "a\0b", "no-existe.csv", "0") + nl;
+        InputStream in0 = System.in;
+        PrintStream out0 = System.out;
+        ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        try {
+            System.setIn(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)));
+            System.setOut(new PrintStream(buf, true, StandardCharsets.UTF_8));
+            MenuPrincipal.main(new String[0]);
+            MenuPrincipal.main(new String[]{"--importar", "a\0b"});
+        } finally {
+            System.setIn(in0);
+            System.setOut(out0);
+        }
+        String salida = buf.toString(StandardCharsets.UTF_8);
+        assertTrue(salida.contains("Ruta inválida, intenta de nuevo."), salida);
+        assertTrue(salida.contains("no-existe.csv"), salida); // el segundo intento llegó a importar
+        assertTrue(salida.contains("Ruta inválida: a\0b"), salida);
+    }
 }
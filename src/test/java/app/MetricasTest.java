@@ -0,0 +1,91 @@
+package app;
+
+import org.junit.jupiter.api.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * Pruebas de las métricas por operación.
+ * Verifica:
+ *  - Precisión de los percentiles del histograma.
+ *  - Apagadas no registran nada; encendidas cuentan llamadas y éxitos.
+ *  - Lectura y cambio de estado por JMX.
+ */
+class MetricasTest {
+
+    @Test
+    void histograma_con_error_relativo_acotado() {
+        Histograma h = new Histograma();
+        for (long v = 1; v <= 100_000; v++) h.registrar(v * 1000);
+        assertEquals(100_000, h.total());
+        for (double q : new double[]{0.5, 0.9, 0.99, 0.999}) {
+            double esperado = q * 100_000 * 1000;
+            double error = Math.abs(h.percentil(q) - esperado) / esperado;
+            assertTrue(error < 1.0 / 16, "q=" + q + " error=" + error);
+        }
+        assertEquals(0, new Histograma().percentil(0.5));
+        for (long v : new long[]{0, 1, 15, 16, 17, 1000, Long.MAX_VALUE}) {
+            assertTrue(Histograma.tope(Histograma.cubeta(v)) >= v, "v=" + v);
+        }
+    }
+
+    @Test
+    void cuenta_llamadas_y_exitos_solo_si_estan_activas() {
+        Inventario inv = new Inventario();
+        Metricas m = inv.metricas();
+        inv.agregarProducto("A1", "Lapiz", "", 1, 1);
+        assertEquals(0, m.conteo(Metricas.Operacion.AGREGAR));
+
+        m.activar(true);
+        inv.agregarProducto("A2", "Goma", "", 1, 1);
+        inv.agregarProducto("A2", "Goma", "", 1, 1); // duplicado
+        inv.buscarPorCodigo("A1");
+        inv.buscarPorCodigo("NO");
+        inv.buscarPorCodigo("NO");
+        inv.generarInforme();
+        inv.ejecutarLote(java.util.List.of(new Comando.ActualizarStock("A1", 3)));
+        assertEquals(2, m.conteo(Metricas.Operacion.AGREGAR));
+        assertEquals(0.5, m.tasaExito(Metricas.Operacion.AGREGAR));
+        assertEquals(3, m.conteo(Metricas.Operacion.BUSCAR_CODIGO));
+        assertEquals(1.0 / 3, m.tasaExito(Metricas.Operacion.BUSCAR_CODIGO), 1e-9);
+        assertEquals(1, m.conteo(Metricas.Operacion.LOTE));
+        assertEquals(0, m.conteo(Metricas.Operacion.ACTUALIZAR_STOCK)); // dentro del lote no se cuenta aparte
+        assertTrue(m.percentilNanos(Metricas.Operacion.INFORME, 1) > 0);
+        assertTrue(m.informe().contains("BUSCAR_CODIGO"));
+
+        m.activar(false);
+        inv.buscarPorCodigo("A1");
+        assertEquals(3, m.conteo(Metricas.Operacion.BUSCAR_CODIGO));
+        m.reiniciar();
+        assertEquals(0, m.conteo(Metricas.Operacion.BUSCAR_CODIGO));
+    }
+
+    @Test
+    void expuestas_por_jmx() throws Exception {
+        Inventario inv = new Inventario();
+        inv.metricas().registrarJmx("prueba");
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName on = new ObjectName("app:type=Inventario,name=\"prueba\"");
+        try {
+            server.setAttribute(on, new javax.management.Attribute("Activas", true));
+            assertTrue(inv.metricas().isActivas());
+            inv.eliminarPorCodigo("X");
+            Object n = server.invoke(on, "conteo", new Object[]{"ELIMINAR"}, new String[]{String.class.getName()});
+            assertEquals(1L, n);
+            assertTrue(((String) server.getAttribute(on, "Informe")).contains("ELIMINAR"));
+            inv.metricas().registrarJmx("prueba"); // reemplaza sin fallar
+            Inventario otro = new Inventario();
+            otro.metricas().registrarJmx("prueba");
+            inv.metricas().desregistrarJmx("prueba"); // ya no es suyo: no lo toca
+            assertTrue(server.isRegistered(on));
+            otro.metricas().desregistrarJmx("prueba");
+            assertFalse(server.isRegistered(on));
+        } finally {
+            if (server.isRegistered(on)) server.unregisterMBean(on);
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package app;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * Pruebas de la persistencia en disco (diario + snapshots).
+ * Verifica:
+ *  - Recuperación tras cerrar y volver a abrir.
+ *  - Snapshot seguido de más cambios.
+ *  - Reparto por depósito, desde el diario y desde el snapshot.
+ *  - Cola del diario cortada (caída a mitad de escritura).
+ *  - Snapshot tomado mientras otros hilos escriben.
+ */
+class PersistenciaTest {
+
+    @TempDir
+    Path dir;
+
+    // Estado comparable de un inventario: una línea por producto, ordenadas
+    private static String volcado(Inventario inv) {
+        return inv.listarTodos().stream()
+                .sorted(Comparator.comparing(ProductoRO::getCodigo))
+                .map(p -> p.descripcionDetallada() + " | disp " + inv.stockDisponible(p.getCodigo()).getAsInt())
+                .collect(Collectors.joining("\n"));
+    }
+
+    private Inventario reabrir() throws Exception {
+        Inventario inv = new Inventario();
+        Persistencia.abrir(dir, inv).close();
+        return inv;
+    }
+
+    @Test
+    void recupera_todos_los_cambios() throws Exception {
+        Inventario inv = new Inventario();
+        try (Persistencia p = Persistencia.abrir(dir, inv)) {
+            inv.agregarProducto("A1", "Lapiz", "HB", 500, 10);
+            inv.agregarProducto("B2", "Cuaderno", null, 1200, 5);
+            inv.agregarProducto("C3", "Goma", "Blanca", 300, 1);
+            inv.actualizarProducto("A1", "Portaminas", null, 650.0, null);
+            inv.reservarStock("A1", 3);
+            inv.descontarStock("B2", 2);
+            inv.eliminarPorCodigo("C3");
+            inv.agregarProducto("C3", "Goma nueva", "Azul", 350, 4); // mismo código, alta nueva
+        }
+        Inventario rec = reabrir();
+        assertEquals(volcado(inv), volcado(rec));
+        assertEquals(inv.generarInforme(), rec.generarInforme());
+        assertEquals(1, rec.buscarPorNombre("minas").size());
+
+        // Los ids de alta siguen creciendo tras recuperar
+        assertTrue(rec.eliminarPorCodigo("C3"));
+        assertTrue(rec.agregarProducto("C3", "Otra", "", 1, 1));
+    }
+
+    @Test
+    void snapshot_y_cambios_posteriores() throws Exception {
+        Inventario inv = new Inventario();
+        try (Persistencia p = Persistencia.abrir(dir, inv)) {
+            for (int i = 0; i < 500; i++) inv.agregarProducto("P" + i, "Prod " + i, "", i, i);
+            p.snapshot();
+            inv.actualizarPrecio("P1", 99);
+            inv.eliminarPorCodigo("P2");
+            p.snapshot();
+            inv.incrementarStock("P3", 7);
+        }
+        try (var archivos = Files.list(dir)) {
+            assertEquals(1, archivos.filter(f -> f.getFileName().toString().startsWith("snapshot-")).count());
+        }
+        assertEquals(volcado(inv), volcado(reabrir()));
+    }
+
+    @Test
+    void reparto_por_deposito_sobrevive_al_reinicio() throws Exception {
+        Inventario inv = new Inventario();
+        try (Persistencia p = Persistencia.abrir(dir, inv)) {
+            inv.agregarProducto("A1", "Lapiz", "", 500, 10);
+            inv.agregarProducto("B2", "Goma", "", 300, 3);
+            assertTrue(inv.moverStock("A1", Depositos.PRINCIPAL, "Norte", 4));
+        }
+        Map<String, Integer> esperado = Map.of(Depositos.PRINCIPAL, 6, "Norte", 4);
+        Inventario rec = reabrir();
+        assertEquals(esperado, rec.stockPorDeposito("A1"));
+        assertEquals(Map.of(Depositos.PRINCIPAL, 3), rec.stockPorDeposito("B2"));
+
+        try (Persistencia p = Persistencia.abrir(dir, new Inventario())) {
+            p.snapshot();
+        }
+        rec = reabrir();
+        assertEquals(esperado, rec.stockPorDeposito("A1"));
+        assertEquals(4, rec.stockEn("A1", "Norte").getAsInt());
+        assertEquals(0, rec.stockEn("B2", "Norte").getAsInt());
+    }
+
+    @Test
+    void cola_cortada_se_descarta() throws Exception {
+        Inventario inv = new Inventario();
+        try (Persistencia p = Persistencia.abrir(dir, inv)) {
+            inv.agregarProducto("A1", "Lapiz", "HB", 500, 10);
+        }
+        Path segmento;
+        try (var archivos = Files.list(dir)) {
+            segmento = archivos.filter(f -> f.getFileName().toString().startsWith("wal-")).findFirst().orElseThrow();
+        }
+        Files.write(segmento, new byte[]{0, 0, 0, 40, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        Inventario rec = reabrir();
+        assertEquals(volcado(inv), volcado(rec));
+        // El arranque siguiente también funciona (la cola quedó truncada)
+        assertEquals(volcado(inv), volcado(reabrir()));
+    }
+
+    @Test
+    void snapshot_con_escritores_concurrentes() throws Exception {
+        Inventario inv = new Inventario();
+        try (Persistencia p = Persistencia.abrir(dir, inv)) {
+            for (int i = 0; i < 200; i++) inv.agregarProducto("P" + i, "Prod", "", 10, 1000);
+            ExecutorService pool = Executors.newFixedThreadPool(4);
+            try {
+                List<Future<?>> tareas = new java.util.ArrayList<>();
+                for (int h = 0; h < 4; h++) {
+                    int hilo = h;
+                    tareas.add(pool.submit(() -> {
+                        for (int i = 0; i < 5000; i++) {
+                            String cod = "P" + (i % 200);
+                            switch (i % 4) {
+                                case 0 -> inv.descontarStock(cod, 1);
+                                case 1 -> inv.actualizarPrecio(cod, hilo + i % 7);
+                                case 2 -> inv.actualizarProducto(cod, "N" + hilo, null, null, null);
+                                default -> {
+                                    inv.eliminarPorCodigo("X" + hilo);
+                                    inv.agregarProducto("X" + hilo, "Temp", "", i, 1);
+                                }
+                            }
+                        }
+                        return null;
+                    }));
+                }
+                for (int s = 0; s < 3; s++) p.snapshot();
+                for (Future<?> t : tareas) t.get(30, TimeUnit.SECONDS);
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+        Inventario rec = reabrir();
+        assertEquals(volcado(inv), volcado(rec));
+        assertEquals(inv.generarInforme(), rec.generarInforme());
+    }
+}
@@ -0,0 +1,179 @@
+package app;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * Pruebas del servidor HTTP/JSON con un cliente local.
+ * Verifica:
+ *  - Alta, consulta, cambio, movimientos de stock y baja con sus códigos HTTP.
+ *  - Listados paginados, búsquedas y errores de entrada.
+ *  - Parámetros sin importar el idioma de la JVM.
+ *  - Codificación JSON (escapes, UTF-8, null) y muchas consultas concurrentes.
+ *  - Keep-alive también después de respuestas sin cuerpo (204).
+ */
+class ServidorHttpTest {
+
+    private Inventario inv;
+    private ServidorHttp servidor;
+    private HttpClient cliente;
+
+    @BeforeEach
+    void levantar() throws Exception {
+        inv = new Inventario();
+        servidor = ServidorHttp.iniciar(inv, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        cliente = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    }
+
+    @AfterEach
+    void bajar() {
+        servidor.close();
+    }
+
+    private HttpRequest.Builder peticion(String ruta) {
+        return HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + servidor.puerto() + ruta));
+    }
+
+    private HttpResponse<String> enviar(HttpRequest r) throws Exception {
+        return cliente.send(r, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> get(String ruta) throws Exception {
+        return enviar(peticion(ruta).GET().build());
+    }
+
+    private HttpResponse<String> post(String ruta, String cuerpo) throws Exception {
+        return enviar(peticion(ruta).POST(HttpRequest.BodyPublishers.ofString(cuerpo)).build());
+    }
+
+    @Test
+    void ciclo_completo_de_un_producto() throws Exception {
+        assertEquals(201, post("/productos", "{\"codigo\":\"A1\",\"nombre\":\"Lápiz \\\"HB\\\"\",\"precio\":500.5,\"stock\":10}").statusCode());
+        assertEquals(409, post("/productos", "{\"codigo\":\" A1 \",\"nombre\":\"Otro\"}").statusCode());
+
+        HttpResponse<String> r = get("/productos/%20A1");
+        assertEquals(200, r.statusCode());
+        assertEquals("{\"codigo\":\"A1\",\"nombre\":\"Lápiz \\\"HB\\\"\",\"descripcion\":null,\"precio\":500.50,\"stock\":10}", r.body());
+        assertEquals(Map.of("codigo", "A1", "nombre", "Lápiz \"HB\"", "precio", 500.5, "stock", 10.0),
+                Json.leerObjeto(r.body()).entrySet().stream().filter(e -> e.getValue() != null)
+                        .collect(java.util.stream.Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue)));
+
+        r = enviar(peticion("/productos/A1").PUT(HttpRequest.BodyPublishers.ofString("{\"descripcion\":\"línea\\nnueva\",\"stock\":4}")).build());
+        assertEquals(200, r.statusCode());
+        assertTrue(r.body().contains("\"descripcion\":\"línea\\nnueva\""), r.body());
+
+        assertEquals(204, post("/productos/A1/reservar", "{\"cantidad\":3}").statusCode());
+        assertEquals(409, post("/productos/A1/descontar", "{\"cantidad\":2}").statusCode());
+        assertEquals("{\"codigo\":\"A1\",\"disponible\":1}", get("/productos/A1/disponible").body());
+        assertEquals(204, post("/productos/A1/confirmar", "{\"cantidad\":3}").statusCode());
+        assertEquals(1, inv.buscarPorCodigo("A1").get().getStock());
+        assertEquals(400, post("/productos/A1/incrementar", "{\"cantidad\":1.5}").statusCode());
+        assertEquals(404, post("/productos/NO/incrementar", "{\"cantidad\":1}").statusCode());
+
+        assertEquals(204, enviar(peticion("/productos/A1").DELETE().build()).statusCode());
+        assertEquals(404, get("/productos/A1").statusCode());
+        assertEquals(404, enviar(peticion("/productos/A1").DELETE().build()).statusCode());
+    }
+
+    @Test
+    void orden_no_depende_del_idioma_de_la_jvm() throws Exception {
+        inv.agregarProducto("A1", "Lapiz", "", 5, 1);
+        Locale antes = Locale.getDefault();
+        try {
+            Locale.setDefault(Locale.forLanguageTag("tr-TR")); // "precio".toUpperCase() sería "PRECİO"
+            assertEquals(200, get("/productos?orden=precio").statusCode());
+            assertEquals(200, get("/productos?orden=codigo").statusCode());
+        } finally {
+            Locale.setDefault(antes);
+        }
+    }
+
+    @Test
+    void listados_busquedas_y_errores() throws Exception {
+        for (int i = 0; i < 25; i++) inv.agregarProducto("P" + (char) ('A' + i), "Producto " + i, "", i, i);
+
+        HttpResponse<String> r = get("/productos?limite=10&orden=precio");
+        assertEquals(200, r.statusCode());
+        int siguiente = r.body().indexOf("\"siguiente\":\"");
+        assertTrue(siguiente > 0, r.body());
+        String cursor = r.body().substring(siguiente + 13, r.body().length() - 2);
+        r = get("/productos?limite=10&orden=precio&cursor=" + java.net.URLEncoder.encode(cursor, java.nio.charset.StandardCharsets.UTF_8));
+        assertTrue(r.body().startsWith("{\"productos\":[{\"codigo\":\"PK\""), r.body());
+
+        assertTrue(get("/productos?texto=producto%2024").body().contains("\"PY\""));
+        assertEquals(3, get("/productos?precioMin=2&precioMax=4").body().split("\"codigo\"").length - 1);
+        assertEquals(2, get("/reposicion?umbral=2").body().split("\"codigo\"").length - 1);
+        assertTrue(get("/informe").body().contains("25"));
+        assertTrue(get("/analitica?bandas=1,3&top=2").body().contains("Bandas de precio:\n  [0.00, 1.00)"));
+        assertEquals(400, get("/analitica?bandas=3,1").statusCode());
+
+        assertEquals(400, get("/productos?limite=x").statusCode());
+        assertEquals(400, get("/productos?orden=COLOR").statusCode());
+        assertEquals(400, post("/productos", "{\"codigo\":").statusCode());
+        assertEquals(400, post("/productos", "{\"codigo\":\"Z\",\"stock\":\"diez\"}").statusCode());
+        assertEquals(405, enviar(peticion("/informe").DELETE().build()).statusCode());
+        assertEquals(404, get("/otra").statusCode());
+        assertEquals(413, post("/productos", "x".repeat(100_000)).statusCode());
+    }
+
+    @Test
+    void muchas_consultas_concurrentes() throws Exception {
+        for (int i = 0; i < 100; i++) inv.agregarProducto("C" + i, "Prod " + i, "", i, i);
+        List<CompletableFuture<HttpResponse<String>>> pendientes = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            pendientes.add(cliente.sendAsync(peticion("/productos/C" + (i % 100)).GET().build(),
+                    HttpResponse.BodyHandlers.ofString()));
+        }
+        for (int i = 0; i < pendientes.size(); i++) {
+            HttpResponse<String> r = pendientes.get(i).get();
+            assertEquals(200, r.statusCode());
+            assertTrue(r.body().startsWith("{\"codigo\":\"C" + (i % 100) + "\""), r.body());
+        }
+    }
+
+    @Test
+    void conexion_sigue_abierta_despues_de_un_204() throws Exception {
+        inv.agregarProducto("A1", "Lapiz", "HB", 500, 10);
+        inv.agregarProducto("B2", "Regla", "30 cm", 900, 3);
+        // Socket propio: HttpClient reintenta en otra conexión y no se notaría
+        try (Socket s = new Socket(InetAddress.getLoopbackAddress(), servidor.puerto())) {
+            String pedidos = "DELETE /productos/A1 HTTP/1.1\r\nHost: x\r\n\r\n"
+                    + "POST /productos/B2/descontar HTTP/1.1\r\nHost: x\r\nContent-Length: 15\r\n\r\n{\"cantidad\": 1}"
+                    + "GET /productos/B2/disponible HTTP/1.1\r\nHost: x\r\nConnection: close\r\n\r\n";
+            s.getOutputStream().write(pedidos.getBytes(StandardCharsets.US_ASCII));
+            String r = new String(s.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+            assertTrue(r.startsWith("HTTP/1.1 204"), r);
+            assertEquals(2, r.split("HTTP/1.1 204", -1).length - 1, r);
+            assertTrue(r.contains("HTTP/1.1 200") && r.endsWith("\"disponible\":2}"), r);
+        }
+    }
+
+    @Test
+    void json_con_numeros_y_caracteres_especiales() {
+        Json.Salida s = new Json.Salida().abrirObjeto();
+        s.campo("a").decimal(0.1).campo("b").decimal(-3).campo("c").decimal(1.0 / 3)
+                .campo("d").entero(Long.MIN_VALUE).campo("e").texto("\u0001😀ñ").campo("f").abrirLista()
+                .entero(1).entero(-20).logico(true).nulo().cerrarLista();
+        assertEquals("{\"a\":0.10,\"b\":-3.00,\"c\":0.3333333333333333,\"d\":-9223372036854775808,"
+                + "\"e\":\"\\u0001😀ñ\",\"f\":[1,-20,true,null]}", s.cerrarObjeto().toString());
+        assertEquals(Map.of("x", "\u0001😀ñ/"), Json.leerObjeto(" { \"x\" : \"\\u0001\\ud83d\\ude00ñ\\/\" } "));
+        assertThrows(IllegalArgumentException.class, () -> Json.leerObjeto("{\"x\":1} extra"));
+    }
+}
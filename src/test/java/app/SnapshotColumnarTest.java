@@ -0,0 +1,116 @@
+package app;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * Pruebas del snapshot columnar mapeado en memoria.
+ * Verifica:
+ *  - Lectura de filas y búsqueda por código sin materializar.
+ *  - Informe disponible apenas se abre.
+ *  - Cambios sobre productos que solo estaban en el archivo (y las vistas ya
+ *    obtenidas los ven).
+ *  - Guardar desde un inventario abierto de un snapshot copia las filas sin
+ *    tocar del archivo, sin materializarlas.
+ */
+class SnapshotColumnarTest {
+
+    @TempDir
+    Path dir;
+
+    private Inventario ejemplo(int n) {
+        Inventario inv = new Inventario();
+        for (int i = 0; i < n; i++) inv.agregarProducto("P" + i, "Prod " + i, i % 2 == 0 ? null : "Desc ñ " + i, i + 0.5, i);
+        return inv;
+    }
+
+    @Test
+    void lee_columnas_y_busca_por_codigo() throws Exception {
+        Path archivo = dir.resolve("inv.snap");
+        ejemplo(10_000).guardarSnapshot(archivo);
+
+        SnapshotColumnar s = SnapshotColumnar.abrir(archivo);
+        assertEquals(10_000, s.filas());
+        int fila = s.buscar("P777");
+        assertTrue(fila >= 0);
+        assertEquals("P777", s.codigo(fila));
+        assertEquals("Desc ñ 777", s.descripcion(fila));
+        assertEquals(777.5, s.precio(fila));
+        assertEquals(777, s.stock(fila));
+        assertNull(s.descripcion(s.buscar("P8")));
+        assertEquals(-1, s.buscar("NO"));
+    }
+
+    @Test
+    void inventario_abre_sin_materializar_y_acepta_cambios() throws Exception {
+        Path archivo = dir.resolve("inv.snap");
+        Inventario original = ejemplo(1000);
+        original.guardarSnapshot(archivo);
+
+        Inventario inv = Inventario.desdeSnapshot(archivo);
+        assertEquals(original.generarInforme(), inv.generarInforme());
+
+        ProductoRO vista = inv.buscarPorCodigo("P10").orElseThrow();
+        assertFalse(vista instanceof Producto, "Debe ser una vista sobre el archivo");
+        assertEquals("Prod 10", vista.getNombre());
+        // Al materializarse y cambiar, la vista ya obtenida sigue al producto
+        assertTrue(inv.actualizarProducto("P10", "Renombrado", null, 12.5, 40));
+        assertEquals("Renombrado", vista.getNombre());
+        assertEquals(40, vista.getStock());
+        assertEquals(inv.buscarPorCodigo("P10").orElseThrow().descripcionDetallada(), vista.descripcionDetallada());
+
+        assertFalse(inv.agregarProducto("P10", "Duplicado", "", 1, 1));
+        assertTrue(inv.actualizarStock("P11", 5));
+        assertEquals(5, inv.buscarPorCodigo("P11").get().getStock());
+        assertTrue(inv.eliminarPorCodigo("P12"));
+        assertTrue(inv.buscarPorCodigo("P12").isEmpty());
+        assertTrue(inv.agregarProducto("NUEVO", "Nuevo", "", 2, 3));
+
+        assertEquals(1, inv.buscarPorNombre("prod 999").size());
+        assertEquals(1000, inv.listarTodos().size());
+
+        // Guardar otra vez desde el inventario reabierto conserva todo
+        Path otro = dir.resolve("otro.snap");
+        inv.guardarSnapshot(otro);
+        assertEquals(inv.generarInforme(), Inventario.desdeSnapshot(otro).generarInforme());
+    }
+
+    @Test
+    void guardar_copia_filas_del_base_sin_materializarlas() throws Exception {
+        Path archivo = dir.resolve("inv.snap");
+        Inventario original = ejemplo(1000);
+        assertTrue(original.moverStock("P20", Depositos.PRINCIPAL, "Norte", 5));
+        original.guardarSnapshot(archivo);
+
+        Inventario inv = Inventario.desdeSnapshot(archivo);
+        assertTrue(inv.actualizarProducto("P10", "Renombrado", null, 12.5, 40));
+        assertTrue(inv.eliminarPorCodigo("P12"));
+        assertTrue(inv.eliminarPorCodigo("P13"));
+        assertTrue(inv.agregarProducto("P13", "Otra alta", "", 3, 3));
+        assertTrue(inv.agregarProducto("NUEVO", "Nuevo", "", 2, 3));
+
+        Path otro = dir.resolve("otro.snap");
+        inv.guardarSnapshot(otro);
+        assertFalse(inv.buscarPorCodigo("P500").orElseThrow() instanceof Producto, "Guardar no debe materializar");
+
+        Inventario copia = Inventario.desdeSnapshot(otro);
+        assertEquals(1000, SnapshotColumnar.abrir(otro).filas());
+        assertEquals(volcado(inv), volcado(copia));
+        assertEquals(inv.generarInforme(), copia.generarInforme());
+        assertEquals(Map.of(Depositos.PRINCIPAL, 15, "Norte", 5), copia.stockPorDeposito("P20"));
+    }
+
+    private static String volcado(Inventario inv) {
+        return inv.listarTodos().stream()
+                .sorted(Comparator.comparing(ProductoRO::getCodigo))
+                .map(ProductoRO::descripcionDetallada)
+                .collect(Collectors.joining("\n"));
+    }
+}